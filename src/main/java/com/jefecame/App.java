@@ -17,6 +17,9 @@ public class App {
     
     private static final Logger logger = LoggerFactory.getLogger(App.class);
     
+    /** Termina después del arranque, para ejecuciones de preparación de AppCDS */
+    private static final boolean SOLO_PREPARAR = Boolean.getBoolean("dreams.arranque.soloPreparar");
+    
     /**
      * Método principal que inicia la aplicación Dreams.
      * 
@@ -28,7 +31,9 @@ public class App {
         try {
             // Inicializar y mostrar el menú de consola
             Tienda Dreams = new Tienda();
-            Dreams.mostrarMenuPrincipal();
+            if (!SOLO_PREPARAR) {
+                Dreams.mostrarMenuPrincipal();
+            }
 
             logger.info("Aplicación Dreams finalizada correctamente");
             
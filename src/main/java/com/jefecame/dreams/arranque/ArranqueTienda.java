@@ -0,0 +1,260 @@
+package com.jefecame.dreams.arranque;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoElectronica;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.ClienteRepository;
+import com.jefecame.dreams.repository.ClienteRepositoryEnMemoria;
+import com.jefecame.dreams.repository.DevolucionRepository;
+import com.jefecame.dreams.repository.Pagina;
+import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
+import com.jefecame.dreams.repository.VentaRepository;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import com.jefecame.dreams.service.VentaService;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fase de arranque de la tienda: carga de datos, índices y calentamiento.
+ *
+ * <ol>
+ *   <li>Carga la instantánea en disco: clientes y productos en paralelo y
+ *       después las ventas y las devoluciones, cada sección por bloques en paralelo.</li>
+ *   <li>Construye a la vez la tabla de hechos, el archivo de detalles de las
+ *       ventas cerradas y las particiones selladas y compactadas de días anteriores.</li>
+ *   <li>Opcionalmente ejecuta ventas sintéticas sobre repositorios desechables
+ *       para que el JIT compile el camino de cobro antes del primer cliente, y
+ *       recorre las lecturas de los repositorios reales.</li>
+ * </ol>
+ *
+ * El tiempo de cada fase queda en {@link #getTiempos()} y en el log.
+ *
+ * Para reducir también la carga de clases en un arranque en frío se puede usar
+ * un archivo AppCDS: una ejecución de preparación con
+ * {@code -XX:ArchiveClassesAtExit=dreams.jsa -Ddreams.arranque.soloPreparar=true}
+ * recorre el arranque completo y termina, y las siguientes ejecuciones usan
+ * {@code -XX:SharedArchiveFile=dreams.jsa}.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ArranqueTienda {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArranqueTienda.class);
+
+    private static final int CLIENTES_CALENTAMIENTO = 16;
+    private static final int PRODUCTOS_CALENTAMIENTO = 32;
+    private static final int LINEAS_POR_VENTA = 3;
+
+    private final ClienteRepository clienteRepository;
+    private final ProductoRepository productoRepository;
+    private final VentaRepository ventaRepository;
+    private final DevolucionRepository devolucionRepository;
+    private final Executor ejecutor;
+    private final Map<String, Long> tiempos;
+
+    /**
+     * Constructor para preparar el arranque sobre los repositorios de la tienda.
+     *
+     * @param clienteRepository repositorio de clientes
+     * @param productoRepository repositorio de productos
+     * @param ventaRepository repositorio de ventas
+     * @param devolucionRepository repositorio de devoluciones
+     * @param ejecutor ejecutor de las tareas de carga, de preferencia con hilos de plataforma
+     */
+    public ArranqueTienda(ClienteRepository clienteRepository, ProductoRepository productoRepository,
+                          VentaRepository ventaRepository, DevolucionRepository devolucionRepository,
+                          Executor ejecutor) {
+        this.clienteRepository = clienteRepository;
+        this.productoRepository = productoRepository;
+        this.ventaRepository = ventaRepository;
+        this.devolucionRepository = devolucionRepository;
+        this.ejecutor = ejecutor;
+        this.tiempos = new LinkedHashMap<>();
+    }
+
+    /**
+     * Carga la instantánea indicada y construye los índices.
+     *
+     * @param archivo instantánea escrita por {@link InstantaneaTienda#escribir}
+     * @throws IllegalArgumentException si el archivo no es una instantánea válida
+     * @throws IOException si falla la lectura
+     */
+    public void cargar(Path archivo) throws IOException {
+        long inicio = System.nanoTime();
+        InstantaneaTienda instantanea = InstantaneaTienda.abrir(archivo);
+        registrar("lectura", inicio);
+
+        inicio = System.nanoTime();
+        CompletableFuture<Integer> clientes = instantanea.cargarClientes(clienteRepository, ejecutor);
+        CompletableFuture<Integer> productos = instantanea.cargarProductos(productoRepository, ejecutor);
+        int clientesCargados = clientes.join();
+        int productosCargados = productos.join();
+        registrar("catalogo", inicio);
+
+        inicio = System.nanoTime();
+        CompletableFuture<Integer> ventas = instantanea.cargarVentas(ventaRepository, clienteRepository::buscarPorId,
+                productoRepository::buscarPorId, ejecutor);
+        CompletableFuture<Integer> devoluciones = instantanea.cargarDevoluciones(devolucionRepository, ejecutor);
+        int ventasCargadas = ventas.join();
+        int devolucionesCargadas = devoluciones.join();
+        registrar("ventas", inicio);
+
+        inicio = System.nanoTime();
+        construirIndices();
+        registrar("indices", inicio);
+
+        logger.info("Instantánea {} cargada: {} clientes, {} productos, {} ventas, {} devoluciones en {} bloques",
+                archivo, clientesCargados, productosCargados, ventasCargadas, devolucionesCargadas,
+                instantanea.contarBloques());
+    }
+
+    /**
+     * Ejecuta ventas sintéticas sobre repositorios desechables y recorre las
+     * lecturas de los repositorios reales sin modificarlos. Las ventas y los
+     * productos sintéticos llevan IDs del rango reservado (negativos), así que
+     * no consumen identificadores aunque otros hilos estén creando entidades
+     * reales al mismo tiempo.
+     *
+     * @param ventas número de ventas sintéticas a ejecutar
+     */
+    public void calentar(int ventas) {
+        if (ventas <= 0) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        int hilos = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), ventas / 100));
+        List<CompletableFuture<Void>> tareas = new ArrayList<>(hilos);
+        for (int h = 0; h < hilos; h++) {
+            int ventasHilo = ventas / hilos + (h < ventas % hilos ? 1 : 0);
+            tareas.add(CompletableFuture.runAsync(() -> cobrarVentasSinteticas(ventasHilo), ejecutor));
+        }
+        tareas.add(CompletableFuture.runAsync(this::recorrerLecturas, ejecutor));
+        CompletableFuture.allOf(tareas.toArray(new CompletableFuture<?>[0])).join();
+        registrar("calentamiento", inicio);
+    }
+
+    /**
+     * Escribe en el log el desglose de tiempos del arranque.
+     */
+    public void reportar() {
+        long total = tiempos.values().stream().mapToLong(Long::longValue).sum();
+        StringBuilder desglose = new StringBuilder();
+        tiempos.forEach((fase, milis) -> desglose.append(fase).append('=').append(milis).append(" ms, "));
+        logger.info("Arranque completado en {} ms ({}archivo CDS: {})", total, desglose, describirArchivoCds());
+    }
+
+    /**
+     * Obtiene el tiempo de cada fase ejecutada, en el orden en que se ejecutó.
+     *
+     * @return milisegundos por fase
+     */
+    public Map<String, Long> getTiempos() {
+        return Collections.unmodifiableMap(tiempos);
+    }
+
+    private void construirIndices() {
+        List<Venta> ventas = ventaRepository.obtenerTodas();
+        CompletableFuture<Void> hechos = CompletableFuture.runAsync(() -> {
+            for (Venta venta : ventas) {
+                if (venta.getEstado() == EstadoVenta.COMPLETADA) {
+                    ventaRepository.registrarVentaFinalizada(venta);
+                }
+            }
+        }, ejecutor);
+        CompletableFuture<Void> detalles = CompletableFuture.runAsync(() -> {
+            for (Venta venta : ventas) {
+                ventaRepository.archivarDetalles(venta, productoRepository::buscarPorId);
+            }
+        }, ejecutor);
+        CompletableFuture<Void> particiones = CompletableFuture.runAsync(
+                () -> ventaRepository.sellarAnterioresA(LocalDate.now()), ejecutor);
+        CompletableFuture.allOf(hechos, detalles, particiones).join();
+    }
+
+    private void cobrarVentasSinteticas(int ventas) {
+        ClienteRepository clientes = new ClienteRepositoryEnMemoria();
+        ProductoRepository productos = new ProductoRepositoryEnMemoria();
+        VentaRepository ventasSinteticas = new VentaRepositoryEnMemoria();
+        VentaService ventaService = new VentaService(ventasSinteticas, productos, clientes);
+
+        // Los clientes llevan id explícito para no adelantar el contador de ClienteService
+        List<Cliente> compradores = new ArrayList<>(CLIENTES_CALENTAMIENTO);
+        for (int i = 0; i < CLIENTES_CALENTAMIENTO; i++) {
+            Cliente comprador = new Cliente(i + 1, "Calentamiento " + i, "calentamiento" + i + "@dreams.mx");
+            clientes.guardar(comprador);
+            compradores.add(comprador);
+        }
+        // Productos y ventas toman IDs negativos, reservados para entidades sintéticas
+        List<Producto> catalogo = new ArrayList<>(PRODUCTOS_CALENTAMIENTO);
+        for (int i = 0; i < PRODUCTOS_CALENTAMIENTO; i++) {
+            Producto producto = i % 2 == 0
+                    ? new ProductoElectronica(-(i + 1), "Electrónico " + i, BigDecimal.valueOf(19_999 + i, 2), Integer.MAX_VALUE / 2, "Marca", "M-" + i)
+                    : new ProductoRopa(-(i + 1), "Prenda " + i, BigDecimal.valueOf(4_999 + i, 2), Integer.MAX_VALUE / 2, "M", "Azul");
+            productos.guardar(producto);
+            catalogo.add(producto);
+        }
+
+        for (int i = 0; i < ventas; i++) {
+            Venta venta = new Venta(-(i + 1), compradores.get(i % compradores.size()), LocalDateTime.now(),
+                    EstadoVenta.PROCESANDO, ventaService.getRegionFiscal(), ventaService.getUbicacion(), List.of());
+            ventasSinteticas.guardar(venta);
+            for (int j = 0; j < LINEAS_POR_VENTA; j++) {
+                ventaService.agregarProductoAVenta(venta, catalogo.get((i * LINEAS_POR_VENTA + j) % catalogo.size()), 1);
+            }
+            // Una de cada diez ventas se cancela para calentar también la devolución de stock
+            if (i % 10 == 9) {
+                ventaService.cancelarVenta(venta);
+            } else {
+                ventaService.finalizarVenta(venta);
+            }
+        }
+        ventaService.obtenerTotalVendido();
+    }
+
+    private void recorrerLecturas() {
+        Pagina<Cliente> clientes = clienteRepository.obtenerPagina(null, 20);
+        for (Cliente cliente : clientes.getElementos()) {
+            clienteRepository.buscarPorId(cliente.getId());
+            ventaRepository.obtenerVentasPorCliente(cliente);
+        }
+        Pagina<Producto> productos = productoRepository.obtenerPagina(null, 20);
+        for (Producto producto : productos.getElementos()) {
+            productoRepository.buscarPorId(producto.getId());
+        }
+        Pagina<Venta> ventas = ventaRepository.obtenerPagina(null, 20);
+        for (Venta venta : ventas.getElementos()) {
+            ventaRepository.buscarPorId(venta.getId());
+        }
+    }
+
+    private void registrar(String fase, long inicioNanos) {
+        tiempos.put(fase, (System.nanoTime() - inicioNanos) / 1_000_000);
+    }
+
+    private static String describirArchivoCds() {
+        for (String argumento : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argumento.startsWith("-XX:SharedArchiveFile=")) {
+                return argumento.substring("-XX:SharedArchiveFile=".length());
+            }
+        }
+        return "no";
+    }
+}
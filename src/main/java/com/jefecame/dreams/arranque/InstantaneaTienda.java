@@ -0,0 +1,280 @@
+package com.jefecame.dreams.arranque;
+
+import com.jefecame.dreams.codec.CodecBinario;
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.ClienteRepository;
+import com.jefecame.dreams.repository.DevolucionRepository;
+import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.VentaRepository;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+
+/**
+ * Instantánea en disco de los clientes, productos, ventas y devoluciones de una tienda.
+ *
+ * El archivo se escribe con el {@link CodecBinario} en cuatro secciones, y cada
+ * sección se divide en bloques que empiezan con su longitud, su número de
+ * elementos y un diccionario de cadenas propio. Así los bloques se pueden
+ * decodificar en paralelo sin leer los anteriores. Los clientes y productos se
+ * cargan primero porque las ventas los referencian por ID. Las devoluciones
+ * solo guardan IDs, así que se cargan a la par de las ventas; sin ellas, tras
+ * reiniciar se podrían volver a devolver unidades ya reembolsadas.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public final class InstantaneaTienda {
+
+    private static final int MAGIA = 0x44524D53;
+    private static final int VERSION_FORMATO = 4;
+    private static final int ELEMENTOS_POR_BLOQUE = 4_096;
+
+    private final Path archivo;
+    private final List<Bloque> bloquesClientes;
+    private final List<Bloque> bloquesProductos;
+    private final List<Bloque> bloquesVentas;
+    private final List<Bloque> bloquesDevoluciones;
+
+    private InstantaneaTienda(Path archivo, List<Bloque> bloquesClientes, List<Bloque> bloquesProductos,
+                              List<Bloque> bloquesVentas, List<Bloque> bloquesDevoluciones) {
+        this.archivo = archivo;
+        this.bloquesClientes = bloquesClientes;
+        this.bloquesProductos = bloquesProductos;
+        this.bloquesVentas = bloquesVentas;
+        this.bloquesDevoluciones = bloquesDevoluciones;
+    }
+
+    /**
+     * Escribe una instantánea con el contenido actual de los repositorios.
+     * Se escribe primero a un archivo temporal que luego reemplaza al destino.
+     *
+     * @param archivo ruta del archivo a escribir
+     * @param clientes repositorio de clientes
+     * @param productos repositorio de productos
+     * @param ventas repositorio de ventas
+     * @param devoluciones repositorio de devoluciones
+     * @return número de bytes escritos
+     * @throws IOException si falla la escritura
+     */
+    public static long escribir(Path archivo, ClienteRepository clientes, ProductoRepository productos,
+                                VentaRepository ventas, DevolucionRepository devoluciones) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        long escritos;
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(2 * Integer.BYTES);
+            cabecera.putInt(MAGIA).putInt(VERSION_FORMATO).flip();
+            escribirCompleto(canal, cabecera);
+            escribirSeccion(canal, clientes.obtenerTodos(), CodecBinario::codificarCliente);
+            escribirSeccion(canal, productos.obtenerTodos(), CodecBinario::codificarProducto);
+            escribirSeccion(canal, ventas.obtenerTodas(), CodecBinario::codificarVenta);
+            escribirSeccion(canal, devoluciones.obtenerTodas(), CodecBinario::codificarDevolucion);
+            canal.force(false);
+            escritos = canal.size();
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return escritos;
+    }
+
+    /**
+     * Abre una instantánea mapeándola en memoria y localiza sus bloques.
+     *
+     * @param archivo ruta del archivo
+     * @return la instantánea lista para cargar
+     * @throws IllegalArgumentException si el archivo no es una instantánea válida
+     * @throws IOException si falla la lectura
+     */
+    public static InstantaneaTienda abrir(Path archivo) throws IOException {
+        ByteBuffer contenido;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            contenido = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        if (contenido.remaining() < 2 * Integer.BYTES || contenido.getInt() != MAGIA) {
+            throw new IllegalArgumentException("El archivo no es una instantánea de Dreams: " + archivo);
+        }
+        int version = contenido.getInt();
+        if (version != VERSION_FORMATO) {
+            throw new IllegalArgumentException("Versión de instantánea no soportada: " + version);
+        }
+        List<Bloque> clientes = leerSeccion(contenido);
+        List<Bloque> productos = leerSeccion(contenido);
+        List<Bloque> ventas = leerSeccion(contenido);
+        List<Bloque> devoluciones = leerSeccion(contenido);
+        return new InstantaneaTienda(archivo, clientes, productos, ventas, devoluciones);
+    }
+
+    /**
+     * Decodifica los bloques de clientes en paralelo y los guarda en el repositorio.
+     *
+     * @param repositorio repositorio de destino
+     * @param ejecutor ejecutor de la decodificación
+     * @return futuro con el número de clientes cargados
+     */
+    public CompletableFuture<Integer> cargarClientes(ClienteRepository repositorio, Executor ejecutor) {
+        return cargarBloques(bloquesClientes, ejecutor, (codec, bloque) -> {
+            repositorio.guardarReplica(codec.decodificarCliente(bloque));
+        });
+    }
+
+    /**
+     * Decodifica los bloques de productos en paralelo y los guarda en el repositorio.
+     *
+     * @param repositorio repositorio de destino
+     * @param ejecutor ejecutor de la decodificación
+     * @return futuro con el número de productos cargados
+     */
+    public CompletableFuture<Integer> cargarProductos(ProductoRepository repositorio, Executor ejecutor) {
+        return cargarBloques(bloquesProductos, ejecutor, (codec, bloque) -> {
+            repositorio.guardarReplica(codec.decodificarProducto(bloque));
+        });
+    }
+
+    /**
+     * Decodifica los bloques de ventas en paralelo y los guarda en el repositorio.
+     * Los clientes y productos referenciados ya deben estar cargados.
+     *
+     * @param repositorio repositorio de destino
+     * @param clientes función que resuelve un cliente por su ID
+     * @param productos función que resuelve un producto por su ID
+     * @param ejecutor ejecutor de la decodificación
+     * @return futuro con el número de ventas cargadas
+     */
+    public CompletableFuture<Integer> cargarVentas(VentaRepository repositorio, IntFunction<Cliente> clientes,
+                                                   IntFunction<Producto> productos, Executor ejecutor) {
+        return cargarBloques(bloquesVentas, ejecutor, (codec, bloque) -> {
+            repositorio.guardarReplica(codec.decodificarVenta(bloque, clientes, productos));
+        });
+    }
+
+    /**
+     * Decodifica los bloques de devoluciones en paralelo y los guarda en el repositorio.
+     *
+     * @param repositorio repositorio de destino
+     * @param ejecutor ejecutor de la decodificación
+     * @return futuro con el número de devoluciones cargadas
+     */
+    public CompletableFuture<Integer> cargarDevoluciones(DevolucionRepository repositorio, Executor ejecutor) {
+        return cargarBloques(bloquesDevoluciones, ejecutor, (codec, bloque) -> {
+            repositorio.guardarReplica(codec.decodificarDevolucion(bloque));
+        });
+    }
+
+    /**
+     * Obtiene la ruta del archivo de la instantánea.
+     *
+     * @return la ruta del archivo
+     */
+    public Path getArchivo() {
+        return archivo;
+    }
+
+    /**
+     * Obtiene el número total de bloques de la instantánea.
+     *
+     * @return número de bloques de las cuatro secciones
+     */
+    public int contarBloques() {
+        return bloquesClientes.size() + bloquesProductos.size() + bloquesVentas.size() + bloquesDevoluciones.size();
+    }
+
+    /**
+     * Bloque de la instantánea con su propio diccionario de cadenas.
+     */
+    private static final class Bloque {
+
+        private final int cantidad;
+        private final ByteBuffer datos;
+
+        Bloque(int cantidad, ByteBuffer datos) {
+            this.cantidad = cantidad;
+            this.datos = datos;
+        }
+    }
+
+    private interface Codificador<T> {
+        void codificar(CodecBinario codec, T valor, ByteBuffer destino);
+    }
+
+    private interface Decodificador {
+        void decodificar(CodecBinario codec, ByteBuffer bloque);
+    }
+
+    private static <T> void escribirSeccion(FileChannel canal, List<T> elementos, Codificador<T> codificador)
+            throws IOException {
+        int numeroBloques = (elementos.size() + ELEMENTOS_POR_BLOQUE - 1) / ELEMENTOS_POR_BLOQUE;
+        ByteBuffer cabecera = ByteBuffer.allocate(Integer.BYTES);
+        cabecera.putInt(numeroBloques).flip();
+        escribirCompleto(canal, cabecera);
+
+        CodecBinario codec = new CodecBinario();
+        int capacidad = 64 * 1024;
+        for (int inicio = 0; inicio < elementos.size(); inicio += ELEMENTOS_POR_BLOQUE) {
+            List<T> bloque = elementos.subList(inicio, Math.min(elementos.size(), inicio + ELEMENTOS_POR_BLOQUE));
+            while (true) {
+                ByteBuffer destino = ByteBuffer.allocate(capacidad);
+                try {
+                    destino.position(2 * Integer.BYTES);
+                    codec.reiniciarDiccionario();
+                    for (T elemento : bloque) {
+                        codificador.codificar(codec, elemento, destino);
+                    }
+                    destino.putInt(0, destino.position() - 2 * Integer.BYTES);
+                    destino.putInt(Integer.BYTES, bloque.size());
+                    destino.flip();
+                    escribirCompleto(canal, destino);
+                    break;
+                } catch (BufferOverflowException e) {
+                    capacidad *= 2;
+                }
+            }
+        }
+    }
+
+    private static List<Bloque> leerSeccion(ByteBuffer contenido) {
+        int numeroBloques = contenido.getInt();
+        List<Bloque> bloques = new ArrayList<>(numeroBloques);
+        for (int i = 0; i < numeroBloques; i++) {
+            int longitud = contenido.getInt();
+            int cantidad = contenido.getInt();
+            bloques.add(new Bloque(cantidad, contenido.slice(contenido.position(), longitud)));
+            contenido.position(contenido.position() + longitud);
+        }
+        return bloques;
+    }
+
+    private static CompletableFuture<Integer> cargarBloques(List<Bloque> bloques, Executor ejecutor,
+                                                            Decodificador decodificador) {
+        List<CompletableFuture<Integer>> tareas = new ArrayList<>(bloques.size());
+        for (Bloque bloque : bloques) {
+            ByteBuffer datos = bloque.datos.duplicate();
+            tareas.add(CompletableFuture.supplyAsync(() -> {
+                CodecBinario codec = new CodecBinario();
+                for (int j = 0; j < bloque.cantidad; j++) {
+                    decodificador.decodificar(codec, datos);
+                }
+                return bloque.cantidad;
+            }, ejecutor));
+        }
+        return CompletableFuture.allOf(tareas.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignorado -> tareas.stream().mapToInt(CompletableFuture::join).sum());
+    }
+
+    private static void escribirCompleto(FileChannel canal, ByteBuffer contenido) throws IOException {
+        while (contenido.hasRemaining()) {
+            canal.write(contenido);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.jefecame.dreams.benchmark;
+
+import com.jefecame.dreams.busqueda.Coincidencia;
+import com.jefecame.dreams.busqueda.IndiceDifuso;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmark de la búsqueda aproximada del {@link IndiceDifuso}.
+ *
+ * Indexa en paralelo un catálogo sintético de nombres y mide la latencia de
+ * búsquedas con errores de escritura (una letra cambiada, omitida o
+ * transpuesta) y de búsquedas por prefijo, con el tope de resultados que usa
+ * la tienda. También cuenta cuántas veces el producto del que se tomó la
+ * consulta aparece entre los resultados.
+ *
+ * Uso: {@code java -cp ... com.jefecame.dreams.benchmark.BenchmarkBusqueda [entradas] [consultas]}
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class BenchmarkBusqueda {
+
+    private static final int ENTRADAS_POR_DEFECTO = 1_000_000;
+    private static final int CONSULTAS_POR_DEFECTO = 20_000;
+    private static final int RESULTADOS = 10;
+
+    private static final String[] TIPOS = {"Camisa", "Pantalón", "Televisor", "Audífonos", "Chamarra", "Tenis",
+        "Refrigerador", "Licuadora", "Vestido", "Sudadera", "Laptop", "Celular", "Bocina", "Playera", "Falda",
+        "Cafetera", "Monitor", "Teclado", "Bolsa", "Cinturón"};
+    private static final String[] ATRIBUTOS = {"Azul", "Rojo", "Negro", "Blanco", "Verde", "Algodón", "Mezclilla",
+        "Inalámbrico", "Deportivo", "Casual", "Formal", "Infantil", "Premium", "Básico", "Estampado"};
+    private static final String[] MARCAS = {"Dreams", "Norte", "Solaris", "Andina", "Pacífico", "Volcán", "Maya",
+        "Sierra", "Aurora", "Quetzal", "Jaguar", "Cenote"};
+
+    /**
+     * Ejecuta el benchmark.
+     *
+     * @param args número de entradas y de consultas (opcionales)
+     */
+    public static void main(String[] args) {
+        int numeroEntradas = args.length > 0 ? Integer.parseInt(args[0]) : ENTRADAS_POR_DEFECTO;
+        int consultas = args.length > 1 ? Integer.parseInt(args[1]) : CONSULTAS_POR_DEFECTO;
+
+        Random aleatorio = new Random(42);
+        String[] nombres = new String[numeroEntradas];
+        for (int i = 0; i < numeroEntradas; i++) {
+            nombres[i] = TIPOS[aleatorio.nextInt(TIPOS.length)] + " " + ATRIBUTOS[aleatorio.nextInt(ATRIBUTOS.length)]
+                    + " " + MARCAS[aleatorio.nextInt(MARCAS.length)] + " " + Integer.toString(i, 36);
+        }
+
+        IndiceDifuso<Integer> indice = new IndiceDifuso<>(Integer::intValue, id -> nombres[id]);
+        List<Integer> ids = IntStream.range(0, numeroEntradas).boxed().toList();
+        long inicio = System.nanoTime();
+        indice.construir(ids, ForkJoinPool.commonPool());
+        long construccion = System.nanoTime() - inicio;
+
+        System.out.printf("Entradas: %d, consultas: %d, resultados por consulta: %d%n",
+                numeroEntradas, consultas, RESULTADOS);
+        System.out.printf("Construcción en paralelo: %8.1f ms%n", construccion / 1e6);
+
+        // Calentamiento
+        medir(indice, nombres, consultas / 4, new Random(7), false);
+
+        medir(indice, nombres, consultas, new Random(1), false);
+        medir(indice, nombres, consultas, new Random(2), true);
+    }
+
+    private static void medir(IndiceDifuso<Integer> indice, String[] nombres, int consultas, Random aleatorio,
+                              boolean reportar) {
+        long[] latencias = new long[consultas];
+        long encontradas = 0;
+        long aciertos = 0;
+        for (int c = 0; c < consultas; c++) {
+            int objetivo = aleatorio.nextInt(nombres.length);
+            String[] palabras = nombres[objetivo].split(" ");
+            String consulta;
+            if (c % 2 == 0) {
+                // Tipo y atributo o marca, uno de ellos con un error de escritura, más el código
+                String palabra = palabras[1 + aleatorio.nextInt(2)];
+                consulta = aleatorio.nextBoolean()
+                        ? conError(palabras[0], aleatorio) + " " + palabra + " " + palabras[3]
+                        : palabras[0] + " " + conError(palabra, aleatorio) + " " + palabras[3];
+            } else {
+                // La marca completa más el inicio del código
+                consulta = palabras[2] + " " + palabras[3].substring(0, Math.min(palabras[3].length(), Math.max(2, palabras[3].length() - 1)));
+            }
+            long antes = System.nanoTime();
+            List<Coincidencia> resultado = indice.buscar(consulta, RESULTADOS);
+            latencias[c] = System.nanoTime() - antes;
+            encontradas += resultado.size();
+            for (Coincidencia coincidencia : resultado) {
+                if (coincidencia.getId() == objetivo) {
+                    aciertos++;
+                    break;
+                }
+            }
+        }
+        if (!reportar) {
+            return;
+        }
+        Arrays.sort(latencias);
+        System.out.printf("Latencia (errores y prefijos): p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, máx %.3f ms%n",
+                latencias[consultas / 2] / 1e6, latencias[(int) (consultas * 0.99)] / 1e6,
+                latencias[(int) (consultas * 0.999)] / 1e6, latencias[consultas - 1] / 1e6);
+        System.out.printf("Resultados por consulta: %.1f, consultas con la entrada buscada en los resultados: %.1f%%%n",
+                (double) encontradas / consultas, 100.0 * aciertos / consultas);
+    }
+
+    private static String conError(String palabra, Random aleatorio) {
+        if (palabra.length() < 5) {
+            return palabra;
+        }
+        int posicion = 1 + aleatorio.nextInt(palabra.length() - 2);
+        StringBuilder resultado = new StringBuilder(palabra);
+        switch (aleatorio.nextInt(3)) {
+            case 0 -> resultado.setCharAt(posicion, (char) ('a' + aleatorio.nextInt(26)));
+            case 1 -> resultado.deleteCharAt(posicion);
+            default -> {
+                char letra = resultado.charAt(posicion);
+                resultado.setCharAt(posicion, resultado.charAt(posicion + 1));
+                resultado.setCharAt(posicion + 1, letra);
+            }
+        }
+        return resultado.toString();
+    }
+}
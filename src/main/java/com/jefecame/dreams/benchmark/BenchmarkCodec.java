@@ -0,0 +1,245 @@
+package com.jefecame.dreams.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.jefecame.dreams.codec.CodecBinario;
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoElectronica;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.RegionFiscal;
+import com.jefecame.dreams.model.Venta;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Benchmark de ida y vuelta del {@link CodecBinario} frente a JSON con Jackson.
+ *
+ * Genera un lote de ventas sintéticas y mide el tiempo de codificar y
+ * decodificar el lote completo con cada formato, además del tamaño resultante.
+ * Los dos formatos llevan los mismos campos: la venta con su cliente por ID y
+ * cada línea con su producto por ID, cantidad, precio y descuento en centavos
+ * y tasa de impuesto.
+ * Los dos reinician su estado en cada venta, como al escribir tramas de
+ * replicación o registros del libro, y los dos decodifican hasta objetos
+ * {@link Venta} resolviendo clientes y productos por ID. JSON se escribe y se
+ * lee con la API de streaming de Jackson, sin árboles intermedios.
+ *
+ * Uso: {@code java -cp ... com.jefecame.dreams.benchmark.BenchmarkCodec [ventas] [rondas]}
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class BenchmarkCodec {
+
+    private static final int VENTAS_POR_DEFECTO = 10_000;
+    private static final int RONDAS_POR_DEFECTO = 20;
+
+    /**
+     * Ejecuta el benchmark.
+     *
+     * @param args número de ventas y número de rondas (opcionales)
+     * @throws IOException si falla la lectura o escritura de JSON
+     */
+    public static void main(String[] args) throws IOException {
+        int numeroVentas = args.length > 0 ? Integer.parseInt(args[0]) : VENTAS_POR_DEFECTO;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : RONDAS_POR_DEFECTO;
+
+        Map<Integer, Cliente> clientes = new HashMap<>();
+        Map<Integer, Producto> productos = new HashMap<>();
+        List<Venta> ventas = generarVentas(numeroVentas, clientes, productos);
+
+        JsonFactory fabrica = new JsonFactory();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024 * 1024);
+        ByteArrayOutputStream json = new ByteArrayOutputStream(64 * 1024 * 1024);
+        CodecBinario codificador = new CodecBinario();
+        CodecBinario decodificador = new CodecBinario();
+
+        long mejorBinario = Long.MAX_VALUE;
+        long mejorJson = Long.MAX_VALUE;
+        long bytesBinario = 0;
+        long bytesJson = 0;
+        long control = 0;
+
+        for (int ronda = 0; ronda < rondas; ronda++) {
+            long inicio = System.nanoTime();
+            buffer.clear();
+            for (Venta venta : ventas) {
+                codificador.reiniciarDiccionario();
+                codificador.codificarVenta(venta, buffer);
+            }
+            bytesBinario = buffer.position();
+            buffer.flip();
+            for (int i = 0; i < ventas.size(); i++) {
+                decodificador.reiniciarDiccionario();
+                control += decodificador.decodificarVenta(buffer, clientes::get, productos::get).getTotalCentavos();
+            }
+            mejorBinario = Math.min(mejorBinario, System.nanoTime() - inicio);
+
+            inicio = System.nanoTime();
+            json.reset();
+            try (JsonGenerator generador = fabrica.createGenerator(json)) {
+                for (Venta venta : ventas) {
+                    escribirJson(venta, generador);
+                }
+            }
+            bytesJson = json.size();
+            try (JsonParser lector = fabrica.createParser(json.toByteArray())) {
+                for (int i = 0; i < ventas.size(); i++) {
+                    control -= leerJson(lector, clientes::get, productos::get).getTotalCentavos();
+                }
+            }
+            mejorJson = Math.min(mejorJson, System.nanoTime() - inicio);
+        }
+        if (control != 0) {
+            throw new IllegalStateException("Los dos formatos decodificaron totales distintos");
+        }
+
+        System.out.printf("Ventas por lote: %d, rondas: %d%n", numeroVentas, rondas);
+        System.out.printf("Binario: %8.2f ms  %10d bytes%n", mejorBinario / 1e6, bytesBinario);
+        System.out.printf("JSON:    %8.2f ms  %10d bytes%n", mejorJson / 1e6, bytesJson);
+        System.out.printf("Aceleración: %.1fx, reducción de tamaño: %.1fx%n",
+                (double) mejorJson / mejorBinario, (double) bytesJson / bytesBinario);
+    }
+
+    private static void escribirJson(Venta venta, JsonGenerator generador) throws IOException {
+        generador.writeStartObject();
+        generador.writeNumberField("id", venta.getId());
+        generador.writeNumberField("version", venta.getVersion());
+        generador.writeNumberField("cliente", venta.getIdCliente());
+        generador.writeNumberField("fecha", venta.getFechaCreacion().toEpochSecond(ZoneOffset.UTC));
+        generador.writeNumberField("nanos", venta.getFechaCreacion().getNano());
+        generador.writeNumberField("estado", venta.getEstado().ordinal());
+        generador.writeNumberField("region", venta.getRegionFiscal().ordinal());
+        generador.writeNumberField("ubicacion", venta.getUbicacion());
+        generador.writeArrayFieldStart("lineas");
+        for (DetalleVenta detalle : venta.getLineas()) {
+            generador.writeStartObject();
+            generador.writeNumberField("id", detalle.getId());
+            generador.writeNumberField("producto", detalle.getIdProducto());
+            generador.writeNumberField("cantidad", detalle.getCantidad());
+            generador.writeNumberField("precio", centavos(detalle.getPrecioUnitario()));
+            generador.writeNumberField("descuento", centavos(detalle.getDescuento()));
+            generador.writeNumberField("tasa", detalle.getTasaImpuesto());
+            generador.writeEndObject();
+        }
+        generador.writeEndArray();
+        generador.writeEndObject();
+    }
+
+    private static Venta leerJson(JsonParser lector, IntFunction<Cliente> clientes, IntFunction<Producto> productos)
+            throws IOException {
+        esperar(lector.nextToken(), JsonToken.START_OBJECT);
+        int id = 0;
+        long version = 0;
+        Cliente cliente = null;
+        long segundos = 0;
+        int nanos = 0;
+        EstadoVenta estado = EstadoVenta.PROCESANDO;
+        RegionFiscal region = RegionFiscal.GENERAL;
+        int ubicacion = 0;
+        List<DetalleVenta> detalles = new ArrayList<>();
+        while (lector.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = lector.currentName();
+            lector.nextToken();
+            switch (campo) {
+                case "id" -> id = lector.getIntValue();
+                case "version" -> version = lector.getLongValue();
+                case "cliente" -> cliente = clientes.apply(lector.getIntValue());
+                case "fecha" -> segundos = lector.getLongValue();
+                case "nanos" -> nanos = lector.getIntValue();
+                case "estado" -> estado = EstadoVenta.values()[lector.getIntValue()];
+                case "region" -> region = RegionFiscal.values()[lector.getIntValue()];
+                case "ubicacion" -> ubicacion = lector.getIntValue();
+                case "lineas" -> {
+                    while (lector.nextToken() == JsonToken.START_OBJECT) {
+                        detalles.add(leerDetalleJson(lector, id, productos));
+                    }
+                }
+                default -> lector.skipChildren();
+            }
+        }
+        Venta venta = new Venta(id, cliente, LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC), estado,
+                region, ubicacion, detalles);
+        venta.setVersion(version);
+        return venta;
+    }
+
+    private static DetalleVenta leerDetalleJson(JsonParser lector, int idVenta, IntFunction<Producto> productos)
+            throws IOException {
+        int id = 0;
+        Producto producto = null;
+        int cantidad = 0;
+        long precio = 0;
+        long descuento = 0;
+        int tasa = 0;
+        while (lector.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = lector.currentName();
+            lector.nextToken();
+            switch (campo) {
+                case "id" -> id = lector.getIntValue();
+                case "producto" -> producto = productos.apply(lector.getIntValue());
+                case "cantidad" -> cantidad = lector.getIntValue();
+                case "precio" -> precio = lector.getLongValue();
+                case "descuento" -> descuento = lector.getLongValue();
+                case "tasa" -> tasa = lector.getIntValue();
+                default -> lector.skipChildren();
+            }
+        }
+        return new DetalleVenta(id, producto, idVenta, cantidad, BigDecimal.valueOf(precio, 2),
+                BigDecimal.valueOf(descuento, 2), tasa);
+    }
+
+    private static void esperar(JsonToken leido, JsonToken esperado) throws IOException {
+        if (leido != esperado) {
+            throw new IOException("Se esperaba " + esperado + " pero se leyó " + leido);
+        }
+    }
+
+    private static long centavos(BigDecimal importe) {
+        return importe.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static List<Venta> generarVentas(int numeroVentas, Map<Integer, Cliente> clientes,
+                                             Map<Integer, Producto> productos) {
+        Random aleatorio = new Random(42);
+        List<Producto> catalogo = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Producto producto = i % 2 == 0
+                    ? new ProductoElectronica("Electrónico " + i, BigDecimal.valueOf(100 + i, 2).movePointRight(2), 1_000_000, "Marca " + (i % 20), "M-" + i)
+                    : new ProductoRopa("Prenda " + i, BigDecimal.valueOf(2_999 + i, 2), 1_000_000, "M", "Color " + (i % 12));
+            catalogo.add(producto);
+            productos.put(producto.getId(), producto);
+        }
+        for (int i = 1; i <= 1_000; i++) {
+            clientes.put(i, new Cliente(i, "Cliente " + i, "cliente" + i + "@dreams.mx"));
+        }
+
+        List<Venta> ventas = new ArrayList<>(numeroVentas);
+        for (int i = 0; i < numeroVentas; i++) {
+            Venta venta = new Venta(clientes.get(1 + aleatorio.nextInt(clientes.size())));
+            int lineas = 1 + aleatorio.nextInt(5);
+            for (int j = 0; j < lineas; j++) {
+                venta.agregarProducto(catalogo.get(aleatorio.nextInt(catalogo.size())), 1 + aleatorio.nextInt(3));
+            }
+            venta.finalizarVenta();
+            ventas.add(venta);
+        }
+        return ventas;
+    }
+}
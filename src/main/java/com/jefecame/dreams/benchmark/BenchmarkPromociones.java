@@ -0,0 +1,175 @@
+package com.jefecame.dreams.benchmark;
+
+import com.jefecame.dreams.model.CategoriaProducto;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoElectronica;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.promocion.MotorPromociones;
+import com.jefecame.dreams.promocion.Promocion;
+import com.jefecame.dreams.promocion.PromocionNxM;
+import com.jefecame.dreams.promocion.PromocionPorcentaje;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark del {@link MotorPromociones} con miles de promociones simultáneas.
+ *
+ * Registra promociones porcentuales, NxM y por categoría sobre un catálogo
+ * sintético y mide el tiempo de compilar la tabla de precios y el costo por
+ * consulta con varios hilos a la vez. Como referencia, mide también el costo
+ * de recorrer todas las promociones en cada consulta, que es lo que haría el
+ * servicio sin tabla compilada.
+ *
+ * Uso: {@code java -cp ... com.jefecame.dreams.benchmark.BenchmarkPromociones [promociones] [hilos] [consultas]}
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class BenchmarkPromociones {
+
+    private static final int PROMOCIONES_POR_DEFECTO = 5_000;
+    private static final int HILOS_POR_DEFECTO = 8;
+    private static final int CONSULTAS_POR_DEFECTO = 2_000_000;
+    private static final int PRODUCTOS = 10_000;
+
+    /**
+     * Ejecuta el benchmark.
+     *
+     * @param args número de promociones, hilos y consultas por hilo (opcionales)
+     * @throws InterruptedException si se interrumpe la espera de los hilos
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int numeroPromociones = args.length > 0 ? Integer.parseInt(args[0]) : PROMOCIONES_POR_DEFECTO;
+        int hilos = args.length > 1 ? Integer.parseInt(args[1]) : HILOS_POR_DEFECTO;
+        int consultas = args.length > 2 ? Integer.parseInt(args[2]) : CONSULTAS_POR_DEFECTO;
+
+        Random aleatorio = new Random(42);
+        List<Producto> catalogo = generarCatalogo();
+        List<Promocion> promociones = generarPromociones(numeroPromociones, catalogo, aleatorio);
+
+        MotorPromociones motor = new MotorPromociones();
+        long inicio = System.nanoTime();
+        motor.agregarPromociones(promociones);
+        long compilacion = System.nanoTime() - inicio;
+
+        // Una promoción más provoca una recompilación completa
+        inicio = System.nanoTime();
+        motor.agregarPromocion(new PromocionPorcentaje("Extra", BigDecimal.ONE,
+                LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1), CategoriaProducto.ROPA));
+        long recompilacion = System.nanoTime() - inicio;
+
+        System.out.printf("Promociones: %d (%d activas), productos: %d, hilos: %d%n",
+                numeroPromociones + 1, motor.contarPromocionesActivas(), catalogo.size(), hilos);
+        System.out.printf("Compilación inicial: %8.2f ms%n", compilacion / 1e6);
+        System.out.printf("Recompilación:       %8.2f ms%n", recompilacion / 1e6);
+
+        // Calentamiento
+        medir(hilos, consultas / 10, catalogo, (producto, cantidad) -> motor.calcularDescuento(producto, cantidad));
+
+        double nsTabla = medir(hilos, consultas, catalogo,
+                (producto, cantidad) -> motor.calcularDescuento(producto, cantidad));
+        int consultasRecorrido = Math.max(1, consultas / 1_000);
+        double nsRecorrido = medir(hilos, consultasRecorrido, catalogo,
+                (producto, cantidad) -> recorrer(promociones, producto));
+
+        System.out.printf("Tabla compilada:         %10.1f ns/consulta%n", nsTabla);
+        System.out.printf("Recorrido de promociones: %9.1f ns/consulta%n", nsRecorrido);
+        System.out.printf("Aceleración: %.0fx%n", nsRecorrido / nsTabla);
+    }
+
+    private interface Consulta {
+        Object ejecutar(Producto producto, int cantidad);
+    }
+
+    /**
+     * Ejecuta las consultas en varios hilos y devuelve el costo medio por consulta.
+     */
+    private static double medir(int hilos, int consultasPorHilo, List<Producto> catalogo, Consulta consulta)
+            throws InterruptedException {
+        CountDownLatch salida = new CountDownLatch(1);
+        CountDownLatch llegada = new CountDownLatch(hilos);
+        LongAdder resultados = new LongAdder();
+        List<Thread> trabajadores = new ArrayList<>(hilos);
+        for (int h = 0; h < hilos; h++) {
+            int semilla = h;
+            Thread hilo = new Thread(() -> {
+                Random aleatorio = new Random(semilla);
+                int acumulado = 0;
+                try {
+                    salida.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < consultasPorHilo; i++) {
+                    Producto producto = catalogo.get(aleatorio.nextInt(catalogo.size()));
+                    if (consulta.ejecutar(producto, 1 + (i & 3)) != null) {
+                        acumulado++;
+                    }
+                }
+                resultados.add(acumulado);
+                llegada.countDown();
+            });
+            trabajadores.add(hilo);
+            hilo.start();
+        }
+        long inicio = System.nanoTime();
+        salida.countDown();
+        llegada.await();
+        long transcurrido = System.nanoTime() - inicio;
+        for (Thread hilo : trabajadores) {
+            hilo.join();
+        }
+        return (double) transcurrido * hilos / Math.max(1, resultados.sum());
+    }
+
+    private static Promocion recorrer(List<Promocion> promociones, Producto producto) {
+        long ahora = System.currentTimeMillis();
+        Promocion encontrada = null;
+        for (Promocion promocion : promociones) {
+            if (promocion.estaVigente(ahora) && promocion.aplicaA(producto)) {
+                encontrada = promocion;
+            }
+        }
+        return encontrada != null ? encontrada : promociones.get(0);
+    }
+
+    private static List<Producto> generarCatalogo() {
+        List<Producto> catalogo = new ArrayList<>(PRODUCTOS);
+        for (int i = 0; i < PRODUCTOS; i++) {
+            catalogo.add(i % 2 == 0
+                    ? new ProductoElectronica("Electrónico " + i, BigDecimal.valueOf(10_000 + i, 2), 1_000_000, "Marca", "M-" + i)
+                    : new ProductoRopa("Prenda " + i, BigDecimal.valueOf(2_999 + i, 2), 1_000_000, "M", "Azul"));
+        }
+        return catalogo;
+    }
+
+    private static List<Promocion> generarPromociones(int numero, List<Producto> catalogo, Random aleatorio) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Promocion> promociones = new ArrayList<>(numero);
+        for (int i = 0; i < numero; i++) {
+            // Una de cada cuatro promociones todavía no empieza
+            LocalDateTime inicio = i % 4 == 0 ? ahora.plusDays(1 + aleatorio.nextInt(30)) : ahora.minusDays(1 + aleatorio.nextInt(30));
+            LocalDateTime fin = inicio.plusDays(60);
+            Set<Integer> productos = new HashSet<>();
+            for (int j = 0; j < 1 + aleatorio.nextInt(20); j++) {
+                productos.add(catalogo.get(aleatorio.nextInt(catalogo.size())).getId());
+            }
+            switch (i % 10) {
+                case 0 -> promociones.add(new PromocionPorcentaje("Categoría " + i, BigDecimal.valueOf(1 + aleatorio.nextInt(30)),
+                        inicio, fin, CategoriaProducto.values()[aleatorio.nextInt(CategoriaProducto.values().length)]));
+                case 1, 2, 3 -> promociones.add(new PromocionNxM("NxM " + i, 3, 2, inicio, fin, productos));
+                default -> promociones.add(new PromocionPorcentaje("Porcentaje " + i, BigDecimal.valueOf(5 + aleatorio.nextInt(50)),
+                        inicio, fin, productos));
+            }
+        }
+        return promociones;
+    }
+}
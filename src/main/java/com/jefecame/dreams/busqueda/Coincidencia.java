@@ -0,0 +1,54 @@
+package com.jefecame.dreams.busqueda;
+
+/**
+ * Resultado de una búsqueda aproximada en un {@link IndiceDifuso}.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public final class Coincidencia {
+
+    private final int id;
+    private final int distancia;
+    private final int palabrasExactas;
+
+    /**
+     * Constructor para crear una coincidencia.
+     *
+     * @param id identificador de la entidad encontrada
+     * @param distancia suma de las distancias de edición de las palabras buscadas
+     * @param palabrasExactas número de palabras buscadas que aparecen completas y sin errores
+     */
+    public Coincidencia(int id, int distancia, int palabrasExactas) {
+        this.id = id;
+        this.distancia = distancia;
+        this.palabrasExactas = palabrasExactas;
+    }
+
+    /**
+     * Obtiene el identificador de la entidad encontrada.
+     *
+     * @return identificador de la entidad
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Obtiene la distancia de edición de la coincidencia.
+     *
+     * @return suma de las distancias de edición, 0 si no hubo errores
+     */
+    public int getDistancia() {
+        return distancia;
+    }
+
+    /**
+     * Obtiene el número de palabras buscadas que aparecen completas.
+     *
+     * @return palabras que coinciden completas y sin errores
+     */
+    public int getPalabrasExactas() {
+        return palabrasExactas;
+    }
+}
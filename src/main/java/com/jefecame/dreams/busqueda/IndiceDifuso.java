@@ -0,0 +1,609 @@
+package com.jefecame.dreams.busqueda;
+
+import com.jefecame.dreams.repository.OyenteRepositorio;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Índice de trigramas para búsquedas tolerantes a errores de escritura.
+ *
+ * El texto de cada entidad se normaliza (minúsculas, sin acentos, solo letras
+ * y dígitos) y se divide en palabras; cada palabra aporta sus trigramas a
+ * listas de IDs. Una palabra buscada coincide con una palabra indexada si su
+ * distancia de edición contra algún prefijo de ella, contando una
+ * transposición como un solo error, no pasa de un límite que crece con su
+ * longitud (0 hasta 4 letras, 1 hasta 7 y 2 desde 8). Así, "camsia" encuentra
+ * "Camisa" y "cami" encuentra "Camisa Azul".
+ *
+ * Un error altera a lo más cuatro trigramas, por lo que toda coincidencia con
+ * distancia d conserva al menos uno de los 4d+1 trigramas menos comunes de la
+ * palabra buscada. Solo se verifican los IDs de esas listas, con un tope de
+ * candidatos que acota la latencia aunque el índice tenga millones de
+ * entradas; las palabras de 8 letras con dos errores tienen un trigrama menos
+ * que los necesarios y pueden perder alguna coincidencia. Los resultados se
+ * ordenan por distancia, luego por número de palabras completas y luego por ID.
+ *
+ * El índice se construye en paralelo con {@link #construir} y se mantiene
+ * al día como oyente del repositorio. El texto se lee dentro del bloqueo de
+ * la entrada, así que un aviso atrasado indexa el texto vigente en lugar de
+ * uno anterior. Una entrada que reaparece por un aviso tardío de una entidad
+ * eliminada solo agrega un candidato que quien busca descarta al no
+ * encontrarlo en el repositorio.
+ *
+ * @param <T> tipo de las entidades indexadas
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class IndiceDifuso<T> implements OyenteRepositorio<T> {
+
+    /** Número máximo de candidatos que se verifican por búsqueda por defecto */
+    public static final int LIMITE_CANDIDATOS_POR_DEFECTO = 2_000;
+
+    private static final int ALFABETO = 37;
+    private static final int TRIGRAMAS = ALFABETO * ALFABETO * ALFABETO;
+    private static final byte SEPARADOR = 0;
+    private static final int ENTIDADES_POR_TAREA = 10_000;
+    private static final Comparator<Coincidencia> PEOR_PRIMERO =
+            Comparator.comparingInt(Coincidencia::getDistancia)
+                    .thenComparing(Comparator.comparingInt(Coincidencia::getPalabrasExactas).reversed())
+                    .thenComparingInt(Coincidencia::getId)
+                    .reversed();
+
+    private final ToIntFunction<T> identificador;
+    private final Function<T, String> texto;
+    private final int limiteCandidatos;
+    private final ConcurrentHashMap<Integer, Entrada> entradas;
+    private final AtomicReferenceArray<ListaIds> listas;
+
+    /**
+     * Constructor con el tope de candidatos por defecto.
+     *
+     * @param identificador función que obtiene el ID de una entidad
+     * @param texto función que obtiene el texto a indexar de una entidad
+     */
+    public IndiceDifuso(ToIntFunction<T> identificador, Function<T, String> texto) {
+        this(identificador, texto, LIMITE_CANDIDATOS_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor para crear un índice vacío.
+     *
+     * @param identificador función que obtiene el ID de una entidad
+     * @param texto función que obtiene el texto a indexar de una entidad
+     * @param limiteCandidatos número máximo de candidatos que se verifican por búsqueda
+     * @throws IllegalArgumentException si alguna función es nula o el límite no es positivo
+     */
+    public IndiceDifuso(ToIntFunction<T> identificador, Function<T, String> texto, int limiteCandidatos) {
+        if (identificador == null || texto == null) {
+            throw new IllegalArgumentException("Las funciones de ID y de texto no pueden ser nulas");
+        }
+        if (limiteCandidatos < 1) {
+            throw new IllegalArgumentException("El límite de candidatos debe ser mayor a 0");
+        }
+        this.identificador = identificador;
+        this.texto = texto;
+        this.limiteCandidatos = limiteCandidatos;
+        this.entradas = new ConcurrentHashMap<>();
+        this.listas = new AtomicReferenceArray<>(TRIGRAMAS);
+    }
+
+    /**
+     * Indexa en paralelo las entidades indicadas.
+     * Cada tarea agrupa sus trigramas localmente y los agrega a las listas
+     * compartidas en bloque. Las entidades ya indexadas se conservan.
+     *
+     * @param entidades entidades a indexar
+     * @param ejecutor ejecutor de las tareas de indexación
+     */
+    public void construir(Collection<? extends T> entidades, Executor ejecutor) {
+        List<T> pendientes = new ArrayList<>(entidades);
+        List<CompletableFuture<Void>> tareas = new ArrayList<>();
+        for (int inicio = 0; inicio < pendientes.size(); inicio += ENTIDADES_POR_TAREA) {
+            List<T> parte = pendientes.subList(inicio, Math.min(pendientes.size(), inicio + ENTIDADES_POR_TAREA));
+            tareas.add(CompletableFuture.runAsync(() -> indexarBloque(parte), ejecutor));
+        }
+        CompletableFuture.allOf(tareas.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    @Override
+    public void alGuardar(T entidad) {
+        entradas.compute(identificador.applyAsInt(entidad), (id, anterior) -> {
+            String textoNuevo = texto.apply(entidad);
+            // Los cambios de stock o de estado no tocan el texto indexado
+            if (anterior != null && anterior.texto.equals(textoNuevo)) {
+                return anterior;
+            }
+            Entrada nueva = new Entrada(textoNuevo);
+            int[] viejos = anterior != null ? anterior.trigramas : new int[0];
+            for (int trigrama : viejos) {
+                if (Arrays.binarySearch(nueva.trigramas, trigrama) < 0) {
+                    lista(trigrama).quitar(id);
+                }
+            }
+            for (int trigrama : nueva.trigramas) {
+                if (Arrays.binarySearch(viejos, trigrama) < 0) {
+                    lista(trigrama).agregar(id);
+                }
+            }
+            return nueva;
+        });
+    }
+
+    @Override
+    public void alEliminar(T entidad) {
+        entradas.computeIfPresent(identificador.applyAsInt(entidad), (clave, anterior) -> {
+            for (int trigrama : anterior.trigramas) {
+                lista(trigrama).quitar(clave);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Busca las entidades cuyo texto se parece al indicado.
+     *
+     * @param consulta texto a buscar, con una o más palabras
+     * @param limite número máximo de resultados
+     * @return coincidencias ordenadas de la mejor a la peor
+     * @throws IllegalArgumentException si el límite no es positivo
+     */
+    public List<Coincidencia> buscar(String consulta, int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite de resultados debe ser mayor a 0");
+        }
+        byte[][] palabras = normalizar(consulta == null ? "" : consulta);
+        int[][] requeridos = new int[palabras.length][];
+        for (int i = 0; i < palabras.length; i++) {
+            requeridos[i] = trigramasRequeridos(palabras[i]);
+        }
+        int[] candidatos = candidatos(requeridos);
+        if (candidatos.length == 0) {
+            return List.of();
+        }
+
+        int[][] filas = new int[3][];
+        PriorityQueue<Coincidencia> mejores = new PriorityQueue<>(Math.min(limite, 1024) + 1, PEOR_PRIMERO);
+        int perfectas = 0;
+        for (int id : candidatos) {
+            Entrada entrada = entradas.get(id);
+            Coincidencia coincidencia = entrada != null && entrada.contieneAlguno(requeridos)
+                    ? evaluar(id, entrada, palabras, filas) : null;
+            if (coincidencia == null) {
+                continue;
+            }
+            mejores.add(coincidencia);
+            if (mejores.size() > limite) {
+                mejores.poll();
+            }
+            // Los candidatos llegan en orden de ID, así que ninguno posterior
+            // puede desplazar a una coincidencia exacta en todas las palabras
+            if (coincidencia.getDistancia() == 0 && coincidencia.getPalabrasExactas() == palabras.length
+                    && ++perfectas >= limite) {
+                break;
+            }
+        }
+
+        Coincidencia[] resultado = mejores.toArray(new Coincidencia[0]);
+        Arrays.sort(resultado, PEOR_PRIMERO.reversed());
+        return List.of(resultado);
+    }
+
+    /**
+     * Obtiene el número de entidades indexadas.
+     *
+     * @return número de entradas del índice
+     */
+    public int contarEntradas() {
+        return entradas.size();
+    }
+
+    private void indexarBloque(List<T> entidades) {
+        ListaIds[] locales = new ListaIds[TRIGRAMAS];
+        for (T entidad : entidades) {
+            int id = identificador.applyAsInt(entidad);
+            Entrada entrada = new Entrada(texto.apply(entidad));
+            if (entradas.putIfAbsent(id, entrada) != null) {
+                continue;
+            }
+            for (int trigrama : entrada.trigramas) {
+                if (locales[trigrama] == null) {
+                    locales[trigrama] = new ListaIds();
+                }
+                locales[trigrama].agregar(id);
+            }
+        }
+        for (int trigrama = 0; trigrama < TRIGRAMAS; trigrama++) {
+            if (locales[trigrama] != null) {
+                lista(trigrama).agregarTodos(locales[trigrama]);
+            }
+        }
+    }
+
+    /**
+     * Elige los 4d+1 trigramas menos comunes de una palabra buscada; toda
+     * coincidencia contiene al menos uno. Devuelve null para palabras de una
+     * letra, que solo se verifican.
+     */
+    private int[] trigramasRequeridos(byte[] palabra) {
+        if (palabra.length < 2) {
+            return null;
+        }
+        // El último trigrama incluye el fin de palabra y no aparece cuando la
+        // palabra buscada es solo un prefijo, así que se usa solo si faltan
+        int[] trigramas = trigramas(palabra, true);
+        Integer[] orden = new Integer[trigramas.length - 1];
+        for (int i = 0; i < orden.length; i++) {
+            orden[i] = trigramas[i];
+        }
+        Arrays.sort(orden, Comparator.comparingInt(this::tamanoLista));
+        int necesarios = Math.min(trigramas.length, 4 * distanciaMaxima(palabra.length) + 1);
+        int[] elegidos = new int[necesarios];
+        for (int i = 0; i < necesarios; i++) {
+            elegidos[i] = i < orden.length ? orden[i] : trigramas[trigramas.length - 1];
+        }
+        return elegidos;
+    }
+
+    /**
+     * Reúne los IDs de las listas de la palabra cuyos trigramas requeridos
+     * producen menos candidatos, hasta el tope de candidatos.
+     */
+    private int[] candidatos(int[][] requeridos) {
+        int[] mejores = null;
+        long costoMinimo = Long.MAX_VALUE;
+        for (int[] trigramas : requeridos) {
+            if (trigramas == null) {
+                continue;
+            }
+            long costo = 0;
+            for (int trigrama : trigramas) {
+                costo += tamanoLista(trigrama);
+            }
+            if (costo < costoMinimo) {
+                costoMinimo = costo;
+                mejores = trigramas;
+            }
+        }
+        if (mejores == null) {
+            return new int[0];
+        }
+
+        int[] ids = new int[(int) Math.min(costoMinimo, limiteCandidatos)];
+        int cantidad = 0;
+        for (int trigrama : mejores) {
+            ListaIds lista = listas.get(trigrama);
+            if (lista != null && cantidad < ids.length) {
+                cantidad += lista.copiarEn(ids, cantidad);
+            }
+        }
+        Arrays.sort(ids, 0, cantidad);
+        int unicos = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (unicos == 0 || ids[unicos - 1] != ids[i]) {
+                ids[unicos++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, unicos);
+    }
+
+    private static Coincidencia evaluar(int id, Entrada entrada, byte[][] palabras, int[][] filas) {
+        int distanciaTotal = 0;
+        int exactas = 0;
+        for (byte[] buscada : palabras) {
+            int maxima = distanciaMaxima(buscada.length);
+            int mejor = maxima + 1;
+            boolean exacta = false;
+            for (byte[] indexada : entrada.palabras) {
+                if (indexada.length < buscada.length - maxima) {
+                    continue;
+                }
+                int distancia = distanciaPrefijo(buscada, indexada, maxima, filas);
+                if (distancia == 0 && buscada.length == indexada.length) {
+                    mejor = 0;
+                    exacta = true;
+                    break;
+                }
+                mejor = Math.min(mejor, distancia);
+            }
+            if (mejor > maxima) {
+                return null;
+            }
+            distanciaTotal += mejor;
+            if (exacta) {
+                exactas++;
+            }
+        }
+        return new Coincidencia(id, distanciaTotal, exactas);
+    }
+
+    /**
+     * Distancia de edición, contando una transposición como un solo error,
+     * entre la palabra buscada y el prefijo de la palabra indexada que más se
+     * le parece. Deja de calcular en cuanto la distancia supera la máxima y
+     * devuelve maxima + 1. Las filas de trabajo se reutilizan entre llamadas.
+     */
+    static int distanciaPrefijo(byte[] buscada, byte[] indexada, int maxima, int[][] filas) {
+        if (esPrefijo(buscada, indexada)) {
+            return 0;
+        }
+        if (maxima == 0) {
+            return 1;
+        }
+        int columnas = indexada.length + 1;
+        if (filas[0] == null || filas[0].length < columnas) {
+            for (int k = 0; k < filas.length; k++) {
+                filas[k] = new int[Math.max(columnas, 32)];
+            }
+        }
+        int[] antepenultima = filas[0];
+        int[] anterior = filas[1];
+        int[] actual = filas[2];
+        for (int j = 0; j < columnas; j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= buscada.length; i++) {
+            actual[0] = i;
+            int minimoFila = i;
+            for (int j = 1; j < columnas; j++) {
+                int valor = Math.min(anterior[j - 1] + (buscada[i - 1] == indexada[j - 1] ? 0 : 1),
+                        Math.min(anterior[j], actual[j - 1]) + 1);
+                if (i > 1 && j > 1 && buscada[i - 1] == indexada[j - 2] && buscada[i - 2] == indexada[j - 1]) {
+                    valor = Math.min(valor, antepenultima[j - 2] + 1);
+                }
+                actual[j] = valor;
+                minimoFila = Math.min(minimoFila, valor);
+            }
+            if (minimoFila > maxima) {
+                return maxima + 1;
+            }
+            int[] intercambio = antepenultima;
+            antepenultima = anterior;
+            anterior = actual;
+            actual = intercambio;
+        }
+        int minimo = maxima + 1;
+        for (int j = 0; j < columnas; j++) {
+            minimo = Math.min(minimo, anterior[j]);
+        }
+        return minimo;
+    }
+
+    private static boolean esPrefijo(byte[] buscada, byte[] indexada) {
+        if (buscada.length > indexada.length) {
+            return false;
+        }
+        for (int i = 0; i < buscada.length; i++) {
+            if (buscada[i] != indexada[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int distanciaMaxima(int longitud) {
+        if (longitud >= 8) {
+            return 2;
+        }
+        return longitud >= 5 ? 1 : 0;
+    }
+
+    /**
+     * Divide un texto en palabras normalizadas: cada carácter se codifica como
+     * 1-26 (letras sin acento) o 27-36 (dígitos), y el resto separa palabras.
+     */
+    static byte[][] normalizar(String texto) {
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        List<byte[]> palabras = new ArrayList<>();
+        byte[] actual = new byte[descompuesto.length()];
+        int longitud = 0;
+        for (int i = 0; i <= descompuesto.length(); i++) {
+            char caracter = i < descompuesto.length() ? descompuesto.charAt(i) : ' ';
+            if (Character.getType(caracter) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            byte codigo = codificar(caracter);
+            if (codigo != SEPARADOR) {
+                actual[longitud++] = codigo;
+            } else if (longitud > 0) {
+                palabras.add(Arrays.copyOf(actual, longitud));
+                longitud = 0;
+            }
+        }
+        return palabras.toArray(new byte[0][]);
+    }
+
+    private static byte codificar(char caracter) {
+        char minuscula = Character.toLowerCase(caracter);
+        if (minuscula >= 'a' && minuscula <= 'z') {
+            return (byte) (minuscula - 'a' + 1);
+        }
+        if (caracter >= '0' && caracter <= '9') {
+            return (byte) (caracter - '0' + 27);
+        }
+        return SEPARADOR;
+    }
+
+    /**
+     * Trigramas de una palabra rodeada de separadores, opcionalmente sin el
+     * último, que es el único que cruza el fin de palabra.
+     */
+    private static int[] trigramas(byte[] palabra, boolean incluirFinal) {
+        int cantidad = incluirFinal ? palabra.length : palabra.length - 1;
+        int[] resultado = new int[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            int primero = i == 0 ? SEPARADOR : palabra[i - 1];
+            int tercero = i + 1 < palabra.length ? palabra[i + 1] : SEPARADOR;
+            resultado[i] = (primero * ALFABETO + palabra[i]) * ALFABETO + tercero;
+        }
+        return resultado;
+    }
+
+    private int tamanoLista(int trigrama) {
+        ListaIds lista = listas.get(trigrama);
+        return lista != null ? lista.tamano() : 0;
+    }
+
+    private ListaIds lista(int trigrama) {
+        ListaIds lista = listas.get(trigrama);
+        if (lista == null) {
+            listas.compareAndSet(trigrama, null, new ListaIds());
+            lista = listas.get(trigrama);
+        }
+        return lista;
+    }
+
+    /**
+     * Texto indexado de una entidad con sus palabras y sus trigramas únicos ordenados.
+     */
+    private static final class Entrada {
+
+        private final String texto;
+        private final byte[][] palabras;
+        private final int[] trigramas;
+
+        Entrada(String texto) {
+            this.texto = texto == null ? "" : texto;
+            this.palabras = normalizar(this.texto);
+            int total = 0;
+            for (byte[] palabra : palabras) {
+                total += palabra.length;
+            }
+            int[] todos = new int[total];
+            int cantidad = 0;
+            for (byte[] palabra : palabras) {
+                int[] propios = IndiceDifuso.trigramas(palabra, true);
+                System.arraycopy(propios, 0, todos, cantidad, propios.length);
+                cantidad += propios.length;
+            }
+            Arrays.sort(todos, 0, cantidad);
+            int unicos = 0;
+            for (int i = 0; i < cantidad; i++) {
+                if (unicos == 0 || todos[unicos - 1] != todos[i]) {
+                    todos[unicos++] = todos[i];
+                }
+            }
+            this.trigramas = Arrays.copyOf(todos, unicos);
+        }
+
+        /**
+         * Indica si la entrada contiene al menos uno de los trigramas
+         * requeridos de cada palabra buscada.
+         */
+        boolean contieneAlguno(int[][] requeridos) {
+            for (int[] trigramasPalabra : requeridos) {
+                if (trigramasPalabra == null) {
+                    continue;
+                }
+                boolean contiene = false;
+                for (int trigrama : trigramasPalabra) {
+                    if (Arrays.binarySearch(trigramas, trigrama) >= 0) {
+                        contiene = true;
+                        break;
+                    }
+                }
+                if (!contiene) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Lista de IDs de un trigrama ordenada y sin repetidos que crece por
+     * bloques. Los IDs nuevos suelen ser mayores que todos los presentes y se
+     * agregan al final; quitar localiza el ID por búsqueda binaria.
+     */
+    private static final class ListaIds {
+
+        private int[] ids = new int[4];
+        private volatile int tamano;
+
+        synchronized void agregar(int id) {
+            int posicion = tamano;
+            if (tamano > 0 && ids[tamano - 1] >= id) {
+                posicion = Arrays.binarySearch(ids, 0, tamano, id);
+                if (posicion >= 0) {
+                    return;
+                }
+                posicion = -posicion - 1;
+            }
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            System.arraycopy(ids, posicion, ids, posicion + 1, tamano - posicion);
+            ids[posicion] = id;
+            tamano = tamano + 1;
+        }
+
+        synchronized void agregarTodos(ListaIds otra) {
+            int[] suyos;
+            int cantidad;
+            synchronized (otra) {
+                suyos = otra.ids;
+                cantidad = otra.tamano;
+            }
+            if (cantidad == 0) {
+                return;
+            }
+            if (tamano == 0 || ids[tamano - 1] < suyos[0]) {
+                int requerido = tamano + cantidad;
+                if (requerido > ids.length) {
+                    ids = Arrays.copyOf(ids, Math.max(requerido, ids.length * 2));
+                }
+                System.arraycopy(suyos, 0, ids, tamano, cantidad);
+                tamano = requerido;
+                return;
+            }
+            // Mezcla de dos listas ordenadas descartando los IDs repetidos
+            int[] mezcla = new int[Math.max(tamano + cantidad, ids.length)];
+            int i = 0;
+            int j = 0;
+            int total = 0;
+            while (i < tamano || j < cantidad) {
+                int siguiente;
+                if (j == cantidad || (i < tamano && ids[i] <= suyos[j])) {
+                    siguiente = ids[i++];
+                    if (j < cantidad && suyos[j] == siguiente) {
+                        j++;
+                    }
+                } else {
+                    siguiente = suyos[j++];
+                }
+                mezcla[total++] = siguiente;
+            }
+            ids = mezcla;
+            tamano = total;
+        }
+
+        synchronized void quitar(int id) {
+            int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+            if (posicion < 0) {
+                return;
+            }
+            System.arraycopy(ids, posicion + 1, ids, posicion, tamano - posicion - 1);
+            tamano = tamano - 1;
+        }
+
+        synchronized int copiarEn(int[] destino, int desde) {
+            int cantidad = Math.min(tamano, destino.length - desde);
+            System.arraycopy(ids, 0, destino, desde, cantidad);
+            return cantidad;
+        }
+
+        int tamano() {
+            return tamano;
+        }
+    }
+}
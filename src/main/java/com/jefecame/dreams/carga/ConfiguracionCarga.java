@@ -0,0 +1,386 @@
+package com.jefecame.dreams.carga;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Configuración de una prueba de carga leída de un archivo de propiedades.
+ *
+ * Claves reconocidas (entre paréntesis el valor por defecto):
+ * <ul>
+ *   <li>{@code hilos} (8), {@code hilos.virtuales} (false)</li>
+ *   <li>{@code tasa}: sesiones por segundo entre todos los hilos, 0 sin límite (0)</li>
+ *   <li>{@code duracion.segundos} (10), {@code sesiones}: máximo de sesiones, 0 sin límite (0)</li>
+ *   <li>{@code calentamiento.segundos}: tiempo inicial que no se mide (0)</li>
+ *   <li>{@code tiendas}: tiendas de la red entre las que se reparten los hilos (1)</li>
+ *   <li>{@code semilla} (42), {@code clientes.iniciales} (100), {@code productos.iniciales} (50)</li>
+ *   <li>{@code mezcla.cliente}, {@code mezcla.producto}, {@code mezcla.venta}: pesos relativos de
+ *       cada tipo de sesión aleatoria (2, 1, 97)</li>
+ *   <li>{@code venta.lineas.minimo} (1), {@code venta.lineas.maximo} (5), {@code venta.cantidad.maximo} (3)</li>
+ *   <li>{@code venta.probabilidadRemover} (0.1), {@code venta.probabilidadCancelar} (0.1)</li>
+ *   <li>{@code guion}: archivo con sesiones a repetir en orden en lugar de generarlas al azar;
+ *       la ruta es relativa al archivo de configuración</li>
+ *   <li>{@code asignaciones}: mide los bytes asignados por cada llamada a los servicios (false)</li>
+ *   <li>{@code presupuesto.<operacion>}: bytes asignados en promedio que una operación, con su
+ *       nombre en minúsculas (por ejemplo {@code presupuesto.agregar_linea}), no debe superar;
+ *       activa la medición de asignaciones</li>
+ * </ul>
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ConfiguracionCarga {
+
+    private static final String RECURSO_POR_DEFECTO = "/carga/carga.properties";
+
+    private final int hilos;
+    private final boolean hilosVirtuales;
+    private final double tasa;
+    private final int duracionSegundos;
+    private final long sesiones;
+    private final int calentamientoSegundos;
+    private final int tiendas;
+    private final long semilla;
+    private final int clientesIniciales;
+    private final int productosIniciales;
+    private final int pesoCliente;
+    private final int pesoProducto;
+    private final int pesoVenta;
+    private final int lineasMinimo;
+    private final int lineasMaximo;
+    private final int cantidadMaximo;
+    private final double probabilidadRemover;
+    private final double probabilidadCancelar;
+    private final List<SesionCarga> guion;
+    private final boolean asignaciones;
+    private final Map<OperacionCarga, Long> presupuestos;
+
+    /**
+     * Constructor que lee y valida las propiedades.
+     *
+     * @param propiedades propiedades de la prueba
+     * @param guion sesiones del guion, o lista vacía para generar sesiones al azar
+     * @throws IllegalArgumentException si algún valor es inválido
+     */
+    public ConfiguracionCarga(Properties propiedades, List<SesionCarga> guion) {
+        this.hilos = entero(propiedades, "hilos", 8);
+        this.hilosVirtuales = Boolean.parseBoolean(propiedades.getProperty("hilos.virtuales", "false").trim());
+        this.tasa = decimal(propiedades, "tasa", 0);
+        this.duracionSegundos = entero(propiedades, "duracion.segundos", 10);
+        this.sesiones = Long.parseLong(propiedades.getProperty("sesiones", "0").trim());
+        this.calentamientoSegundos = entero(propiedades, "calentamiento.segundos", 0);
+        this.tiendas = entero(propiedades, "tiendas", 1);
+        this.semilla = Long.parseLong(propiedades.getProperty("semilla", "42").trim());
+        this.clientesIniciales = entero(propiedades, "clientes.iniciales", 100);
+        this.productosIniciales = entero(propiedades, "productos.iniciales", 50);
+        this.pesoCliente = entero(propiedades, "mezcla.cliente", 2);
+        this.pesoProducto = entero(propiedades, "mezcla.producto", 1);
+        this.pesoVenta = entero(propiedades, "mezcla.venta", 97);
+        this.lineasMinimo = entero(propiedades, "venta.lineas.minimo", 1);
+        this.lineasMaximo = entero(propiedades, "venta.lineas.maximo", 5);
+        this.cantidadMaximo = entero(propiedades, "venta.cantidad.maximo", 3);
+        this.probabilidadRemover = decimal(propiedades, "venta.probabilidadRemover", 0.1);
+        this.probabilidadCancelar = decimal(propiedades, "venta.probabilidadCancelar", 0.1);
+        this.guion = Collections.unmodifiableList(new ArrayList<>(guion));
+        EnumMap<OperacionCarga, Long> leidos = new EnumMap<>(OperacionCarga.class);
+        for (OperacionCarga operacion : OperacionCarga.values()) {
+            String clave = "presupuesto." + operacion.name().toLowerCase(Locale.ROOT);
+            long presupuesto = largo(propiedades, clave, -1);
+            if (presupuesto >= 0) {
+                leidos.put(operacion, presupuesto);
+            } else if (propiedades.getProperty(clave) != null) {
+                throw new IllegalArgumentException("El presupuesto de " + operacion + " no puede ser negativo");
+            }
+        }
+        this.presupuestos = Collections.unmodifiableMap(leidos);
+        this.asignaciones = !leidos.isEmpty()
+                || Boolean.parseBoolean(propiedades.getProperty("asignaciones", "false").trim());
+
+        if (hilos < 1) {
+            throw new IllegalArgumentException("Se requiere al menos un hilo");
+        }
+        if (tiendas < 1) {
+            throw new IllegalArgumentException("Se requiere al menos una tienda");
+        }
+        if (tasa < 0) {
+            throw new IllegalArgumentException("La tasa no puede ser negativa");
+        }
+        if (duracionSegundos < 1 && sesiones < 1) {
+            throw new IllegalArgumentException("Se requiere una duración o un número de sesiones");
+        }
+        if (pesoCliente < 0 || pesoProducto < 0 || pesoVenta < 0 || pesoCliente + pesoProducto + pesoVenta == 0) {
+            throw new IllegalArgumentException("Los pesos de la mezcla deben ser no negativos y sumar más de cero");
+        }
+        if (lineasMinimo < 1 || lineasMaximo < lineasMinimo || cantidadMaximo < 1) {
+            throw new IllegalArgumentException("El número de líneas o la cantidad por línea es inválido");
+        }
+        if (clientesIniciales < 1 || productosIniciales < 1) {
+            throw new IllegalArgumentException("Se requiere al menos un cliente y un producto inicial");
+        }
+    }
+
+    /**
+     * Lee la configuración de un archivo de propiedades y, si lo indica, su guion.
+     *
+     * @param archivo archivo de propiedades
+     * @return la configuración
+     * @throws IOException si falla la lectura
+     * @throws IllegalArgumentException si algún valor o línea del guion es inválido
+     */
+    public static ConfiguracionCarga cargar(Path archivo) throws IOException {
+        Properties propiedades = new Properties();
+        try (Reader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            propiedades.load(lector);
+        }
+        List<SesionCarga> guion = List.of();
+        String rutaGuion = propiedades.getProperty("guion", "").trim();
+        if (!rutaGuion.isEmpty()) {
+            Path base = archivo.toAbsolutePath().getParent();
+            guion = SesionCarga.leerGuion(base.resolve(rutaGuion));
+        }
+        return new ConfiguracionCarga(propiedades, guion);
+    }
+
+    /**
+     * Obtiene la configuración de ejemplo incluida en el classpath.
+     *
+     * @return la configuración por defecto
+     * @throws IOException si falla la lectura del recurso
+     */
+    public static ConfiguracionCarga porDefecto() throws IOException {
+        Properties propiedades = new Properties();
+        try (InputStream entrada = ConfiguracionCarga.class.getResourceAsStream(RECURSO_POR_DEFECTO)) {
+            if (entrada != null) {
+                propiedades.load(entrada);
+            }
+        }
+        return new ConfiguracionCarga(propiedades, List.of());
+    }
+
+    private static int entero(Properties propiedades, String clave, int porDefecto) {
+        String valor = propiedades.getProperty(clave);
+        try {
+            return valor == null ? porDefecto : Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido para " + clave + ": " + valor);
+        }
+    }
+
+    private static long largo(Properties propiedades, String clave, long porDefecto) {
+        String valor = propiedades.getProperty(clave);
+        try {
+            return valor == null ? porDefecto : Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido para " + clave + ": " + valor);
+        }
+    }
+
+    private static double decimal(Properties propiedades, String clave, double porDefecto) {
+        String valor = propiedades.getProperty(clave);
+        try {
+            return valor == null ? porDefecto : Double.parseDouble(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido para " + clave + ": " + valor);
+        }
+    }
+
+    /**
+     * Obtiene el número de hilos de carga.
+     *
+     * @return número de hilos de carga
+     */
+    public int getHilos() {
+        return hilos;
+    }
+
+    /**
+     * Obtiene el número de tiendas entre las que se reparten los hilos.
+     *
+     * @return número de tiendas que venden durante la prueba
+     */
+    public int getTiendas() {
+        return tiendas;
+    }
+
+    /**
+     * Indica si los hilos de carga son virtuales.
+     *
+     * @return true si los hilos de carga son virtuales
+     */
+    public boolean isHilosVirtuales() {
+        return hilosVirtuales;
+    }
+
+    /**
+     * Obtiene la tasa objetivo de sesiones.
+     *
+     * @return sesiones por segundo objetivo, 0 sin límite
+     */
+    public double getTasa() {
+        return tasa;
+    }
+
+    /**
+     * Obtiene la duración de la prueba.
+     *
+     * @return duración de la prueba en segundos
+     */
+    public int getDuracionSegundos() {
+        return duracionSegundos;
+    }
+
+    /**
+     * Obtiene el máximo de sesiones de la prueba.
+     *
+     * @return máximo de sesiones, 0 sin límite
+     */
+    public long getSesiones() {
+        return sesiones;
+    }
+
+    /**
+     * Obtiene la duración del calentamiento.
+     *
+     * @return segundos iniciales que no se miden
+     */
+    public int getCalentamientoSegundos() {
+        return calentamientoSegundos;
+    }
+
+    /**
+     * Obtiene la semilla de los generadores aleatorios.
+     *
+     * @return semilla de los generadores aleatorios
+     */
+    public long getSemilla() {
+        return semilla;
+    }
+
+    /**
+     * Obtiene el número de clientes iniciales.
+     *
+     * @return clientes creados antes de medir
+     */
+    public int getClientesIniciales() {
+        return clientesIniciales;
+    }
+
+    /**
+     * Obtiene el número de productos iniciales.
+     *
+     * @return productos creados antes de medir
+     */
+    public int getProductosIniciales() {
+        return productosIniciales;
+    }
+
+    /**
+     * Obtiene el peso de las sesiones de alta de cliente.
+     *
+     * @return peso de las sesiones de alta de cliente
+     */
+    public int getPesoCliente() {
+        return pesoCliente;
+    }
+
+    /**
+     * Obtiene el peso de las sesiones de alta de producto.
+     *
+     * @return peso de las sesiones de alta de producto
+     */
+    public int getPesoProducto() {
+        return pesoProducto;
+    }
+
+    /**
+     * Obtiene el peso de las sesiones de venta.
+     *
+     * @return peso de las sesiones de venta
+     */
+    public int getPesoVenta() {
+        return pesoVenta;
+    }
+
+    /**
+     * Obtiene el mínimo de líneas por venta.
+     *
+     * @return mínimo de líneas por venta
+     */
+    public int getLineasMinimo() {
+        return lineasMinimo;
+    }
+
+    /**
+     * Obtiene el máximo de líneas por venta.
+     *
+     * @return máximo de líneas por venta
+     */
+    public int getLineasMaximo() {
+        return lineasMaximo;
+    }
+
+    /**
+     * Obtiene la cantidad máxima por línea.
+     *
+     * @return cantidad máxima por línea
+     */
+    public int getCantidadMaximo() {
+        return cantidadMaximo;
+    }
+
+    /**
+     * Obtiene la probabilidad de remover una línea.
+     *
+     * @return probabilidad de remover una línea de cada venta
+     */
+    public double getProbabilidadRemover() {
+        return probabilidadRemover;
+    }
+
+    /**
+     * Obtiene la probabilidad de cancelar una venta.
+     *
+     * @return probabilidad de cancelar cada venta
+     */
+    public double getProbabilidadCancelar() {
+        return probabilidadCancelar;
+    }
+
+    /**
+     * Obtiene las sesiones del guion.
+     *
+     * @return sesiones del guion, vacía si se generan al azar
+     */
+    public List<SesionCarga> getGuion() {
+        return guion;
+    }
+
+    /**
+     * Indica si se miden los bytes asignados por cada operación.
+     *
+     * @return true si la medición de asignaciones está activa
+     */
+    public boolean isAsignaciones() {
+        return asignaciones;
+    }
+
+    /**
+     * Obtiene los presupuestos de asignación por operación.
+     *
+     * @return bytes asignados en promedio permitidos por operación; solo incluye las configuradas
+     */
+    public Map<OperacionCarga, Long> getPresupuestos() {
+        return presupuestos;
+    }
+}
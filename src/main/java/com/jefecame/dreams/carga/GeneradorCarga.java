@@ -0,0 +1,454 @@
+package com.jefecame.dreams.carga;
+
+import com.jefecame.dreams.inventario.RedUbicaciones;
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoElectronica;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.ClienteRepository;
+import com.jefecame.dreams.repository.ClienteRepositoryEnMemoria;
+import com.jefecame.dreams.repository.FiltroBloomContador;
+import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
+import com.jefecame.dreams.repository.VentaRepository;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import com.jefecame.dreams.service.ClienteService;
+import com.jefecame.dreams.service.ProductoService;
+import com.jefecame.dreams.service.VentaService;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generador de carga sin interfaz para los flujos de la {@link com.jefecame.dreams.view.Tienda}.
+ *
+ * Varios hilos ejecutan sesiones (altas de clientes y productos, y ventas con
+ * líneas agregadas, removidas, finalizadas o canceladas) llamando a los mismos
+ * servicios que usa la tienda. Con una tasa objetivo, cada hilo programa sus
+ * sesiones a intervalos fijos y la latencia de la sesión se mide desde su
+ * inicio programado, de modo que un servicio lento no oculta la espera que
+ * habría sufrido un cliente real.
+ *
+ * Al terminar reporta el rendimiento, los percentiles de latencia por
+ * operación, las operaciones rechazadas por el servicio y las excepciones.
+ * Con {@code asignaciones=true} también mide los bytes asignados por cada
+ * llamada a un servicio (ver {@link PerfilAsignaciones}); si alguna operación
+ * excede su presupuesto, el proceso termina con código 1.
+ *
+ * Los hilos se reparten entre las primeras {@code tiendas} ubicaciones de la
+ * red, y cada uno vende siempre en la misma tienda.
+ *
+ * Uso: {@code java -cp ... com.jefecame.dreams.carga.GeneradorCarga [carga.properties]}
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class GeneradorCarga {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneradorCarga.class);
+
+    private static final int STOCK_INICIAL = 1_000_000;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final ConfiguracionCarga configuracion;
+    private final ClienteService clienteService;
+    private final ProductoService productoService;
+    private final VentaService ventaService;
+    private final Map<OperacionCarga, HistogramaLatencias> latencias;
+    private final Map<OperacionCarga, LongAdder> rechazos;
+    private final Map<OperacionCarga, LongAdder> errores;
+    private final ConcurrentHashMap<String, LongAdder> erroresPorTipo;
+    private final List<Cliente> clientes;
+    private final List<Producto> productos;
+    private final AtomicLong sesionesIniciadas;
+    private final AtomicLong indiceGuion;
+    private final AtomicLong contadorAltas;
+    private final PerfilAsignaciones perfilAsignaciones;
+
+    /**
+     * Constructor para crear un generador sobre los servicios indicados.
+     *
+     * @param configuracion configuración de la prueba
+     * @param clienteService servicio de clientes
+     * @param productoService servicio de productos
+     * @param ventaService servicio de ventas
+     */
+    public GeneradorCarga(ConfiguracionCarga configuracion, ClienteService clienteService,
+                          ProductoService productoService, VentaService ventaService) {
+        this.configuracion = configuracion;
+        this.clienteService = clienteService;
+        this.productoService = productoService;
+        this.ventaService = ventaService;
+        this.latencias = new EnumMap<>(OperacionCarga.class);
+        this.rechazos = new EnumMap<>(OperacionCarga.class);
+        this.errores = new EnumMap<>(OperacionCarga.class);
+        for (OperacionCarga operacion : OperacionCarga.values()) {
+            latencias.put(operacion, new HistogramaLatencias());
+            rechazos.put(operacion, new LongAdder());
+            errores.put(operacion, new LongAdder());
+        }
+        this.erroresPorTipo = new ConcurrentHashMap<>();
+        this.clientes = Collections.synchronizedList(new ArrayList<>());
+        this.productos = Collections.synchronizedList(new ArrayList<>());
+        this.sesionesIniciadas = new AtomicLong();
+        this.indiceGuion = new AtomicLong();
+        this.contadorAltas = new AtomicLong();
+        this.perfilAsignaciones = configuracion.isAsignaciones() ? new PerfilAsignaciones() : null;
+    }
+
+    /**
+     * Ejecuta una prueba de carga sobre repositorios nuevos en memoria.
+     *
+     * @param args ruta del archivo de configuración (opcional)
+     * @throws IOException si falla la lectura de la configuración
+     * @throws InterruptedException si se interrumpe la espera de los hilos
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ConfiguracionCarga configuracion = args.length > 0
+                ? ConfiguracionCarga.cargar(Path.of(args[0]))
+                : ConfiguracionCarga.porDefecto();
+
+        ClienteRepository clienteRepository = new ClienteRepositoryEnMemoria();
+        ProductoRepository productoRepository = new ProductoRepositoryEnMemoria();
+        VentaRepository ventaRepository = new VentaRepositoryEnMemoria();
+        GeneradorCarga generador = new GeneradorCarga(configuracion,
+                new ClienteService(clienteRepository),
+                new ProductoService(productoRepository),
+                new VentaService(ventaRepository, productoRepository, clienteRepository));
+
+        generador.preparar();
+        long duracion = generador.ejecutar();
+        generador.imprimirReporte(System.out, duracion);
+
+        List<String> excedidos = generador.verificarPresupuestos();
+        if (!excedidos.isEmpty()) {
+            System.out.println("Presupuestos de asignación excedidos:");
+            excedidos.forEach(excedido -> System.out.println("  " + excedido));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Crea los clientes y productos iniciales sin medirlos.
+     */
+    public void preparar() {
+        if (contarTiendas() < configuracion.getTiendas()) {
+            logger.warn("La red solo tiene {} tiendas; se usarán todas", contarTiendas());
+        }
+        Random aleatorio = new Random(configuracion.getSemilla());
+        for (int i = 0; i < configuracion.getClientesIniciales(); i++) {
+            crearCliente(false);
+        }
+        for (int i = 0; i < configuracion.getProductosIniciales(); i++) {
+            agregarProducto(aleatorio, false);
+        }
+        logger.info("Carga preparada: {} clientes y {} productos iniciales", clientes.size(), productos.size());
+    }
+
+    /**
+     * Ejecuta la prueba con los hilos configurados hasta agotar la duración o las sesiones.
+     *
+     * @return tiempo medido en nanosegundos, sin el calentamiento
+     * @throws InterruptedException si se interrumpe la espera de los hilos
+     */
+    public long ejecutar() throws InterruptedException {
+        int hilos = configuracion.getHilos();
+        int tiendas = contarTiendas();
+        long intervalo = configuracion.getTasa() > 0 ? (long) (1e9 * hilos / configuracion.getTasa()) : 0;
+        long inicio = System.nanoTime();
+        long inicioMedicion = inicio + configuracion.getCalentamientoSegundos() * 1_000_000_000L;
+        long fin = configuracion.getDuracionSegundos() > 0
+                ? inicioMedicion + configuracion.getDuracionSegundos() * 1_000_000_000L
+                : Long.MAX_VALUE;
+
+        logger.info("Iniciando carga: {} hilos, tasa {}, duración {}", hilos,
+                configuracion.getTasa() > 0 ? configuracion.getTasa() + " sesiones/s" : "sin límite",
+                configuracion.getDuracionSegundos() > 0 ? configuracion.getDuracionSegundos() + " s" : "sin límite");
+        if (perfilAsignaciones != null) {
+            if (configuracion.isHilosVirtuales()) {
+                logger.warn("Los hilos virtuales no miden sus asignaciones; el perfil quedará vacío");
+            }
+            perfilAsignaciones.iniciar();
+        }
+
+        List<Thread> trabajadores = new ArrayList<>(hilos);
+        for (int h = 0; h < hilos; h++) {
+            int indice = h;
+            Runnable tarea = () -> ejecutarHilo(indice, indice % tiendas, inicio + indice * intervalo / hilos, intervalo,
+                    inicioMedicion, fin);
+            Thread hilo = configuracion.isHilosVirtuales()
+                    ? Thread.ofVirtual().name("carga-", h).start(tarea)
+                    : Thread.ofPlatform().name("carga-", h).start(tarea);
+            trabajadores.add(hilo);
+        }
+        for (Thread hilo : trabajadores) {
+            hilo.join();
+        }
+        return Math.max(1, System.nanoTime() - Math.min(inicioMedicion, System.nanoTime()));
+    }
+
+    /**
+     * Imprime el reporte de la prueba.
+     *
+     * @param salida flujo de salida
+     * @param duracionNanos tiempo medido devuelto por {@link #ejecutar()}
+     */
+    public void imprimirReporte(PrintStream salida, long duracionNanos) {
+        double segundos = duracionNanos / 1e9;
+        long sesiones = latencias.get(OperacionCarga.SESION).getCuenta();
+        long operaciones = 0;
+        for (OperacionCarga operacion : OperacionCarga.values()) {
+            if (operacion != OperacionCarga.SESION) {
+                operaciones += latencias.get(operacion).getCuenta();
+            }
+        }
+
+        salida.printf("Sesiones: %d en %.1f s (%.0f sesiones/s), operaciones: %d (%.0f ops/s)%n",
+                sesiones, segundos, sesiones / segundos, operaciones, operaciones / segundos);
+        salida.printf("%-17s %9s %9s %8s %10s %10s %10s %10s %10s %10s%n", "Operación", "Cuenta", "Rechazos",
+                "Errores", "Media µs", "p50 µs", "p90 µs", "p99 µs", "p99.9 µs", "Máx µs");
+        for (OperacionCarga operacion : OperacionCarga.values()) {
+            HistogramaLatencias histograma = latencias.get(operacion);
+            if (histograma.getCuenta() == 0 && errores.get(operacion).sum() == 0) {
+                continue;
+            }
+            salida.printf("%-17s %9d %9d %8d %10.1f", operacion, histograma.getCuenta(),
+                    rechazos.get(operacion).sum(), errores.get(operacion).sum(), histograma.getMedia() / 1e3);
+            for (double percentil : PERCENTILES) {
+                salida.printf(" %10.1f", histograma.percentil(percentil) / 1e3);
+            }
+            salida.printf(" %10.1f%n", histograma.getMaximo() / 1e3);
+        }
+        if (!erroresPorTipo.isEmpty()) {
+            salida.println("Errores:");
+            new TreeMap<>(erroresPorTipo).forEach((tipo, cuenta) -> salida.printf("  %-60s %d%n", tipo, cuenta.sum()));
+        }
+        if (perfilAsignaciones != null) {
+            perfilAsignaciones.imprimirReporte(salida, duracionNanos, configuracion.getPresupuestos());
+        }
+        salida.printf("%-17s %9s %9s %10s %10s %12s %12s%n", "Filtro de Bloom", "Claves", "Consultas",
+                "Negativas", "Falsos +", "FP estimado", "FP observado");
+        imprimirFiltros(salida, "Nombres producto", productoService.obtenerFiltrosNombre());
+        imprimirFiltros(salida, "Emails cliente", clienteService.obtenerFiltrosEmail());
+    }
+
+    /**
+     * Compara los bytes asignados por operación con los presupuestos configurados.
+     *
+     * @return descripción de cada presupuesto excedido, vacía si se cumplen todos o no se midieron asignaciones
+     */
+    public List<String> verificarPresupuestos() {
+        return perfilAsignaciones == null ? List.of()
+                : perfilAsignaciones.verificarPresupuestos(configuracion.getPresupuestos());
+    }
+
+    /**
+     * Obtiene el perfil de asignaciones de la prueba.
+     *
+     * @return el perfil, o null si no se miden asignaciones
+     */
+    public PerfilAsignaciones getPerfilAsignaciones() {
+        return perfilAsignaciones;
+    }
+
+    /**
+     * Obtiene el histograma de latencias de una operación.
+     *
+     * @param operacion operación medida
+     * @return el histograma
+     */
+    public HistogramaLatencias getLatencias(OperacionCarga operacion) {
+        return latencias.get(operacion);
+    }
+
+    /**
+     * Obtiene el número de errores de una operación.
+     *
+     * @param operacion operación medida
+     * @return número de excepciones lanzadas por el servicio
+     */
+    public long contarErrores(OperacionCarga operacion) {
+        return errores.get(operacion).sum();
+    }
+
+    private void ejecutarHilo(int indice, int tienda, long primerInicio, long intervalo, long inicioMedicion, long fin) {
+        Random aleatorio = new Random(configuracion.getSemilla() + indice + 1);
+        List<SesionCarga> guion = configuracion.getGuion();
+        long programado = primerInicio;
+
+        while (true) {
+            long ahora = System.nanoTime();
+            if (ahora >= fin) {
+                break;
+            }
+            if (configuracion.getSesiones() > 0 && sesionesIniciadas.getAndIncrement() >= configuracion.getSesiones()) {
+                break;
+            }
+            if (intervalo > 0) {
+                while (ahora < programado) {
+                    LockSupport.parkNanos(programado - ahora);
+                    ahora = System.nanoTime();
+                }
+            } else {
+                programado = ahora;
+            }
+
+            boolean medir = programado >= inicioMedicion;
+            long asignadosAntes = medir && perfilAsignaciones != null ? perfilAsignaciones.leer() : -1;
+            SesionCarga sesion = guion.isEmpty()
+                    ? SesionCarga.aleatoria(aleatorio, configuracion)
+                    : guion.get((int) (indiceGuion.getAndIncrement() % guion.size()));
+            ejecutarSesion(sesion, tienda, aleatorio, medir);
+            if (medir) {
+                latencias.get(OperacionCarga.SESION).registrar(System.nanoTime() - programado);
+                if (perfilAsignaciones != null) {
+                    perfilAsignaciones.registrar(OperacionCarga.SESION, asignadosAntes);
+                }
+            }
+            programado += intervalo;
+        }
+    }
+
+    private void ejecutarSesion(SesionCarga sesion, int tienda, Random aleatorio, boolean medir) {
+        switch (sesion.getTipo()) {
+            case CLIENTE -> crearCliente(medir);
+            case PRODUCTO -> agregarProducto(aleatorio, medir);
+            case VENTA -> realizarVenta(sesion, tienda, aleatorio, medir);
+        }
+    }
+
+    private void crearCliente(boolean medir) {
+        long numero = contadorAltas.incrementAndGet();
+        Cliente[] creado = new Cliente[1];
+        boolean exito = medirOperacion(OperacionCarga.CREAR_CLIENTE, medir, () -> {
+            creado[0] = clienteService.agregarCliente("Cliente carga " + numero, "carga" + numero + "@dreams.mx");
+            return creado[0] != null;
+        });
+        if (exito) {
+            clientes.add(creado[0]);
+        }
+    }
+
+    private void agregarProducto(Random aleatorio, boolean medir) {
+        long numero = contadorAltas.incrementAndGet();
+        Producto producto = numero % 2 == 0
+                ? new ProductoElectronica("Electrónico carga " + numero, BigDecimal.valueOf(10_000 + aleatorio.nextInt(900_000), 2),
+                        0, "Marca " + numero % 20, "M-" + numero)
+                : new ProductoRopa("Prenda carga " + numero, BigDecimal.valueOf(1_000 + aleatorio.nextInt(200_000), 2),
+                        0, "M", "Color " + numero % 12);
+        for (int tienda = 0; tienda < contarTiendas(); tienda++) {
+            producto.getInventario().establecer(tienda, STOCK_INICIAL);
+        }
+        boolean exito = medirOperacion(OperacionCarga.AGREGAR_PRODUCTO, medir, () -> {
+            productoService.agregarProducto(producto);
+            return true;
+        });
+        if (exito) {
+            productos.add(producto);
+        }
+    }
+
+    private void realizarVenta(SesionCarga sesion, int tienda, Random aleatorio, boolean medir) {
+        Cliente cliente = elegir(clientes, aleatorio);
+        Venta[] venta = new Venta[1];
+        boolean iniciada = medirOperacion(OperacionCarga.INICIAR_VENTA, medir, () -> {
+            venta[0] = ventaService.iniciarNuevaVenta(cliente, tienda);
+            return venta[0] != null;
+        });
+        if (!iniciada) {
+            return;
+        }
+
+        for (int i = 0; i < sesion.getLineas(); i++) {
+            Producto producto = elegir(productos, aleatorio);
+            int cantidad = 1 + aleatorio.nextInt(configuracion.getCantidadMaximo());
+            medirOperacion(OperacionCarga.AGREGAR_LINEA, medir,
+                    () -> ventaService.agregarProductoAVenta(venta[0], producto, cantidad));
+        }
+        for (int i = 0; i < sesion.getRemover(); i++) {
+            List<DetalleVenta> detalles = venta[0].getProductosVenta();
+            if (detalles.isEmpty()) {
+                break;
+            }
+            int idDetalle = detalles.get(aleatorio.nextInt(detalles.size())).getId();
+            medirOperacion(OperacionCarga.REMOVER_LINEA, medir,
+                    () -> ventaService.removerProductoDeVenta(venta[0], idDetalle));
+        }
+
+        if (sesion.isCancelar()) {
+            medirOperacion(OperacionCarga.CANCELAR_VENTA, medir, () -> ventaService.cancelarVenta(venta[0]));
+        } else {
+            medirOperacion(OperacionCarga.FINALIZAR_VENTA, medir, () -> ventaService.finalizarVenta(venta[0]));
+        }
+    }
+
+    /**
+     * Ejecuta una operación del servicio registrando su latencia y su resultado.
+     *
+     * @return true si la operación tuvo efecto
+     */
+    private boolean medirOperacion(OperacionCarga operacion, boolean medir, BooleanSupplier accion) {
+        long asignadosAntes = medir && perfilAsignaciones != null ? perfilAsignaciones.leer() : -1;
+        long inicio = System.nanoTime();
+        try {
+            boolean exito = accion.getAsBoolean();
+            if (!exito && medir) {
+                rechazos.get(operacion).increment();
+            }
+            return exito;
+        } catch (RuntimeException e) {
+            if (medir) {
+                errores.get(operacion).increment();
+                erroresPorTipo.computeIfAbsent(operacion + ": " + e.getClass().getSimpleName() + ": " + e.getMessage(),
+                        tipo -> new LongAdder()).increment();
+            }
+            return false;
+        } finally {
+            if (medir) {
+                latencias.get(operacion).registrar(System.nanoTime() - inicio);
+                if (perfilAsignaciones != null) {
+                    perfilAsignaciones.registrar(operacion, asignadosAntes);
+                }
+            }
+        }
+    }
+
+    private int contarTiendas() {
+        return Math.min(configuracion.getTiendas(), RedUbicaciones.porDefecto().contarTiendas());
+    }
+
+    private static <T> T elegir(List<T> elementos, Random aleatorio) {
+        synchronized (elementos) {
+            return elementos.get(aleatorio.nextInt(elementos.size()));
+        }
+    }
+
+    private static void imprimirFiltros(PrintStream salida, String nombre, List<? extends FiltroBloomContador<?>> filtros) {
+        for (int i = 0; i < filtros.size(); i++) {
+            imprimirFiltro(salida, filtros.size() == 1 ? nombre : nombre + " #" + i, filtros.get(i));
+        }
+    }
+
+    private static void imprimirFiltro(PrintStream salida, String nombre, FiltroBloomContador<?> filtro) {
+        salida.printf("%-17s %9d %9d %10d %10d %11.4f%% %11.4f%%%n", nombre, filtro.contarClaves(),
+                filtro.getConsultas(), filtro.getNegativas(), filtro.getFalsosPositivos(),
+                100 * filtro.getTasaFalsosPositivosEstimada(), 100 * filtro.getTasaFalsosPositivosObservada());
+    }
+}
@@ -0,0 +1,118 @@
+package com.jefecame.dreams.carga;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias concurrente con cubetas logarítmico-lineales.
+ *
+ * Cada potencia de dos se divide en 32 cubetas iguales, así que el error
+ * relativo de un percentil es menor a 3.2% sin importar la magnitud. Registrar
+ * una latencia es un incremento atómico, sin bloqueos ni objetos nuevos.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class HistogramaLatencias {
+
+    private static final int BITS_SUBCUBETA = 5;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    private static final int MAGNITUDES = 64 - BITS_SUBCUBETA;
+
+    private final AtomicLongArray cubetas;
+    private final AtomicLong cuenta;
+    private final AtomicLong maximo;
+    private final AtomicLong suma;
+
+    /**
+     * Constructor que crea un histograma vacío.
+     */
+    public HistogramaLatencias() {
+        this.cubetas = new AtomicLongArray(MAGNITUDES * SUBCUBETAS);
+        this.cuenta = new AtomicLong();
+        this.maximo = new AtomicLong();
+        this.suma = new AtomicLong();
+    }
+
+    /**
+     * Registra una latencia.
+     *
+     * @param nanos latencia en nanosegundos; los valores negativos se registran como cero
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        cubetas.incrementAndGet(indice(valor));
+        cuenta.incrementAndGet();
+        suma.addAndGet(valor);
+        maximo.accumulateAndGet(valor, Math::max);
+    }
+
+    /**
+     * Obtiene el percentil indicado.
+     *
+     * @param percentil percentil entre 0 y 100
+     * @return latencia en nanosegundos (límite superior de la cubeta), o 0 si no hay registros
+     */
+    public long percentil(double percentil) {
+        long total = cuenta.get();
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(total * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < cubetas.length(); i++) {
+            acumulado += cubetas.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    /**
+     * Obtiene el número de latencias registradas.
+     *
+     * @return número de registros
+     */
+    public long getCuenta() {
+        return cuenta.get();
+    }
+
+    /**
+     * Obtiene la latencia máxima registrada.
+     *
+     * @return latencia máxima en nanosegundos
+     */
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Obtiene la latencia media.
+     *
+     * @return latencia media en nanosegundos, o 0 si no hay registros
+     */
+    public double getMedia() {
+        long total = cuenta.get();
+        return total == 0 ? 0 : (double) suma.get() / total;
+    }
+
+    private static int indice(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int magnitud = 63 - Long.numberOfLeadingZeros(valor);
+        int desplazamiento = magnitud - BITS_SUBCUBETA;
+        int subcubeta = (int) (valor >>> desplazamiento) - SUBCUBETAS;
+        return (desplazamiento + 1) * SUBCUBETAS + subcubeta;
+    }
+
+    private static long limiteSuperior(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int desplazamiento = indice / SUBCUBETAS - 1;
+        long subcubeta = indice % SUBCUBETAS + SUBCUBETAS;
+        return ((subcubeta + 1) << desplazamiento) - 1;
+    }
+}
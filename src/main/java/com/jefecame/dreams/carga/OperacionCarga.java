@@ -0,0 +1,34 @@
+package com.jefecame.dreams.carga;
+
+/**
+ * Enumeración que define las operaciones medidas por el generador de carga.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public enum OperacionCarga {
+    
+    /** Alta de un cliente con ClienteService */
+    CREAR_CLIENTE,
+    
+    /** Alta de un producto con ProductoService */
+    AGREGAR_PRODUCTO,
+    
+    /** Inicio de una venta */
+    INICIAR_VENTA,
+    
+    /** Agregado de una línea a una venta */
+    AGREGAR_LINEA,
+    
+    /** Remoción de una línea de una venta */
+    REMOVER_LINEA,
+    
+    /** Finalización de una venta */
+    FINALIZAR_VENTA,
+    
+    /** Cancelación de una venta */
+    CANCELAR_VENTA,
+    
+    /** Sesión completa, medida desde su inicio programado */
+    SESION
+}
@@ -0,0 +1,169 @@
+package com.jefecame.dreams.carga;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Perfil de los bytes asignados por cada operación del generador de carga.
+ *
+ * Lee el contador de bytes asignados del hilo actual
+ * ({@code com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes})
+ * antes y después de cada llamada a un servicio y reparte la diferencia en un
+ * {@link HistogramaLatencias} por operación, que aquí cuenta bytes en lugar de
+ * nanosegundos. El contador incluye todo lo que el hilo asigna durante la
+ * llamada, también dentro de los repositorios y del modelo. Los hilos
+ * virtuales no tienen contador y sus operaciones no se registran.
+ *
+ * Junto al reporte por operación imprime el volumen asignado por segundo y
+ * las recolecciones de cada colector desde {@link #iniciar()}, y compara los
+ * promedios con presupuestos por operación.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class PerfilAsignaciones {
+
+    private static final double[] PERCENTILES = {50, 99};
+
+    private final com.sun.management.ThreadMXBean hilos;
+    private final Map<OperacionCarga, HistogramaLatencias> bytes;
+    private final Map<String, long[]> recoleccionesIniciales;
+
+    /**
+     * Constructor que activa el contador de asignaciones de la JVM.
+     *
+     * @throws IllegalStateException si la JVM no mide las asignaciones por hilo
+     */
+    public PerfilAsignaciones() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean)
+                || !bean.isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("La JVM no mide los bytes asignados por hilo");
+        }
+        bean.setThreadAllocatedMemoryEnabled(true);
+        this.hilos = bean;
+        this.bytes = new EnumMap<>(OperacionCarga.class);
+        for (OperacionCarga operacion : OperacionCarga.values()) {
+            bytes.put(operacion, new HistogramaLatencias());
+        }
+        this.recoleccionesIniciales = new LinkedHashMap<>();
+    }
+
+    /**
+     * Toma las recolecciones acumuladas de cada colector como punto de partida del reporte.
+     */
+    public void iniciar() {
+        recoleccionesIniciales.clear();
+        for (GarbageCollectorMXBean colector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            recoleccionesIniciales.put(colector.getName(),
+                    new long[] {colector.getCollectionCount(), colector.getCollectionTime()});
+        }
+    }
+
+    /**
+     * Obtiene los bytes asignados hasta ahora por el hilo actual.
+     *
+     * @return bytes asignados, o -1 si el hilo no tiene contador
+     */
+    public long leer() {
+        return hilos.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Registra los bytes asignados por una operación.
+     *
+     * @param operacion operación medida
+     * @param antes lectura de {@link #leer()} al empezar la operación
+     */
+    public void registrar(OperacionCarga operacion, long antes) {
+        long despues = leer();
+        if (antes >= 0 && despues >= 0) {
+            bytes.get(operacion).registrar(despues - antes);
+        }
+    }
+
+    /**
+     * Obtiene el histograma de bytes asignados de una operación.
+     *
+     * @param operacion operación medida
+     * @return el histograma, en bytes
+     */
+    public HistogramaLatencias getBytes(OperacionCarga operacion) {
+        return bytes.get(operacion);
+    }
+
+    /**
+     * Compara los bytes asignados en promedio por cada operación con su presupuesto.
+     *
+     * @param presupuestos bytes en promedio permitidos por operación
+     * @return descripción de cada presupuesto excedido, vacía si se cumplen todos
+     */
+    public List<String> verificarPresupuestos(Map<OperacionCarga, Long> presupuestos) {
+        List<String> excedidos = new ArrayList<>();
+        presupuestos.forEach((operacion, presupuesto) -> {
+            HistogramaLatencias histograma = bytes.get(operacion);
+            if (histograma.getCuenta() > 0 && histograma.getMedia() > presupuesto) {
+                excedidos.add(String.format("%s asigna %.0f bytes por operación, presupuesto %d",
+                        operacion, histograma.getMedia(), presupuesto));
+            }
+        });
+        return excedidos;
+    }
+
+    /**
+     * Falla si alguna operación excede su presupuesto de asignación, para usarse
+     * como aserción desde una prueba o un benchmark.
+     *
+     * @param presupuestos bytes en promedio permitidos por operación
+     * @throws AssertionError con los presupuestos excedidos
+     */
+    public void exigirPresupuestos(Map<OperacionCarga, Long> presupuestos) {
+        List<String> excedidos = verificarPresupuestos(presupuestos);
+        if (!excedidos.isEmpty()) {
+            throw new AssertionError("Presupuestos de asignación excedidos: " + String.join("; ", excedidos));
+        }
+    }
+
+    /**
+     * Imprime los bytes asignados por operación y la presión sobre el recolector.
+     *
+     * @param salida flujo de salida
+     * @param duracionNanos tiempo medido de la prueba
+     * @param presupuestos bytes en promedio permitidos por operación
+     */
+    public void imprimirReporte(PrintStream salida, long duracionNanos, Map<OperacionCarga, Long> presupuestos) {
+        double segundos = duracionNanos / 1e9;
+        long total = 0;
+        salida.printf("%-17s %9s %12s %12s %12s %12s %12s%n", "Asignaciones", "Cuenta", "Media B",
+                "p50 B", "p99 B", "Máx B", "Presupuesto");
+        for (OperacionCarga operacion : OperacionCarga.values()) {
+            HistogramaLatencias histograma = bytes.get(operacion);
+            if (histograma.getCuenta() == 0) {
+                continue;
+            }
+            if (operacion != OperacionCarga.SESION) {
+                total += (long) (histograma.getMedia() * histograma.getCuenta());
+            }
+            salida.printf("%-17s %9d %12.0f", operacion, histograma.getCuenta(), histograma.getMedia());
+            for (double percentil : PERCENTILES) {
+                salida.printf(" %12d", histograma.percentil(percentil));
+            }
+            Long presupuesto = presupuestos.get(operacion);
+            salida.printf(" %12d %12s%n", histograma.getMaximo(), presupuesto == null ? "-"
+                    : presupuesto + (histograma.getMedia() > presupuesto ? " EXCEDIDO" : ""));
+        }
+        salida.printf("Asignado por las operaciones: %.1f MB (%.1f MB/s)%n", total / 1e6, total / 1e6 / segundos);
+        for (GarbageCollectorMXBean colector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long[] inicial = recoleccionesIniciales.getOrDefault(colector.getName(), new long[2]);
+            long recolecciones = colector.getCollectionCount() - inicial[0];
+            long milisegundos = colector.getCollectionTime() - inicial[1];
+            salida.printf("Recolector %-25s %7d recolecciones (%.1f/s), %6d ms%n", colector.getName(),
+                    recolecciones, recolecciones / segundos, milisegundos);
+        }
+    }
+}
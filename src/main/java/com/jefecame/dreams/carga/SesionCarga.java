@@ -0,0 +1,201 @@
+package com.jefecame.dreams.carga;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sesión de un usuario de la tienda, generada al azar o leída de un guion.
+ *
+ * Formato de una línea del guion:
+ * <pre>
+ * cliente
+ * producto
+ * venta &lt;lineas&gt; [remover &lt;n&gt;] finalizar|cancelar
+ * </pre>
+ * Las líneas vacías y las que empiezan con {@code #} se ignoran.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public final class SesionCarga {
+
+    /**
+     * Tipos de sesión.
+     */
+    public enum Tipo {
+        /** Alta de un cliente */
+        CLIENTE,
+        /** Alta de un producto */
+        PRODUCTO,
+        /** Venta completa */
+        VENTA
+    }
+
+    private final Tipo tipo;
+    private final int lineas;
+    private final int remover;
+    private final boolean cancelar;
+
+    private SesionCarga(Tipo tipo, int lineas, int remover, boolean cancelar) {
+        this.tipo = tipo;
+        this.lineas = lineas;
+        this.remover = remover;
+        this.cancelar = cancelar;
+    }
+
+    /**
+     * Crea una sesión de alta de cliente.
+     *
+     * @return la sesión
+     */
+    public static SesionCarga cliente() {
+        return new SesionCarga(Tipo.CLIENTE, 0, 0, false);
+    }
+
+    /**
+     * Crea una sesión de alta de producto.
+     *
+     * @return la sesión
+     */
+    public static SesionCarga producto() {
+        return new SesionCarga(Tipo.PRODUCTO, 0, 0, false);
+    }
+
+    /**
+     * Crea una sesión de venta.
+     *
+     * @param lineas líneas a agregar
+     * @param remover líneas a remover después de agregarlas
+     * @param cancelar true para cancelar la venta en lugar de finalizarla
+     * @return la sesión
+     * @throws IllegalArgumentException si los números de líneas son inválidos
+     */
+    public static SesionCarga venta(int lineas, int remover, boolean cancelar) {
+        if (lineas < 1 || remover < 0 || remover > lineas) {
+            throw new IllegalArgumentException("Una venta requiere al menos una línea y no puede remover más de las agregadas");
+        }
+        return new SesionCarga(Tipo.VENTA, lineas, remover, cancelar);
+    }
+
+    /**
+     * Genera una sesión al azar según la mezcla de la configuración.
+     *
+     * @param aleatorio generador aleatorio del hilo
+     * @param configuracion configuración de la prueba
+     * @return la sesión
+     */
+    public static SesionCarga aleatoria(Random aleatorio, ConfiguracionCarga configuracion) {
+        int total = configuracion.getPesoCliente() + configuracion.getPesoProducto() + configuracion.getPesoVenta();
+        int eleccion = aleatorio.nextInt(total);
+        if (eleccion < configuracion.getPesoCliente()) {
+            return cliente();
+        }
+        if (eleccion < configuracion.getPesoCliente() + configuracion.getPesoProducto()) {
+            return producto();
+        }
+        int lineas = configuracion.getLineasMinimo()
+                + aleatorio.nextInt(configuracion.getLineasMaximo() - configuracion.getLineasMinimo() + 1);
+        int remover = lineas > 1 && aleatorio.nextDouble() < configuracion.getProbabilidadRemover() ? 1 : 0;
+        boolean cancelar = aleatorio.nextDouble() < configuracion.getProbabilidadCancelar();
+        return venta(lineas, remover, cancelar);
+    }
+
+    /**
+     * Interpreta una línea del guion.
+     *
+     * @param linea línea a interpretar
+     * @return la sesión
+     * @throws IllegalArgumentException si la línea no es válida
+     */
+    public static SesionCarga parsear(String linea) {
+        String[] partes = linea.trim().toLowerCase().split("\\s+");
+        try {
+            switch (partes[0]) {
+                case "cliente":
+                    return cliente();
+                case "producto":
+                    return producto();
+                case "venta":
+                    int lineas = Integer.parseInt(partes[1]);
+                    int remover = 0;
+                    int indice = 2;
+                    if (partes[indice].equals("remover")) {
+                        remover = Integer.parseInt(partes[indice + 1]);
+                        indice += 2;
+                    }
+                    if (!partes[indice].equals("finalizar") && !partes[indice].equals("cancelar")) {
+                        throw new IllegalArgumentException("Se esperaba finalizar o cancelar");
+                    }
+                    return venta(lineas, remover, partes[indice].equals("cancelar"));
+                default:
+                    throw new IllegalArgumentException("Tipo de sesión desconocido: " + partes[0]);
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Línea de guion inválida: " + linea);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Línea de guion inválida: " + linea + " (" + e.getMessage() + ")");
+        }
+    }
+
+    /**
+     * Lee todas las sesiones de un archivo de guion.
+     *
+     * @param archivo archivo de guion
+     * @return sesiones en el orden del archivo
+     * @throws IOException si falla la lectura
+     * @throws IllegalArgumentException si alguna línea es inválida o el guion está vacío
+     */
+    public static List<SesionCarga> leerGuion(Path archivo) throws IOException {
+        List<SesionCarga> sesiones = new ArrayList<>();
+        for (String linea : Files.readAllLines(archivo, StandardCharsets.UTF_8)) {
+            if (!linea.isBlank() && !linea.trim().startsWith("#")) {
+                sesiones.add(parsear(linea));
+            }
+        }
+        if (sesiones.isEmpty()) {
+            throw new IllegalArgumentException("El guion no tiene sesiones: " + archivo);
+        }
+        return sesiones;
+    }
+
+    /**
+     * Obtiene el tipo de la sesión.
+     *
+     * @return el tipo
+     */
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Obtiene las líneas a agregar en una venta.
+     *
+     * @return número de líneas
+     */
+    public int getLineas() {
+        return lineas;
+    }
+
+    /**
+     * Obtiene las líneas a remover en una venta.
+     *
+     * @return número de líneas a remover
+     */
+    public int getRemover() {
+        return remover;
+    }
+
+    /**
+     * Indica si la venta se cancela en lugar de finalizarse.
+     *
+     * @return true si se cancela
+     */
+    public boolean isCancelar() {
+        return cancelar;
+    }
+}
@@ -0,0 +1,517 @@
+package com.jefecame.dreams.codec;
+
+import com.jefecame.dreams.inventario.InventarioProducto;
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.DetalleDevolucion;
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.Devolucion;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoElectronica;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.RegionFiscal;
+import com.jefecame.dreams.model.TipoDevolucion;
+import com.jefecame.dreams.model.Venta;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Codificador binario compacto para clientes, productos, ventas y devoluciones.
+ *
+ * Formato:
+ * <ul>
+ *   <li>Enteros como varint (zigzag para los que pueden ser negativos).</li>
+ *   <li>Importes como varint del valor en centavos.</li>
+ *   <li>El stock de un producto se escribe solo para las ubicaciones que han
+ *       tenido cambios, como ternas (ubicación, cantidad, número de cambio).</li>
+ *   <li>Cada detalle de venta lleva su precio unitario, su descuento promocional
+ *       y la tasa de impuesto con la que se vendió; la venta lleva su región
+ *       fiscal y su ubicación. Al decodificar, los impuestos salen de esas
+ *       tasas y no de las vigentes.</li>
+ *   <li>Fechas como segundos epoch UTC y nanosegundos.</li>
+ *   <li>Cadenas por diccionario: la primera aparición se escribe completa en
+ *       UTF-8 y las siguientes solo como referencia a su índice.</li>
+ * </ul>
+ *
+ * El diccionario es parte del estado del flujo, por lo que una instancia debe
+ * usarse solo para codificar o solo para decodificar un mismo flujo, en el mismo
+ * orden. Los búferes los proporciona quien llama y pueden reutilizarse.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class CodecBinario {
+
+    /** Etiqueta de subtipo para {@link ProductoElectronica} */
+    public static final byte TIPO_ELECTRONICA = 1;
+
+    /** Etiqueta de subtipo para {@link ProductoRopa} */
+    public static final byte TIPO_ROPA = 2;
+
+    private static final int CADENA_NUEVA = 0;
+    private static final int CADENA_NULA = 1;
+    private static final int PRIMERA_REFERENCIA = 2;
+
+    private final Map<String, Integer> indicesCodificacion;
+    private final List<String> cadenasDecodificacion;
+    private byte[] temporal;
+
+    /**
+     * Constructor que inicializa el codec con el diccionario vacío.
+     */
+    public CodecBinario() {
+        this.indicesCodificacion = new HashMap<>();
+        this.cadenasDecodificacion = new ArrayList<>();
+        this.temporal = new byte[256];
+    }
+
+    /**
+     * Vacía el diccionario de cadenas para comenzar un flujo nuevo.
+     */
+    public void reiniciarDiccionario() {
+        indicesCodificacion.clear();
+        cadenasDecodificacion.clear();
+    }
+
+    // Clientes
+
+    /**
+     * Codifica un cliente en el búfer.
+     *
+     * @param cliente cliente a codificar
+     * @param destino búfer de destino
+     */
+    public void codificarCliente(Cliente cliente, ByteBuffer destino) {
+        escribirVarint(destino, cliente.getId());
+        escribirVarlong(destino, cliente.getVersion());
+        escribirCadena(destino, cliente.getNombre());
+        escribirCadena(destino, cliente.getEmail());
+        destino.put(cliente.isActivo() ? (byte) 1 : (byte) 0);
+    }
+
+    /**
+     * Decodifica un cliente desde el búfer.
+     *
+     * @param origen búfer de origen
+     * @return el cliente decodificado
+     */
+    public Cliente decodificarCliente(ByteBuffer origen) {
+        int id = leerVarint(origen);
+        long version = leerVarlong(origen);
+        String nombre = leerCadena(origen);
+        String email = leerCadena(origen);
+        Cliente cliente = new Cliente(id, nombre, email);
+        cliente.setActivo(origen.get() != 0);
+        cliente.setVersion(version);
+        return cliente;
+    }
+
+    // Productos
+
+    /**
+     * Codifica un producto en el búfer, incluyendo la etiqueta de su subtipo.
+     *
+     * @param producto producto a codificar
+     * @param destino búfer de destino
+     * @throws IllegalArgumentException si el subtipo del producto no es soportado
+     */
+    public void codificarProducto(Producto producto, ByteBuffer destino) {
+        if (producto instanceof ProductoElectronica electronica) {
+            destino.put(TIPO_ELECTRONICA);
+            escribirProductoBase(producto, destino);
+            escribirCadena(destino, electronica.getMarca());
+            escribirCadena(destino, electronica.getModelo());
+        } else if (producto instanceof ProductoRopa ropa) {
+            destino.put(TIPO_ROPA);
+            escribirProductoBase(producto, destino);
+            escribirCadena(destino, ropa.getTalla());
+            escribirCadena(destino, ropa.getColor());
+        } else {
+            throw new IllegalArgumentException("Tipo de producto no soportado: " + producto.getClass().getName());
+        }
+    }
+
+    /**
+     * Decodifica un producto desde el búfer.
+     *
+     * @param origen búfer de origen
+     * @return el producto decodificado con su subtipo
+     * @throws IllegalArgumentException si la etiqueta de subtipo es desconocida
+     */
+    public Producto decodificarProducto(ByteBuffer origen) {
+        byte tipo = origen.get();
+        int id = leerVarint(origen);
+        long version = leerVarlong(origen);
+        String nombre = leerCadena(origen);
+        BigDecimal precio = leerImporte(origen);
+        int ubicacionesConStock = leerVarint(origen);
+        int[] ubicaciones = new int[ubicacionesConStock];
+        int[] existencias = new int[ubicacionesConStock];
+        int[] cambios = new int[ubicacionesConStock];
+        for (int i = 0; i < ubicacionesConStock; i++) {
+            ubicaciones[i] = leerVarint(origen);
+            existencias[i] = leerVarintZigzag(origen);
+            cambios[i] = leerVarint(origen);
+        }
+        boolean activo = origen.get() != 0;
+
+        Producto producto;
+        if (tipo == TIPO_ELECTRONICA) {
+            producto = new ProductoElectronica(id, nombre, precio, 0, leerCadena(origen), leerCadena(origen));
+        } else if (tipo == TIPO_ROPA) {
+            producto = new ProductoRopa(id, nombre, precio, 0, leerCadena(origen), leerCadena(origen));
+        } else {
+            throw new IllegalArgumentException("Etiqueta de producto desconocida: " + tipo);
+        }
+        InventarioProducto inventario = producto.getInventario();
+        for (int i = 0; i < ubicacionesConStock; i++) {
+            inventario.restaurar(ubicaciones[i], existencias[i], cambios[i]);
+        }
+        producto.setActivo(activo);
+        producto.setVersion(version);
+        return producto;
+    }
+
+    private void escribirProductoBase(Producto producto, ByteBuffer destino) {
+        escribirVarint(destino, producto.getId());
+        escribirVarlong(destino, producto.getVersion());
+        escribirCadena(destino, producto.getNombre());
+        escribirImporte(destino, producto.getPrecio());
+        // Se copia el inventario primero: el conteo y las ternas deben salir de la misma lectura
+        InventarioProducto inventario = producto.getInventario();
+        long[] estados = new long[inventario.contarUbicaciones()];
+        int ubicacionesConStock = 0;
+        for (int i = 0; i < estados.length; i++) {
+            estados[i] = inventario.estado(i);
+            if (estados[i] != 0) {
+                ubicacionesConStock++;
+            }
+        }
+        escribirVarint(destino, ubicacionesConStock);
+        for (int i = 0; i < estados.length; i++) {
+            if (estados[i] != 0) {
+                escribirVarint(destino, i);
+                escribirVarintZigzag(destino, InventarioProducto.existencias(estados[i]));
+                escribirVarint(destino, InventarioProducto.cambio(estados[i]));
+            }
+        }
+        destino.put(producto.isActivo() ? (byte) 1 : (byte) 0);
+    }
+
+    // Ventas
+
+    /**
+     * Codifica una venta y sus detalles en el búfer.
+     * El cliente y los productos se escriben solo como referencias por ID.
+     *
+     * @param venta venta a codificar
+     * @param destino búfer de destino
+     */
+    public void codificarVenta(Venta venta, ByteBuffer destino) {
+        escribirVarint(destino, venta.getId());
+        escribirVarlong(destino, venta.getVersion());
+        escribirVarint(destino, venta.getIdCliente());
+        escribirFecha(destino, venta.getFechaCreacion());
+        destino.put((byte) venta.getEstado().ordinal());
+        destino.put((byte) venta.getRegionFiscal().ordinal());
+        escribirVarint(destino, venta.getUbicacion());
+
+        List<DetalleVenta> detalles = venta.getLineas();
+        escribirVarint(destino, detalles.size());
+        for (int i = 0; i < detalles.size(); i++) {
+            codificarDetalle(detalles.get(i), destino);
+        }
+    }
+
+    /**
+     * Decodifica una venta y sus detalles desde el búfer.
+     *
+     * @param origen búfer de origen
+     * @param clientes función que resuelve un cliente por su ID
+     * @param productos función que resuelve un producto por su ID
+     * @return la venta decodificada
+     */
+    public Venta decodificarVenta(ByteBuffer origen, IntFunction<Cliente> clientes, IntFunction<Producto> productos) {
+        int id = leerVarint(origen);
+        long version = leerVarlong(origen);
+        Cliente cliente = clientes.apply(leerVarint(origen));
+        LocalDateTime fecha = leerFecha(origen);
+        EstadoVenta estado = EstadoVenta.values()[origen.get()];
+        RegionFiscal region = RegionFiscal.values()[origen.get()];
+        int ubicacion = leerVarint(origen);
+
+        int numeroDetalles = leerVarint(origen);
+        List<DetalleVenta> detalles = new ArrayList<>(numeroDetalles);
+        for (int i = 0; i < numeroDetalles; i++) {
+            detalles.add(decodificarDetalle(origen, id, productos));
+        }
+
+        Venta venta = new Venta(id, cliente, fecha, estado, region, ubicacion, detalles);
+        venta.setVersion(version);
+        return venta;
+    }
+
+    /**
+     * Codifica un detalle de venta en el búfer (sin el ID de la venta).
+     *
+     * @param detalle detalle a codificar
+     * @param destino búfer de destino
+     */
+    public void codificarDetalle(DetalleVenta detalle, ByteBuffer destino) {
+        escribirVarint(destino, detalle.getId());
+        escribirVarint(destino, detalle.getIdProducto());
+        escribirVarint(destino, detalle.getCantidad());
+        escribirImporte(destino, detalle.getPrecioUnitario());
+        escribirImporte(destino, detalle.getDescuento());
+        escribirVarint(destino, detalle.getTasaImpuesto());
+    }
+
+    /**
+     * Decodifica un detalle de venta desde el búfer.
+     *
+     * @param origen búfer de origen
+     * @param idVenta identificador de la venta a la que pertenece
+     * @param productos función que resuelve un producto por su ID
+     * @return el detalle decodificado
+     */
+    public DetalleVenta decodificarDetalle(ByteBuffer origen, int idVenta, IntFunction<Producto> productos) {
+        int id = leerVarint(origen);
+        Producto producto = productos.apply(leerVarint(origen));
+        int cantidad = leerVarint(origen);
+        BigDecimal precio = leerImporte(origen);
+        BigDecimal descuento = leerImporte(origen);
+        int tasaImpuesto = leerVarint(origen);
+        return new DetalleVenta(id, producto, idVenta, cantidad, precio, descuento, tasaImpuesto);
+    }
+
+    // Devoluciones
+
+    /**
+     * Codifica una devolución y sus líneas en el búfer.
+     * La venta, el cliente y los productos se escriben solo como referencias por ID.
+     *
+     * @param devolucion devolución a codificar
+     * @param destino búfer de destino
+     */
+    public void codificarDevolucion(Devolucion devolucion, ByteBuffer destino) {
+        escribirVarint(destino, devolucion.getId());
+        escribirVarint(destino, devolucion.getIdVenta());
+        escribirVarint(destino, devolucion.getIdCliente());
+        escribirFecha(destino, devolucion.getFecha());
+        destino.put((byte) devolucion.getTipo().ordinal());
+        escribirCadena(destino, devolucion.getMotivo());
+
+        List<DetalleDevolucion> detalles = devolucion.getDetalles();
+        escribirVarint(destino, detalles.size());
+        for (int i = 0; i < detalles.size(); i++) {
+            DetalleDevolucion detalle = detalles.get(i);
+            escribirVarint(destino, detalle.getIdDetalleVenta());
+            escribirVarint(destino, detalle.getIdProducto());
+            escribirVarint(destino, detalle.getCantidad());
+            escribirVarlong(destino, detalle.getSubtotalCentavos());
+            escribirVarlong(destino, detalle.getImpuestoCentavos());
+        }
+    }
+
+    /**
+     * Decodifica una devolución y sus líneas desde el búfer.
+     *
+     * @param origen búfer de origen
+     * @return la devolución decodificada con su ID y fecha originales
+     */
+    public Devolucion decodificarDevolucion(ByteBuffer origen) {
+        int id = leerVarint(origen);
+        int idVenta = leerVarint(origen);
+        int idCliente = leerVarint(origen);
+        LocalDateTime fecha = leerFecha(origen);
+        TipoDevolucion tipo = TipoDevolucion.values()[origen.get()];
+        String motivo = leerCadena(origen);
+
+        int numeroDetalles = leerVarint(origen);
+        List<DetalleDevolucion> detalles = new ArrayList<>(numeroDetalles);
+        for (int i = 0; i < numeroDetalles; i++) {
+            detalles.add(new DetalleDevolucion(leerVarint(origen), leerVarint(origen), leerVarint(origen),
+                    leerVarlong(origen), leerVarlong(origen)));
+        }
+        return new Devolucion(id, idVenta, idCliente, fecha, tipo, motivo, detalles);
+    }
+
+    // Primitivas
+
+    private void escribirImporte(ByteBuffer destino, BigDecimal importe) {
+        long centavos = importe.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+        escribirVarlong(destino, (centavos << 1) ^ (centavos >> 63));
+    }
+
+    private BigDecimal leerImporte(ByteBuffer origen) {
+        long zigzag = leerVarlong(origen);
+        return BigDecimal.valueOf((zigzag >>> 1) ^ -(zigzag & 1), 2);
+    }
+
+    private void escribirFecha(ByteBuffer destino, LocalDateTime fecha) {
+        long segundos = fecha.toEpochSecond(ZoneOffset.UTC);
+        escribirVarlong(destino, (segundos << 1) ^ (segundos >> 63));
+        escribirVarint(destino, fecha.getNano());
+    }
+
+    private LocalDateTime leerFecha(ByteBuffer origen) {
+        long zigzag = leerVarlong(origen);
+        long segundos = (zigzag >>> 1) ^ -(zigzag & 1);
+        return LocalDateTime.ofEpochSecond(segundos, leerVarint(origen), ZoneOffset.UTC);
+    }
+
+    private void escribirCadena(ByteBuffer destino, String cadena) {
+        if (cadena == null) {
+            escribirVarint(destino, CADENA_NULA);
+            return;
+        }
+
+        Integer indice = indicesCodificacion.get(cadena);
+        if (indice != null) {
+            escribirVarint(destino, indice + PRIMERA_REFERENCIA);
+            return;
+        }
+
+        indicesCodificacion.put(cadena, indicesCodificacion.size());
+        escribirVarint(destino, CADENA_NUEVA);
+        escribirVarint(destino, longitudUtf8(cadena));
+        for (int i = 0; i < cadena.length(); i++) {
+            char c = cadena.charAt(i);
+            if (c < 0x80) {
+                destino.put((byte) c);
+            } else if (c < 0x800) {
+                destino.put((byte) (0xC0 | (c >> 6)));
+                destino.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < cadena.length()) {
+                int punto = Character.toCodePoint(c, cadena.charAt(++i));
+                destino.put((byte) (0xF0 | (punto >> 18)));
+                destino.put((byte) (0x80 | ((punto >> 12) & 0x3F)));
+                destino.put((byte) (0x80 | ((punto >> 6) & 0x3F)));
+                destino.put((byte) (0x80 | (punto & 0x3F)));
+            } else {
+                destino.put((byte) (0xE0 | (c >> 12)));
+                destino.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                destino.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private String leerCadena(ByteBuffer origen) {
+        int marca = leerVarint(origen);
+        if (marca == CADENA_NULA) {
+            return null;
+        }
+        if (marca != CADENA_NUEVA) {
+            return cadenasDecodificacion.get(marca - PRIMERA_REFERENCIA);
+        }
+
+        int longitud = leerVarint(origen);
+        if (temporal.length < longitud) {
+            temporal = new byte[Math.max(longitud, temporal.length * 2)];
+        }
+        origen.get(temporal, 0, longitud);
+        String cadena = new String(temporal, 0, longitud, StandardCharsets.UTF_8);
+        cadenasDecodificacion.add(cadena);
+        return cadena;
+    }
+
+    private static int longitudUtf8(String cadena) {
+        int longitud = 0;
+        for (int i = 0; i < cadena.length(); i++) {
+            char c = cadena.charAt(i);
+            if (c < 0x80) {
+                longitud += 1;
+            } else if (c < 0x800) {
+                longitud += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < cadena.length()) {
+                longitud += 4;
+                i++;
+            } else {
+                longitud += 3;
+            }
+        }
+        return longitud;
+    }
+
+    private static void escribirVarintZigzag(ByteBuffer destino, int valor) {
+        escribirVarint(destino, (valor << 1) ^ (valor >> 31));
+    }
+
+    private static int leerVarintZigzag(ByteBuffer origen) {
+        int zigzag = leerVarint(origen);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Escribe un entero sin signo en formato varint.
+     *
+     * @param destino búfer de destino
+     * @param valor valor a escribir
+     */
+    public static void escribirVarint(ByteBuffer destino, int valor) {
+        while ((valor & ~0x7F) != 0) {
+            destino.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        destino.put((byte) valor);
+    }
+
+    /**
+     * Lee un entero sin signo en formato varint.
+     *
+     * @param origen búfer de origen
+     * @return el valor leído
+     */
+    public static int leerVarint(ByteBuffer origen) {
+        int valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 35; desplazamiento += 7) {
+            byte b = origen.get();
+            valor |= (b & 0x7F) << desplazamiento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Varint mal formado");
+    }
+
+    /**
+     * Escribe un entero largo sin signo en formato varint.
+     *
+     * @param destino búfer de destino
+     * @param valor valor a escribir
+     */
+    public static void escribirVarlong(ByteBuffer destino, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            destino.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        destino.put((byte) valor);
+    }
+
+    /**
+     * Lee un entero largo sin signo en formato varint.
+     *
+     * @param origen búfer de origen
+     * @return el valor leído
+     */
+    public static long leerVarlong(ByteBuffer origen) {
+        long valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 70; desplazamiento += 7) {
+            byte b = origen.get();
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Varlong mal formado");
+    }
+}
@@ -0,0 +1,76 @@
+package com.jefecame.dreams.eventos;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento de JDK Flight Recorder para una búsqueda de clientes o productos por texto.
+ *
+ * Registra la longitud de la consulta y no su contenido, que puede incluir
+ * nombres y emails de clientes.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+@Name("com.jefecame.dreams.Busqueda")
+@Label("Búsqueda")
+@Description("Búsqueda de clientes o productos por nombre, exacta o aproximada")
+@Category({"Dreams", "Búsquedas"})
+@StackTrace(false)
+public class EventoBusqueda extends Event {
+
+    /** Búsqueda de productos por parte del nombre */
+    public static final String PRODUCTOS_POR_NOMBRE = "productosPorNombre";
+    /** Búsqueda aproximada de productos */
+    public static final String PRODUCTOS_SIMILARES = "productosSimilares";
+    /** Búsqueda aproximada de clientes */
+    public static final String CLIENTES_SIMILARES = "clientesSimilares";
+
+    @Label("Tipo")
+    private String tipo;
+
+    @Label("Longitud de la consulta")
+    private int longitudConsulta;
+
+    @Label("Límite")
+    @Description("Número máximo de resultados pedido, 0 si no hay límite")
+    private int limite;
+
+    @Label("Resultados")
+    private int resultados;
+
+    /**
+     * Crea el evento y toma el instante de inicio. Solo se llama si hay una
+     * grabación en curso ({@link Grabacion#activa()}).
+     *
+     * @return el evento iniciado
+     */
+    public static EventoBusqueda iniciar() {
+        EventoBusqueda evento = new EventoBusqueda();
+        evento.begin();
+        return evento;
+    }
+
+    /**
+     * Registra el evento si está habilitado y supera el umbral configurado.
+     *
+     * @param tipo tipo de búsqueda
+     * @param consulta texto buscado
+     * @param limite número máximo de resultados pedido, 0 si no hay límite
+     * @param resultados número de resultados devueltos
+     */
+    public void terminar(String tipo, String consulta, int limite, int resultados) {
+        if (!shouldCommit()) {
+            return;
+        }
+        this.tipo = tipo;
+        this.longitudConsulta = consulta == null ? 0 : consulta.length();
+        this.limite = limite;
+        this.resultados = resultados;
+        commit();
+    }
+}
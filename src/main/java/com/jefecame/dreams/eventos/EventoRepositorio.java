@@ -0,0 +1,99 @@
+package com.jefecame.dreams.eventos;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento de JDK Flight Recorder para una lectura o escritura de un repositorio.
+ *
+ * Los repositorios lo emiten en {@code guardar}, {@code actualizar} y
+ * {@code buscarPorId}. Como son las operaciones más frecuentes, por defecto
+ * solo se registran las que tardan al menos 1 ms; el umbral se cambia en la
+ * configuración de la grabación ({@code com.jefecame.dreams.Repositorio#threshold}).
+ * Las lecturas que resuelve una caché no llegan al repositorio base y no se
+ * registran.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+@Name("com.jefecame.dreams.Repositorio")
+@Label("Operación de repositorio")
+@Description("Guardado, actualización o búsqueda por ID en un repositorio")
+@Category({"Dreams", "Repositorios"})
+@StackTrace(false)
+@Threshold("1 ms")
+public class EventoRepositorio extends Event {
+
+    /** Repositorio de clientes */
+    public static final String CLIENTES = "clientes";
+    /** Repositorio de productos */
+    public static final String PRODUCTOS = "productos";
+    /** Repositorio de ventas */
+    public static final String VENTAS = "ventas";
+
+    /** Guardado con control de versión */
+    public static final String GUARDAR = "guardar";
+    /** Cambio atómico sobre la entidad almacenada */
+    public static final String ACTUALIZAR = "actualizar";
+    /** Búsqueda por ID */
+    public static final String BUSCAR = "buscarPorId";
+
+    /** La entidad se guardó */
+    public static final String GUARDADA = "GUARDADA";
+    /** La entidad existía */
+    public static final String ENCONTRADA = "ENCONTRADA";
+    /** La entidad no existía */
+    public static final String AUSENTE = "AUSENTE";
+    /** La versión almacenada no era la esperada */
+    public static final String CONFLICTO = "CONFLICTO";
+    /** Cualquier otra excepción */
+    public static final String ERROR = "ERROR";
+
+    @Label("Repositorio")
+    private String repositorio;
+
+    @Label("Operación")
+    private String operacion;
+
+    @Label("ID")
+    private int id;
+
+    @Label("Resultado")
+    private String resultado;
+
+    /**
+     * Crea el evento y toma el instante de inicio. Solo se llama si hay una
+     * grabación en curso ({@link Grabacion#activa()}).
+     *
+     * @return el evento iniciado
+     */
+    public static EventoRepositorio iniciar() {
+        EventoRepositorio evento = new EventoRepositorio();
+        evento.begin();
+        return evento;
+    }
+
+    /**
+     * Registra el evento si está habilitado y supera el umbral configurado.
+     *
+     * @param repositorio repositorio que atendió la operación
+     * @param operacion operación realizada
+     * @param id identificador de la entidad
+     * @param resultado resultado de la operación
+     */
+    public void terminar(String repositorio, String operacion, int id, String resultado) {
+        if (!shouldCommit()) {
+            return;
+        }
+        this.repositorio = repositorio;
+        this.operacion = operacion;
+        this.id = id;
+        this.resultado = resultado;
+        commit();
+    }
+}
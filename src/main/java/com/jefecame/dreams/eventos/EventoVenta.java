@@ -0,0 +1,107 @@
+package com.jefecame.dreams.eventos;
+
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.ConflictoVersionException;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento de JDK Flight Recorder para una operación del ciclo de vida de una venta.
+ *
+ * Se crea con {@link #iniciar()} al entrar al servicio y se cierra con
+ * {@link #terminar} al salir, también si la operación falla; sin grabaciones
+ * en curso no se crea (ver {@link Grabacion}). Si el evento está deshabilitado
+ * o no supera el umbral, sus campos no se llenan.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+@Name("com.jefecame.dreams.Venta")
+@Label("Operación de venta")
+@Description("Inicio, líneas agregadas, finalización o cancelación de una venta")
+@Category({"Dreams", "Ventas"})
+@StackTrace(false)
+public class EventoVenta extends Event {
+
+    /** Inicio de una venta */
+    public static final String INICIAR = "iniciar";
+    /** Agregado de una línea */
+    public static final String AGREGAR_LINEA = "agregarLinea";
+    /** Finalización de una venta */
+    public static final String FINALIZAR = "finalizar";
+    /** Cancelación de una venta */
+    public static final String CANCELAR = "cancelar";
+
+    /** La operación tuvo efecto */
+    public static final String EXITO = "EXITO";
+    /** El servicio devolvió false */
+    public static final String RECHAZADA = "RECHAZADA";
+    /** Los datos de la operación eran inválidos */
+    public static final String INVALIDA = "INVALIDA";
+    /** Se agotaron los reintentos por conflictos de versión */
+    public static final String CONFLICTO = "CONFLICTO";
+    /** Cualquier otra excepción */
+    public static final String ERROR = "ERROR";
+
+    @Label("Operación")
+    private String operacion;
+
+    @Label("ID de venta")
+    private int idVenta;
+
+    @Label("ID de cliente")
+    private int idCliente;
+
+    @Label("Líneas")
+    @Description("Líneas de la venta al terminar la operación")
+    private int lineas;
+
+    @Label("Resultado")
+    private String resultado;
+
+    /**
+     * Crea el evento y toma el instante de inicio. Solo se llama si hay una
+     * grabación en curso ({@link Grabacion#activa()}).
+     *
+     * @return el evento iniciado
+     */
+    public static EventoVenta iniciar() {
+        EventoVenta evento = new EventoVenta();
+        evento.begin();
+        return evento;
+    }
+
+    /**
+     * Registra el evento si está habilitado y supera el umbral configurado.
+     *
+     * @param operacion operación realizada
+     * @param venta venta afectada, o null si no llegó a crearse
+     * @param exito valor devuelto por el servicio
+     * @param fallo excepción lanzada por el servicio, o null
+     */
+    public void terminar(String operacion, Venta venta, boolean exito, RuntimeException fallo) {
+        if (!shouldCommit()) {
+            return;
+        }
+        this.operacion = operacion;
+        if (venta != null) {
+            this.idVenta = venta.getId();
+            this.idCliente = venta.getIdCliente();
+            this.lineas = venta.contarLineas();
+        }
+        if (fallo == null) {
+            this.resultado = exito ? EXITO : RECHAZADA;
+        } else if (fallo instanceof ConflictoVersionException) {
+            this.resultado = CONFLICTO;
+        } else if (fallo instanceof IllegalArgumentException || fallo instanceof IllegalStateException) {
+            this.resultado = INVALIDA;
+        } else {
+            this.resultado = ERROR;
+        }
+        commit();
+    }
+}
@@ -0,0 +1,63 @@
+package com.jefecame.dreams.eventos;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Indica si hay alguna grabación de Flight Recorder en curso.
+ *
+ * Los servicios y repositorios la consultan antes de crear un evento de la
+ * tienda. Sin grabación no se crea ningún evento, y sus clases ni siquiera se
+ * cargan: cargar la primera subclase de {@link jdk.jfr.Event} prepara la
+ * infraestructura de Flight Recorder, lo que tarda cientos de milisegundos, y
+ * el compilador no siempre elimina la asignación de un evento deshabilitado
+ * en métodos grandes o con varias salidas. El estado se actualiza con un
+ * oyente que no inicializa Flight Recorder, así que una grabación iniciada
+ * después con {@code jcmd <pid> JFR.start} también se ve.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public final class Grabacion implements FlightRecorderListener {
+
+    private static volatile boolean activa;
+
+    static {
+        FlightRecorder.addListener(new Grabacion());
+    }
+
+    private Grabacion() {
+    }
+
+    /**
+     * Indica si hay alguna grabación en curso.
+     *
+     * @return true si al menos una grabación está corriendo
+     */
+    public static boolean activa() {
+        return activa;
+    }
+
+    @Override
+    public void recorderInitialized(FlightRecorder grabadora) {
+        actualizar(grabadora);
+    }
+
+    @Override
+    public void recordingStateChanged(Recording grabacion) {
+        actualizar(FlightRecorder.getFlightRecorder());
+    }
+
+    private static void actualizar(FlightRecorder grabadora) {
+        boolean corriendo = false;
+        for (Recording grabacion : grabadora.getRecordings()) {
+            if (grabacion.getState() == RecordingState.RUNNING) {
+                corriendo = true;
+                break;
+            }
+        }
+        activa = corriendo;
+    }
+}
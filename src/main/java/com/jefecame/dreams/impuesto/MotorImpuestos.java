@@ -0,0 +1,146 @@
+package com.jefecame.dreams.impuesto;
+
+import com.jefecame.dreams.model.CategoriaProducto;
+import com.jefecame.dreams.model.RegionFiscal;
+import java.math.BigDecimal;
+import java.util.TreeSet;
+
+/**
+ * Motor de impuestos con tasas configurables por región fiscal y categoría.
+ *
+ * Las tasas se publican como una {@link TablaImpuestos} inmutable: cambiar una
+ * tasa crea una tabla nueva y la publica con una escritura volátil, así que
+ * las ventas en curso leen la tabla sin bloqueos. Cada línea de venta fija su
+ * tasa al agregarse; un cambio de tasa solo afecta a las líneas posteriores.
+ *
+ * Por defecto se aplica el 16% en la región general y el 8% en la región
+ * fronteriza. Los bienes exentos se configuran con tasa cero.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class MotorImpuestos {
+
+    private static final BigDecimal TASA_GENERAL = new BigDecimal("0.16");
+    private static final BigDecimal TASA_FRONTERIZA = new BigDecimal("0.08");
+    private static final BigDecimal CIEN = BigDecimal.valueOf(100);
+
+    private static final MotorImpuestos POR_DEFECTO = new MotorImpuestos();
+
+    private volatile TablaImpuestos tabla;
+
+    /**
+     * Constructor que inicializa las tasas por defecto.
+     */
+    public MotorImpuestos() {
+        this.tabla = tablaPorDefecto();
+    }
+
+    /**
+     * Obtiene el motor compartido que usan las ventas.
+     *
+     * @return el motor por defecto
+     */
+    public static MotorImpuestos porDefecto() {
+        return POR_DEFECTO;
+    }
+
+    /**
+     * Establece la tasa de una categoría en una región.
+     *
+     * @param region región fiscal
+     * @param categoria categoría de producto
+     * @param tasa tasa como fracción decimal, por ejemplo 0.16
+     * @throws IllegalArgumentException si algún dato es nulo o la tasa no está entre 0 y 1
+     */
+    public synchronized void establecerTasa(RegionFiscal region, CategoriaProducto categoria, BigDecimal tasa) {
+        if (region == null || categoria == null) {
+            throw new IllegalArgumentException("La región y la categoría no pueden ser nulas");
+        }
+        tabla = tabla.conTasa(region, categoria, aPuntosBase(tasa));
+    }
+
+    /**
+     * Establece la misma tasa para todas las categorías de una región.
+     *
+     * @param region región fiscal
+     * @param tasa tasa como fracción decimal
+     * @throws IllegalArgumentException si la región es nula o la tasa no está entre 0 y 1
+     */
+    public synchronized void establecerTasaRegion(RegionFiscal region, BigDecimal tasa) {
+        for (CategoriaProducto categoria : CategoriaProducto.values()) {
+            establecerTasa(region, categoria, tasa);
+        }
+    }
+
+    /**
+     * Marca una categoría como exenta en una región.
+     *
+     * @param region región fiscal
+     * @param categoria categoría de producto
+     */
+    public void eximir(RegionFiscal region, CategoriaProducto categoria) {
+        establecerTasa(region, categoria, BigDecimal.ZERO);
+    }
+
+    /**
+     * Obtiene la tabla de tasas vigente.
+     *
+     * @return la tabla publicada
+     */
+    public TablaImpuestos getTabla() {
+        return tabla;
+    }
+
+    /**
+     * Obtiene la tasa vigente de una categoría en una región.
+     *
+     * @param region región fiscal
+     * @param categoria categoría de producto
+     * @return la tasa como fracción decimal
+     */
+    public BigDecimal getTasa(RegionFiscal region, CategoriaProducto categoria) {
+        return tabla.getTasa(region, categoria);
+    }
+
+    /**
+     * Describe las tasas de una región para mostrarlas, por ejemplo "16%" o "0%/16%".
+     *
+     * @param region región fiscal
+     * @return descripción de las tasas distintas de la región
+     */
+    public String describirTasas(RegionFiscal region) {
+        TablaImpuestos vigente = tabla;
+        TreeSet<BigDecimal> tasas = new TreeSet<>();
+        for (CategoriaProducto categoria : CategoriaProducto.values()) {
+            tasas.add(vigente.getTasa(region, categoria).multiply(CIEN).stripTrailingZeros());
+        }
+        StringBuilder descripcion = new StringBuilder();
+        for (BigDecimal tasa : tasas) {
+            if (descripcion.length() > 0) {
+                descripcion.append('/');
+            }
+            descripcion.append(tasa.toPlainString()).append('%');
+        }
+        return descripcion.toString();
+    }
+
+    private static TablaImpuestos tablaPorDefecto() {
+        TablaImpuestos inicial = TablaImpuestos.vacia();
+        for (CategoriaProducto categoria : CategoriaProducto.values()) {
+            inicial = inicial.conTasa(RegionFiscal.GENERAL, categoria, aPuntosBase(TASA_GENERAL))
+                    .conTasa(RegionFiscal.FRONTERIZA, categoria, aPuntosBase(TASA_FRONTERIZA));
+        }
+        return inicial;
+    }
+
+    private static int aPuntosBase(BigDecimal tasa) {
+        if (tasa == null || tasa.signum() < 0 || tasa.compareTo(BigDecimal.ONE) > 0) {
+            throw new IllegalArgumentException("La tasa debe estar entre 0 y 1");
+        }
+        if (tasa.stripTrailingZeros().scale() > 4) {
+            throw new IllegalArgumentException("La tasa admite como máximo cuatro decimales");
+        }
+        return tasa.movePointRight(4).intValue();
+    }
+}
@@ -0,0 +1,94 @@
+package com.jefecame.dreams.impuesto;
+
+import com.jefecame.dreams.model.CategoriaProducto;
+import com.jefecame.dreams.model.RegionFiscal;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Tabla inmutable de tasas de impuesto por región fiscal y categoría de producto.
+ *
+ * Las tasas se guardan en puntos base (centésimas de punto porcentual) en un
+ * arreglo plano indexado por los ordinales de la región y la categoría, de modo
+ * que resolver y aplicar una tasa es aritmética entera sin crear objetos.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public final class TablaImpuestos {
+
+    /** Puntos base equivalentes al 100% */
+    static final int PUNTOS_BASE_TOTALES = 10_000;
+
+    private static final int CATEGORIAS = CategoriaProducto.values().length;
+
+    private final int[] puntosBase;
+
+    TablaImpuestos(int[] puntosBase) {
+        this.puntosBase = puntosBase;
+    }
+
+    /**
+     * Crea una tabla vacía, con todas las tasas en cero.
+     *
+     * @return la tabla
+     */
+    static TablaImpuestos vacia() {
+        return new TablaImpuestos(new int[RegionFiscal.values().length * CATEGORIAS]);
+    }
+
+    /**
+     * Crea una copia de la tabla con una tasa distinta.
+     *
+     * @param region región fiscal
+     * @param categoria categoría de producto
+     * @param tasaPuntosBase nueva tasa en puntos base
+     * @return la nueva tabla
+     */
+    TablaImpuestos conTasa(RegionFiscal region, CategoriaProducto categoria, int tasaPuntosBase) {
+        int[] copia = Arrays.copyOf(puntosBase, puntosBase.length);
+        copia[indice(region, categoria)] = tasaPuntosBase;
+        return new TablaImpuestos(copia);
+    }
+
+    /**
+     * Obtiene la tasa en puntos base.
+     *
+     * @param region región fiscal
+     * @param categoria categoría de producto
+     * @return la tasa en puntos base
+     */
+    public int tasaPuntosBase(RegionFiscal region, CategoriaProducto categoria) {
+        return puntosBase[indice(region, categoria)];
+    }
+
+    /**
+     * Obtiene la tasa como fracción decimal, por ejemplo 0.16.
+     *
+     * @param region región fiscal
+     * @param categoria categoría de producto
+     * @return la tasa
+     */
+    public BigDecimal getTasa(RegionFiscal region, CategoriaProducto categoria) {
+        return BigDecimal.valueOf(tasaPuntosBase(region, categoria), 4);
+    }
+
+    /**
+     * Calcula el impuesto de un importe con la tasa indicada, redondeado al centavo.
+     *
+     * @param baseCentavos importe gravable en centavos
+     * @param tasaPuntosBase tasa en puntos base
+     * @return impuesto en centavos
+     */
+    public static long calcularCentavos(long baseCentavos, int tasaPuntosBase) {
+        long producto = baseCentavos * tasaPuntosBase;
+        long mitad = PUNTOS_BASE_TOTALES / 2;
+        return producto >= 0
+                ? (producto + mitad) / PUNTOS_BASE_TOTALES
+                : -((-producto + mitad) / PUNTOS_BASE_TOTALES);
+    }
+
+    private static int indice(RegionFiscal region, CategoriaProducto categoria) {
+        return region.ordinal() * CATEGORIAS + categoria.ordinal();
+    }
+}
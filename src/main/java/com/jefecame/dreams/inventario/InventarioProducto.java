@@ -0,0 +1,457 @@
+package com.jefecame.dreams.inventario;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Existencias de un producto repartidas por ubicación.
+ * 
+ * Cada ubicación tiene su propio contador atómico. Las reservas son CAS sobre
+ * el contador de la ubicación, sin bloqueos ni versión del producto de por medio.
+ * 
+ * Los contadores empiezan juntos en un arreglo compacto de 8 bytes por
+ * ubicación: con la red por defecto de 42 ubicaciones son unos 350 bytes por
+ * producto. Ahí varias tiendas comparten línea de caché, así que una venta en
+ * una tienda invalida la línea de sus vecinas. Cuando los CAS fallidos de un
+ * producto llegan a un umbral, el producto es caliente y sus contadores se
+ * mudan a un arreglo con relleno, a una línea de caché de distancia, donde las
+ * tiendas ya no se estorban. El relleno cuesta 64 bytes por ubicación más una
+ * línea de cabecera, unos 2.7 KB por producto con la red por defecto, y solo lo
+ * pagan los productos calientes. La mudanza no detiene a nadie: cada contador
+ * se copia y se marca como movido con un CAS, y quien encuentra la marca sigue
+ * al arreglo nuevo.
+ * 
+ * Junto a las existencias, la misma palabra de 64 bits guarda cuántos cambios
+ * ha tenido la ubicación. Cada cambio se avisa al {@link OyenteExistencias}
+ * asignado con las existencias resultantes y ese número, de modo que una
+ * réplica puede aplicar los avisos en cualquier orden quedándose con el más
+ * reciente de cada ubicación.
+ * 
+ * El total se mantiene aparte en un {@link LongAdder} que cada cambio ajusta
+ * con su diferencia, de modo que leer el disponible total no recorre las
+ * ubicaciones. Es exacto en reposo; durante cambios concurrentes puede no
+ * reflejar todavía los que están en curso.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public final class InventarioProducto {
+    
+    /** Largos por ubicación con relleno: 8 x 8 bytes = una línea de caché de 64 bytes */
+    private static final int RELLENO = 8;
+    
+    /** CAS fallidos tras los que el producto pasa al arreglo con relleno */
+    private static final int UMBRAL_CONFLICTOS = 64;
+    
+    /**
+     * Marca de un contador compacto que ya se mudó al arreglo con relleno. Equivale
+     * a cero existencias con el cambio {@link Integer#MIN_VALUE}, que
+     * {@link #empaquetar(int, int)} nunca produce.
+     */
+    private static final long MOVIDO = Long.MIN_VALUE;
+    
+    private volatile Contadores contadores;
+    private final AtomicInteger conflictos;
+    private final int umbralConflictos;
+    private final LongAdder total;
+    private final int ubicaciones;
+    private volatile int idProducto;
+    private volatile OyenteExistencias oyente;
+    
+    /**
+     * Constructor para crear un inventario vacío.
+     * 
+     * @param ubicaciones número de ubicaciones de la red
+     * @throws IllegalArgumentException si el número de ubicaciones no es positivo
+     */
+    public InventarioProducto(int ubicaciones) {
+        this(ubicaciones, UMBRAL_CONFLICTOS);
+    }
+    
+    /**
+     * Constructor para crear un inventario vacío con otro umbral de conflictos.
+     * 
+     * @param ubicaciones número de ubicaciones de la red
+     * @param umbralConflictos CAS fallidos tras los que se pasa al arreglo con relleno;
+     *        0 para empezar ya con relleno
+     * @throws IllegalArgumentException si el número de ubicaciones no es positivo o el umbral es negativo
+     */
+    InventarioProducto(int ubicaciones, int umbralConflictos) {
+        if (ubicaciones <= 0) {
+            throw new IllegalArgumentException("El inventario necesita al menos una ubicación");
+        }
+        if (umbralConflictos < 0) {
+            throw new IllegalArgumentException("El umbral de conflictos no puede ser negativo");
+        }
+        this.ubicaciones = ubicaciones;
+        this.umbralConflictos = umbralConflictos;
+        this.conflictos = new AtomicInteger();
+        this.contadores = umbralConflictos == 0 ? Contadores.conRelleno(ubicaciones) : Contadores.compactos(ubicaciones);
+        this.total = new LongAdder();
+    }
+    
+    /**
+     * Obtiene las existencias de una ubicación.
+     * 
+     * @param ubicacion índice de la ubicación
+     * @return las unidades disponibles en la ubicación
+     */
+    public int disponible(int ubicacion) {
+        return existencias(leer(validar(ubicacion)));
+    }
+    
+    /**
+     * Obtiene las existencias de una ubicación junto con su número de cambios,
+     * leídos a la vez. Se separan con {@link #existencias(long)} y {@link #cambio(long)}.
+     * 
+     * @param ubicacion índice de la ubicación
+     * @return el estado de la ubicación
+     */
+    public long estado(int ubicacion) {
+        return leer(validar(ubicacion));
+    }
+    
+    /**
+     * Extrae las existencias de un estado leído con {@link #estado(int)}.
+     * 
+     * @param estado estado de una ubicación
+     * @return las unidades disponibles
+     */
+    public static int existencias(long estado) {
+        return (int) estado;
+    }
+    
+    /**
+     * Extrae el número de cambios de un estado leído con {@link #estado(int)}.
+     * 
+     * @param estado estado de una ubicación
+     * @return el número de cambios de la ubicación
+     */
+    public static int cambio(long estado) {
+        return (int) (estado >>> 32);
+    }
+    
+    /**
+     * Obtiene las existencias sumadas de todas las ubicaciones.
+     * 
+     * @return las unidades disponibles en toda la red
+     */
+    public long total() {
+        return total.sum();
+    }
+    
+    /**
+     * Descuenta unidades de una ubicación solo si alcanzan.
+     * 
+     * @param ubicacion índice de la ubicación
+     * @param cantidad unidades a descontar
+     * @return true si se descontaron, false si la ubicación no tenía suficientes
+     * @throws IllegalArgumentException si la cantidad no es positiva
+     */
+    public boolean reservar(int ubicacion, int cantidad) {
+        validarCantidad(cantidad);
+        long actual = leer(validar(ubicacion));
+        while (existencias(actual) >= cantidad) {
+            long nuevo = siguiente(actual, existencias(actual) - cantidad);
+            long observado = intercambiar(ubicacion, actual, nuevo);
+            if (observado == actual) {
+                total.add(-cantidad);
+                notificar(ubicacion, nuevo);
+                return true;
+            }
+            actual = observado;
+        }
+        return false;
+    }
+    
+    /**
+     * Regresa unidades a una ubicación.
+     * 
+     * @param ubicacion índice de la ubicación
+     * @param cantidad unidades a regresar
+     * @throws IllegalArgumentException si la cantidad no es positiva
+     */
+    public void devolver(int ubicacion, int cantidad) {
+        validarCantidad(cantidad);
+        long actual = leer(validar(ubicacion));
+        while (true) {
+            long nuevo = siguiente(actual, existencias(actual) + cantidad);
+            long observado = intercambiar(ubicacion, actual, nuevo);
+            if (observado == actual) {
+                total.add(cantidad);
+                notificar(ubicacion, nuevo);
+                return;
+            }
+            actual = observado;
+        }
+    }
+    
+    /**
+     * Suma o resta unidades a una ubicación sin dejarla por debajo de cero.
+     * 
+     * @param ubicacion índice de la ubicación
+     * @param diferencia unidades a sumar (positiva) o restar (negativa)
+     * @return las existencias resultantes en la ubicación
+     */
+    public int ajustar(int ubicacion, int diferencia) {
+        long actual = leer(validar(ubicacion));
+        while (true) {
+            int existencias = Math.max(0, existencias(actual) + diferencia);
+            long nuevo = siguiente(actual, existencias);
+            long observado = intercambiar(ubicacion, actual, nuevo);
+            if (observado == actual) {
+                total.add(existencias - existencias(actual));
+                notificar(ubicacion, nuevo);
+                return existencias;
+            }
+            actual = observado;
+        }
+    }
+    
+    /**
+     * Fija las existencias de una ubicación.
+     * 
+     * @param ubicacion índice de la ubicación
+     * @param cantidad nuevas existencias
+     */
+    public void establecer(int ubicacion, int cantidad) {
+        long actual = leer(validar(ubicacion));
+        while (true) {
+            long nuevo = siguiente(actual, cantidad);
+            long observado = intercambiar(ubicacion, actual, nuevo);
+            if (observado == actual) {
+                total.add(cantidad - existencias(actual));
+                notificar(ubicacion, nuevo);
+                return;
+            }
+            actual = observado;
+        }
+    }
+    
+    /**
+     * Fija las existencias y el número de cambios de una ubicación tal como los
+     * tenía otra copia del producto, sin avisar al oyente. Sirve para reconstruir
+     * un producto decodificado antes de publicarlo.
+     * 
+     * @param ubicacion índice de la ubicación
+     * @param existencias existencias de la ubicación
+     * @param cambio número de cambios de la ubicación
+     */
+    public void restaurar(int ubicacion, int existencias, int cambio) {
+        long nuevo = empaquetar(existencias, cambio);
+        long actual = leer(validar(ubicacion));
+        while (true) {
+            long observado = intercambiar(ubicacion, actual, nuevo);
+            if (observado == actual) {
+                total.add(existencias - existencias(actual));
+                return;
+            }
+            actual = observado;
+        }
+    }
+    
+    /**
+     * Aplica las existencias de una ubicación recibidas de otra copia del producto,
+     * solo si su número de cambios es más reciente que el local. Aplicar dos veces
+     * el mismo aviso, o uno más viejo después de uno más nuevo, no tiene efecto.
+     * 
+     * @param ubicacion índice de la ubicación
+     * @param existencias existencias de la ubicación en la otra copia
+     * @param cambio número de cambios de la ubicación en la otra copia
+     * @return true si se aplicó, false si ya se tenía un cambio igual o más reciente
+     */
+    public boolean aplicarReplica(int ubicacion, int existencias, int cambio) {
+        validar(ubicacion);
+        long nuevo = empaquetar(existencias, cambio);
+        long actual = leer(ubicacion);
+        // La resta compara bien aunque el contador de cambios haya dado la vuelta
+        while (cambio - cambio(actual) > 0) {
+            long observado = intercambiar(ubicacion, actual, nuevo);
+            if (observado == actual) {
+                total.add(existencias - existencias(actual));
+                notificar(ubicacion, nuevo);
+                return true;
+            }
+            actual = observado;
+        }
+        return false;
+    }
+    
+    /**
+     * Aplica con {@link #aplicarReplica} cada ubicación de otra copia del producto
+     * que sea más reciente que la local.
+     * 
+     * @param otro inventario de la otra copia, con las mismas ubicaciones
+     */
+    public void fusionar(InventarioProducto otro) {
+        for (int i = 0; i < ubicaciones && i < otro.ubicaciones; i++) {
+            long estado = otro.estado(i);
+            if (cambio(estado) != 0) {
+                aplicarReplica(i, existencias(estado), cambio(estado));
+            }
+        }
+    }
+    
+    /**
+     * Asigna el oyente que recibe cada cambio de existencias, o lo quita con null.
+     * Lo asigna el repositorio que guarda el producto.
+     * 
+     * @param idProducto identificador del producto dueño del inventario
+     * @param oyente oyente de los cambios, o null para no avisar
+     */
+    public void asignarOyente(int idProducto, OyenteExistencias oyente) {
+        this.idProducto = idProducto;
+        this.oyente = oyente;
+    }
+    
+    /**
+     * Mueve unidades de una ubicación a otra, por ejemplo de un centro de distribución a una tienda.
+     * 
+     * @param origen índice de la ubicación que entrega
+     * @param destino índice de la ubicación que recibe
+     * @param cantidad unidades a mover
+     * @return true si se movieron, false si el origen no tenía suficientes
+     * @throws IllegalArgumentException si la cantidad no es positiva
+     */
+    public boolean transferir(int origen, int destino, int cantidad) {
+        validar(destino);
+        if (!reservar(origen, cantidad)) {
+            return false;
+        }
+        devolver(destino, cantidad);
+        return true;
+    }
+    
+    /**
+     * Obtiene el número de ubicaciones del inventario.
+     * 
+     * @return número de ubicaciones
+     */
+    public int contarUbicaciones() {
+        return ubicaciones;
+    }
+    
+    /**
+     * Indica si los contadores ya están en el arreglo con relleno.
+     * 
+     * @return true si el producto ya se mudó al arreglo con relleno
+     */
+    public boolean isRelleno() {
+        return contadores.paso == RELLENO;
+    }
+    
+    private int validar(int ubicacion) {
+        if (ubicacion < 0 || ubicacion >= ubicaciones) {
+            throw new IllegalArgumentException("Ubicación inexistente: " + ubicacion);
+        }
+        return ubicacion;
+    }
+    
+    private long leer(int ubicacion) {
+        Contadores actuales = contadores;
+        while (true) {
+            long estado = actuales.valores.get(actuales.posicion(ubicacion));
+            if (estado != MOVIDO) {
+                return estado;
+            }
+            actuales = actuales.siguientes;
+        }
+    }
+    
+    /**
+     * Hace el CAS sobre el contador de la ubicación siguiendo la mudanza si la
+     * encuentra, y cuenta los fallos para decidir cuándo mudarse.
+     */
+    private long intercambiar(int ubicacion, long esperado, long nuevo) {
+        Contadores actuales = contadores;
+        while (true) {
+            long observado = actuales.valores.compareAndExchange(actuales.posicion(ubicacion), esperado, nuevo);
+            if (observado != MOVIDO) {
+                if (observado != esperado && actuales.paso != RELLENO
+                        && conflictos.incrementAndGet() == umbralConflictos) {
+                    mudarARelleno(actuales);
+                }
+                return observado;
+            }
+            actuales = actuales.siguientes;
+        }
+    }
+    
+    /**
+     * Copia cada contador compacto al arreglo con relleno y lo marca como movido.
+     * Solo lo ejecuta el hilo que llevó los conflictos al umbral.
+     */
+    private void mudarARelleno(Contadores compactos) {
+        Contadores rellenos = Contadores.conRelleno(ubicaciones);
+        // Se publica antes de marcar el primer contador: quien vea la marca ya encuentra el destino
+        compactos.siguientes = rellenos;
+        for (int i = 0; i < ubicaciones; i++) {
+            int origen = compactos.posicion(i);
+            long estado = compactos.valores.get(origen);
+            while (true) {
+                // Nadie escribe en el destino de i hasta que el origen tenga la marca
+                rellenos.valores.set(rellenos.posicion(i), estado);
+                long observado = compactos.valores.compareAndExchange(origen, estado, MOVIDO);
+                if (observado == estado) {
+                    break;
+                }
+                estado = observado;
+            }
+        }
+        contadores = rellenos;
+    }
+    
+    private void notificar(int ubicacion, long estado) {
+        OyenteExistencias actual = oyente;
+        if (actual != null) {
+            actual.alCambiarExistencias(idProducto, ubicacion, existencias(estado), cambio(estado));
+        }
+    }
+    
+    private static long siguiente(long actual, int existencias) {
+        return empaquetar(existencias, cambio(actual) + 1);
+    }
+    
+    private static long empaquetar(int existencias, int cambio) {
+        long estado = ((long) cambio << 32) | (existencias & 0xFFFFFFFFL);
+        // El cambio salta la marca de movido; para las réplicas sigue siendo más reciente
+        return estado == MOVIDO ? empaquetar(existencias, cambio + 1) : estado;
+    }
+    
+    private static void validarCantidad(int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a 0");
+        }
+    }
+    
+    /**
+     * Arreglo de contadores con la distancia entre ubicaciones.
+     */
+    private static final class Contadores {
+        
+        private final AtomicLongArray valores;
+        private final int paso;
+        private final int inicio;
+        private volatile Contadores siguientes;
+        
+        private Contadores(AtomicLongArray valores, int paso, int inicio) {
+            this.valores = valores;
+            this.paso = paso;
+            this.inicio = inicio;
+        }
+        
+        static Contadores compactos(int ubicaciones) {
+            return new Contadores(new AtomicLongArray(ubicaciones), 1, 0);
+        }
+        
+        static Contadores conRelleno(int ubicaciones) {
+            // La primera posición también se rellena para no compartir línea con la cabecera del arreglo
+            return new Contadores(new AtomicLongArray((ubicaciones + 1) * RELLENO), RELLENO, RELLENO);
+        }
+        
+        int posicion(int ubicacion) {
+            return inicio + ubicacion * paso;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.jefecame.dreams.inventario;
+
+/**
+ * Oyente de los cambios de existencias de los productos.
+ * 
+ * Las existencias cambian con CAS fuera de cualquier bloqueo, así que los
+ * avisos de una misma ubicación pueden llegar en desorden entre hilos. Cada
+ * aviso lleva el número de cambio de la ubicación: entre dos avisos, el de
+ * número mayor es el más reciente. La implementación debe ser breve porque se
+ * invoca en el camino de cobro.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public interface OyenteExistencias {
+    
+    /**
+     * Se invoca después de cada cambio de existencias de una ubicación.
+     * 
+     * @param idProducto identificador del producto
+     * @param ubicacion índice de la ubicación
+     * @param existencias existencias resultantes en la ubicación
+     * @param cambio número de cambio de la ubicación
+     */
+    void alCambiarExistencias(int idProducto, int ubicacion, int existencias, int cambio);
+}
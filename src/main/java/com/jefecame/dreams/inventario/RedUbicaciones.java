@@ -0,0 +1,155 @@
+package com.jefecame.dreams.inventario;
+
+import com.jefecame.dreams.model.TipoUbicacion;
+import com.jefecame.dreams.model.Ubicacion;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Red de tiendas y centros de distribución que guardan inventario.
+ * 
+ * La red es fija durante la ejecución porque cada producto reserva un contador
+ * por ubicación al crearse. Las tiendas ocupan los primeros índices (T01, T02,
+ * ...) y después los centros de distribución (CD1, CD2, ...). La tienda T01 es
+ * la ubicación principal: ahí queda el stock de los productos creados con una
+ * sola cantidad y ahí venden las tiendas que no eligen otra ubicación.
+ * 
+ * La red por defecto se configura con {@code -Ddreams.ubicaciones.tiendas}
+ * (40 por omisión) y {@code -Ddreams.ubicaciones.centros} (2 por omisión).
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public final class RedUbicaciones {
+    
+    private static final int TIENDAS_POR_DEFECTO = 40;
+    private static final int CENTROS_POR_DEFECTO = 2;
+    
+    private final List<Ubicacion> ubicaciones;
+    private final int tiendas;
+    
+    private RedUbicaciones(int tiendas, int centros) {
+        if (tiendas < 1) {
+            throw new IllegalArgumentException("La red necesita al menos una tienda");
+        }
+        if (centros < 0) {
+            throw new IllegalArgumentException("El número de centros de distribución no puede ser negativo");
+        }
+        
+        List<Ubicacion> lista = new ArrayList<>(tiendas + centros);
+        for (int i = 1; i <= tiendas; i++) {
+            lista.add(new Ubicacion(lista.size(), String.format("T%02d", i), "Tienda " + i, TipoUbicacion.TIENDA));
+        }
+        for (int i = 1; i <= centros; i++) {
+            lista.add(new Ubicacion(lista.size(), "CD" + i, "Centro de distribución " + i,
+                    TipoUbicacion.CENTRO_DISTRIBUCION));
+        }
+        this.ubicaciones = Collections.unmodifiableList(lista);
+        this.tiendas = tiendas;
+    }
+    
+    /**
+     * Crea una red con el número de tiendas y centros indicado.
+     * 
+     * @param tiendas número de tiendas
+     * @param centros número de centros de distribución
+     * @return la red creada
+     * @throws IllegalArgumentException si no hay tiendas o los centros son negativos
+     */
+    public static RedUbicaciones crear(int tiendas, int centros) {
+        return new RedUbicaciones(tiendas, centros);
+    }
+    
+    /**
+     * Obtiene la red compartida por los productos, configurada por propiedades del sistema.
+     * 
+     * @return la red por defecto
+     */
+    public static RedUbicaciones porDefecto() {
+        return Instancia.RED;
+    }
+    
+    /**
+     * Obtiene la ubicación principal de la red.
+     * 
+     * @return la primera tienda
+     */
+    public Ubicacion getPrincipal() {
+        return ubicaciones.get(0);
+    }
+    
+    /**
+     * Obtiene una ubicación por su índice.
+     * 
+     * @param indice índice de la ubicación
+     * @return la ubicación
+     * @throws IllegalArgumentException si el índice no pertenece a la red
+     */
+    public Ubicacion obtener(int indice) {
+        if (indice < 0 || indice >= ubicaciones.size()) {
+            throw new IllegalArgumentException("Ubicación inexistente: " + indice);
+        }
+        return ubicaciones.get(indice);
+    }
+    
+    /**
+     * Busca una ubicación por su clave, sin distinguir mayúsculas.
+     * 
+     * @param clave clave de la ubicación, por ejemplo "T05" o "CD1"
+     * @return la ubicación encontrada o null si no existe
+     */
+    public Ubicacion buscarPorClave(String clave) {
+        if (clave == null) {
+            return null;
+        }
+        for (Ubicacion ubicacion : ubicaciones) {
+            if (ubicacion.getClave().equalsIgnoreCase(clave.trim())) {
+                return ubicacion;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Obtiene todas las ubicaciones en orden de índice.
+     * 
+     * @return lista inmutable de ubicaciones
+     */
+    public List<Ubicacion> getUbicaciones() {
+        return ubicaciones;
+    }
+    
+    /**
+     * Obtiene el número de ubicaciones de la red.
+     * 
+     * @return número de tiendas más centros de distribución
+     */
+    public int contarUbicaciones() {
+        return ubicaciones.size();
+    }
+    
+    /**
+     * Obtiene el número de tiendas de la red.
+     * 
+     * @return número de tiendas
+     */
+    public int contarTiendas() {
+        return tiendas;
+    }
+    
+    /**
+     * Crea un inventario vacío con un contador por ubicación de la red.
+     * 
+     * @return el inventario creado
+     */
+    public InventarioProducto crearInventario() {
+        return new InventarioProducto(ubicaciones.size());
+    }
+    
+    private static final class Instancia {
+        private static final RedUbicaciones RED = new RedUbicaciones(
+                Integer.getInteger("dreams.ubicaciones.tiendas", TIENDAS_POR_DEFECTO),
+                Integer.getInteger("dreams.ubicaciones.centros", CENTROS_POR_DEFECTO));
+    }
+}
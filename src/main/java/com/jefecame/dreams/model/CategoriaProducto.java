@@ -0,0 +1,16 @@
+package com.jefecame.dreams.model;
+
+/**
+ * Enumeración que define las categorías de productos.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public enum CategoriaProducto {
+    
+    /** Productos electrónicos */
+    ELECTRONICA,
+    
+    /** Prendas de ropa */
+    ROPA
+}
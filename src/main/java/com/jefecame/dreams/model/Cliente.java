@@ -9,9 +9,10 @@ package com.jefecame.dreams.model;
 public class Cliente {
     
     private int id;
-    private String nombre;
-    private String email;
-    private boolean activo;
+    private volatile String nombre;
+    private volatile String email;
+    private volatile boolean activo;
+    private volatile long version;
     
     /**
      * Constructor para crear un nuevo cliente.
@@ -102,4 +103,22 @@ public class Cliente {
         this.email = email;
         this.activo = activo;
     }
+    
+    /**
+     * Obtiene la versión del cliente usada para el control de concurrencia optimista.
+     * 
+     * @return la versión actual
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Establece la versión del cliente. Solo debe usarla el repositorio al guardar.
+     * 
+     * @param version nueva versión
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,95 @@
+package com.jefecame.dreams.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Clase que representa una línea de una devolución: las unidades devueltas de
+ * un detalle de la venta original y el importe que se reembolsa por ellas.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public final class DetalleDevolucion {
+    
+    private final int idDetalleVenta;
+    private final int idProducto;
+    private final int cantidad;
+    private final long subtotalCentavos;
+    private final long impuestoCentavos;
+    
+    /**
+     * Constructor para crear una línea de devolución.
+     * 
+     * @param idDetalleVenta identificador del detalle de la venta original
+     * @param idProducto identificador del producto devuelto
+     * @param cantidad unidades devueltas
+     * @param subtotalCentavos importe reembolsado antes de impuestos, en centavos
+     * @param impuestoCentavos impuesto reembolsado, en centavos
+     * @throws IllegalArgumentException si la cantidad no es positiva
+     */
+    public DetalleDevolucion(int idDetalleVenta, int idProducto, int cantidad, long subtotalCentavos,
+                             long impuestoCentavos) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad devuelta debe ser mayor a 0");
+        }
+        this.idDetalleVenta = idDetalleVenta;
+        this.idProducto = idProducto;
+        this.cantidad = cantidad;
+        this.subtotalCentavos = subtotalCentavos;
+        this.impuestoCentavos = impuestoCentavos;
+    }
+    
+    /**
+     * Obtiene el identificador del detalle de la venta original.
+     * 
+     * @return el id del detalle de venta
+     */
+    public int getIdDetalleVenta() {
+        return idDetalleVenta;
+    }
+    
+    /**
+     * Obtiene el identificador del producto devuelto.
+     * 
+     * @return el id del producto
+     */
+    public int getIdProducto() {
+        return idProducto;
+    }
+    
+    /**
+     * Obtiene las unidades devueltas.
+     * 
+     * @return la cantidad devuelta
+     */
+    public int getCantidad() {
+        return cantidad;
+    }
+    
+    /**
+     * Obtiene el importe reembolsado antes de impuestos.
+     * 
+     * @return el subtotal reembolsado
+     */
+    public BigDecimal getSubtotal() {
+        return BigDecimal.valueOf(subtotalCentavos, 2);
+    }
+    
+    /**
+     * Obtiene el importe reembolsado antes de impuestos en centavos.
+     * 
+     * @return el subtotal reembolsado en centavos
+     */
+    public long getSubtotalCentavos() {
+        return subtotalCentavos;
+    }
+    
+    /**
+     * Obtiene el impuesto reembolsado en centavos.
+     * 
+     * @return el impuesto reembolsado en centavos
+     */
+    public long getImpuestoCentavos() {
+        return impuestoCentavos;
+    }
+}
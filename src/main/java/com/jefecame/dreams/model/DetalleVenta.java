@@ -1,10 +1,16 @@
 package com.jefecame.dreams.model;
 
+import com.jefecame.dreams.impuesto.TablaImpuestos;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Clase que representa un detalle de venta en el sistema Dreams.
  * 
+ * Las líneas nuevas de una venta con ID reservado (negativo) reciben IDs
+ * negativos de un contador propio, así que no consumen los IDs reales.
+ * 
  * @author jefecame
  * @version 1.0.0
  */
@@ -15,8 +21,20 @@ public class DetalleVenta {
     private Producto producto;
     private int cantidad;
     private BigDecimal precioUnitario;
+    private BigDecimal descuento;
     private BigDecimal subtotal;
-    private static int contadorId = 1;
+    private long subtotalCentavos;
+    private int tasaImpuesto;
+    private long impuestoCentavos;
+    private static final AtomicInteger contadorId = new AtomicInteger(1);
+    private static final AtomicInteger contadorIdReservado = new AtomicInteger();
+    
+    /**
+     * Constructor para subclases que exponen un detalle almacenado fuera del objeto,
+     * como las vistas de detalles archivados. Las subclases deben sobrescribir los getters.
+     */
+    protected DetalleVenta() {
+    }
     
     /**
      * Constructor para crear un nuevo detalle de venta que acepta directamente el objeto Producto.
@@ -26,12 +44,85 @@ public class DetalleVenta {
      * @param cantidad cantidad del producto
      */
     public DetalleVenta(Producto producto, int idVenta, int cantidad) {
-        this.id = contadorId++;
+        this(producto, idVenta, cantidad, BigDecimal.ZERO);
+    }
+    
+    /**
+     * Constructor para crear un nuevo detalle de venta con un descuento promocional.
+     * 
+     * @param producto producto asociado al detalle
+     * @param idVenta identificador de la venta
+     * @param cantidad cantidad del producto
+     * @param descuento descuento total de la línea
+     */
+    public DetalleVenta(Producto producto, int idVenta, int cantidad, BigDecimal descuento) {
+        // Las líneas de una venta sintética no consumen IDs reales
+        this.id = idVenta < 0 ? contadorIdReservado.decrementAndGet() : contadorId.getAndIncrement();
         this.producto = producto;
         this.idVenta = idVenta;
         this.cantidad = cantidad;
         this.precioUnitario = producto.getPrecio();
-        this.subtotal = calcularSubtotal();
+        this.descuento = descuento;
+        this.subtotal = subtotal(precioUnitario, cantidad, descuento);
+        this.subtotalCentavos = aCentavos(subtotal);
+    }
+    
+    /**
+     * Constructor para reconstruir un detalle de venta existente con su identificador
+     * y el precio unitario con el que se vendió.
+     * 
+     * @param id identificador del detalle de venta
+     * @param producto producto asociado al detalle
+     * @param idVenta identificador de la venta
+     * @param cantidad cantidad del producto
+     * @param precioUnitario precio unitario registrado en la venta
+     */
+    public DetalleVenta(int id, Producto producto, int idVenta, int cantidad, BigDecimal precioUnitario) {
+        this(id, producto, idVenta, cantidad, precioUnitario, BigDecimal.ZERO);
+    }
+    
+    /**
+     * Constructor para reconstruir un detalle de venta existente con su identificador,
+     * el precio unitario y el descuento con los que se vendió, sin impuesto.
+     * 
+     * @param id identificador del detalle de venta
+     * @param producto producto asociado al detalle
+     * @param idVenta identificador de la venta
+     * @param cantidad cantidad del producto
+     * @param precioUnitario precio unitario registrado en la venta
+     * @param descuento descuento total de la línea
+     */
+    public DetalleVenta(int id, Producto producto, int idVenta, int cantidad, BigDecimal precioUnitario,
+                        BigDecimal descuento) {
+        this(id, producto, idVenta, cantidad, precioUnitario, descuento, 0);
+    }
+    
+    /**
+     * Constructor para reconstruir un detalle de venta existente con su identificador,
+     * el precio unitario, el descuento y la tasa de impuesto con los que se vendió.
+     * El impuesto se calcula con esa tasa, no con las vigentes.
+     * 
+     * @param id identificador del detalle de venta
+     * @param producto producto asociado al detalle
+     * @param idVenta identificador de la venta
+     * @param cantidad cantidad del producto
+     * @param precioUnitario precio unitario registrado en la venta
+     * @param descuento descuento total de la línea
+     * @param tasaImpuesto tasa de impuesto de la línea en puntos base
+     */
+    public DetalleVenta(int id, Producto producto, int idVenta, int cantidad, BigDecimal precioUnitario,
+                        BigDecimal descuento, int tasaImpuesto) {
+        this.id = id;
+        this.producto = producto;
+        this.idVenta = idVenta;
+        this.cantidad = cantidad;
+        this.precioUnitario = precioUnitario;
+        this.descuento = descuento;
+        this.subtotal = subtotal(precioUnitario, cantidad, descuento);
+        this.subtotalCentavos = aCentavos(subtotal);
+        this.tasaImpuesto = tasaImpuesto;
+        this.impuestoCentavos = TablaImpuestos.calcularCentavos(subtotalCentavos, tasaImpuesto);
+        contadorId.accumulateAndGet(id + 1, Math::max);
     }
     
     /**
@@ -79,6 +170,15 @@ public class DetalleVenta {
         return precioUnitario;
     }
     
+    /**
+     * Obtiene el descuento promocional de la línea.
+     * 
+     * @return el descuento total de la línea, o cero si no tiene promoción
+     */
+    public BigDecimal getDescuento() {
+        return descuento;
+    }
+    
     /**
      * Obtiene el subtotal del detalle de venta.
      * 
@@ -89,30 +189,77 @@ public class DetalleVenta {
     }
     
     /**
-     * Obtiene el producto asociado al detalle.
+     * Obtiene el subtotal del detalle de venta en centavos.
      * 
-     * @return el producto
+     * @return el subtotal en centavos
      */
-    public Producto getProducto() {
-        return producto;
+    public long getSubtotalCentavos() {
+        return subtotalCentavos;
     }
     
     /**
-     * Establece la cantidad del producto.
+     * Obtiene el impuesto de la línea.
      * 
-     * @param cantidad nueva cantidad del producto
+     * @return el impuesto de la línea
      */
-    public void setCantidad(int cantidad) {
-        this.cantidad = cantidad;
-        this.subtotal = calcularSubtotal();
+    public BigDecimal getImpuesto() {
+        return BigDecimal.valueOf(getImpuestoCentavos(), 2);
+    }
+    
+    /**
+     * Obtiene el impuesto de la línea en centavos.
+     * 
+     * @return el impuesto en centavos
+     */
+    public long getImpuestoCentavos() {
+        return impuestoCentavos;
     }
     
     /**
-     * Calcula el subtotal multiplicando cantidad por precio unitario.
+     * Obtiene la tasa de impuesto aplicada a la línea.
+     * 
+     * @return la tasa en puntos base (1600 = 16%)
+     */
+    public int getTasaImpuesto() {
+        return tasaImpuesto;
+    }
+    
+    /**
+     * Fija la tasa de impuesto de la línea y calcula su impuesto.
+     * 
+     * @param tasaPuntosBase tasa en puntos base
+     * @return el impuesto de la línea en centavos
+     */
+    long aplicarTasaImpuesto(int tasaPuntosBase) {
+        this.tasaImpuesto = tasaPuntosBase;
+        this.impuestoCentavos = TablaImpuestos.calcularCentavos(getSubtotalCentavos(), tasaPuntosBase);
+        return impuestoCentavos;
+    }
+    
+    /**
+     * Obtiene el producto asociado al detalle.
+     * 
+     * @return el producto
+     */
+    public Producto getProducto() {
+        return producto;
+    }
+    
+    /**
+     * Calcula el subtotal multiplicando cantidad por precio unitario y restando el descuento.
      * 
      * @return el subtotal calculado
      */
     public BigDecimal calcularSubtotal() {
-        return precioUnitario.multiply(BigDecimal.valueOf(cantidad));
+        return subtotal(precioUnitario, cantidad, descuento);
+    }
+    
+    private static BigDecimal subtotal(BigDecimal precioUnitario, int cantidad, BigDecimal descuento) {
+        BigDecimal bruto = precioUnitario.multiply(BigDecimal.valueOf(cantidad));
+        return descuento.signum() == 0 ? bruto : bruto.subtract(descuento);
+    }
+    
+    private static long aCentavos(BigDecimal importe) {
+        return importe.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
     }
 }
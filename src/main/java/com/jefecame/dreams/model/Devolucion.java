@@ -0,0 +1,215 @@
+package com.jefecame.dreams.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Clase que representa una devolución o reembolso sobre una venta completada.
+ * 
+ * La venta original no se modifica: la devolución queda ligada a ella por su
+ * identificador y guarda las unidades y los importes reembolsados por línea.
+ * Una devolución es inmutable una vez creada.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public final class Devolucion {
+    
+    private final int id;
+    private final int idVenta;
+    private final int idCliente;
+    private final LocalDateTime fecha;
+    private final TipoDevolucion tipo;
+    private final String motivo;
+    private final List<DetalleDevolucion> detalles;
+    private final long subtotalCentavos;
+    private final long impuestoCentavos;
+    private static final AtomicInteger contadorId = new AtomicInteger(1);
+    
+    /**
+     * Constructor para crear una devolución sobre una venta.
+     * 
+     * @param idVenta identificador de la venta original
+     * @param idCliente identificador del cliente de la venta
+     * @param tipo tipo de devolución
+     * @param motivo motivo de la devolución
+     * @param detalles líneas devueltas
+     * @throws IllegalArgumentException si no hay líneas o el tipo es nulo
+     */
+    public Devolucion(int idVenta, int idCliente, TipoDevolucion tipo, String motivo,
+                      List<DetalleDevolucion> detalles) {
+        this(nuevoId(tipo, detalles), idVenta, idCliente, LocalDateTime.now(), tipo, motivo, detalles);
+    }
+    
+    /**
+     * Constructor para reconstruir una devolución existente con su identificador y fecha.
+     * El contador de identificadores se adelanta para no repetir el id recibido.
+     * 
+     * @param id identificador de la devolución
+     * @param idVenta identificador de la venta original
+     * @param idCliente identificador del cliente de la venta
+     * @param fecha fecha de la devolución
+     * @param tipo tipo de devolución
+     * @param motivo motivo de la devolución
+     * @param detalles líneas devueltas
+     * @throws IllegalArgumentException si no hay líneas o el tipo es nulo
+     */
+    public Devolucion(int id, int idVenta, int idCliente, LocalDateTime fecha, TipoDevolucion tipo, String motivo,
+                      List<DetalleDevolucion> detalles) {
+        validar(tipo, detalles);
+        this.id = id;
+        this.idVenta = idVenta;
+        this.idCliente = idCliente;
+        this.fecha = fecha;
+        this.tipo = tipo;
+        this.motivo = motivo;
+        this.detalles = List.copyOf(detalles);
+        
+        long subtotal = 0;
+        long impuesto = 0;
+        for (DetalleDevolucion detalle : this.detalles) {
+            subtotal += detalle.getSubtotalCentavos();
+            impuesto += detalle.getImpuestoCentavos();
+        }
+        this.subtotalCentavos = subtotal;
+        this.impuestoCentavos = impuesto;
+        contadorId.accumulateAndGet(id + 1, Math::max);
+    }
+    
+    /**
+     * Obtiene el identificador de la devolución.
+     * 
+     * @return el id de la devolución
+     */
+    public int getId() {
+        return id;
+    }
+    
+    /**
+     * Obtiene el identificador de la venta original.
+     * 
+     * @return el id de la venta
+     */
+    public int getIdVenta() {
+        return idVenta;
+    }
+    
+    /**
+     * Obtiene el identificador del cliente de la venta original.
+     * 
+     * @return el id del cliente
+     */
+    public int getIdCliente() {
+        return idCliente;
+    }
+    
+    /**
+     * Obtiene la fecha de la devolución.
+     * 
+     * @return la fecha de la devolución
+     */
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+    
+    /**
+     * Obtiene el tipo de devolución.
+     * 
+     * @return el tipo de devolución
+     */
+    public TipoDevolucion getTipo() {
+        return tipo;
+    }
+    
+    /**
+     * Obtiene el motivo de la devolución.
+     * 
+     * @return el motivo, o null si no se indicó
+     */
+    public String getMotivo() {
+        return motivo;
+    }
+    
+    /**
+     * Obtiene las líneas devueltas.
+     * 
+     * @return lista inmutable de líneas
+     */
+    public List<DetalleDevolucion> getDetalles() {
+        return detalles;
+    }
+    
+    /**
+     * Obtiene las unidades devueltas de un detalle de la venta original.
+     * 
+     * @param idDetalleVenta identificador del detalle de venta
+     * @return unidades devueltas de ese detalle en esta devolución
+     */
+    public int unidadesDevueltas(int idDetalleVenta) {
+        int unidades = 0;
+        for (DetalleDevolucion detalle : detalles) {
+            if (detalle.getIdDetalleVenta() == idDetalleVenta) {
+                unidades += detalle.getCantidad();
+            }
+        }
+        return unidades;
+    }
+    
+    /**
+     * Obtiene el importe reembolsado antes de impuestos en centavos.
+     * 
+     * @return el subtotal reembolsado en centavos
+     */
+    public long getSubtotalCentavos() {
+        return subtotalCentavos;
+    }
+    
+    /**
+     * Obtiene el impuesto reembolsado en centavos.
+     * 
+     * @return el impuesto reembolsado en centavos
+     */
+    public long getImpuestoCentavos() {
+        return impuestoCentavos;
+    }
+    
+    /**
+     * Obtiene el importe total reembolsado al cliente.
+     * 
+     * @return el reembolso, impuestos incluidos
+     */
+    public BigDecimal getReembolso() {
+        return BigDecimal.valueOf(getReembolsoCentavos(), 2);
+    }
+    
+    /**
+     * Obtiene el importe total reembolsado al cliente en centavos.
+     * 
+     * @return el reembolso en centavos, impuestos incluidos
+     */
+    public long getReembolsoCentavos() {
+        return subtotalCentavos + impuestoCentavos;
+    }
+    
+    /**
+     * Valida los datos de una devolución nueva y después le asigna identificador,
+     * para que una devolución rechazada no consuma uno.
+     * 
+     * @return el identificador para la devolución
+     */
+    private static int nuevoId(TipoDevolucion tipo, List<DetalleDevolucion> detalles) {
+        validar(tipo, detalles);
+        return contadorId.getAndIncrement();
+    }
+    
+    private static void validar(TipoDevolucion tipo, List<DetalleDevolucion> detalles) {
+        if (tipo == null) {
+            throw new IllegalArgumentException("El tipo de devolución no puede ser nulo");
+        }
+        if (detalles == null || detalles.isEmpty()) {
+            throw new IllegalArgumentException("La devolución debe incluir al menos una línea");
+        }
+    }
+}
@@ -1,37 +1,65 @@
 package com.jefecame.dreams.model;
 
+import com.jefecame.dreams.inventario.InventarioProducto;
+import com.jefecame.dreams.inventario.RedUbicaciones;
 import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Clase abstracta que representa un producto en el sistema Dreams.
  * 
+ * El stock se lleva por ubicación en un {@link InventarioProducto}; los métodos
+ * que no indican ubicación trabajan sobre la ubicación principal de la red o,
+ * en las lecturas, sobre el total de todas las ubicaciones.
+ * 
  * @author jefecame
  * @version 1.0.0
  */
 public abstract class Producto {
     
     protected int id;
-    protected String nombre;
-    protected BigDecimal precio;
-    protected int stock;
-    protected boolean activo;
-    private static int contadorId = 1;
+    protected volatile String nombre;
+    protected volatile BigDecimal precio;
+    protected final InventarioProducto inventario;
+    protected volatile boolean activo;
+    private volatile long version;
+    private static final AtomicInteger contadorId = new AtomicInteger(1);
     
     /**
      * Constructor para crear un nuevo producto.
      * 
      * @param nombre nombre del producto
      * @param precio precio del producto
-     * @param stock cantidad en stock del producto
+     * @param stock cantidad en stock del producto en la ubicación principal
      */
     public Producto(String nombre, BigDecimal precio, int stock) {
-        this.id = contadorId++;
+        this.id = contadorId.getAndIncrement();
         this.nombre = nombre;
         this.precio = precio;
-        this.stock = stock;
+        this.inventario = crearInventario(stock);
         this.activo = true; // Por defecto, un producto nuevo está activo
     }
     
+    /**
+     * Constructor para reconstruir un producto existente con su identificador.
+     * El contador de identificadores se adelanta para no repetir el id recibido.
+     * Los IDs negativos están reservados para productos sintéticos, como los
+     * del calentamiento del arranque, y no mueven el contador.
+     * 
+     * @param id identificador del producto
+     * @param nombre nombre del producto
+     * @param precio precio del producto
+     * @param stock cantidad en stock del producto en la ubicación principal
+     */
+    protected Producto(int id, String nombre, BigDecimal precio, int stock) {
+        this.id = id;
+        this.nombre = nombre;
+        this.precio = precio;
+        this.inventario = crearInventario(stock);
+        this.activo = true;
+        contadorId.accumulateAndGet(id + 1, Math::max);
+    }
+    
     /**
      * Obtiene el identificador del producto.
      * 
@@ -60,12 +88,31 @@ public abstract class Producto {
     }
     
     /**
-     * Obtiene el stock del producto.
+     * Obtiene el stock total del producto en todas las ubicaciones.
      * 
      * @return la cantidad en stock del producto
      */
     public int getStock() {
-        return stock;
+        return (int) inventario.total();
+    }
+    
+    /**
+     * Obtiene el stock del producto en una ubicación.
+     * 
+     * @param ubicacion índice de la ubicación
+     * @return la cantidad en stock en la ubicación
+     */
+    public int getStock(int ubicacion) {
+        return inventario.disponible(ubicacion);
+    }
+    
+    /**
+     * Obtiene el inventario por ubicación del producto.
+     * 
+     * @return el inventario del producto
+     */
+    public InventarioProducto getInventario() {
+        return inventario;
     }
     
     /**
@@ -95,6 +142,13 @@ public abstract class Producto {
         this.precio = precio;
     }
     
+    /**
+     * Obtiene la categoría del producto, determinada por su tipo.
+     * 
+     * @return la categoría del producto
+     */
+    public abstract CategoriaProducto getCategoria();
+    
     /**
      * Establece la categoría del producto.
      * Nota: Este método está definido en la UML pero no hay atributo categoría.
@@ -107,12 +161,12 @@ public abstract class Producto {
     }
     
     /**
-     * Establece el stock del producto.
+     * Establece el stock del producto en la ubicación principal.
      * 
      * @param stock nueva cantidad en stock del producto
      */
     public void setStock(int stock) {
-        this.stock = stock;
+        inventario.establecer(RedUbicaciones.porDefecto().getPrincipal().getIndice(), stock);
     }
     
     /**
@@ -125,25 +179,66 @@ public abstract class Producto {
     }
     
     /**
-     * Actualiza el stock del producto sumando o restando la cantidad especificada.
+     * Actualiza el stock de la ubicación principal sumando o restando la cantidad especificada.
      * 
      * @param cantidad cantidad a agregar (positiva) o quitar (negativa) del stock
      */
     public void actualizarStock(int cantidad) {
-        this.stock += cantidad;
-        if (this.stock < 0) {
-            this.stock = 0;
-        }
+        actualizarStock(RedUbicaciones.porDefecto().getPrincipal().getIndice(), cantidad);
+    }
+    
+    /**
+     * Actualiza el stock de una ubicación sumando o restando la cantidad especificada.
+     * El stock de la ubicación nunca queda por debajo de cero.
+     * 
+     * @param ubicacion índice de la ubicación
+     * @param cantidad cantidad a agregar (positiva) o quitar (negativa) del stock
+     */
+    public void actualizarStock(int ubicacion, int cantidad) {
+        inventario.ajustar(ubicacion, cantidad);
+    }
+    
+    /**
+     * Descuenta stock de una ubicación para una venta, solo si alcanza y el producto está activo.
+     * Comprobar y descontar es una sola operación atómica.
+     * 
+     * @param ubicacion índice de la ubicación que vende
+     * @param cantidad cantidad a descontar
+     * @return true si se descontó, false si no hay suficiente stock o el producto está inactivo
+     */
+    public boolean reservarStock(int ubicacion, int cantidad) {
+        return this.activo && inventario.reservar(ubicacion, cantidad);
     }
     
     /**
-     * Valida si hay suficiente stock para satisfacer la cantidad requerida.
+     * Regresa a una ubicación el stock de una venta cancelada o de una línea removida.
+     * 
+     * @param ubicacion índice de la ubicación que vendió
+     * @param cantidad cantidad a regresar
+     */
+    public void devolverStock(int ubicacion, int cantidad) {
+        inventario.devolver(ubicacion, cantidad);
+    }
+    
+    /**
+     * Valida si hay suficiente stock en toda la red para satisfacer la cantidad requerida.
      * 
      * @param cantidadRequerida cantidad que se desea verificar
      * @return true si hay suficiente stock, false en caso contrario
      */
     public boolean validarDisponibilidad(Integer cantidadRequerida) {
-        return this.stock >= cantidadRequerida && this.activo;
+        return inventario.total() >= cantidadRequerida && this.activo;
+    }
+    
+    /**
+     * Valida si hay suficiente stock en una ubicación para satisfacer la cantidad requerida.
+     * 
+     * @param ubicacion índice de la ubicación
+     * @param cantidadRequerida cantidad que se desea verificar
+     * @return true si hay suficiente stock en la ubicación, false en caso contrario
+     */
+    public boolean validarDisponibilidad(int ubicacion, int cantidadRequerida) {
+        return inventario.disponible(ubicacion) >= cantidadRequerida && this.activo;
     }
     
     /**
@@ -153,4 +248,31 @@ public abstract class Producto {
      * @return cadena con los detalles del producto
      */
     public abstract String mostrarDetalles();
+    
+    /**
+     * Obtiene la versión del producto usada para el control de concurrencia optimista.
+     * 
+     * @return la versión actual
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Establece la versión del producto. Solo debe usarla el repositorio al guardar.
+     * 
+     * @param version nueva versión
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+    
+    private static InventarioProducto crearInventario(int stock) {
+        RedUbicaciones red = RedUbicaciones.porDefecto();
+        InventarioProducto inventario = red.crearInventario();
+        if (stock != 0) {
+            inventario.establecer(red.getPrincipal().getIndice(), stock);
+        }
+        return inventario;
+    }
 }
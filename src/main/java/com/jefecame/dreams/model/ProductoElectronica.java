@@ -29,6 +29,22 @@ public class ProductoElectronica extends Producto {
         this.modelo = modelo;
     }
     
+    /**
+     * Constructor para reconstruir un producto de electrónica existente con su identificador.
+     * 
+     * @param id identificador del producto
+     * @param nombre nombre del producto
+     * @param precio precio del producto
+     * @param stock cantidad en stock del producto
+     * @param marca marca del producto electrónico
+     * @param modelo modelo del producto electrónico
+     */
+    public ProductoElectronica(int id, String nombre, BigDecimal precio, int stock, String marca, String modelo) {
+        super(id, nombre, precio, stock);
+        this.marca = marca;
+        this.modelo = modelo;
+    }
+    
     /**
      * Obtiene la marca del producto electrónico.
      * 
@@ -65,6 +81,16 @@ public class ProductoElectronica extends Producto {
         this.modelo = modelo;
     }
     
+    /**
+     * Obtiene la categoría del producto electrónico.
+     * 
+     * @return ELECTRONICA
+     */
+    @Override
+    public CategoriaProducto getCategoria() {
+        return CategoriaProducto.ELECTRONICA;
+    }
+    
     /**
      * Muestra los detalles específicos del producto electrónico.
      * 
@@ -72,6 +98,6 @@ public class ProductoElectronica extends Producto {
      */
     @Override
     public String mostrarDetalles() {
-        return String.format("Producto Electrónico: %d - ID, %s - Marca: %s, Modelo: %s, Precio: $%.2f, Stock: %d", id, nombre, marca, modelo, precio, stock);
+        return String.format("Producto Electrónico: %d - ID, %s - Marca: %s, Modelo: %s, Precio: $%.2f, Stock: %d", id, nombre, marca, modelo, precio, getStock());
     }
 }
@@ -29,6 +29,22 @@ public class ProductoRopa extends Producto {
         this.color = color;
     }
     
+    /**
+     * Constructor para reconstruir un producto de ropa existente con su identificador.
+     * 
+     * @param id identificador del producto
+     * @param nombre nombre del producto
+     * @param precio precio del producto
+     * @param stock cantidad en stock del producto
+     * @param talla talla del producto de ropa
+     * @param color color del producto de ropa
+     */
+    public ProductoRopa(int id, String nombre, BigDecimal precio, int stock, String talla, String color) {
+        super(id, nombre, precio, stock);
+        this.talla = talla;
+        this.color = color;
+    }
+    
     /**
      * Obtiene la talla del producto de ropa.
      * 
@@ -65,6 +81,16 @@ public class ProductoRopa extends Producto {
         this.color = color;
     }
     
+    /**
+     * Obtiene la categoría del producto de ropa.
+     * 
+     * @return ROPA
+     */
+    @Override
+    public CategoriaProducto getCategoria() {
+        return CategoriaProducto.ROPA;
+    }
+    
     /**
      * Muestra los detalles específicos del producto de ropa.
      * 
@@ -72,6 +98,6 @@ public class ProductoRopa extends Producto {
      */
     @Override
     public String mostrarDetalles() {
-        return String.format("Producto de Ropa: %d - ID,  %s - Talla: %s, Color: %s, Precio: $%.2f, Stock: %d", id, nombre, talla, color, precio, stock);
+        return String.format("Producto de Ropa: %d - ID,  %s - Talla: %s, Color: %s, Precio: $%.2f, Stock: %d", id, nombre, talla, color, precio, getStock());
     }
 }
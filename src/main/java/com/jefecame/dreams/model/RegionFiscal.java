@@ -0,0 +1,16 @@
+package com.jefecame.dreams.model;
+
+/**
+ * Enumeración que define las regiones fiscales en las que opera una tienda.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public enum RegionFiscal {
+    
+    /** Resto del país, con la tasa general de IVA */
+    GENERAL,
+    
+    /** Región fronteriza, con tasa reducida de IVA */
+    FRONTERIZA
+}
@@ -0,0 +1,16 @@
+package com.jefecame.dreams.model;
+
+/**
+ * Enumeración que define los tipos de devolución sobre una venta completada.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public enum TipoDevolucion {
+    
+    /** El cliente regresa la mercancía: se reembolsa y vuelve al stock */
+    DEVOLUCION,
+    
+    /** Solo se reembolsa el importe; la mercancía no regresa al stock */
+    REEMBOLSO
+}
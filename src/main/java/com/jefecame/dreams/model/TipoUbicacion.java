@@ -0,0 +1,16 @@
+package com.jefecame.dreams.model;
+
+/**
+ * Enumeración que define los tipos de ubicación que guardan inventario.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public enum TipoUbicacion {
+    
+    /** Tienda que atiende ventas en mostrador */
+    TIENDA,
+    
+    /** Centro de distribución que abastece a las tiendas */
+    CENTRO_DISTRIBUCION
+}
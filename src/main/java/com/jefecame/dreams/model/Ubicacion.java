@@ -0,0 +1,81 @@
+package com.jefecame.dreams.model;
+
+/**
+ * Clase que representa una ubicación con inventario: una tienda o un centro de distribución.
+ * 
+ * El índice es la posición de la ubicación dentro de la red y es también la
+ * posición de su contador en el inventario de cada producto.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public final class Ubicacion {
+    
+    private final int indice;
+    private final String clave;
+    private final String nombre;
+    private final TipoUbicacion tipo;
+    
+    /**
+     * Constructor para crear una ubicación.
+     * 
+     * @param indice posición de la ubicación en la red
+     * @param clave clave corta de la ubicación, por ejemplo "T01"
+     * @param nombre nombre de la ubicación
+     * @param tipo tipo de ubicación
+     * @throws IllegalArgumentException si el índice es negativo o la clave está vacía
+     */
+    public Ubicacion(int indice, String clave, String nombre, TipoUbicacion tipo) {
+        if (indice < 0) {
+            throw new IllegalArgumentException("El índice de la ubicación no puede ser negativo");
+        }
+        if (clave == null || clave.isBlank()) {
+            throw new IllegalArgumentException("La clave de la ubicación no puede estar vacía");
+        }
+        this.indice = indice;
+        this.clave = clave;
+        this.nombre = nombre;
+        this.tipo = tipo;
+    }
+    
+    /**
+     * Obtiene la posición de la ubicación en la red.
+     * 
+     * @return el índice de la ubicación
+     */
+    public int getIndice() {
+        return indice;
+    }
+    
+    /**
+     * Obtiene la clave corta de la ubicación.
+     * 
+     * @return la clave de la ubicación
+     */
+    public String getClave() {
+        return clave;
+    }
+    
+    /**
+     * Obtiene el nombre de la ubicación.
+     * 
+     * @return el nombre de la ubicación
+     */
+    public String getNombre() {
+        return nombre;
+    }
+    
+    /**
+     * Obtiene el tipo de la ubicación.
+     * 
+     * @return el tipo de ubicación
+     */
+    public TipoUbicacion getTipo() {
+        return tipo;
+    }
+    
+    @Override
+    public String toString() {
+        return clave + " - " + nombre;
+    }
+}
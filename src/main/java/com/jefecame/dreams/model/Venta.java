@@ -1,13 +1,37 @@
 package com.jefecame.dreams.model;
 
+import com.jefecame.dreams.impuesto.MotorImpuestos;
+import com.jefecame.dreams.impuesto.TablaImpuestos;
+import com.jefecame.dreams.inventario.RedUbicaciones;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Clase que representa una venta en el sistema Dreams.
  * 
+ * Los importes se llevan en centavos y se actualizan de forma incremental al
+ * agregar o remover líneas. Cada línea fija su tasa de impuesto al agregarse,
+ * según la región fiscal de la venta y la categoría del producto.
+ * 
+ * La venta pertenece a una ubicación de la red: el stock de sus líneas se
+ * descuenta de esa ubicación y ahí se regresa al removerlas o cancelar.
+ * 
+ * Las líneas, los importes y el estado se publican juntos en un contenido
+ * inmutable que cada cambio reemplaza completo. Los cambios se serializan en
+ * la venta y los lectores nunca bloquean: cada lectura ve una combinación de
+ * líneas, importes y estado que existió completa, aunque otro hilo esté
+ * agregando una línea en ese momento.
+ * 
+ * Los IDs negativos están reservados para ventas sintéticas, como las del
+ * calentamiento del arranque: se asignan con el constructor de reconstrucción,
+ * no mueven el contador de IDs y sus líneas toman también IDs reservados.
+ * 
  * @author jefecame
  * @version 1.0.0
  */
@@ -15,14 +39,12 @@ public class Venta {
     
     private int id;
     private Cliente cliente;
-    private List<DetalleVenta> productosVenta;
-    private BigDecimal subtotal;
-    private BigDecimal impuestos;
-    private BigDecimal total;
+    private RegionFiscal regionFiscal;
+    private int ubicacion;
     private LocalDateTime fechaCreacion;
-    private EstadoVenta estado;
-    private static int contadorId = 1;
-    private static final BigDecimal TASA_IMPUESTO = new BigDecimal("0.16"); // 16% IVA
+    private volatile Contenido contenido;
+    private volatile long version;
+    private static final AtomicInteger contadorId = new AtomicInteger(1);
     
     /**
      * Constructor para crear una nueva venta que acepta directamente el objeto Cliente.
@@ -30,14 +52,86 @@ public class Venta {
      * @param cliente cliente asociado a la venta
      */
     public Venta(Cliente cliente) {
-        this.id = contadorId++;
+        this(cliente, RegionFiscal.GENERAL);
+    }
+    
+    /**
+     * Constructor para crear una nueva venta en una región fiscal específica.
+     * 
+     * @param cliente cliente asociado a la venta
+     * @param regionFiscal región fiscal de la tienda donde se realiza la venta
+     */
+    public Venta(Cliente cliente, RegionFiscal regionFiscal) {
+        this(cliente, regionFiscal, RedUbicaciones.porDefecto().getPrincipal().getIndice());
+    }
+    
+    /**
+     * Constructor para crear una nueva venta en una región fiscal y una ubicación específicas.
+     * 
+     * @param cliente cliente asociado a la venta
+     * @param regionFiscal región fiscal de la tienda donde se realiza la venta
+     * @param ubicacion índice de la ubicación que vende
+     */
+    public Venta(Cliente cliente, RegionFiscal regionFiscal, int ubicacion) {
+        this.id = contadorId.getAndIncrement();
         this.cliente = cliente;
+        this.regionFiscal = regionFiscal != null ? regionFiscal : RegionFiscal.GENERAL;
+        this.ubicacion = ubicacion;
         this.fechaCreacion = LocalDateTime.now();
-        this.productosVenta = new ArrayList<>();
-        this.subtotal = BigDecimal.ZERO;
-        this.impuestos = BigDecimal.ZERO;
-        this.total = BigDecimal.ZERO;
-        this.estado = EstadoVenta.PROCESANDO;
+        this.contenido = new Contenido(Collections.emptyList(), 0, 0, 0, EstadoVenta.PROCESANDO);
+    }
+    
+    /**
+     * Constructor para reconstruir una venta existente con su identificador, estado y detalles.
+     * 
+     * @param id identificador de la venta
+     * @param cliente cliente asociado a la venta
+     * @param fechaCreacion fecha de creación de la venta
+     * @param estado estado de la venta
+     * @param productosVenta detalles de la venta
+     */
+    public Venta(int id, Cliente cliente, LocalDateTime fechaCreacion, EstadoVenta estado, List<DetalleVenta> productosVenta) {
+        this(id, cliente, fechaCreacion, estado, RegionFiscal.GENERAL, productosVenta);
+    }
+    
+    /**
+     * Constructor para reconstruir una venta existente de una región fiscal específica.
+     * Cada línea conserva la tasa de impuesto con la que se vendió.
+     * 
+     * @param id identificador de la venta
+     * @param cliente cliente asociado a la venta
+     * @param fechaCreacion fecha de creación de la venta
+     * @param estado estado de la venta
+     * @param regionFiscal región fiscal de la venta
+     * @param productosVenta detalles de la venta
+     */
+    public Venta(int id, Cliente cliente, LocalDateTime fechaCreacion, EstadoVenta estado, RegionFiscal regionFiscal,
+                 List<DetalleVenta> productosVenta) {
+        this(id, cliente, fechaCreacion, estado, regionFiscal,
+                RedUbicaciones.porDefecto().getPrincipal().getIndice(), productosVenta);
+    }
+    
+    /**
+     * Constructor para reconstruir una venta existente de una región fiscal y una ubicación específicas.
+     * Cada línea conserva la tasa de impuesto con la que se vendió.
+     * 
+     * @param id identificador de la venta
+     * @param cliente cliente asociado a la venta
+     * @param fechaCreacion fecha de creación de la venta
+     * @param estado estado de la venta
+     * @param regionFiscal región fiscal de la venta
+     * @param ubicacion índice de la ubicación que vendió
+     * @param productosVenta detalles de la venta
+     */
+    public Venta(int id, Cliente cliente, LocalDateTime fechaCreacion, EstadoVenta estado, RegionFiscal regionFiscal,
+                 int ubicacion, List<DetalleVenta> productosVenta) {
+        this.id = id;
+        this.regionFiscal = regionFiscal != null ? regionFiscal : RegionFiscal.GENERAL;
+        this.ubicacion = ubicacion;
+        this.cliente = cliente;
+        this.fechaCreacion = fechaCreacion;
+        this.contenido = totalizar(new Contenido(List.copyOf(productosVenta), 0, 0, 0, estado));
+        contadorId.accumulateAndGet(id + 1, Math::max);
     }
     
     /**
@@ -82,7 +176,37 @@ public class Venta {
      * @return lista de detalles de venta
      */
     public List<DetalleVenta> getProductosVenta() {
-        return new ArrayList<>(productosVenta);
+        return new ArrayList<>(contenido.lineas);
+    }
+    
+    /**
+     * Obtiene las líneas de la venta sin copiarlas. La lista no cambia aunque
+     * después se agreguen o remuevan líneas de la venta.
+     * 
+     * @return vista inmutable de los detalles de venta
+     */
+    public List<DetalleVenta> getLineas() {
+        return contenido.lineas;
+    }
+    
+    /**
+     * Obtiene el número de líneas de la venta sin copiar sus detalles.
+     * 
+     * @return número de detalles de venta
+     */
+    public int contarLineas() {
+        return contenido.lineas.size();
+    }
+    
+    /**
+     * Obtiene una línea de la venta sin copiar sus detalles. Para recorrer
+     * las líneas de una venta que puede cambiar, use {@link #getLineas()}.
+     * 
+     * @param indice posición de la línea, entre 0 y {@link #contarLineas()} - 1
+     * @return el detalle de venta
+     */
+    public DetalleVenta obtenerLinea(int indice) {
+        return contenido.lineas.get(indice);
     }
     
     /**
@@ -91,7 +215,35 @@ public class Venta {
      * @return el subtotal de la venta
      */
     public BigDecimal getSubtotal() {
-        return subtotal;
+        return BigDecimal.valueOf(contenido.subtotalCentavos, 2);
+    }
+    
+    /**
+     * Obtiene el subtotal de la venta en centavos.
+     * 
+     * @return el subtotal en centavos
+     */
+    public long getSubtotalCentavos() {
+        return contenido.subtotalCentavos;
+    }
+    
+    /**
+     * Obtiene la suma de los descuentos promocionales de las líneas.
+     * El subtotal ya tiene aplicados estos descuentos.
+     * 
+     * @return el total de descuentos
+     */
+    public BigDecimal getDescuentos() {
+        return BigDecimal.valueOf(contenido.descuentosCentavos, 2);
+    }
+    
+    /**
+     * Obtiene la suma de los descuentos promocionales en centavos.
+     * 
+     * @return el total de descuentos en centavos
+     */
+    public long getDescuentosCentavos() {
+        return contenido.descuentosCentavos;
     }
     
     /**
@@ -100,7 +252,16 @@ public class Venta {
      * @return los impuestos de la venta
      */
     public BigDecimal getImpuestos() {
-        return impuestos;
+        return BigDecimal.valueOf(contenido.impuestosCentavos, 2);
+    }
+    
+    /**
+     * Obtiene los impuestos de la venta en centavos.
+     * 
+     * @return los impuestos en centavos
+     */
+    public long getImpuestosCentavos() {
+        return contenido.impuestosCentavos;
     }
     
     /**
@@ -109,7 +270,35 @@ public class Venta {
      * @return el total de la venta
      */
     public BigDecimal getTotal() {
-        return total;
+        return BigDecimal.valueOf(getTotalCentavos(), 2);
+    }
+    
+    /**
+     * Obtiene el total de la venta en centavos.
+     * 
+     * @return el total en centavos
+     */
+    public long getTotalCentavos() {
+        Contenido actual = contenido;
+        return actual.subtotalCentavos + actual.impuestosCentavos;
+    }
+    
+    /**
+     * Obtiene la región fiscal de la venta.
+     * 
+     * @return la región fiscal
+     */
+    public RegionFiscal getRegionFiscal() {
+        return regionFiscal;
+    }
+    
+    /**
+     * Obtiene la ubicación donde se realiza la venta.
+     * 
+     * @return el índice de la ubicación
+     */
+    public int getUbicacion() {
+        return ubicacion;
     }
     
     /**
@@ -127,7 +316,7 @@ public class Venta {
      * @return el estado de la venta
      */
     public EstadoVenta getEstado() {
-        return estado;
+        return contenido.estado;
     }
     
     /**
@@ -138,22 +327,37 @@ public class Venta {
      * @return true si se agregó correctamente, false en caso contrario
      */
     public boolean agregarProducto(Producto producto, int cantidad) {
-        if (producto == null || cantidad <= 0 || estado != EstadoVenta.PROCESANDO) {
+        return agregarProducto(producto, cantidad, BigDecimal.ZERO);
+    }
+    
+    /**
+     * Agrega un producto a la venta con un descuento promocional en la línea.
+     * 
+     * @param producto producto a agregar
+     * @param cantidad cantidad del producto
+     * @param descuento descuento total de la línea
+     * @return true si se agregó correctamente, false en caso contrario
+     */
+    public synchronized boolean agregarProducto(Producto producto, int cantidad, BigDecimal descuento) {
+        Contenido actual = contenido;
+        if (producto == null || cantidad <= 0 || actual.estado != EstadoVenta.PROCESANDO) {
             return false;
         }
         
-        if (!producto.validarDisponibilidad(cantidad)) {
+        // Descontar el stock de la ubicación; falla sin efecto si no alcanza
+        if (!producto.reservarStock(ubicacion, cantidad)) {
             return false;
         }
         
-        DetalleVenta detalle = new DetalleVenta(producto, this.id, cantidad);
-        productosVenta.add(detalle);
-        
-        // Actualizar stock del producto
-        producto.actualizarStock(-cantidad);
+        DetalleVenta detalle = new DetalleVenta(producto, this.id, cantidad,
+                descuento != null ? descuento : BigDecimal.ZERO);
+        TablaImpuestos tasas = MotorImpuestos.porDefecto().getTabla();
+        long impuesto = detalle.aplicarTasaImpuesto(tasas.tasaPuntosBase(regionFiscal, producto.getCategoria()));
         
-        // Recalcular totales
-        calcularTotal();
+        // Publicar la nueva línea junto con los importes acumulados
+        DetalleVenta[] lineas = actual.lineas.toArray(new DetalleVenta[actual.lineas.size() + 1]);
+        lineas[lineas.length - 1] = detalle;
+        contenido = actual.acumular(Collections.unmodifiableList(Arrays.asList(lineas)), detalle, impuesto, 1);
         
         return true;
     }
@@ -164,27 +368,27 @@ public class Venta {
      * @param idProductoVenta identificador del detalle de venta a remover
      * @return true si se removió correctamente, false en caso contrario
      */
-    public boolean removerProducto(int idProductoVenta) {
-        if (estado != EstadoVenta.PROCESANDO) {
+    public synchronized boolean removerProducto(int idProductoVenta) {
+        Contenido actual = contenido;
+        if (actual.estado != EstadoVenta.PROCESANDO) {
             return false;
         }
         
-        DetalleVenta detalleARemover = null;
-        for (DetalleVenta detalle : productosVenta) {
-            if (detalle.getId() == idProductoVenta) {
-                detalleARemover = detalle;
-                break;
+        List<DetalleVenta> restantes = new ArrayList<>(actual.lineas);
+        for (int i = 0; i < restantes.size(); i++) {
+            DetalleVenta detalleARemover = restantes.get(i);
+            if (detalleARemover.getId() != idProductoVenta) {
+                continue;
             }
-        }
-        
-        if (detalleARemover != null) {
-            // Devolver stock al producto
+            
+            // Devolver stock a la ubicación de la venta
             if (detalleARemover.getProducto() != null) {
-                detalleARemover.getProducto().actualizarStock(detalleARemover.getCantidad());
+                detalleARemover.getProducto().devolverStock(ubicacion, detalleARemover.getCantidad());
             }
             
-            productosVenta.remove(detalleARemover);
-            calcularTotal();
+            restantes.remove(i);
+            contenido = actual.acumular(Collections.unmodifiableList(restantes), detalleARemover,
+                    detalleARemover.getImpuestoCentavos(), -1);
             return true;
         }
         
@@ -192,32 +396,34 @@ public class Venta {
     }
     
     /**
-     * Calcula el total de la venta incluyendo impuestos.
+     * Recalcula el total de la venta desde sus líneas, incluyendo impuestos.
+     * Cada línea conserva el impuesto que fijó al agregarse, así que un cambio
+     * de tasas no altera las ventas ya registradas.
      * 
      * @return true si se calculó correctamente
      */
-    public boolean calcularTotal() {
-        this.subtotal = BigDecimal.ZERO;
-        
-        for (DetalleVenta detalle : productosVenta) {
-            this.subtotal = this.subtotal.add(detalle.getSubtotal());
-        }
-        
-        this.impuestos = this.subtotal.multiply(TASA_IMPUESTO);
-        this.total = this.subtotal.add(this.impuestos);
-        
+    public synchronized boolean calcularTotal() {
+        contenido = totalizar(contenido);
         return true;
     }
     
+    private static Contenido totalizar(Contenido actual) {
+        Contenido recalculado = new Contenido(actual.lineas, 0, 0, 0, actual.estado);
+        for (DetalleVenta detalle : actual.lineas) {
+            recalculado = recalculado.acumular(actual.lineas, detalle, detalle.getImpuestoCentavos(), 1);
+        }
+        return recalculado;
+    }
+    
     /**
      * Finaliza la venta cambiando su estado a COMPLETADA.
      * 
      * @return true si se finalizó correctamente, false en caso contrario
      */
-    public boolean finalizarVenta() {
-        if (estado == EstadoVenta.PROCESANDO && !productosVenta.isEmpty()) {
-            this.estado = EstadoVenta.COMPLETADA;
-            calcularTotal();
+    public synchronized boolean finalizarVenta() {
+        Contenido actual = contenido;
+        if (actual.estado == EstadoVenta.PROCESANDO && !actual.lineas.isEmpty()) {
+            contenido = actual.conEstado(EstadoVenta.COMPLETADA);
             return true;
         }
         return false;
@@ -228,18 +434,106 @@ public class Venta {
      * 
      * @return true si se canceló correctamente, false en caso contrario
      */
-    public boolean cancelarVenta() {
-        if (estado == EstadoVenta.PROCESANDO) {
-            // Devolver stock de todos los productos
-            for (DetalleVenta detalle : productosVenta) {
+    public synchronized boolean cancelarVenta() {
+        Contenido actual = contenido;
+        if (actual.estado == EstadoVenta.PROCESANDO) {
+            // Devolver stock de todos los productos a la ubicación de la venta
+            for (DetalleVenta detalle : actual.lineas) {
                 if (detalle.getProducto() != null) {
-                    detalle.getProducto().actualizarStock(detalle.getCantidad());
+                    detalle.getProducto().devolverStock(ubicacion, detalle.getCantidad());
                 }
             }
             
-            this.estado = EstadoVenta.CANCELADA;
+            contenido = actual.conEstado(EstadoVenta.CANCELADA);
             return true;
         }
         return false;
     }
+    
+    /**
+     * Reemplaza los detalles de una venta cerrada por su representación archivada.
+     * Solo aplica a ventas COMPLETADAS o CANCELADAS, cuyos detalles ya no cambian.
+     * 
+     * @param detallesArchivados vista inmutable de los mismos detalles
+     * @return true si se reemplazaron, false si la venta sigue en proceso
+     * @throws IllegalArgumentException si la vista no tiene el mismo número de detalles
+     */
+    public synchronized boolean archivarDetalles(List<DetalleVenta> detallesArchivados) {
+        Contenido actual = contenido;
+        if (actual.estado == EstadoVenta.PROCESANDO) {
+            return false;
+        }
+        
+        if (detallesArchivados.size() != actual.lineas.size()) {
+            throw new IllegalArgumentException("Los detalles archivados no coinciden con los de la venta");
+        }
+        
+        contenido = actual.conLineas(Collections.unmodifiableList(detallesArchivados));
+        return true;
+    }
+    
+    /**
+     * Obtiene la versión de la venta usada para el control de concurrencia optimista.
+     * 
+     * @return la versión actual
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Establece la versión de la venta. Solo debe usarla el repositorio al guardar.
+     * 
+     * @param version nueva versión
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+    
+    /**
+     * Líneas, importes y estado de una venta. Es inmutable: cada cambio de la
+     * venta publica una instancia nueva.
+     */
+    private static final class Contenido {
+        private final List<DetalleVenta> lineas;
+        private final long subtotalCentavos;
+        private final long descuentosCentavos;
+        private final long impuestosCentavos;
+        private final EstadoVenta estado;
+        
+        private Contenido(List<DetalleVenta> lineas, long subtotalCentavos, long descuentosCentavos,
+                          long impuestosCentavos, EstadoVenta estado) {
+            this.lineas = lineas;
+            this.subtotalCentavos = subtotalCentavos;
+            this.descuentosCentavos = descuentosCentavos;
+            this.impuestosCentavos = impuestosCentavos;
+            this.estado = estado;
+        }
+        
+        /**
+         * Crea el contenido con otras líneas, sumando o restando los importes de una de ellas.
+         * 
+         * @param nuevasLineas líneas del nuevo contenido
+         * @param detalle línea cuyos importes cambian
+         * @param impuestoCentavos impuesto de la línea en centavos
+         * @param signo 1 para sumar la línea, -1 para restarla
+         */
+        private Contenido acumular(List<DetalleVenta> nuevasLineas, DetalleVenta detalle, long impuestoCentavos,
+                                   int signo) {
+            long descuento = 0;
+            if (detalle.getDescuento().signum() != 0) {
+                descuento = detalle.getDescuento().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+            }
+            return new Contenido(nuevasLineas, subtotalCentavos + signo * detalle.getSubtotalCentavos(),
+                    descuentosCentavos + signo * descuento, impuestosCentavos + signo * impuestoCentavos, estado);
+        }
+        
+        private Contenido conEstado(EstadoVenta nuevoEstado) {
+            return new Contenido(lineas, subtotalCentavos, descuentosCentavos, impuestosCentavos, nuevoEstado);
+        }
+        
+        private Contenido conLineas(List<DetalleVenta> nuevasLineas) {
+            return new Contenido(nuevasLineas, subtotalCentavos, descuentosCentavos, impuestosCentavos, estado);
+        }
+    }
 }
@@ -0,0 +1,183 @@
+package com.jefecame.dreams.promocion;
+
+import com.jefecame.dreams.model.Producto;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Motor de promociones con vigencia en el tiempo.
+ *
+ * Cada vez que cambian las reglas, o que una promoción empieza o vence, se
+ * compila una nueva {@link TablaPrecios} y se publica con una escritura
+ * volátil. Los lectores solo consultan la tabla publicada, así que calcular
+ * el descuento de una línea es una búsqueda O(1) sin bloqueos, sin importar
+ * cuántas promociones haya registradas.
+ *
+ * A cada línea se le aplica una sola promoción: la que más descuenta con la
+ * cantidad de la línea, entre las del producto y las de su categoría.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class MotorPromociones {
+
+    private static final Logger logger = LoggerFactory.getLogger(MotorPromociones.class);
+
+    private final ConcurrentHashMap<Integer, Promocion> promociones;
+    private final Clock reloj;
+    private volatile TablaPrecios tabla;
+
+    /**
+     * Constructor que usa el reloj del sistema.
+     */
+    public MotorPromociones() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructor que usa el reloj indicado para decidir qué promociones están vigentes.
+     *
+     * @param reloj reloj de referencia
+     */
+    public MotorPromociones(Clock reloj) {
+        this.promociones = new ConcurrentHashMap<>();
+        this.reloj = reloj;
+        this.tabla = TablaPrecios.compilar(List.of(), reloj.millis());
+    }
+
+    /**
+     * Registra una promoción y recompila la tabla de precios.
+     *
+     * @param promocion promoción a registrar
+     * @throws IllegalArgumentException si la promoción es nula
+     */
+    public void agregarPromocion(Promocion promocion) {
+        if (promocion == null) {
+            throw new IllegalArgumentException("La promoción no puede ser nula");
+        }
+        promociones.put(promocion.getId(), promocion);
+        recompilar();
+    }
+
+    /**
+     * Registra varias promociones con una sola recompilación.
+     *
+     * @param nuevas promociones a registrar
+     * @throws IllegalArgumentException si alguna promoción es nula
+     */
+    public void agregarPromociones(List<? extends Promocion> nuevas) {
+        for (Promocion promocion : nuevas) {
+            if (promocion == null) {
+                throw new IllegalArgumentException("La promoción no puede ser nula");
+            }
+        }
+        for (Promocion promocion : nuevas) {
+            promociones.put(promocion.getId(), promocion);
+        }
+        recompilar();
+    }
+
+    /**
+     * Elimina una promoción y recompila la tabla de precios.
+     *
+     * @param idPromocion ID de la promoción
+     * @return true si existía
+     */
+    public boolean eliminarPromocion(int idPromocion) {
+        boolean eliminada = promociones.remove(idPromocion) != null;
+        if (eliminada) {
+            recompilar();
+        }
+        return eliminada;
+    }
+
+    /**
+     * Calcula el descuento promocional de una línea de venta.
+     *
+     * @param producto producto de la línea
+     * @param cantidad unidades de la línea
+     * @return descuento total de la línea, o {@link BigDecimal#ZERO} si no aplica ninguna promoción
+     */
+    public BigDecimal calcularDescuento(Producto producto, int cantidad) {
+        if (producto == null || cantidad <= 0) {
+            return BigDecimal.ZERO;
+        }
+        long precioCentavos = producto.getPrecio().movePointRight(2).longValue();
+        ReglaPrecio regla = tablaVigente().buscar(producto.getId(), producto.getCategoria(), precioCentavos, cantidad);
+        if (regla == null) {
+            return BigDecimal.ZERO;
+        }
+        long descuento = regla.descuentoCentavos(precioCentavos, cantidad);
+        return descuento > 0 ? BigDecimal.valueOf(descuento, 2) : BigDecimal.ZERO;
+    }
+
+    /**
+     * Obtiene el ID de la promoción que se aplicaría en este momento a una línea del producto.
+     *
+     * @param producto producto a consultar
+     * @param cantidad unidades de la línea
+     * @return el ID de la promoción, o -1 si ninguna descuenta algo a la línea
+     */
+    public int buscarPromocionAplicable(Producto producto, int cantidad) {
+        long precioCentavos = producto.getPrecio().movePointRight(2).longValue();
+        ReglaPrecio regla = tablaVigente().buscar(producto.getId(), producto.getCategoria(), precioCentavos, cantidad);
+        return regla != null ? regla.getIdPromocion() : -1;
+    }
+
+    /**
+     * Obtiene todas las promociones registradas ordenadas por ID.
+     *
+     * @return lista de promociones
+     */
+    public List<Promocion> obtenerPromociones() {
+        List<Promocion> resultado = new ArrayList<>(promociones.values());
+        resultado.sort(Comparator.comparingInt(Promocion::getId));
+        return resultado;
+    }
+
+    /**
+     * Obtiene el número de promociones vigentes en este momento.
+     *
+     * @return número de promociones activas
+     */
+    public int contarPromocionesActivas() {
+        return tablaVigente().getPromocionesActivas();
+    }
+
+    /**
+     * Devuelve la tabla publicada, recompilándola si alguna promoción empezó o venció.
+     */
+    private TablaPrecios tablaVigente() {
+        TablaPrecios actual = tabla;
+        long ahora = reloj.millis();
+        if (actual.esVigente(ahora)) {
+            return actual;
+        }
+        synchronized (this) {
+            actual = tabla;
+            if (!actual.esVigente(ahora)) {
+                actual = compilarYPublicar(ahora);
+            }
+            return actual;
+        }
+    }
+
+    private synchronized void recompilar() {
+        compilarYPublicar(reloj.millis());
+    }
+
+    private synchronized TablaPrecios compilarYPublicar(long ahora) {
+        long inicio = System.nanoTime();
+        TablaPrecios nueva = TablaPrecios.compilar(promociones.values(), ahora);
+        tabla = nueva;
+        logger.debug("Tabla de precios compilada: {} promociones activas de {} en {} µs",
+                nueva.getPromocionesActivas(), promociones.size(), (System.nanoTime() - inicio) / 1_000);
+        return nueva;
+    }
+}
@@ -0,0 +1,154 @@
+package com.jefecame.dreams.promocion;
+
+import com.jefecame.dreams.model.CategoriaProducto;
+import com.jefecame.dreams.model.Producto;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Clase abstracta que representa una promoción con vigencia en el tiempo.
+ *
+ * El alcance se define por una lista de productos, por una categoría o,
+ * si no se indica ninguno, por toda la tienda.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public abstract class Promocion {
+
+    private final int id;
+    private final String nombre;
+    private final LocalDateTime inicio;
+    private final LocalDateTime fin;
+    private final long inicioMillis;
+    private final long finMillis;
+    private final Set<Integer> productos;
+    private final CategoriaProducto categoria;
+    private static final AtomicInteger contadorId = new AtomicInteger(1);
+
+    /**
+     * Constructor para crear una promoción.
+     *
+     * @param nombre nombre de la promoción
+     * @param inicio inicio de la vigencia (inclusivo)
+     * @param fin fin de la vigencia (exclusivo)
+     * @param productos IDs de los productos a los que aplica, o vacío
+     * @param categoria categoría a la que aplica, o null
+     * @throws IllegalArgumentException si los datos son inválidos
+     */
+    protected Promocion(String nombre, LocalDateTime inicio, LocalDateTime fin, Set<Integer> productos,
+                        CategoriaProducto categoria) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre de la promoción no puede estar vacío");
+        }
+        if (inicio == null || fin == null || !fin.isAfter(inicio)) {
+            throw new IllegalArgumentException("La vigencia de la promoción es inválida");
+        }
+        if (productos != null && !productos.isEmpty() && categoria != null) {
+            throw new IllegalArgumentException("Una promoción aplica a productos o a una categoría, no a ambos");
+        }
+
+        this.id = contadorId.getAndIncrement();
+        this.nombre = nombre.trim();
+        this.inicio = inicio;
+        this.fin = fin;
+        this.inicioMillis = inicio.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        this.finMillis = fin.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        this.productos = productos != null ? Set.copyOf(productos) : Set.of();
+        this.categoria = categoria;
+    }
+
+    /**
+     * Compila la promoción a la regla de precio que se guarda en la tabla.
+     *
+     * @return la regla compilada
+     */
+    abstract ReglaPrecio compilar();
+
+    /**
+     * Indica si la promoción está vigente en el instante indicado.
+     *
+     * @param instanteMillis instante en milisegundos epoch
+     * @return true si está vigente
+     */
+    public boolean estaVigente(long instanteMillis) {
+        return instanteMillis >= inicioMillis && instanteMillis < finMillis;
+    }
+
+    /**
+     * Indica si la promoción aplica a un producto, sin considerar la vigencia.
+     *
+     * @param producto producto a comprobar
+     * @return true si el producto está en el alcance de la promoción
+     */
+    public boolean aplicaA(Producto producto) {
+        if (!productos.isEmpty()) {
+            return productos.contains(producto.getId());
+        }
+        return categoria == null || categoria == producto.getCategoria();
+    }
+
+    /**
+     * Obtiene el identificador de la promoción.
+     *
+     * @return el id de la promoción
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Obtiene el nombre de la promoción.
+     *
+     * @return el nombre de la promoción
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Obtiene el inicio de la vigencia.
+     *
+     * @return el inicio (inclusivo)
+     */
+    public LocalDateTime getInicio() {
+        return inicio;
+    }
+
+    /**
+     * Obtiene el fin de la vigencia.
+     *
+     * @return el fin (exclusivo)
+     */
+    public LocalDateTime getFin() {
+        return fin;
+    }
+
+    /**
+     * Obtiene los IDs de los productos a los que aplica.
+     *
+     * @return conjunto inmutable, vacío si no se limita por producto
+     */
+    public Set<Integer> getProductos() {
+        return productos;
+    }
+
+    /**
+     * Obtiene la categoría a la que aplica.
+     *
+     * @return la categoría, o null si no se limita por categoría
+     */
+    public CategoriaProducto getCategoria() {
+        return categoria;
+    }
+
+    long getInicioMillis() {
+        return inicioMillis;
+    }
+
+    long getFinMillis() {
+        return finMillis;
+    }
+}
@@ -0,0 +1,84 @@
+package com.jefecame.dreams.promocion;
+
+import com.jefecame.dreams.model.CategoriaProducto;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Promoción "lleva N, paga M": por cada N unidades de la línea se cobran solo M.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class PromocionNxM extends Promocion {
+
+    private final int llevar;
+    private final int pagar;
+
+    /**
+     * Constructor para crear una promoción NxM sobre productos específicos.
+     *
+     * @param nombre nombre de la promoción
+     * @param llevar unidades que se llevan (N)
+     * @param pagar unidades que se pagan (M), menor que N
+     * @param inicio inicio de la vigencia (inclusivo)
+     * @param fin fin de la vigencia (exclusivo)
+     * @param productos IDs de los productos a los que aplica
+     * @throws IllegalArgumentException si los datos son inválidos
+     */
+    public PromocionNxM(String nombre, int llevar, int pagar, LocalDateTime inicio, LocalDateTime fin,
+                        Set<Integer> productos) {
+        super(nombre, inicio, fin, productos, null);
+        validar(llevar, pagar);
+        this.llevar = llevar;
+        this.pagar = pagar;
+    }
+
+    /**
+     * Constructor para crear una promoción NxM sobre una categoría, o sobre toda la tienda si es null.
+     *
+     * @param nombre nombre de la promoción
+     * @param llevar unidades que se llevan (N)
+     * @param pagar unidades que se pagan (M), menor que N
+     * @param inicio inicio de la vigencia (inclusivo)
+     * @param fin fin de la vigencia (exclusivo)
+     * @param categoria categoría a la que aplica, o null para toda la tienda
+     * @throws IllegalArgumentException si los datos son inválidos
+     */
+    public PromocionNxM(String nombre, int llevar, int pagar, LocalDateTime inicio, LocalDateTime fin,
+                        CategoriaProducto categoria) {
+        super(nombre, inicio, fin, null, categoria);
+        validar(llevar, pagar);
+        this.llevar = llevar;
+        this.pagar = pagar;
+    }
+
+    @Override
+    ReglaPrecio compilar() {
+        return ReglaPrecio.nxm(getId(), llevar, pagar);
+    }
+
+    /**
+     * Obtiene las unidades que se llevan.
+     *
+     * @return N
+     */
+    public int getLlevar() {
+        return llevar;
+    }
+
+    /**
+     * Obtiene las unidades que se pagan.
+     *
+     * @return M
+     */
+    public int getPagar() {
+        return pagar;
+    }
+
+    private static void validar(int llevar, int pagar) {
+        if (pagar < 1 || llevar <= pagar) {
+            throw new IllegalArgumentException("Se deben llevar más unidades de las que se pagan, y pagar al menos una");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.jefecame.dreams.promocion;
+
+import com.jefecame.dreams.model.CategoriaProducto;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Promoción que descuenta un porcentaje del precio.
+ *
+ * Con una categoría como alcance funciona como descuento por categoría.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class PromocionPorcentaje extends Promocion {
+
+    private static final BigDecimal CIEN = BigDecimal.valueOf(100);
+
+    private final BigDecimal porcentaje;
+
+    /**
+     * Constructor para crear un descuento sobre productos específicos.
+     *
+     * @param nombre nombre de la promoción
+     * @param porcentaje porcentaje de descuento, mayor a 0 y hasta 100
+     * @param inicio inicio de la vigencia (inclusivo)
+     * @param fin fin de la vigencia (exclusivo)
+     * @param productos IDs de los productos a los que aplica
+     * @throws IllegalArgumentException si los datos son inválidos
+     */
+    public PromocionPorcentaje(String nombre, BigDecimal porcentaje, LocalDateTime inicio, LocalDateTime fin,
+                               Set<Integer> productos) {
+        super(nombre, inicio, fin, productos, null);
+        this.porcentaje = validarPorcentaje(porcentaje);
+    }
+
+    /**
+     * Constructor para crear un descuento sobre una categoría, o sobre toda la tienda si es null.
+     *
+     * @param nombre nombre de la promoción
+     * @param porcentaje porcentaje de descuento, mayor a 0 y hasta 100
+     * @param inicio inicio de la vigencia (inclusivo)
+     * @param fin fin de la vigencia (exclusivo)
+     * @param categoria categoría a la que aplica, o null para toda la tienda
+     * @throws IllegalArgumentException si los datos son inválidos
+     */
+    public PromocionPorcentaje(String nombre, BigDecimal porcentaje, LocalDateTime inicio, LocalDateTime fin,
+                               CategoriaProducto categoria) {
+        super(nombre, inicio, fin, null, categoria);
+        this.porcentaje = validarPorcentaje(porcentaje);
+    }
+
+    @Override
+    ReglaPrecio compilar() {
+        int puntosBase = porcentaje.movePointRight(2).intValue();
+        return ReglaPrecio.porcentaje(getId(), puntosBase);
+    }
+
+    /**
+     * Obtiene el porcentaje de descuento.
+     *
+     * @return el porcentaje
+     */
+    public BigDecimal getPorcentaje() {
+        return porcentaje;
+    }
+
+    private static BigDecimal validarPorcentaje(BigDecimal porcentaje) {
+        if (porcentaje == null || porcentaje.signum() <= 0 || porcentaje.compareTo(CIEN) > 0) {
+            throw new IllegalArgumentException("El porcentaje debe ser mayor a 0 y hasta 100");
+        }
+        if (porcentaje.scale() > 2) {
+            throw new IllegalArgumentException("El porcentaje admite como máximo dos decimales");
+        }
+        return porcentaje;
+    }
+}
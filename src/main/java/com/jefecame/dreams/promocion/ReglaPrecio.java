@@ -0,0 +1,132 @@
+package com.jefecame.dreams.promocion;
+
+import java.util.Arrays;
+
+/**
+ * Regla de precio compilada a partir de una promoción.
+ *
+ * Solo guarda enteros, de modo que calcular el descuento de una línea no
+ * crea objetos. Qué regla conviene depende de la cantidad de la línea (un
+ * 3x2 no descuenta nada con una unidad), así que la tabla de precios guarda
+ * las candidatas de cada producto y categoría y elige al consultar.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+final class ReglaPrecio {
+
+    private static final int PUNTOS_BASE_TOTALES = 10_000;
+
+    private final int idPromocion;
+    private final int puntosBase;
+    private final int llevar;
+    private final int pagar;
+
+    private ReglaPrecio(int idPromocion, int puntosBase, int llevar, int pagar) {
+        this.idPromocion = idPromocion;
+        this.puntosBase = puntosBase;
+        this.llevar = llevar;
+        this.pagar = pagar;
+    }
+
+    /**
+     * Crea una regla de descuento porcentual.
+     *
+     * @param idPromocion promoción de origen
+     * @param puntosBase descuento en centésimas de punto porcentual
+     * @return la regla
+     */
+    static ReglaPrecio porcentaje(int idPromocion, int puntosBase) {
+        return new ReglaPrecio(idPromocion, puntosBase, 0, 0);
+    }
+
+    /**
+     * Crea una regla "lleva N, paga M".
+     *
+     * @param idPromocion promoción de origen
+     * @param llevar unidades que se llevan
+     * @param pagar unidades que se pagan
+     * @return la regla
+     */
+    static ReglaPrecio nxm(int idPromocion, int llevar, int pagar) {
+        return new ReglaPrecio(idPromocion, 0, llevar, pagar);
+    }
+
+    /**
+     * Agrega una regla a las candidatas de un producto o de una categoría.
+     *
+     * Solo se descartan las reglas que pierden con cualquier cantidad: de dos
+     * porcentajes se conserva el mayor, y de dos NxM con el mismo N, el que
+     * paga menos unidades; a igualdad, la que ya estaba.
+     *
+     * @param reglas candidatas actuales, puede ser null
+     * @param candidata regla a agregar
+     * @return las candidatas con la regla agregada
+     */
+    static ReglaPrecio[] agregar(ReglaPrecio[] reglas, ReglaPrecio candidata) {
+        if (reglas == null) {
+            return new ReglaPrecio[] {candidata};
+        }
+        for (int i = 0; i < reglas.length; i++) {
+            ReglaPrecio regla = reglas[i];
+            if (regla.llevar != candidata.llevar) {
+                continue;
+            }
+            boolean mejora = regla.llevar > 0 ? candidata.pagar < regla.pagar : candidata.puntosBase > regla.puntosBase;
+            if (mejora) {
+                ReglaPrecio[] nuevas = reglas.clone();
+                nuevas[i] = candidata;
+                return nuevas;
+            }
+            return reglas;
+        }
+        ReglaPrecio[] nuevas = Arrays.copyOf(reglas, reglas.length + 1);
+        nuevas[reglas.length] = candidata;
+        return nuevas;
+    }
+
+    /**
+     * Elige la regla que da más descuento a una línea; a igualdad, la actual.
+     *
+     * @param reglas candidatas, puede ser null
+     * @param actual mejor regla encontrada hasta ahora, puede ser null
+     * @param precioCentavos precio unitario en centavos
+     * @param cantidad unidades de la línea
+     * @return la mejor regla, o null si ninguna descuenta algo
+     */
+    static ReglaPrecio mejorPara(ReglaPrecio[] reglas, ReglaPrecio actual, long precioCentavos, int cantidad) {
+        if (reglas == null) {
+            return actual;
+        }
+        ReglaPrecio mejor = actual;
+        long mayorDescuento = actual != null ? actual.descuentoCentavos(precioCentavos, cantidad) : 0;
+        for (ReglaPrecio regla : reglas) {
+            long descuento = regla.descuentoCentavos(precioCentavos, cantidad);
+            if (descuento > mayorDescuento) {
+                mejor = regla;
+                mayorDescuento = descuento;
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Calcula el descuento de una línea.
+     *
+     * @param precioCentavos precio unitario en centavos
+     * @param cantidad unidades de la línea
+     * @return descuento total en centavos
+     */
+    long descuentoCentavos(long precioCentavos, int cantidad) {
+        if (llevar > 0) {
+            long gratis = (long) (cantidad / llevar) * (llevar - pagar);
+            return precioCentavos * gratis;
+        }
+        // Redondeo al centavo más cercano
+        return (precioCentavos * cantidad * puntosBase + PUNTOS_BASE_TOTALES / 2) / PUNTOS_BASE_TOTALES;
+    }
+
+    int getIdPromocion() {
+        return idPromocion;
+    }
+}
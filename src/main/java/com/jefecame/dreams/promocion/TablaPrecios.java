@@ -0,0 +1,127 @@
+package com.jefecame.dreams.promocion;
+
+import com.jefecame.dreams.model.CategoriaProducto;
+import java.util.Collection;
+
+/**
+ * Tabla inmutable de reglas de precio compilada a partir de las promociones vigentes.
+ *
+ * Las reglas por producto se guardan en un arreglo indexado por el ID del
+ * producto y las de categoría en otro indexado por el ordinal de la categoría;
+ * las promociones de toda la tienda se funden en cada categoría. Cada casilla
+ * guarda las pocas reglas que pueden ganar según la cantidad, y la consulta
+ * elige entre las del producto y las de su categoría la que más descuenta a
+ * la línea: dos accesos a arreglo y unas cuantas multiplicaciones.
+ *
+ * La tabla es válida mientras el instante consultado esté dentro de su rango
+ * de vigencia, que termina cuando vence o empieza alguna promoción.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+final class TablaPrecios {
+
+    private static final ReglaPrecio[][] SIN_REGLAS = new ReglaPrecio[0][];
+
+    private final ReglaPrecio[][] porProducto;
+    private final ReglaPrecio[][] porCategoria;
+    private final long vigenteDesde;
+    private final long vigenteHasta;
+    private final int promocionesActivas;
+
+    private TablaPrecios(ReglaPrecio[][] porProducto, ReglaPrecio[][] porCategoria, long vigenteDesde,
+                         long vigenteHasta, int promocionesActivas) {
+        this.porProducto = porProducto;
+        this.porCategoria = porCategoria;
+        this.vigenteDesde = vigenteDesde;
+        this.vigenteHasta = vigenteHasta;
+        this.promocionesActivas = promocionesActivas;
+    }
+
+    /**
+     * Compila las promociones vigentes en el instante indicado.
+     *
+     * @param promociones todas las promociones registradas
+     * @param instanteMillis instante de compilación en milisegundos epoch
+     * @return la tabla compilada
+     */
+    static TablaPrecios compilar(Collection<Promocion> promociones, long instanteMillis) {
+        long desde = Long.MIN_VALUE;
+        long hasta = Long.MAX_VALUE;
+        int maximoIdProducto = -1;
+        int activas = 0;
+
+        // Primera pasada: rango de vigencia de la tabla y tamaño del arreglo por producto
+        for (Promocion promocion : promociones) {
+            if (promocion.estaVigente(instanteMillis)) {
+                desde = Math.max(desde, promocion.getInicioMillis());
+                hasta = Math.min(hasta, promocion.getFinMillis());
+                for (int idProducto : promocion.getProductos()) {
+                    maximoIdProducto = Math.max(maximoIdProducto, idProducto);
+                }
+                activas++;
+            } else if (promocion.getInicioMillis() > instanteMillis) {
+                hasta = Math.min(hasta, promocion.getInicioMillis());
+            } else {
+                desde = Math.max(desde, promocion.getFinMillis());
+            }
+        }
+
+        ReglaPrecio[][] porProducto = maximoIdProducto >= 0 ? new ReglaPrecio[maximoIdProducto + 1][] : SIN_REGLAS;
+        ReglaPrecio[][] porCategoria = new ReglaPrecio[CategoriaProducto.values().length][];
+
+        for (Promocion promocion : promociones) {
+            if (!promocion.estaVigente(instanteMillis)) {
+                continue;
+            }
+            ReglaPrecio regla = promocion.compilar();
+            if (!promocion.getProductos().isEmpty()) {
+                for (int idProducto : promocion.getProductos()) {
+                    if (idProducto >= 0) {
+                        porProducto[idProducto] = ReglaPrecio.agregar(porProducto[idProducto], regla);
+                    }
+                }
+            } else if (promocion.getCategoria() != null) {
+                int ordinal = promocion.getCategoria().ordinal();
+                porCategoria[ordinal] = ReglaPrecio.agregar(porCategoria[ordinal], regla);
+            } else {
+                for (int i = 0; i < porCategoria.length; i++) {
+                    porCategoria[i] = ReglaPrecio.agregar(porCategoria[i], regla);
+                }
+            }
+        }
+
+        return new TablaPrecios(porProducto, porCategoria, desde, hasta, activas);
+    }
+
+    /**
+     * Obtiene la regla que más descuenta a una línea del producto. A igualdad
+     * gana la regla del producto sobre la de su categoría.
+     *
+     * @param idProducto ID del producto
+     * @param categoria categoría del producto
+     * @param precioCentavos precio unitario en centavos
+     * @param cantidad unidades de la línea
+     * @return la regla, o null si ninguna promoción descuenta algo a la línea
+     */
+    ReglaPrecio buscar(int idProducto, CategoriaProducto categoria, long precioCentavos, int cantidad) {
+        ReglaPrecio[] deProducto = idProducto >= 0 && idProducto < porProducto.length ? porProducto[idProducto] : null;
+        ReglaPrecio[] deCategoria = categoria != null ? porCategoria[categoria.ordinal()] : null;
+        ReglaPrecio mejor = ReglaPrecio.mejorPara(deProducto, null, precioCentavos, cantidad);
+        return ReglaPrecio.mejorPara(deCategoria, mejor, precioCentavos, cantidad);
+    }
+
+    /**
+     * Indica si la tabla sigue siendo válida en el instante indicado.
+     *
+     * @param instanteMillis instante en milisegundos epoch
+     * @return true si ninguna promoción empezó ni venció desde la compilación
+     */
+    boolean esVigente(long instanteMillis) {
+        return instanteMillis >= vigenteDesde && instanteMillis < vigenteHasta;
+    }
+
+    int getPromocionesActivas() {
+        return promocionesActivas;
+    }
+}
@@ -0,0 +1,217 @@
+package com.jefecame.dreams.recibo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Archivo de recibos en segmentos mapeados en memoria.
+ *
+ * Cada segmento es un archivo {@code recibos-<fecha>-<nnn>.txt} del directorio
+ * indicado que se mapea completo al abrirse; los recibos se copian al mapa con
+ * un solo put, sin llamadas al sistema por recibo. El archivo rota a un
+ * segmento nuevo cuando el recibo no cabe en el actual o cambia el día. Al
+ * rotar o cerrar, el segmento se sincroniza con el disco y se recorta a los
+ * bytes escritos, así que queda como texto plano.
+ *
+ * Las escrituras sobre el mapa sobreviven a una caída del proceso pero no del
+ * sistema operativo hasta que el segmento se sincroniza. Si el proceso termina
+ * sin cerrar el archivo, el último segmento conserva su tamaño completo con
+ * ceros después del último recibo; al volver a abrir el directorio se empieza
+ * un segmento nuevo y el anterior no se modifica.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ArchivoRecibos implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchivoRecibos.class);
+
+    /** Tamaño por defecto de cada segmento */
+    public static final long TAMANO_SEGMENTO_POR_DEFECTO = 16L * 1024 * 1024;
+
+    private static final String PREFIJO = "recibos-";
+    private static final String EXTENSION = ".txt";
+
+    private final Path directorio;
+    private final long tamanoSegmento;
+    private final Clock reloj;
+    private FileChannel canal;
+    private MappedByteBuffer mapa;
+    private Path segmento;
+    private LocalDate dia;
+    private long finDia;
+    private int secuencia;
+    private long recibos;
+    private long bytes;
+    private int rotaciones;
+    private boolean cerrado;
+
+    /**
+     * Constructor con el tamaño de segmento por defecto.
+     *
+     * @param directorio directorio de los segmentos; se crea si no existe
+     */
+    public ArchivoRecibos(Path directorio) {
+        this(directorio, TAMANO_SEGMENTO_POR_DEFECTO, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructor para crear un archivo de recibos.
+     *
+     * @param directorio directorio de los segmentos; se crea si no existe
+     * @param tamanoSegmento bytes de cada segmento
+     * @param reloj reloj con el que se fecha cada segmento
+     * @throws IllegalArgumentException si el tamaño no es positivo o excede lo que se puede mapear
+     */
+    public ArchivoRecibos(Path directorio, long tamanoSegmento, Clock reloj) {
+        if (tamanoSegmento <= 0 || tamanoSegmento > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("El tamaño del segmento debe estar entre 1 byte y 2 GB");
+        }
+        this.directorio = directorio;
+        this.tamanoSegmento = tamanoSegmento;
+        this.reloj = reloj;
+    }
+
+    /**
+     * Agrega un recibo al segmento actual, rotando si no cabe o cambió el día.
+     * Consume los bytes restantes del búfer.
+     *
+     * @param recibo bytes del recibo
+     * @throws IOException si no se puede abrir o cerrar un segmento
+     * @throws IllegalArgumentException si el recibo es mayor que un segmento
+     * @throws IllegalStateException si el archivo está cerrado
+     */
+    public synchronized void escribir(ByteBuffer recibo) throws IOException {
+        if (recibo.remaining() > tamanoSegmento) {
+            throw new IllegalArgumentException("El recibo no cabe en un segmento del archivo");
+        }
+        if (cerrado) {
+            throw new IllegalStateException("El archivo de recibos está cerrado");
+        }
+        if (mapa == null || reloj.millis() >= finDia || mapa.remaining() < recibo.remaining()) {
+            rotar(LocalDate.now(reloj));
+        }
+        bytes += recibo.remaining();
+        mapa.put(recibo);
+        recibos++;
+    }
+
+    /**
+     * Sincroniza el segmento actual con el disco.
+     */
+    public synchronized void sincronizar() {
+        if (mapa != null) {
+            mapa.force();
+        }
+    }
+
+    /**
+     * Cierra el archivo, recortando el segmento actual a los bytes escritos.
+     *
+     * @throws IOException si no se puede recortar o cerrar el segmento
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        cerrado = true;
+        cerrarSegmento();
+    }
+
+    /**
+     * Obtiene la ruta del segmento abierto.
+     *
+     * @return el segmento actual, o null si aún no se escribe ningún recibo
+     */
+    public synchronized Path getSegmento() {
+        return segmento;
+    }
+
+    /**
+     * Obtiene el número de recibos escritos.
+     *
+     * @return recibos escritos desde que se creó el archivo
+     */
+    public synchronized long getRecibos() {
+        return recibos;
+    }
+
+    /**
+     * Obtiene el número de bytes escritos.
+     *
+     * @return bytes escritos desde que se creó el archivo
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Obtiene el número de segmentos abiertos.
+     *
+     * @return segmentos abiertos desde que se creó el archivo
+     */
+    public synchronized int getRotaciones() {
+        return rotaciones;
+    }
+
+    private void rotar(LocalDate hoy) throws IOException {
+        cerrarSegmento();
+        if (!hoy.equals(dia)) {
+            dia = hoy;
+            finDia = hoy.plusDays(1).atStartOfDay(reloj.getZone()).toInstant().toEpochMilli();
+            secuencia = ultimaSecuencia(hoy);
+        }
+        secuencia++;
+        segmento = directorio.resolve(String.format("%s%s-%03d%s", PREFIJO, hoy, secuencia, EXTENSION));
+        canal = FileChannel.open(segmento, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanoSegmento);
+        rotaciones++;
+        logger.info("Archivo de recibos en {}", segmento);
+    }
+
+    private void cerrarSegmento() throws IOException {
+        if (mapa == null) {
+            return;
+        }
+        try {
+            mapa.force();
+            canal.truncate(mapa.position());
+        } finally {
+            canal.close();
+            mapa = null;
+            canal = null;
+        }
+    }
+
+    /**
+     * Busca la secuencia más alta de los segmentos del día en el directorio,
+     * para no sobrescribir los de una ejecución anterior.
+     */
+    private int ultimaSecuencia(LocalDate hoy) throws IOException {
+        Files.createDirectories(directorio);
+        String prefijo = PREFIJO + hoy + "-";
+        int ultima = 0;
+        try (DirectoryStream<Path> existentes = Files.newDirectoryStream(directorio, prefijo + "*" + EXTENSION)) {
+            for (Path existente : existentes) {
+                String nombre = existente.getFileName().toString();
+                String numero = nombre.substring(prefijo.length(), nombre.length() - EXTENSION.length());
+                try {
+                    ultima = Math.max(ultima, Integer.parseInt(numero));
+                } catch (NumberFormatException e) {
+                    logger.debug("Se ignora {} en el archivo de recibos", nombre);
+                }
+            }
+        }
+        return ultima;
+    }
+}
@@ -0,0 +1,173 @@
+package com.jefecame.dreams.recibo;
+
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.view.FormatoColumnas;
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flujo de impresión y archivo de recibos de venta.
+ *
+ * Cada recibo se renderiza con una {@link PlantillaRecibo} en un búfer directo
+ * tomado de un {@link PoolBuffers} y esos mismos bytes se escriben al canal de
+ * salida (la consola o una impresora) y al {@link ArchivoRecibos}, sin Strings
+ * intermedios. El archivo se guarda siempre en UTF-8; si la salida usa otro
+ * juego de caracteres, el recibo se renderiza una vez por cada uno.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ImpresoraRecibos implements Closeable {
+
+    private final WritableByteChannel salida;
+    private final PlantillaRecibo plantillaSalida;
+    private final PlantillaRecibo plantillaArchivo;
+    private final ArchivoRecibos archivo;
+    private final PoolBuffers buffers;
+
+    /**
+     * Constructor que imprime en la salida estándar del proceso.
+     *
+     * @param formato diseño de las columnas de las líneas del recibo
+     * @param archivo archivo de recibos, o null para no archivarlos
+     */
+    public ImpresoraRecibos(FormatoColumnas formato, ArchivoRecibos archivo) {
+        this(new FileOutputStream(FileDescriptor.out).getChannel(), System.out.charset(), formato, archivo,
+                new PoolBuffers());
+    }
+
+    /**
+     * Constructor para crear el flujo de recibos.
+     *
+     * @param salida canal donde se imprimen los recibos
+     * @param juegoCaracteres juego de caracteres de la salida
+     * @param formato diseño de las columnas de las líneas del recibo
+     * @param archivo archivo de recibos, o null para no archivarlos
+     * @param buffers pool de búferes para renderizar
+     */
+    public ImpresoraRecibos(WritableByteChannel salida, Charset juegoCaracteres, FormatoColumnas formato,
+                            ArchivoRecibos archivo, PoolBuffers buffers) {
+        this.salida = salida;
+        this.plantillaSalida = new PlantillaRecibo(juegoCaracteres, formato);
+        this.plantillaArchivo = juegoCaracteres.equals(StandardCharsets.UTF_8)
+                ? plantillaSalida : new PlantillaRecibo(StandardCharsets.UTF_8, formato);
+        this.archivo = archivo;
+        this.buffers = buffers;
+    }
+
+    /**
+     * Imprime el recibo de una venta y lo agrega al archivo.
+     *
+     * @param venta venta del recibo
+     * @throws UncheckedIOException si falla la escritura
+     */
+    public void imprimir(Venta venta) {
+        if (archivo == null || plantillaArchivo != plantillaSalida) {
+            mostrar(venta);
+            archivar(venta);
+            return;
+        }
+        ByteBuffer recibo = renderizar(plantillaSalida, venta);
+        try {
+            archivo.escribir(recibo);
+            escribirSalida(recibo.rewind());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al imprimir el recibo", e);
+        } finally {
+            buffers.devolver(recibo);
+        }
+    }
+
+    /**
+     * Imprime el recibo de una venta sin archivarlo, por ejemplo como vista previa.
+     *
+     * @param venta venta del recibo
+     * @throws UncheckedIOException si falla la escritura
+     */
+    public void mostrar(Venta venta) {
+        ByteBuffer recibo = renderizar(plantillaSalida, venta);
+        try {
+            escribirSalida(recibo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al imprimir el recibo", e);
+        } finally {
+            buffers.devolver(recibo);
+        }
+    }
+
+    /**
+     * Agrega el recibo de una venta al archivo sin imprimirlo.
+     *
+     * @param venta venta del recibo
+     * @throws UncheckedIOException si falla la escritura
+     */
+    public void archivar(Venta venta) {
+        if (archivo == null) {
+            return;
+        }
+        ByteBuffer recibo = renderizar(plantillaArchivo, venta);
+        try {
+            archivo.escribir(recibo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al archivar el recibo", e);
+        } finally {
+            buffers.devolver(recibo);
+        }
+    }
+
+    /**
+     * Obtiene el archivo de recibos.
+     *
+     * @return el archivo, o null si los recibos no se archivan
+     */
+    public ArchivoRecibos getArchivo() {
+        return archivo;
+    }
+
+    /**
+     * Obtiene el pool de búferes de los recibos.
+     *
+     * @return el pool de búferes
+     */
+    public PoolBuffers getBuffers() {
+        return buffers;
+    }
+
+    /**
+     * Cierra el archivo de recibos. El canal de salida no se cierra.
+     *
+     * @throws IOException si falla el cierre del archivo
+     */
+    @Override
+    public void close() throws IOException {
+        if (archivo != null) {
+            archivo.close();
+        }
+    }
+
+    private ByteBuffer renderizar(PlantillaRecibo plantilla, Venta venta) {
+        ByteBuffer recibo = buffers.tomar(plantilla.calcularTamanoMaximo(venta));
+        try {
+            plantilla.renderizar(venta, recibo);
+        } catch (RuntimeException e) {
+            buffers.devolver(recibo);
+            throw e;
+        }
+        return recibo.flip();
+    }
+
+    private void escribirSalida(ByteBuffer recibo) throws IOException {
+        // Lo que se haya impreso con System.out debe aparecer antes
+        System.out.flush();
+        while (recibo.hasRemaining()) {
+            salida.write(recibo);
+        }
+    }
+}
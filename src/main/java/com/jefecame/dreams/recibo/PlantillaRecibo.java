@@ -0,0 +1,444 @@
+package com.jefecame.dreams.recibo;
+
+import com.jefecame.dreams.impuesto.MotorImpuestos;
+import com.jefecame.dreams.impuesto.TablaImpuestos;
+import com.jefecame.dreams.inventario.RedUbicaciones;
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.RegionFiscal;
+import com.jefecame.dreams.model.Ubicacion;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.view.FormatoColumnas;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Plantilla precompilada del recibo de una venta.
+ *
+ * Las partes fijas del recibo (encabezado, separadores, etiquetas con su
+ * relleno, la línea de cada ubicación y la etiqueta de IVA de cada región) se
+ * codifican una sola vez en el juego de caracteres de destino. Al renderizar
+ * una venta solo se copian esos bytes y se escriben los datos variables
+ * directamente en el ByteBuffer: números e importes dígito por dígito desde
+ * los centavos, y nombres carácter por carácter, sin pasar por String ni
+ * BigDecimal. En UTF-8 los nombres se codifican aquí mismo; con otro juego de
+ * caracteres, lo que no es ASCII pasa por un CharsetEncoder por hilo.
+ *
+ * Las columnas de las líneas siguen un {@link FormatoColumnas} con la misma
+ * convención que el {@link com.jefecame.dreams.view.RenderizadorConsola}: el
+ * ancho se mide en caracteres y el texto más largo que su columna no se corta.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class PlantillaRecibo {
+
+    /** Ancho en caracteres de los separadores del recibo */
+    public static final int ANCHO = 50;
+
+    private static final String TITULO = "           RESUMEN DE VENTA";
+    private static final int MAXIMO_NUMERO = 20;
+    private static final int MAXIMO_FECHA = 19;
+
+    private final Charset juegoCaracteres;
+    private final int bytesPorCaracter;
+    private final boolean asciiDirecto;
+    private final boolean utf8;
+    private final ThreadLocal<CharsetEncoder> codificadores;
+    private final FormatoColumnas formato;
+    private final MotorImpuestos motor;
+
+    private final byte[] encabezado;
+    private final byte[] etiquetaId;
+    private final byte[] etiquetaCliente;
+    private final byte[] etiquetaFecha;
+    private final byte[] finLineaBytes;
+    private final byte[] separadorDetalles;
+    private final byte[] filaAhorro;
+    private final byte[] filaSubtotal;
+    private final byte[] filaTotal;
+    private final byte[] cierre;
+    private final byte[][] ubicaciones;
+    private final byte[] espacios;
+    private final int tamanoFijo;
+    private volatile EtiquetasIva etiquetasIva;
+
+    /**
+     * Constructor que compila la plantilla con la red de ubicaciones y el motor
+     * de impuestos por defecto.
+     *
+     * @param juegoCaracteres juego de caracteres del recibo
+     * @param formato diseño de las columnas de las líneas (nombre, cantidad, importe)
+     */
+    public PlantillaRecibo(Charset juegoCaracteres, FormatoColumnas formato) {
+        this(juegoCaracteres, formato, RedUbicaciones.porDefecto(), MotorImpuestos.porDefecto(),
+                System.lineSeparator());
+    }
+
+    /**
+     * Constructor que compila la plantilla.
+     *
+     * @param juegoCaracteres juego de caracteres del recibo
+     * @param formato diseño de las columnas de las líneas (nombre, cantidad, importe)
+     * @param red red de ubicaciones de las ventas
+     * @param motor motor de impuestos del que se toman las tasas de IVA
+     * @param finLinea separador de líneas
+     * @throws IllegalArgumentException si el formato no tiene tres columnas
+     */
+    public PlantillaRecibo(Charset juegoCaracteres, FormatoColumnas formato, RedUbicaciones red,
+                           MotorImpuestos motor, String finLinea) {
+        if (formato == null || formato.getColumnas() != 3) {
+            throw new IllegalArgumentException("El formato del recibo debe tener tres columnas");
+        }
+        this.juegoCaracteres = juegoCaracteres;
+        this.formato = formato;
+        this.motor = motor;
+        this.codificadores = ThreadLocal.withInitial(() -> juegoCaracteres.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE));
+        this.bytesPorCaracter = (int) Math.ceil(codificadores.get().maxBytesPerChar());
+        this.asciiDirecto = esCompatibleConAscii(juegoCaracteres);
+        this.utf8 = juegoCaracteres.equals(StandardCharsets.UTF_8);
+
+        String igual = "=".repeat(ANCHO) + finLinea;
+        String guion = "-".repeat(ANCHO) + finLinea;
+        this.encabezado = codificar(finLinea + igual + TITULO + finLinea + igual);
+        this.etiquetaId = codificar("ID Venta: ");
+        this.etiquetaCliente = codificar("Cliente: ");
+        this.etiquetaFecha = codificar("Fecha: ");
+        this.finLineaBytes = codificar(finLinea);
+        this.separadorDetalles = codificar(guion);
+        this.filaAhorro = codificar(prefijoFila("Ahorro por promociones:"));
+        this.filaSubtotal = codificar(prefijoFila("Subtotal:"));
+        this.filaTotal = codificar(prefijoFila("TOTAL:"));
+        this.cierre = codificar(igual);
+        this.espacios = codificar(" ".repeat(Math.max(formato.getAnchoTotal(), MAXIMO_NUMERO)));
+
+        List<Ubicacion> lista = red.getUbicaciones();
+        this.ubicaciones = new byte[lista.size()][];
+        int mayorUbicacion = 0;
+        for (Ubicacion ubicacion : lista) {
+            byte[] linea = codificar("Tienda: " + ubicacion + finLinea);
+            ubicaciones[ubicacion.getIndice()] = linea;
+            mayorUbicacion = Math.max(mayorUbicacion, linea.length);
+        }
+
+        this.tamanoFijo = encabezado.length + etiquetaId.length + etiquetaCliente.length + etiquetaFecha.length
+                + 4 * finLineaBytes.length + 2 * separadorDetalles.length + filaAhorro.length
+                + filaSubtotal.length + filaTotal.length + cierre.length + mayorUbicacion
+                + MAXIMO_NUMERO + MAXIMO_FECHA + 4 * anchoMaximoImporte() * bytesPorCaracter;
+    }
+
+    /**
+     * Obtiene el juego de caracteres del recibo.
+     *
+     * @return el juego de caracteres
+     */
+    public Charset getJuegoCaracteres() {
+        return juegoCaracteres;
+    }
+
+    /**
+     * Calcula una cota del tamaño en bytes del recibo de una venta.
+     *
+     * @param venta venta a renderizar
+     * @return bytes suficientes para {@link #renderizar}
+     */
+    public int calcularTamanoMaximo(Venta venta) {
+        int nombreCliente = venta.getCliente() != null ? venta.getCliente().getNombre().length() : 0;
+        long tamano = tamanoFijo + (long) nombreCliente * bytesPorCaracter + etiquetaIva(venta.getRegionFiscal()).length;
+        int anchoLinea = formato.getAnchoTotal() + MAXIMO_NUMERO + anchoMaximoImporte();
+        List<DetalleVenta> lineas = venta.getLineas();
+        for (int i = 0; i < lineas.size(); i++) {
+            DetalleVenta detalle = lineas.get(i);
+            tamano += (long) (anchoLinea + detalle.getProducto().getNombre().length()) * bytesPorCaracter
+                    + finLineaBytes.length;
+        }
+        return (int) Math.min(tamano, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Renderiza el recibo de una venta a partir de la posición actual del búfer.
+     *
+     * @param venta venta a renderizar
+     * @param destino búfer de salida con al menos {@link #calcularTamanoMaximo} bytes libres
+     * @throws BufferOverflowException si el búfer no tiene espacio suficiente
+     */
+    public void renderizar(Venta venta, ByteBuffer destino) {
+        destino.put(encabezado);
+
+        destino.put(etiquetaId);
+        escribirEntero(destino, venta.getId());
+        destino.put(finLineaBytes);
+
+        destino.put(etiquetaCliente);
+        if (venta.getCliente() != null) {
+            escribirTexto(destino, venta.getCliente().getNombre());
+        }
+        destino.put(finLineaBytes);
+
+        int ubicacion = venta.getUbicacion();
+        if (ubicacion >= 0 && ubicacion < ubicaciones.length && ubicaciones[ubicacion] != null) {
+            destino.put(ubicaciones[ubicacion]);
+        }
+
+        destino.put(etiquetaFecha);
+        escribirFecha(destino, venta.getFechaCreacion());
+        destino.put(finLineaBytes);
+        destino.put(separadorDetalles);
+
+        List<DetalleVenta> lineas = venta.getLineas();
+        for (int i = 0; i < lineas.size(); i++) {
+            DetalleVenta detalle = lineas.get(i);
+            String nombre = detalle.getProducto().getNombre();
+            abrirCelda(destino, 0, nombre.length());
+            escribirTexto(destino, nombre);
+            cerrarCelda(destino, 0, nombre.length());
+
+            int anchoCantidad = 1 + contarDigitos(detalle.getCantidad());
+            abrirCelda(destino, 1, anchoCantidad);
+            destino.put((byte) 'x');
+            escribirEntero(destino, detalle.getCantidad());
+            cerrarCelda(destino, 1, anchoCantidad);
+
+            celdaImporte(destino, detalle.getSubtotalCentavos());
+        }
+
+        destino.put(separadorDetalles);
+        if (venta.getDescuentosCentavos() > 0) {
+            destino.put(filaAhorro);
+            celdaImporte(destino, venta.getDescuentosCentavos());
+        }
+        destino.put(filaSubtotal);
+        celdaImporte(destino, venta.getSubtotalCentavos());
+        destino.put(etiquetaIva(venta.getRegionFiscal()));
+        celdaImporte(destino, venta.getImpuestosCentavos());
+        destino.put(filaTotal);
+        celdaImporte(destino, venta.getTotalCentavos());
+        destino.put(cierre);
+    }
+
+    /**
+     * Obtiene la fila de IVA de una región hasta antes del importe. Se recompila
+     * cuando el motor publica una tabla de impuestos nueva.
+     */
+    private byte[] etiquetaIva(RegionFiscal region) {
+        TablaImpuestos tabla = motor.getTabla();
+        EtiquetasIva actuales = etiquetasIva;
+        if (actuales == null || actuales.tabla != tabla) {
+            RegionFiscal[] regiones = RegionFiscal.values();
+            byte[][] etiquetas = new byte[regiones.length][];
+            for (RegionFiscal otra : regiones) {
+                etiquetas[otra.ordinal()] = codificar(prefijoFila("IVA (" + motor.describirTasas(otra) + "):"));
+            }
+            actuales = new EtiquetasIva(tabla, etiquetas);
+            etiquetasIva = actuales;
+        }
+        return actuales.etiquetas[region.ordinal()];
+    }
+
+    private String prefijoFila(String etiqueta) {
+        StringBuilder fila = new StringBuilder();
+        fila.append(rellenar(etiqueta, 0)).append(' ').append(rellenar("", 1)).append(' ');
+        return fila.toString();
+    }
+
+    private String rellenar(String texto, int columna) {
+        int faltan = formato.getAncho(columna) - texto.length();
+        if (faltan <= 0) {
+            return texto;
+        }
+        return formato.isAlineadaDerecha(columna) ? " ".repeat(faltan) + texto : texto + " ".repeat(faltan);
+    }
+
+    private void celdaImporte(ByteBuffer destino, long centavos) {
+        long entero = Math.abs(centavos / 100);
+        int ancho = (centavos < 0 ? 2 : 1) + contarDigitos(entero) + 3;
+        abrirCelda(destino, 2, ancho);
+        destino.put((byte) '$');
+        if (centavos < 0) {
+            destino.put((byte) '-');
+        }
+        escribirEntero(destino, entero);
+        destino.put((byte) '.');
+        int fraccion = (int) Math.abs(centavos % 100);
+        destino.put((byte) ('0' + fraccion / 10)).put((byte) ('0' + fraccion % 10));
+        cerrarCelda(destino, 2, ancho);
+    }
+
+    private void abrirCelda(ByteBuffer destino, int columna, int anchoTexto) {
+        if (formato.isAlineadaDerecha(columna)) {
+            rellenar(destino, formato.getAncho(columna) - anchoTexto);
+        }
+    }
+
+    private void cerrarCelda(ByteBuffer destino, int columna, int anchoTexto) {
+        if (!formato.isAlineadaDerecha(columna)) {
+            rellenar(destino, formato.getAncho(columna) - anchoTexto);
+        }
+        if (columna < formato.getColumnas() - 1) {
+            destino.put((byte) ' ');
+        } else {
+            destino.put(finLineaBytes);
+        }
+    }
+
+    private void rellenar(ByteBuffer destino, int faltan) {
+        if (faltan > 0) {
+            destino.put(espacios, 0, Math.min(faltan, espacios.length));
+        }
+    }
+
+    private void escribirFecha(ByteBuffer destino, LocalDateTime fecha) {
+        escribirEntero(destino, fecha.getYear());
+        destino.put((byte) '-');
+        dosDigitos(destino, fecha.getMonthValue()).put((byte) '-');
+        dosDigitos(destino, fecha.getDayOfMonth()).put((byte) ' ');
+        dosDigitos(destino, fecha.getHour()).put((byte) ':');
+        dosDigitos(destino, fecha.getMinute()).put((byte) ':');
+        dosDigitos(destino, fecha.getSecond());
+    }
+
+    private static ByteBuffer dosDigitos(ByteBuffer destino, int valor) {
+        return destino.put((byte) ('0' + valor / 10)).put((byte) ('0' + valor % 10));
+    }
+
+    /**
+     * Escribe un entero en decimal sin crear un String: reserva sus dígitos y
+     * los llena de derecha a izquierda con escrituras absolutas.
+     */
+    private static void escribirEntero(ByteBuffer destino, long valor) {
+        if (valor < 0) {
+            destino.put((byte) '-');
+            valor = -valor;
+        }
+        int digitos = contarDigitos(valor);
+        int inicio = destino.position();
+        if (destino.remaining() < digitos) {
+            throw new BufferOverflowException();
+        }
+        for (int i = inicio + digitos - 1; i >= inicio; i--) {
+            destino.put(i, (byte) ('0' + valor % 10));
+            valor /= 10;
+        }
+        destino.position(inicio + digitos);
+    }
+
+    private static int contarDigitos(long valor) {
+        int digitos = 1;
+        while (valor >= 10) {
+            valor /= 10;
+            digitos++;
+        }
+        return digitos;
+    }
+
+    private void escribirTexto(ByteBuffer destino, String texto) {
+        if (utf8) {
+            escribirUtf8(destino, texto);
+            return;
+        }
+        int longitud = texto.length();
+        int i = 0;
+        if (asciiDirecto) {
+            while (i < longitud) {
+                char caracter = texto.charAt(i);
+                if (caracter >= 0x80) {
+                    break;
+                }
+                destino.put((byte) caracter);
+                i++;
+            }
+        }
+        if (i < longitud) {
+            CharsetEncoder codificador = codificadores.get();
+            codificador.reset();
+            CoderResult resultado = codificador.encode(CharBuffer.wrap(texto, i, longitud), destino, true);
+            if (!resultado.isOverflow()) {
+                resultado = codificador.flush(destino);
+            }
+            if (resultado.isOverflow()) {
+                throw new BufferOverflowException();
+            }
+        }
+    }
+
+    /**
+     * Codifica un texto en UTF-8 sin CharBuffer intermedio. Un sustituto
+     * suelto se escribe como '?', igual que el reemplazo del CharsetEncoder.
+     */
+    private static void escribirUtf8(ByteBuffer destino, String texto) {
+        int longitud = texto.length();
+        for (int i = 0; i < longitud; i++) {
+            char caracter = texto.charAt(i);
+            if (caracter < 0x80) {
+                destino.put((byte) caracter);
+            } else if (caracter < 0x800) {
+                destino.put((byte) (0xC0 | caracter >> 6))
+                        .put((byte) (0x80 | caracter & 0x3F));
+            } else if (!Character.isSurrogate(caracter)) {
+                destino.put((byte) (0xE0 | caracter >> 12))
+                        .put((byte) (0x80 | caracter >> 6 & 0x3F))
+                        .put((byte) (0x80 | caracter & 0x3F));
+            } else if (Character.isHighSurrogate(caracter) && i + 1 < longitud
+                    && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                int punto = Character.toCodePoint(caracter, texto.charAt(++i));
+                destino.put((byte) (0xF0 | punto >> 18))
+                        .put((byte) (0x80 | punto >> 12 & 0x3F))
+                        .put((byte) (0x80 | punto >> 6 & 0x3F))
+                        .put((byte) (0x80 | punto & 0x3F));
+            } else {
+                destino.put((byte) '?');
+            }
+        }
+    }
+
+    private int anchoMaximoImporte() {
+        return Math.max(formato.getAncho(2), MAXIMO_NUMERO + 5);
+    }
+
+    private byte[] codificar(String texto) {
+        ByteBuffer bytes = juegoCaracteres.encode(texto);
+        byte[] resultado = new byte[bytes.remaining()];
+        bytes.get(resultado);
+        return resultado;
+    }
+
+    private static boolean esCompatibleConAscii(Charset juegoCaracteres) {
+        if (!juegoCaracteres.canEncode()) {
+            return false;
+        }
+        StringBuilder ascii = new StringBuilder(0x80);
+        for (char caracter = 0; caracter < 0x80; caracter++) {
+            ascii.append(caracter);
+        }
+        ByteBuffer bytes = juegoCaracteres.encode(ascii.toString());
+        if (bytes.remaining() != 0x80) {
+            return false;
+        }
+        for (int i = 0; i < 0x80; i++) {
+            if (bytes.get(i) != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Filas de IVA compiladas para una tabla de impuestos publicada */
+    private static final class EtiquetasIva {
+        private final TablaImpuestos tabla;
+        private final byte[][] etiquetas;
+
+        private EtiquetasIva(TablaImpuestos tabla, byte[][] etiquetas) {
+            this.tabla = tabla;
+            this.etiquetas = etiquetas;
+        }
+    }
+}
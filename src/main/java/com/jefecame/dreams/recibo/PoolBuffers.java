@@ -0,0 +1,125 @@
+package com.jefecame.dreams.recibo;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pool de ByteBuffers directos de tamaño fijo.
+ *
+ * Reservar un búfer directo es caro y su memoria se libera hasta que el
+ * recolector encuentra el objeto, así que los búferes se reutilizan en lugar
+ * de crearse por cada recibo. Un pedido mayor que el tamaño del pool recibe un
+ * búfer directo propio, que al devolverse se descarta. Los búferes libres se
+ * guardan en un arreglo fijo de {@code maximoLibres} casillas que se toman y
+ * se llenan con compare-and-set, así que el pool no crea nodos ni usa
+ * candados; si no hay casilla libre, el búfer devuelto se descarta.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class PoolBuffers {
+
+    /** Tamaño por defecto de cada búfer */
+    public static final int TAMANO_POR_DEFECTO = 16 * 1024;
+    /** Búferes libres que se conservan por defecto */
+    public static final int MAXIMO_LIBRES_POR_DEFECTO = 8;
+
+    private final int tamano;
+    private final AtomicReferenceArray<ByteBuffer> libres;
+    private final AtomicLong creados;
+    private final AtomicLong reutilizados;
+
+    /**
+     * Constructor con el tamaño y el número de búferes libres por defecto.
+     */
+    public PoolBuffers() {
+        this(TAMANO_POR_DEFECTO, MAXIMO_LIBRES_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor para crear un pool.
+     *
+     * @param tamano capacidad de cada búfer
+     * @param maximoLibres búferes libres que se conservan
+     * @throws IllegalArgumentException si el tamaño no es positivo o el máximo es negativo
+     */
+    public PoolBuffers(int tamano, int maximoLibres) {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamaño de los búferes debe ser positivo");
+        }
+        if (maximoLibres < 0) {
+            throw new IllegalArgumentException("El máximo de búferes libres no puede ser negativo");
+        }
+        this.tamano = tamano;
+        this.libres = new AtomicReferenceArray<>(maximoLibres);
+        this.creados = new AtomicLong();
+        this.reutilizados = new AtomicLong();
+    }
+
+    /**
+     * Toma un búfer vacío con al menos la capacidad indicada.
+     *
+     * @param minimo bytes que debe admitir el búfer
+     * @return un búfer directo en modo escritura
+     */
+    public ByteBuffer tomar(int minimo) {
+        if (minimo > tamano) {
+            creados.incrementAndGet();
+            return ByteBuffer.allocateDirect(minimo);
+        }
+        for (int i = 0; i < libres.length(); i++) {
+            ByteBuffer buffer = libres.get(i);
+            if (buffer != null && libres.compareAndSet(i, buffer, null)) {
+                reutilizados.incrementAndGet();
+                return buffer;
+            }
+        }
+        creados.incrementAndGet();
+        return ByteBuffer.allocateDirect(tamano);
+    }
+
+    /**
+     * Devuelve un búfer al pool. El búfer no debe usarse después.
+     *
+     * @param buffer búfer obtenido con {@link #tomar}
+     */
+    public void devolver(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != tamano) {
+            return;
+        }
+        buffer.clear();
+        for (int i = 0; i < libres.length(); i++) {
+            if (libres.get(i) == null && libres.compareAndSet(i, null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Obtiene la capacidad de los búferes del pool.
+     *
+     * @return capacidad en bytes
+     */
+    public int getTamano() {
+        return tamano;
+    }
+
+    /**
+     * Obtiene el número de búferes creados, incluidos los de tamaño mayor.
+     *
+     * @return búferes creados
+     */
+    public long getCreados() {
+        return creados.get();
+    }
+
+    /**
+     * Obtiene el número de búferes entregados desde el pool sin crearse.
+     *
+     * @return búferes reutilizados
+     */
+    public long getReutilizados() {
+        return reutilizados.get();
+    }
+}
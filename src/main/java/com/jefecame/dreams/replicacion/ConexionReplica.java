@@ -0,0 +1,163 @@
+package com.jefecame.dreams.replicacion;
+
+import com.jefecame.dreams.codec.CodecBinario;
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.ClienteRepository;
+import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.VentaRepository;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Conexión del primario con una réplica.
+ *
+ * Al iniciar envía una instantánea de los repositorios y después las tramas
+ * del registro en orden. Las tramas esperan en una cola acotada; si la réplica
+ * no las consume a tiempo y la cola se llena, la conexión se cierra y la
+ * réplica debe volver a conectarse para recibir una instantánea nueva.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class ConexionReplica {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConexionReplica.class);
+
+    private static final int TAMANO_BUFER_SOCKET = 64 * 1024;
+
+    private final Socket socket;
+    private final BlockingQueue<byte[]> cola;
+    private final RegistroMutaciones registro;
+    private final AtomicBoolean cerrada;
+    private volatile Thread hilo;
+
+    /**
+     * Constructor para crear la conexión con una réplica aceptada.
+     *
+     * @param socket socket de la réplica
+     * @param capacidadCola número máximo de tramas pendientes
+     * @param registro registro del que se reciben las tramas
+     */
+    ConexionReplica(Socket socket, int capacidadCola, RegistroMutaciones registro) {
+        this.socket = socket;
+        this.cola = new ArrayBlockingQueue<>(capacidadCola);
+        this.registro = registro;
+        this.cerrada = new AtomicBoolean(false);
+    }
+
+    /**
+     * Registra la réplica e inicia el envío de la instantánea y del registro.
+     *
+     * @param clientes repositorio de clientes del primario
+     * @param productos repositorio de productos del primario
+     * @param ventas repositorio de ventas del primario
+     */
+    void iniciar(ClienteRepository clientes, ProductoRepository productos, VentaRepository ventas) {
+        hilo = Thread.ofVirtual().name("replicacion-" + socket.getRemoteSocketAddress()).start(() -> {
+            try (OutputStream salida = new BufferedOutputStream(socket.getOutputStream(), TAMANO_BUFER_SOCKET)) {
+                long base = registro.registrar(this);
+                enviarInstantanea(base, salida, clientes, productos, ventas);
+                while (!cerrada.get()) {
+                    byte[] trama = cola.take();
+                    do {
+                        salida.write(trama);
+                        trama = cola.poll();
+                    } while (trama != null);
+                    salida.flush();
+                }
+            } catch (IOException e) {
+                cerrar("error de E/S: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                cerrar("fin del envío");
+            }
+        });
+    }
+
+    /**
+     * Encola una trama para la réplica sin bloquear.
+     *
+     * @param trama bytes de la trama
+     * @return false si la cola está llena
+     */
+    boolean encolar(byte[] trama) {
+        return cerrada.get() || cola.offer(trama);
+    }
+
+    /**
+     * Cierra la conexión y la retira del registro.
+     *
+     * @param motivo motivo del cierre, para la bitácora
+     */
+    void cerrar(String motivo) {
+        if (!cerrada.compareAndSet(false, true)) {
+            return;
+        }
+        registro.retirar(this);
+        logger.info("Réplica {} desconectada: {}", socket.getRemoteSocketAddress(), motivo);
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.debug("Error al cerrar el socket de la réplica", e);
+        }
+        Thread actual = hilo;
+        if (actual != null && actual != Thread.currentThread()) {
+            actual.interrupt();
+        }
+        cola.clear();
+    }
+
+    /**
+     * Obtiene el número de tramas pendientes de envío.
+     *
+     * @return tramas en la cola
+     */
+    int contarPendientes() {
+        return cola.size();
+    }
+
+    /**
+     * Indica si la conexión está cerrada.
+     *
+     * @return true si ya no recibe tramas
+     */
+    boolean isCerrada() {
+        return cerrada.get();
+    }
+
+    private void enviarInstantanea(long base, OutputStream salida, ClienteRepository clientes,
+                                   ProductoRepository productos, VentaRepository ventas) throws IOException {
+        CodecBinario codec = new CodecBinario();
+        // Clientes y productos primero: las ventas se resuelven contra ellos en la réplica
+        for (Cliente cliente : clientes.obtenerTodos()) {
+            salida.write(Trama.crear(Trama.CLIENTE, base, destino -> {
+                codec.reiniciarDiccionario();
+                codec.codificarCliente(cliente, destino);
+            }));
+        }
+        for (Producto producto : productos.obtenerTodos()) {
+            salida.write(Trama.crear(Trama.PRODUCTO, base, destino -> {
+                codec.reiniciarDiccionario();
+                codec.codificarProducto(producto, destino);
+            }));
+        }
+        for (Venta venta : ventas.obtenerTodas()) {
+            salida.write(Trama.crear(Trama.VENTA, base, destino -> {
+                codec.reiniciarDiccionario();
+                codec.codificarVenta(venta, destino);
+            }));
+        }
+        salida.write(Trama.crear(Trama.FIN_INSTANTANEA, base, destino -> { }));
+        salida.flush();
+    }
+}
@@ -0,0 +1,100 @@
+package com.jefecame.dreams.replicacion;
+
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.ClienteRepository;
+import com.jefecame.dreams.repository.ClienteRepositoryEnMemoria;
+import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
+import com.jefecame.dreams.repository.VentaRepository;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import com.jefecame.dreams.service.ProductoService;
+import com.jefecame.dreams.service.VentaService;
+import java.io.IOException;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proceso de réplica de lectura.
+ *
+ * Se conecta al servidor de replicación de una tienda iniciada con
+ * {@code -Ddreams.replicacion.puerto=N} y atiende consultas de solo lectura
+ * desde la consola: búsqueda de productos, historial de un cliente, reportes
+ * y el retraso respecto al primario.
+ *
+ * Uso: {@code java -cp ... com.jefecame.dreams.replicacion.NodoReplica [host] puerto}
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class NodoReplica {
+
+    private static final long ESPERA_INSTANTANEA_SEGUNDOS = 60;
+
+    /**
+     * Inicia la réplica.
+     *
+     * @param args host (opcional) y puerto del primario
+     * @throws IOException si no se puede conectar con el primario
+     * @throws InterruptedException si se interrumpe la espera de la instantánea
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.out.println("Uso: NodoReplica [host] puerto");
+            return;
+        }
+        String host = args.length > 1 ? args[0] : "localhost";
+        int puerto = Integer.parseInt(args[args.length - 1]);
+
+        ClienteRepository clientes = new ClienteRepositoryEnMemoria();
+        ProductoRepository productos = new ProductoRepositoryEnMemoria();
+        VentaRepository ventas = new VentaRepositoryEnMemoria();
+        ProductoService productoService = new ProductoService(productos);
+        VentaService ventaService = new VentaService(ventas, productos, clientes);
+
+        ReplicaLectura replica = new ReplicaLectura(host, puerto, clientes, productos, ventas);
+        replica.conectar();
+        if (!replica.esperarInstantanea(ESPERA_INSTANTANEA_SEGUNDOS, TimeUnit.SECONDS)) {
+            System.out.println("No se recibió la instantánea del primario a tiempo.");
+            replica.desconectar();
+            return;
+        }
+        System.out.printf("Réplica sincronizada: %d clientes, %d productos, %d ventas%n",
+                clientes.contarClientes(), productos.contarProductos(), ventas.contarVentas());
+        System.out.println("Comandos: buscar <texto> | ventas <idCliente> | reporte | estado | salir");
+
+        Scanner scanner = new Scanner(System.in);
+        while (replica.isConectada() && scanner.hasNextLine()) {
+            String[] partes = scanner.nextLine().trim().split("\\s+", 2);
+            try {
+                switch (partes[0]) {
+                    case "buscar" -> {
+                        for (Producto producto : productoService.buscarProductosPorNombre(partes.length > 1 ? partes[1] : "")) {
+                            System.out.println(producto.mostrarDetalles());
+                        }
+                    }
+                    case "ventas" -> {
+                        for (Venta venta : ventaService.obtenerVentasPorClienteId(Integer.parseInt(partes[1]))) {
+                            System.out.printf("%d  %s  $%.2f  %s%n", venta.getId(), venta.getFechaCreacion(),
+                                    venta.getTotal(), venta.getEstado());
+                        }
+                    }
+                    case "reporte" -> System.out.printf("Ventas: %d, total vendido: $%.2f%n",
+                            ventas.contarVentas(), ventaService.obtenerTotalVendido());
+                    case "estado" -> System.out.printf("Secuencia aplicada: %d, primario: %d, retraso: %d cambios / %d ms%n",
+                            replica.getUltimaSecuenciaAplicada(), replica.getSecuenciaPrimario(),
+                            replica.getRetrasoSecuencias(), replica.getRetrasoMilisegundos());
+                    case "salir" -> {
+                        replica.desconectar();
+                        return;
+                    }
+                    case "" -> { }
+                    default -> System.out.println("Comando desconocido: " + partes[0]);
+                }
+            } catch (RuntimeException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+        }
+        replica.desconectar();
+    }
+}
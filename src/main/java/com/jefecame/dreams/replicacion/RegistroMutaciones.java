@@ -0,0 +1,286 @@
+package com.jefecame.dreams.replicacion;
+
+import com.jefecame.dreams.codec.CodecBinario;
+import com.jefecame.dreams.inventario.OyenteExistencias;
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.OyenteParticiones;
+import com.jefecame.dreams.repository.OyenteRepositorio;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registro ordenado de las mutaciones del primario.
+ *
+ * Escucha los repositorios y convierte cada cambio en una trama, que el hilo
+ * que hizo el cambio codifica y deja en una sola cola de salida. Un hilo
+ * emisor toma las tramas de esa cola, les asigna un número de secuencia
+ * consecutivo y las reparte a la cola de cada réplica conectada, de modo que
+ * todas las réplicas reciben las tramas en el mismo orden. El candado del
+ * registro solo cubre el reparto y el alta de una réplica, para que la
+ * secuencia base de la réplica coincida con la primera trama que recibe; las
+ * réplicas cuya cola se llenó se desconectan después de soltarlo.
+ *
+ * Los avisos llegan con el orden que garantiza {@link OyenteRepositorio}, así
+ * que dos tramas de una misma entidad pueden salir en desorden. Cada trama
+ * lleva la versión de la entidad, escrita antes que el resto de sus campos,
+ * y la réplica descarta las que no son más nuevas que la suya. Los cambios de
+ * existencias llevan el número de cambio de la ubicación con el mismo fin.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class RegistroMutaciones {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistroMutaciones.class);
+    private static final ThreadLocal<CodecBinario> CODEC = ThreadLocal.withInitial(CodecBinario::new);
+
+    private final List<ConexionReplica> conexiones;
+    private final BlockingQueue<byte[]> salida;
+    private final AtomicLong encoladas;
+    private final AtomicLong secuencia;
+    private final Object candado;
+    private volatile Thread emisor;
+
+    /**
+     * Constructor que crea un registro vacío.
+     */
+    RegistroMutaciones() {
+        this.conexiones = new CopyOnWriteArrayList<>();
+        this.salida = new LinkedBlockingQueue<>();
+        this.encoladas = new AtomicLong();
+        this.secuencia = new AtomicLong();
+        this.candado = new Object();
+    }
+
+    /**
+     * Inicia el hilo emisor que reparte las tramas a las réplicas.
+     */
+    void iniciar() {
+        emisor = Thread.ofVirtual().name("replicacion-emisor").start(this::emitir);
+    }
+
+    /**
+     * Detiene el hilo emisor y descarta las tramas que no alcanzó a repartir.
+     */
+    void detener() {
+        Thread actual = emisor;
+        emisor = null;
+        if (actual != null) {
+            actual.interrupt();
+        }
+        salida.clear();
+    }
+
+    /**
+     * Oyente de clientes que publica sus cambios en el registro.
+     *
+     * @return oyente para el repositorio de clientes
+     */
+    OyenteRepositorio<Cliente> oyenteClientes() {
+        return new OyenteRepositorio<>() {
+            @Override
+            public void alGuardar(Cliente cliente) {
+                publicar(Trama.CLIENTE, (codec, destino) -> codec.codificarCliente(cliente, destino));
+            }
+
+            @Override
+            public void alEliminar(Cliente cliente) {
+                publicarEliminacion(Trama.CLIENTE_ELIMINADO, cliente.getId());
+            }
+        };
+    }
+
+    /**
+     * Oyente de productos que publica sus cambios en el registro.
+     *
+     * @return oyente para el repositorio de productos
+     */
+    OyenteRepositorio<Producto> oyenteProductos() {
+        return new OyenteRepositorio<>() {
+            @Override
+            public void alGuardar(Producto producto) {
+                publicar(Trama.PRODUCTO, (codec, destino) -> codec.codificarProducto(producto, destino));
+            }
+
+            @Override
+            public void alEliminar(Producto producto) {
+                publicarEliminacion(Trama.PRODUCTO_ELIMINADO, producto.getId());
+            }
+        };
+    }
+
+    /**
+     * Oyente de existencias que publica cada cambio de stock por ubicación en el registro.
+     *
+     * @return oyente para el repositorio de productos
+     */
+    OyenteExistencias oyenteExistencias() {
+        return (idProducto, ubicacion, existencias, cambio) -> {
+            if (conexiones.isEmpty()) {
+                return;
+            }
+            encolar(Trama.crear(Trama.EXISTENCIAS, 0, destino -> {
+                CodecBinario.escribirVarint(destino, idProducto);
+                CodecBinario.escribirVarint(destino, ubicacion);
+                CodecBinario.escribirVarint(destino, existencias);
+                CodecBinario.escribirVarint(destino, cambio);
+            }));
+        };
+    }
+
+    /**
+     * Oyente de ventas que publica sus cambios en el registro.
+     *
+     * @return oyente para el repositorio de ventas
+     */
+    OyenteRepositorio<Venta> oyenteVentas() {
+        return new OyenteRepositorio<>() {
+            @Override
+            public void alGuardar(Venta venta) {
+                publicar(Trama.VENTA, (codec, destino) -> codec.codificarVenta(venta, destino));
+            }
+
+            @Override
+            public void alEliminar(Venta venta) {
+                publicarEliminacion(Trama.VENTA_ELIMINADA, venta.getId());
+            }
+        };
+    }
+
+    /**
+     * Oyente de particiones que publica en el registro cada día de ventas que
+     * el primario retira de memoria.
+     *
+     * @return oyente de particiones para el repositorio de ventas
+     */
+    OyenteParticiones oyenteParticiones() {
+        return (dia, ventas) -> {
+            if (conexiones.isEmpty()) {
+                return;
+            }
+            encolar(Trama.crear(Trama.PARTICION_RETIRADA, 0,
+                    destino -> CodecBinario.escribirVarlong(destino, dia.toEpochDay())));
+        };
+    }
+
+    /**
+     * Registra una réplica y devuelve la secuencia a partir de la cual recibirá tramas.
+     * La instantánea que se le envíe después debe tomarse tras este punto.
+     *
+     * @param conexion conexión de la réplica
+     * @return última secuencia publicada antes de registrar la réplica
+     */
+    long registrar(ConexionReplica conexion) {
+        synchronized (candado) {
+            conexiones.add(conexion);
+            return secuencia.get();
+        }
+    }
+
+    /**
+     * Retira una réplica del registro.
+     *
+     * @param conexion conexión a retirar
+     */
+    void retirar(ConexionReplica conexion) {
+        conexiones.remove(conexion);
+    }
+
+    /**
+     * Encola un latido que llevará a todas las réplicas la secuencia vigente
+     * cuando el emisor lo reparta.
+     */
+    void latir() {
+        if (conexiones.isEmpty()) {
+            return;
+        }
+        salida.add(Trama.crear(Trama.LATIDO, 0, destino -> { }));
+    }
+
+    /**
+     * Obtiene la secuencia que recibirá la última trama encolada. El emisor
+     * numera las tramas en el orden de la cola, así que la k-ésima trama
+     * encolada sale con la secuencia k.
+     *
+     * @return número de secuencia
+     */
+    long getSecuencia() {
+        return encoladas.get();
+    }
+
+    /**
+     * Obtiene las conexiones registradas.
+     *
+     * @return lista de conexiones
+     */
+    List<ConexionReplica> getConexiones() {
+        return conexiones;
+    }
+
+    private void publicar(byte tipo, EscritorEntidad escritor) {
+        if (conexiones.isEmpty()) {
+            return;
+        }
+        CodecBinario codec = CODEC.get();
+        byte[] trama = Trama.crear(tipo, 0, destino -> {
+            codec.reiniciarDiccionario();
+            escritor.escribir(codec, destino);
+        });
+        encolar(trama);
+    }
+
+    private void publicarEliminacion(byte tipo, int id) {
+        if (conexiones.isEmpty()) {
+            return;
+        }
+        encolar(Trama.crear(tipo, 0, destino -> CodecBinario.escribirVarint(destino, id)));
+    }
+
+    private void encolar(byte[] trama) {
+        encoladas.incrementAndGet();
+        salida.add(trama);
+    }
+
+    private void emitir() {
+        List<ConexionReplica> retrasadas = new ArrayList<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                byte[] trama = salida.take();
+                synchronized (candado) {
+                    // Los latidos informan la secuencia vigente sin consumir una
+                    long numero = Trama.tipo(trama) == Trama.LATIDO ? secuencia.get() : secuencia.incrementAndGet();
+                    Trama.asignarSecuencia(trama, numero);
+                    for (ConexionReplica conexion : conexiones) {
+                        if (!conexion.encolar(trama)) {
+                            retrasadas.add(conexion);
+                        }
+                    }
+                }
+                if (!retrasadas.isEmpty()) {
+                    for (ConexionReplica conexion : retrasadas) {
+                        conexion.cerrar("la réplica superó el retraso máximo");
+                    }
+                    retrasadas.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.debug("Emisor del registro de mutaciones detenido");
+        }
+    }
+
+    /**
+     * Escribe una entidad con el codec del hilo.
+     */
+    private interface EscritorEntidad {
+        void escribir(CodecBinario codec, ByteBuffer destino);
+    }
+}
@@ -0,0 +1,366 @@
+package com.jefecame.dreams.replicacion;
+
+import com.jefecame.dreams.codec.CodecBinario;
+import com.jefecame.dreams.inventario.InventarioProducto;
+import com.jefecame.dreams.inventario.RedUbicaciones;
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.ClienteRepository;
+import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.VentaRepository;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Réplica de solo lectura alimentada por el registro de un primario.
+ *
+ * Aplica las tramas de forma asíncrona sobre sus propios repositorios, que
+ * pueden usarse para consultas (búsqueda de productos, historial de ventas,
+ * reportes) pero no deben recibir escrituras locales. Cada entidad se aplica
+ * solo si su versión es más reciente que la local, así que una trama de la
+ * instantánea que coincide con un cambio del registro no retrocede el estado.
+ * Las existencias siguen la misma regla por ubicación con su número de cambio:
+ * un producto recibido conserva las ubicaciones que la réplica ya tenía más
+ * recientes, y los avisos de un producto que aún no llega se guardan hasta
+ * que llegue. Como el primario puede emitir un cambio de una entidad después
+ * de su eliminación, la réplica recuerda los IDs eliminados y descarta las
+ * tramas posteriores de esas entidades. Cuando el primario elimina o
+ * descarga la partición de un día, la réplica retira la suya y descarta las
+ * ventas de ese día que lleguen después.
+ *
+ * Si el primario la desconecta por retraso, la réplica queda desconectada;
+ * para volver a sincronizarse se crea una réplica nueva con repositorios vacíos.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ReplicaLectura {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLectura.class);
+
+    private static final int TAMANO_BUFER_SOCKET = 64 * 1024;
+
+    private final String host;
+    private final int puerto;
+    private final ClienteRepository clientes;
+    private final ProductoRepository productos;
+    private final VentaRepository ventas;
+    private final CountDownLatch instantanea;
+    private final CodecBinario codec;
+    private final Map<Integer, InventarioProducto> existenciasPendientes;
+    private final Set<Integer> clientesEliminados;
+    private final Set<Integer> productosEliminados;
+    private final Set<Integer> ventasEliminadas;
+    private final Set<LocalDate> diasRetirados;
+
+    private volatile Socket socket;
+    private volatile boolean conectada;
+    private volatile long ultimaSecuenciaAplicada;
+    private volatile long secuenciaPrimario;
+    private volatile long retrasoMilisegundos;
+    private volatile long tramasAplicadas;
+
+    /**
+     * Constructor para crear una réplica sobre los repositorios indicados.
+     *
+     * @param host host del primario
+     * @param puerto puerto de replicación del primario
+     * @param clientes repositorio local de clientes
+     * @param productos repositorio local de productos
+     * @param ventas repositorio local de ventas
+     * @throws IllegalArgumentException si algún repositorio es nulo
+     */
+    public ReplicaLectura(String host, int puerto, ClienteRepository clientes, ProductoRepository productos,
+                          VentaRepository ventas) {
+        if (clientes == null || productos == null || ventas == null) {
+            throw new IllegalArgumentException("Los repositorios no pueden ser nulos");
+        }
+        this.host = host;
+        this.puerto = puerto;
+        this.clientes = clientes;
+        this.productos = productos;
+        this.ventas = ventas;
+        this.instantanea = new CountDownLatch(1);
+        this.codec = new CodecBinario();
+        this.existenciasPendientes = new HashMap<>();
+        this.clientesEliminados = new HashSet<>();
+        this.productosEliminados = new HashSet<>();
+        this.ventasEliminadas = new HashSet<>();
+        this.diasRetirados = new HashSet<>();
+    }
+
+    /**
+     * Se conecta al primario y comienza a aplicar el registro en segundo plano.
+     *
+     * @throws IOException si no se puede conectar
+     * @throws IllegalStateException si la réplica ya se conectó
+     */
+    public synchronized void conectar() throws IOException {
+        if (socket != null) {
+            throw new IllegalStateException("La réplica ya se conectó");
+        }
+        socket = new Socket(host, puerto);
+        socket.setTcpNoDelay(true);
+        conectada = true;
+        Thread.ofVirtual().name("replica-aplicar").start(this::aplicarRegistro);
+    }
+
+    /**
+     * Se desconecta del primario.
+     */
+    public void desconectar() {
+        conectada = false;
+        Socket actual = socket;
+        if (actual != null) {
+            try {
+                actual.close();
+            } catch (IOException e) {
+                logger.debug("Error al cerrar el socket de replicación", e);
+            }
+        }
+    }
+
+    /**
+     * Espera a que la instantánea inicial quede aplicada.
+     *
+     * @param tiempoMaximo tiempo máximo de espera
+     * @param unidad unidad del tiempo de espera
+     * @return true si la instantánea se aplicó a tiempo
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public boolean esperarInstantanea(long tiempoMaximo, TimeUnit unidad) throws InterruptedException {
+        return instantanea.await(tiempoMaximo, unidad);
+    }
+
+    /**
+     * Indica si la réplica sigue conectada al primario.
+     *
+     * @return true si está conectada
+     */
+    public boolean isConectada() {
+        return conectada;
+    }
+
+    /**
+     * Indica si la instantánea inicial ya se aplicó.
+     *
+     * @return true si la réplica ya puede atender consultas
+     */
+    public boolean isInstantaneaCompleta() {
+        return instantanea.getCount() == 0;
+    }
+
+    /**
+     * Obtiene la secuencia de la última trama aplicada.
+     *
+     * @return número de secuencia
+     */
+    public long getUltimaSecuenciaAplicada() {
+        return ultimaSecuenciaAplicada;
+    }
+
+    /**
+     * Obtiene la última secuencia del primario conocida por la réplica.
+     *
+     * @return número de secuencia
+     */
+    public long getSecuenciaPrimario() {
+        return secuenciaPrimario;
+    }
+
+    /**
+     * Obtiene el retraso de la réplica en número de cambios.
+     *
+     * @return cambios publicados por el primario que aún no se aplican
+     */
+    public long getRetrasoSecuencias() {
+        return Math.max(0, secuenciaPrimario - ultimaSecuenciaAplicada);
+    }
+
+    /**
+     * Obtiene el retraso de la réplica en tiempo: cuánto tardó en aplicarse
+     * el último cambio desde que el primario lo publicó, o 0 si está al día.
+     *
+     * @return retraso en milisegundos
+     */
+    public long getRetrasoMilisegundos() {
+        return retrasoMilisegundos;
+    }
+
+    /**
+     * Obtiene el número de tramas de entidades aplicadas.
+     *
+     * @return tramas aplicadas
+     */
+    public long getTramasAplicadas() {
+        return tramasAplicadas;
+    }
+
+    private void aplicarRegistro() {
+        try (DataInputStream entrada = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream(), TAMANO_BUFER_SOCKET))) {
+            byte[] datos = new byte[1024];
+            while (conectada) {
+                int longitud = entrada.readInt();
+                if (datos.length < longitud) {
+                    datos = new byte[Math.max(longitud, datos.length * 2)];
+                }
+                entrada.readFully(datos, 0, longitud);
+                aplicar(ByteBuffer.wrap(datos, 0, longitud));
+            }
+        } catch (EOFException e) {
+            logger.info("El primario cerró la conexión de replicación");
+        } catch (IOException e) {
+            if (conectada) {
+                logger.warn("Replicación interrumpida: {}", e.getMessage());
+            }
+        } finally {
+            conectada = false;
+        }
+    }
+
+    private void aplicar(ByteBuffer trama) {
+        byte tipo = trama.get();
+        long secuencia = trama.getLong();
+        long marca = trama.getLong();
+        codec.reiniciarDiccionario();
+
+        switch (tipo) {
+            case Trama.CLIENTE -> {
+                Cliente cliente = codec.decodificarCliente(trama);
+                if (!clientesEliminados.contains(cliente.getId())) {
+                    clientes.guardarReplica(cliente);
+                }
+            }
+            case Trama.CLIENTE_ELIMINADO -> {
+                int id = CodecBinario.leerVarint(trama);
+                clientesEliminados.add(id);
+                clientes.eliminar(id);
+            }
+            case Trama.PRODUCTO -> {
+                Producto producto = codec.decodificarProducto(trama);
+                if (!productosEliminados.contains(producto.getId())) {
+                    aplicarProducto(producto);
+                }
+            }
+            case Trama.PRODUCTO_ELIMINADO -> {
+                int id = CodecBinario.leerVarint(trama);
+                productosEliminados.add(id);
+                existenciasPendientes.remove(id);
+                productos.eliminar(id);
+            }
+            case Trama.EXISTENCIAS -> aplicarExistencias(trama);
+            case Trama.VENTA -> {
+                Venta venta = codec.decodificarVenta(trama, clientes::buscarPorId, productos::buscarPorId);
+                if (!ventasEliminadas.contains(venta.getId())
+                        && !diasRetirados.contains(venta.getFechaCreacion().toLocalDate())) {
+                    aplicarVenta(venta);
+                }
+            }
+            case Trama.VENTA_ELIMINADA -> {
+                int id = CodecBinario.leerVarint(trama);
+                ventasEliminadas.add(id);
+                ventas.eliminar(id);
+            }
+            case Trama.PARTICION_RETIRADA -> retirarParticion(LocalDate.ofEpochDay(CodecBinario.leerVarlong(trama)));
+            case Trama.FIN_INSTANTANEA -> {
+                ultimaSecuenciaAplicada = secuencia;
+                secuenciaPrimario = Math.max(secuenciaPrimario, secuencia);
+                instantanea.countDown();
+                logger.info("Instantánea aplicada hasta la secuencia {}", secuencia);
+                return;
+            }
+            case Trama.LATIDO -> {
+                secuenciaPrimario = Math.max(secuenciaPrimario, secuencia);
+                if (isInstantaneaCompleta() && secuencia == ultimaSecuenciaAplicada) {
+                    retrasoMilisegundos = 0;
+                }
+                return;
+            }
+            default -> throw new IllegalStateException("Tipo de trama desconocido: " + tipo);
+        }
+
+        tramasAplicadas++;
+        if (isInstantaneaCompleta()) {
+            ultimaSecuenciaAplicada = secuencia;
+            secuenciaPrimario = Math.max(secuenciaPrimario, secuencia);
+            retrasoMilisegundos = Math.max(0, System.currentTimeMillis() - marca);
+        }
+    }
+
+    private void retirarParticion(LocalDate dia) {
+        diasRetirados.add(dia);
+        try {
+            ventas.sellarParticion(dia);
+            ventas.eliminarParticion(dia);
+        } catch (IllegalStateException e) {
+            // Un cierre de venta del primario aún no llega: se retiran las ventas una por una
+            LocalDateTime inicio = dia.atStartOfDay();
+            for (Venta venta : ventas.obtenerVentasPorFecha(inicio, inicio.plusDays(1).minusNanos(1))) {
+                ventas.eliminar(venta.getId());
+            }
+        }
+    }
+
+    private void aplicarProducto(Producto producto) {
+        InventarioProducto inventario = producto.getInventario();
+        InventarioProducto pendiente = existenciasPendientes.remove(producto.getId());
+        if (pendiente != null) {
+            inventario.fusionar(pendiente);
+        }
+        Producto anterior = productos.buscarPorId(producto.getId());
+        if (anterior != null) {
+            inventario.fusionar(anterior.getInventario());
+        }
+        productos.guardarReplica(producto);
+    }
+
+    private void aplicarExistencias(ByteBuffer trama) {
+        int idProducto = CodecBinario.leerVarint(trama);
+        int ubicacion = CodecBinario.leerVarint(trama);
+        int existencias = CodecBinario.leerVarint(trama);
+        int cambio = CodecBinario.leerVarint(trama);
+        if (productosEliminados.contains(idProducto)) {
+            return;
+        }
+        Producto producto = productos.buscarPorId(idProducto);
+        InventarioProducto inventario = producto != null ? producto.getInventario()
+                : existenciasPendientes.computeIfAbsent(idProducto, id -> RedUbicaciones.porDefecto().crearInventario());
+        inventario.aplicarReplica(ubicacion, existencias, cambio);
+    }
+
+    private void aplicarVenta(Venta venta) {
+        Venta anterior = ventas.buscarPorId(venta.getId());
+        boolean yaCompletada = anterior != null && anterior.getEstado() == EstadoVenta.COMPLETADA;
+        boolean yaCerrada = anterior != null && anterior.getEstado() != EstadoVenta.PROCESANDO;
+        if (!ventas.guardarReplica(venta)) {
+            return;
+        }
+        // Los reportes de la réplica salen de su propia tabla de hechos
+        if (venta.getEstado() == EstadoVenta.COMPLETADA && !yaCompletada) {
+            ventas.registrarVentaFinalizada(venta);
+        }
+        if (yaCerrada) {
+            // Los detalles de una venta cerrada no cambian: se reusan los ya archivados
+            venta.archivarDetalles(anterior.getLineas());
+        } else if (venta.getEstado() != EstadoVenta.PROCESANDO) {
+            ventas.archivarDetalles(venta, productos::buscarPorId);
+        }
+    }
+}
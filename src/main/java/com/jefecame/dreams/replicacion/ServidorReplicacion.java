@@ -0,0 +1,220 @@
+package com.jefecame.dreams.replicacion;
+
+import com.jefecame.dreams.inventario.OyenteExistencias;
+import com.jefecame.dreams.repository.ClienteRepository;
+import com.jefecame.dreams.repository.OyenteParticiones;
+import com.jefecame.dreams.repository.OyenteRepositorio;
+import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.VentaRepository;
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.Venta;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servidor de replicación del primario.
+ *
+ * Acepta réplicas en un socket local y les transmite el registro ordenado de
+ * mutaciones de clientes, productos, existencias y ventas, incluidos los
+ * días de ventas que el primario retira de memoria. Cada réplica recibe
+ * primero una instantánea y luego los cambios posteriores; un latido
+ * periódico le informa la secuencia actual del primario para que pueda medir
+ * su retraso. Una réplica que acumula más tramas pendientes que la capacidad
+ * de su cola se desconecta, lo que acota el retraso de las réplicas conectadas.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ServidorReplicacion {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServidorReplicacion.class);
+
+    /** Capacidad por defecto de la cola de cada réplica */
+    public static final int CAPACIDAD_COLA_POR_DEFECTO = 65_536;
+
+    private static final long INTERVALO_LATIDO_MS = 100;
+
+    private final int puerto;
+    private final int capacidadCola;
+    private final ClienteRepository clientes;
+    private final ProductoRepository productos;
+    private final VentaRepository ventas;
+    private final RegistroMutaciones registro;
+    private final OyenteRepositorio<Cliente> oyenteClientes;
+    private final OyenteRepositorio<Producto> oyenteProductos;
+    private final OyenteExistencias oyenteExistencias;
+    private final OyenteRepositorio<Venta> oyenteVentas;
+    private final OyenteParticiones oyenteParticiones;
+    private volatile ServerSocket servidor;
+
+    /**
+     * Constructor para crear el servidor con la capacidad de cola por defecto.
+     *
+     * @param puerto puerto local, o 0 para elegir uno libre
+     * @param clientes repositorio de clientes del primario
+     * @param productos repositorio de productos del primario
+     * @param ventas repositorio de ventas del primario
+     */
+    public ServidorReplicacion(int puerto, ClienteRepository clientes, ProductoRepository productos,
+                               VentaRepository ventas) {
+        this(puerto, clientes, productos, ventas, CAPACIDAD_COLA_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor para crear el servidor.
+     *
+     * @param puerto puerto local, o 0 para elegir uno libre
+     * @param clientes repositorio de clientes del primario
+     * @param productos repositorio de productos del primario
+     * @param ventas repositorio de ventas del primario
+     * @param capacidadCola número máximo de tramas pendientes por réplica
+     * @throws IllegalArgumentException si algún parámetro es inválido
+     */
+    public ServidorReplicacion(int puerto, ClienteRepository clientes, ProductoRepository productos,
+                               VentaRepository ventas, int capacidadCola) {
+        if (puerto < 0 || puerto > 65_535) {
+            throw new IllegalArgumentException("Puerto inválido: " + puerto);
+        }
+        if (clientes == null || productos == null || ventas == null) {
+            throw new IllegalArgumentException("Los repositorios no pueden ser nulos");
+        }
+        if (capacidadCola < 1) {
+            throw new IllegalArgumentException("La capacidad de la cola debe ser al menos 1");
+        }
+        this.puerto = puerto;
+        this.capacidadCola = capacidadCola;
+        this.clientes = clientes;
+        this.productos = productos;
+        this.ventas = ventas;
+        this.registro = new RegistroMutaciones();
+        this.oyenteClientes = registro.oyenteClientes();
+        this.oyenteProductos = registro.oyenteProductos();
+        this.oyenteExistencias = registro.oyenteExistencias();
+        this.oyenteVentas = registro.oyenteVentas();
+        this.oyenteParticiones = registro.oyenteParticiones();
+    }
+
+    /**
+     * Abre el socket, se suscribe a los repositorios y comienza a aceptar réplicas.
+     *
+     * @throws IOException si no se puede abrir el socket
+     * @throws IllegalStateException si el servidor ya está iniciado
+     */
+    public synchronized void iniciar() throws IOException {
+        if (servidor != null) {
+            throw new IllegalStateException("El servidor de replicación ya está iniciado");
+        }
+        servidor = new ServerSocket(puerto, 50, InetAddress.getLoopbackAddress());
+        registro.iniciar();
+        clientes.agregarOyente(oyenteClientes);
+        productos.agregarOyente(oyenteProductos);
+        productos.agregarOyenteExistencias(oyenteExistencias);
+        ventas.agregarOyente(oyenteVentas);
+        ventas.agregarOyenteParticiones(oyenteParticiones);
+
+        Thread.ofVirtual().name("replicacion-aceptar").start(this::aceptar);
+        Thread.ofVirtual().name("replicacion-latido").start(this::latir);
+        logger.info("Servidor de replicación escuchando en el puerto {}", getPuerto());
+    }
+
+    /**
+     * Deja de aceptar réplicas, desconecta las existentes y se retira de los repositorios.
+     */
+    public synchronized void detener() {
+        ServerSocket actual = servidor;
+        if (actual == null) {
+            return;
+        }
+        servidor = null;
+        clientes.quitarOyente(oyenteClientes);
+        productos.quitarOyente(oyenteProductos);
+        productos.quitarOyenteExistencias(oyenteExistencias);
+        ventas.quitarOyente(oyenteVentas);
+        ventas.quitarOyenteParticiones(oyenteParticiones);
+        registro.detener();
+        try {
+            actual.close();
+        } catch (IOException e) {
+            logger.debug("Error al cerrar el servidor de replicación", e);
+        }
+        for (ConexionReplica conexion : registro.getConexiones()) {
+            conexion.cerrar("servidor detenido");
+        }
+    }
+
+    /**
+     * Obtiene el puerto en el que escucha el servidor.
+     *
+     * @return puerto local, o el configurado si aún no se inicia
+     */
+    public int getPuerto() {
+        ServerSocket actual = servidor;
+        return actual != null ? actual.getLocalPort() : puerto;
+    }
+
+    /**
+     * Obtiene la última secuencia publicada en el registro.
+     *
+     * @return número de secuencia
+     */
+    public long getSecuenciaActual() {
+        return registro.getSecuencia();
+    }
+
+    /**
+     * Obtiene el número de réplicas conectadas.
+     *
+     * @return réplicas conectadas
+     */
+    public int contarReplicas() {
+        return registro.getConexiones().size();
+    }
+
+    /**
+     * Obtiene el mayor número de tramas pendientes entre las réplicas conectadas.
+     *
+     * @return tramas pendientes de la réplica más retrasada
+     */
+    public int getMaximoPendientes() {
+        int maximo = 0;
+        for (ConexionReplica conexion : registro.getConexiones()) {
+            maximo = Math.max(maximo, conexion.contarPendientes());
+        }
+        return maximo;
+    }
+
+    private void aceptar() {
+        ServerSocket actual;
+        while ((actual = servidor) != null) {
+            try {
+                Socket socket = actual.accept();
+                socket.setTcpNoDelay(true);
+                logger.info("Réplica conectada desde {}", socket.getRemoteSocketAddress());
+                new ConexionReplica(socket, capacidadCola, registro).iniciar(clientes, productos, ventas);
+            } catch (SocketException e) {
+                // El socket se cerró al detener el servidor
+                return;
+            } catch (IOException e) {
+                logger.warn("Error al aceptar una réplica: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void latir() {
+        while (servidor != null) {
+            registro.latir();
+            try {
+                Thread.sleep(INTERVALO_LATIDO_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.jefecame.dreams.replicacion;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Formato de las tramas del registro de replicación.
+ *
+ * Cada trama es {@code [int longitud][byte tipo][long secuencia][long marca][contenido]},
+ * donde la longitud cuenta los bytes que le siguen, la secuencia es la
+ * posición en el registro del primario y la marca es el instante de
+ * publicación en milisegundos. El contenido de las entidades usa el
+ * {@link com.jefecame.dreams.codec.CodecBinario} con el diccionario reiniciado
+ * en cada trama, así que cada una se decodifica por sí sola. Las tramas de
+ * existencias llevan como varints el producto, la ubicación, las existencias
+ * resultantes y el número de cambio de la ubicación.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+final class Trama {
+
+    static final byte CLIENTE = 1;
+    static final byte CLIENTE_ELIMINADO = 2;
+    static final byte PRODUCTO = 3;
+    static final byte PRODUCTO_ELIMINADO = 4;
+    static final byte VENTA = 5;
+    static final byte VENTA_ELIMINADA = 6;
+    static final byte FIN_INSTANTANEA = 7;
+    static final byte LATIDO = 8;
+    static final byte EXISTENCIAS = 9;
+    static final byte PARTICION_RETIRADA = 10;
+
+    /** Bytes de tipo, secuencia y marca que preceden al contenido */
+    static final int TAMANO_CABECERA = 1 + Long.BYTES + Long.BYTES;
+
+    static final int DESPLAZAMIENTO_SECUENCIA = Integer.BYTES + 1;
+
+    private static final int TAMANO_INICIAL = 4 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> AUXILIAR =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(TAMANO_INICIAL));
+
+    private Trama() {
+    }
+
+    /**
+     * Crea una trama completa, lista para escribirse en el socket.
+     *
+     * @param tipo tipo de la trama
+     * @param secuencia posición en el registro
+     * @param contenido escritor del contenido sobre un búfer del hilo
+     * @return los bytes de la trama
+     */
+    static byte[] crear(byte tipo, long secuencia, Consumer<ByteBuffer> contenido) {
+        ByteBuffer auxiliar = AUXILIAR.get();
+        while (true) {
+            auxiliar.clear();
+            try {
+                auxiliar.putInt(0);
+                auxiliar.put(tipo);
+                auxiliar.putLong(secuencia);
+                auxiliar.putLong(System.currentTimeMillis());
+                contenido.accept(auxiliar);
+                break;
+            } catch (BufferOverflowException e) {
+                auxiliar = ByteBuffer.allocate(auxiliar.capacity() * 2);
+                AUXILIAR.set(auxiliar);
+            }
+        }
+        auxiliar.putInt(0, auxiliar.position() - Integer.BYTES);
+
+        byte[] trama = new byte[auxiliar.position()];
+        auxiliar.flip();
+        auxiliar.get(trama);
+        return trama;
+    }
+
+    /**
+     * Asigna la secuencia a una trama ya creada.
+     *
+     * @param trama bytes de la trama
+     * @param secuencia posición en el registro
+     */
+    static void asignarSecuencia(byte[] trama, long secuencia) {
+        ByteBuffer.wrap(trama).putLong(DESPLAZAMIENTO_SECUENCIA, secuencia);
+    }
+
+    /**
+     * Obtiene el tipo de una trama ya creada.
+     *
+     * @param trama bytes de la trama
+     * @return tipo de la trama
+     */
+    static byte tipo(byte[] trama) {
+        return trama[Integer.BYTES];
+    }
+}
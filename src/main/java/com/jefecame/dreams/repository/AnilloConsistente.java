@@ -0,0 +1,108 @@
+package com.jefecame.dreams.repository;
+
+import java.util.Arrays;
+
+/**
+ * Anillo de hash consistente que asigna claves enteras a fragmentos.
+ *
+ * Cada fragmento ocupa varios nodos virtuales repartidos en el anillo; una
+ * clave pertenece al primer nodo cuyo punto es mayor o igual a su hash. Con
+ * suficientes nodos virtuales la carga queda pareja, y agregar un fragmento
+ * solo mueve alrededor de 1/N de las claves.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class AnilloConsistente {
+
+    /** Nodos virtuales por fragmento usados por defecto */
+    public static final int NODOS_VIRTUALES_POR_DEFECTO = 128;
+
+    private static final int MAXIMO_FRAGMENTOS = 1 << 16;
+
+    private final int numeroFragmentos;
+    private final long[] puntos;
+    private final int[] duenos;
+
+    /**
+     * Constructor para crear un anillo con los nodos virtuales por defecto.
+     *
+     * @param numeroFragmentos número de fragmentos
+     * @throws IllegalArgumentException si el número de fragmentos es inválido
+     */
+    public AnilloConsistente(int numeroFragmentos) {
+        this(numeroFragmentos, NODOS_VIRTUALES_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor para crear un anillo.
+     *
+     * @param numeroFragmentos número de fragmentos
+     * @param nodosVirtuales nodos virtuales por fragmento
+     * @throws IllegalArgumentException si algún parámetro es menor a 1 o hay más de 65536 fragmentos
+     */
+    public AnilloConsistente(int numeroFragmentos, int nodosVirtuales) {
+        if (numeroFragmentos < 1 || numeroFragmentos > MAXIMO_FRAGMENTOS) {
+            throw new IllegalArgumentException("El número de fragmentos debe estar entre 1 y " + MAXIMO_FRAGMENTOS);
+        }
+        if (nodosVirtuales < 1) {
+            throw new IllegalArgumentException("El número de nodos virtuales debe ser al menos 1");
+        }
+
+        this.numeroFragmentos = numeroFragmentos;
+        int totalNodos = numeroFragmentos * nodosVirtuales;
+        long[] nodos = new long[totalNodos];
+        for (int fragmento = 0; fragmento < numeroFragmentos; fragmento++) {
+            for (int replica = 0; replica < nodosVirtuales; replica++) {
+                long punto = mezclar(((long) fragmento << 32) | replica);
+                // El índice del fragmento viaja en la parte baja para ordenar punto y dueño juntos
+                nodos[fragmento * nodosVirtuales + replica] = (punto & ~0xFFFFL) | fragmento;
+            }
+        }
+        Arrays.sort(nodos);
+
+        this.puntos = nodos;
+        this.duenos = new int[totalNodos];
+        for (int i = 0; i < totalNodos; i++) {
+            duenos[i] = (int) (nodos[i] & 0xFFFFL);
+        }
+    }
+
+    /**
+     * Obtiene el fragmento dueño de una clave.
+     *
+     * @param clave clave a ubicar (ID de cliente o de producto)
+     * @return índice del fragmento, entre 0 y {@link #getNumeroFragmentos()} - 1
+     */
+    public int fragmentoPara(int clave) {
+        if (numeroFragmentos == 1) {
+            return 0;
+        }
+        int indice = Arrays.binarySearch(puntos, mezclar(clave));
+        if (indice < 0) {
+            indice = -indice - 1;
+        }
+        return duenos[indice == puntos.length ? 0 : indice];
+    }
+
+    /**
+     * Obtiene el número de fragmentos del anillo.
+     *
+     * @return número de fragmentos
+     */
+    public int getNumeroFragmentos() {
+        return numeroFragmentos;
+    }
+
+    /**
+     * Mezcla final de MurmurHash3 de 64 bits: reparte claves consecutivas por todo el anillo.
+     */
+    private static long mezclar(long valor) {
+        valor ^= valor >>> 33;
+        valor *= 0xff51afd7ed558ccdL;
+        valor ^= valor >>> 33;
+        valor *= 0xc4ceb9fe1a85ec53L;
+        valor ^= valor >>> 33;
+        return valor;
+    }
+}
@@ -0,0 +1,143 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.Producto;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+/**
+ * Archivo fuera del heap para los detalles de las ventas cerradas de una partición.
+ *
+ * Los detalles de una venta COMPLETADA o CANCELADA ya no cambian, así que se
+ * compactan en registros de tamaño fijo dentro de bloques de memoria directa
+ * ({@link ByteBuffer#allocateDirect}). La venta conserva solo una lista ligera
+ * que crea vistas {@link DetalleVenta} sobre esos registros al leerlos.
+ *
+ * Cada {@link ParticionVentas} tiene su propio archivo, así que los bloques
+ * dejan de estar referenciados, y el recolector los libera, cuando la
+ * partición se elimina o se descarga. Los bloques empiezan en 64 KB y
+ * duplican su tamaño hasta 1 MB para que los días con pocas ventas no
+ * reserven un bloque completo.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ArchivoDetallesVenta {
+
+    /** Tamaño en bytes de cada registro de detalle */
+    static final int TAMANO_REGISTRO = 44;
+
+    static final int DESPLAZAMIENTO_ID = 0;
+    static final int DESPLAZAMIENTO_ID_VENTA = 4;
+    static final int DESPLAZAMIENTO_ID_PRODUCTO = 8;
+    static final int DESPLAZAMIENTO_CANTIDAD = 12;
+    static final int DESPLAZAMIENTO_PRECIO = 16;
+    static final int DESPLAZAMIENTO_DESCUENTO = 24;
+    static final int DESPLAZAMIENTO_IMPUESTO = 32;
+    static final int DESPLAZAMIENTO_TASA_IMPUESTO = 40;
+
+    private static final int TAMANO_BLOQUE_INICIAL = 64 * 1024;
+    private static final int TAMANO_BLOQUE_MAXIMO = 1024 * 1024;
+
+    private final List<ByteBuffer> bloques;
+    private ByteBuffer bloqueActual;
+    private long registros;
+
+    /**
+     * Constructor que inicializa el archivo sin bloques reservados.
+     */
+    public ArchivoDetallesVenta() {
+        this.bloques = new ArrayList<>();
+        this.registros = 0;
+    }
+
+    /**
+     * Copia los detalles indicados al archivo y devuelve una vista inmutable sobre ellos.
+     * Los detalles de una misma venta quedan contiguos en un solo bloque.
+     *
+     * @param detalles detalles de una venta cerrada
+     * @param productos función que resuelve un producto por su ID al leer la vista
+     * @return lista inmutable con vistas sobre los detalles archivados
+     */
+    public synchronized List<DetalleVenta> archivar(List<DetalleVenta> detalles, IntFunction<Producto> productos) {
+        int bytesRequeridos = detalles.size() * TAMANO_REGISTRO;
+        if (bloqueActual == null || bloqueActual.remaining() < bytesRequeridos) {
+            int tamanoBloque = bloqueActual == null ? TAMANO_BLOQUE_INICIAL
+                    : Math.min(TAMANO_BLOQUE_MAXIMO, bloqueActual.capacity() * 2);
+            bloqueActual = ByteBuffer.allocateDirect(Math.max(tamanoBloque, bytesRequeridos));
+            bloques.add(bloqueActual);
+        }
+
+        int inicio = bloqueActual.position();
+        for (DetalleVenta detalle : detalles) {
+            bloqueActual.putInt(detalle.getId());
+            bloqueActual.putInt(detalle.getIdVenta());
+            bloqueActual.putInt(detalle.getIdProducto());
+            bloqueActual.putInt(detalle.getCantidad());
+            bloqueActual.putLong(TablaHechosVentas.aCentavos(detalle.getPrecioUnitario()));
+            bloqueActual.putLong(TablaHechosVentas.aCentavos(detalle.getDescuento()));
+            bloqueActual.putLong(detalle.getImpuestoCentavos());
+            bloqueActual.putInt(detalle.getTasaImpuesto());
+        }
+        registros += detalles.size();
+
+        return new DetallesArchivados(bloqueActual, inicio, detalles.size(), productos);
+    }
+
+    /**
+     * Obtiene el número de detalles archivados.
+     *
+     * @return número de registros
+     */
+    public synchronized long contarRegistros() {
+        return registros;
+    }
+
+    /**
+     * Obtiene los bytes de memoria directa reservados por el archivo.
+     *
+     * @return bytes reservados fuera del heap
+     */
+    public synchronized long bytesReservados() {
+        long total = 0;
+        for (ByteBuffer bloque : bloques) {
+            total += bloque.capacity();
+        }
+        return total;
+    }
+
+    /**
+     * Lista inmutable de los detalles de una venta dentro de un bloque.
+     */
+    private static final class DetallesArchivados extends AbstractList<DetalleVenta> implements RandomAccess {
+
+        private final ByteBuffer bloque;
+        private final int inicio;
+        private final int cantidad;
+        private final IntFunction<Producto> productos;
+
+        DetallesArchivados(ByteBuffer bloque, int inicio, int cantidad, IntFunction<Producto> productos) {
+            this.bloque = bloque;
+            this.inicio = inicio;
+            this.cantidad = cantidad;
+            this.productos = productos;
+        }
+
+        @Override
+        public DetalleVenta get(int indice) {
+            if (indice < 0 || indice >= cantidad) {
+                throw new IndexOutOfBoundsException("Índice " + indice + ", tamaño " + cantidad);
+            }
+            return new DetalleVentaArchivado(bloque, inicio + indice * TAMANO_REGISTRO, productos);
+        }
+
+        @Override
+        public int size() {
+            return cantidad;
+        }
+    }
+}
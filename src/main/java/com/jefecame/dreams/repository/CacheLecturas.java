@@ -0,0 +1,380 @@
+package com.jefecame.dreams.repository;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+/**
+ * Caché acotada de lectura con admisión por frecuencia al estilo W-TinyLFU.
+ *
+ * Los elementos nuevos entran a una ventana LRU pequeña; al salir de ella
+ * compiten con la víctima LRU de la región principal y solo son admitidos si
+ * su frecuencia estimada (un sketch count-min con envejecimiento periódico)
+ * es mayor. Así, un recorrido de elementos poco usados no desplaza a los
+ * clientes y productos más consultados.
+ *
+ * Los aciertos no toman candado: el valor se lee de un mapa concurrente y el
+ * acceso se anota en un búfer de lecturas repartido en franjas por hilo. Las
+ * listas LRU y el sketch solo se tocan con el candado de la política, que se
+ * toma con tryLock para vaciar el búfer cuando se llena y de forma bloqueante
+ * en las cargas, invalidaciones y desalojos. Si una franja está llena el
+ * acceso se descarta, lo que solo resta precisión a la frecuencia estimada.
+ *
+ * Una carga reserva su ID en el mapa antes de llamar al cargador y publica el
+ * valor solo si la reserva sigue ahí; invalidar un ID retira su reserva, así
+ * que una carga que compitió con la invalidación no deja un valor obsoleto y
+ * las cargas de otros IDs no se ven afectadas.
+ *
+ * @param <V> tipo de los valores almacenados
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class CacheLecturas<V> {
+
+    private static final int PROFUNDIDAD_SKETCH = 4;
+    private static final int MAXIMO_CONTADOR = 15;
+    private static final int TAMANO_FRANJA = 32;
+    private static final int UMBRAL_VACIADO = TAMANO_FRANJA / 2;
+
+    private final int capacidadVentana;
+    private final int capacidadPrincipal;
+    private final ConcurrentHashMap<Integer, Nodo<V>> valores;
+    private final ReentrantLock candadoPolitica;
+    private final LinkedHashMap<Integer, Nodo<V>> ventana;
+    private final LinkedHashMap<Integer, Nodo<V>> principal;
+    private final FranjaLecturas<V>[] franjas;
+    private final int[] contadores;
+    private final int mascara;
+    private final int tamanoMuestra;
+    private int incrementos;
+
+    private final LongAdder aciertos;
+    private final LongAdder fallos;
+    private final LongAdder desalojos;
+
+    /**
+     * Constructor para crear una caché con la capacidad indicada.
+     *
+     * @param capacidad número máximo de elementos en la caché
+     * @throws IllegalArgumentException si la capacidad es menor a 2
+     */
+    @SuppressWarnings("unchecked")
+    public CacheLecturas(int capacidad) {
+        if (capacidad < 2) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser al menos 2");
+        }
+
+        this.capacidadVentana = Math.max(1, capacidad / 100);
+        this.capacidadPrincipal = capacidad - capacidadVentana;
+        this.valores = new ConcurrentHashMap<>();
+        this.candadoPolitica = new ReentrantLock();
+        this.ventana = new LinkedHashMap<>(16, 0.75f, true);
+        this.principal = new LinkedHashMap<>(16, 0.75f, true);
+
+        int numeroFranjas = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.franjas = new FranjaLecturas[numeroFranjas];
+        for (int i = 0; i < numeroFranjas; i++) {
+            franjas[i] = new FranjaLecturas<>();
+        }
+
+        int ancho = Integer.highestOneBit(Math.max(16, capacidad) - 1) << 1;
+        this.contadores = new int[ancho];
+        this.mascara = ancho - 1;
+        this.tamanoMuestra = capacidad * 10;
+
+        this.aciertos = new LongAdder();
+        this.fallos = new LongAdder();
+        this.desalojos = new LongAdder();
+    }
+
+    /**
+     * Obtiene un valor de la caché o lo carga con la función indicada.
+     * Los valores nulos no se almacenan.
+     *
+     * @param id identificador del valor
+     * @param cargador función que obtiene el valor cuando no está en caché
+     * @return el valor encontrado o cargado, o null si no existe
+     */
+    public V obtener(int id, IntFunction<V> cargador) {
+        Nodo<V> nodo = valores.get(id);
+        if (nodo != null && nodo.valor != null) {
+            aciertos.increment();
+            registrarLectura(nodo);
+            return nodo.valor;
+        }
+        fallos.increment();
+
+        // Si otra carga del mismo ID está en curso, esta lectura no guarda su resultado
+        Nodo<V> reserva = new Nodo<>(id, null);
+        boolean reservado = nodo == null && valores.putIfAbsent(id, reserva) == null;
+
+        // La carga se hace fuera del candado para no serializar los fallos
+        V cargado = null;
+        try {
+            cargado = cargador.apply(id);
+        } finally {
+            if (reservado) {
+                publicarCarga(reserva, cargado);
+            }
+        }
+        return cargado;
+    }
+
+    /**
+     * Elimina un valor de la caché. Una carga en curso del mismo ID no
+     * publicará su resultado; las de otros IDs no se ven afectadas.
+     *
+     * @param id identificador del valor a invalidar
+     */
+    public void invalidar(int id) {
+        candadoPolitica.lock();
+        try {
+            valores.remove(id);
+            ventana.remove(id);
+            principal.remove(id);
+        } finally {
+            candadoPolitica.unlock();
+        }
+    }
+
+    /**
+     * Elimina todos los valores de la caché.
+     */
+    public void limpiar() {
+        candadoPolitica.lock();
+        try {
+            vaciarLecturas();
+            valores.clear();
+            ventana.clear();
+            principal.clear();
+        } finally {
+            candadoPolitica.unlock();
+        }
+    }
+
+    /**
+     * Obtiene el número de valores almacenados.
+     *
+     * @return número de valores en caché
+     */
+    public int tamano() {
+        candadoPolitica.lock();
+        try {
+            return ventana.size() + principal.size();
+        } finally {
+            candadoPolitica.unlock();
+        }
+    }
+
+    /**
+     * Obtiene el número de lecturas resueltas desde la caché.
+     *
+     * @return número de aciertos
+     */
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    /**
+     * Obtiene el número de lecturas que tuvieron que ir al repositorio.
+     *
+     * @return número de fallos
+     */
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    /**
+     * Obtiene el número de valores desalojados por falta de espacio.
+     *
+     * @return número de desalojos
+     */
+    public long getDesalojos() {
+        return desalojos.sum();
+    }
+
+    /**
+     * Calcula la proporción de lecturas resueltas desde la caché.
+     *
+     * @return tasa de aciertos entre 0 y 1
+     */
+    public double getTasaAciertos() {
+        long acertadas = aciertos.sum();
+        long total = acertadas + fallos.sum();
+        return total == 0 ? 0.0 : (double) acertadas / total;
+    }
+
+    private void registrarLectura(Nodo<V> nodo) {
+        FranjaLecturas<V> franja = franjas[(int) Thread.currentThread().threadId() & (franjas.length - 1)];
+        if (franja.agregar(nodo) >= UMBRAL_VACIADO && candadoPolitica.tryLock()) {
+            try {
+                vaciarLecturas();
+            } finally {
+                candadoPolitica.unlock();
+            }
+        }
+    }
+
+    private void publicarCarga(Nodo<V> reserva, V cargado) {
+        if (cargado == null) {
+            valores.remove(reserva.id, reserva);
+            return;
+        }
+
+        Nodo<V> nodo = new Nodo<>(reserva.id, cargado);
+        candadoPolitica.lock();
+        try {
+            vaciarLecturas();
+            registrarAcceso(nodo.id);
+            // Si la reserva ya no está, hubo una invalidación durante la carga
+            if (valores.replace(nodo.id, reserva, nodo)) {
+                insertarEnVentana(nodo);
+            }
+        } finally {
+            candadoPolitica.unlock();
+        }
+    }
+
+    private void vaciarLecturas() {
+        for (FranjaLecturas<V> franja : franjas) {
+            Nodo<V> nodo;
+            while ((nodo = franja.tomar()) != null) {
+                registrarAcceso(nodo.id);
+                // Tocar la entrada solo si sigue siendo el mismo valor; get reordena la LRU
+                if (ventana.get(nodo.id) != nodo) {
+                    principal.get(nodo.id);
+                }
+            }
+        }
+    }
+
+    private void insertarEnVentana(Nodo<V> nodo) {
+        ventana.put(nodo.id, nodo);
+        if (ventana.size() <= capacidadVentana) {
+            return;
+        }
+
+        Iterator<Map.Entry<Integer, Nodo<V>>> iterador = ventana.entrySet().iterator();
+        Nodo<V> candidato = iterador.next().getValue();
+        iterador.remove();
+
+        if (principal.size() < capacidadPrincipal) {
+            principal.put(candidato.id, candidato);
+            return;
+        }
+
+        Iterator<Map.Entry<Integer, Nodo<V>>> iteradorPrincipal = principal.entrySet().iterator();
+        Nodo<V> victima = iteradorPrincipal.next().getValue();
+
+        // Admisión TinyLFU: el candidato entra solo si es más frecuente que la víctima
+        if (frecuencia(candidato.id) > frecuencia(victima.id)) {
+            iteradorPrincipal.remove();
+            valores.remove(victima.id, victima);
+            principal.put(candidato.id, candidato);
+        } else {
+            valores.remove(candidato.id, candidato);
+        }
+        desalojos.increment();
+    }
+
+    private void registrarAcceso(int id) {
+        boolean incrementado = false;
+        for (int i = 0; i < PROFUNDIDAD_SKETCH; i++) {
+            int indice = indice(id, i);
+            if (contadores[indice] < MAXIMO_CONTADOR) {
+                contadores[indice]++;
+                incrementado = true;
+            }
+        }
+
+        if (incrementado && ++incrementos >= tamanoMuestra) {
+            envejecer();
+        }
+    }
+
+    private int frecuencia(int id) {
+        int minimo = MAXIMO_CONTADOR;
+        for (int i = 0; i < PROFUNDIDAD_SKETCH; i++) {
+            minimo = Math.min(minimo, contadores[indice(id, i)]);
+        }
+        return minimo;
+    }
+
+    private void envejecer() {
+        for (int i = 0; i < contadores.length; i++) {
+            contadores[i] >>>= 1;
+        }
+        incrementos /= 2;
+    }
+
+    private int indice(int id, int fila) {
+        int hash = (id + fila) * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return (hash + fila * 0x27D4EB2F) & mascara;
+    }
+
+    /**
+     * Valor almacenado junto con su ID. Un nodo sin valor es la reserva de
+     * una carga en curso.
+     */
+    private static final class Nodo<V> {
+
+        private final int id;
+        private final V valor;
+
+        Nodo(int id, V valor) {
+            this.id = id;
+            this.valor = valor;
+        }
+    }
+
+    /**
+     * Anillo de accesos pendientes de aplicar a la política. Cualquier hilo
+     * agrega; solo quien tiene el candado de la política toma.
+     */
+    private static final class FranjaLecturas<V> {
+
+        private final AtomicReferenceArray<Nodo<V>> accesos = new AtomicReferenceArray<>(TAMANO_FRANJA);
+        private final AtomicLong escritos = new AtomicLong();
+        private volatile long leidos;
+
+        /**
+         * Anota un acceso, o lo descarta si la franja está llena.
+         *
+         * @return número de accesos pendientes en la franja
+         */
+        long agregar(Nodo<V> nodo) {
+            long posicion = escritos.get();
+            long pendientes = posicion - leidos;
+            if (pendientes < TAMANO_FRANJA && escritos.compareAndSet(posicion, posicion + 1)) {
+                accesos.lazySet((int) (posicion & (TAMANO_FRANJA - 1)), nodo);
+                return pendientes + 1;
+            }
+            return pendientes;
+        }
+
+        Nodo<V> tomar() {
+            long posicion = leidos;
+            if (posicion == escritos.get()) {
+                return null;
+            }
+            int indice = (int) (posicion & (TAMANO_FRANJA - 1));
+            Nodo<V> nodo = accesos.get(indice);
+            if (nodo == null) {
+                // El escritor reservó la posición pero todavía no publica el nodo
+                return null;
+            }
+            accesos.lazySet(indice, null);
+            leidos = posicion + 1;
+            return nodo;
+        }
+    }
+}
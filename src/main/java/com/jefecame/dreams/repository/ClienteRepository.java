@@ -1,59 +1,81 @@
 package com.jefecame.dreams.repository;
 
 import com.jefecame.dreams.model.Cliente;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Repositorio para gestionar los datos de los clientes.
  * 
+ * Define las operaciones comunes sin fijar el almacenamiento: {@link ClienteRepositoryEnMemoria}
+ * guarda los clientes en un mapa, y {@link ClienteRepositoryFragmentado} coordina varios
+ * fragmentos sin guardar nada por sí mismo.
+ * 
  * @author jefecame
  * @version 1.0.0
  */
-public class ClienteRepository {
-    
-    private List<Cliente> clientes;
+public abstract class ClienteRepository {
     
     /**
-     * Constructor que inicializa la lista de clientes.
+     * Constructor para las implementaciones del repositorio.
      */
-    public ClienteRepository() {
-        this.clientes = new ArrayList<>();
+    protected ClienteRepository() {
     }
     
     /**
-     * Guarda un cliente en el repositorio.
+     * Da de alta un cliente nuevo en el repositorio. Los cambios a un cliente existente se
+     * hacen con {@link #actualizar} o {@link #guardar(Cliente, long)} indicando la
+     * versión leída.
      * 
      * @param cliente cliente a guardar
+     * @throws ConflictoVersionException si ya existe un cliente con el mismo ID
      */
     public void guardar(Cliente cliente) {
         if (cliente != null) {
-            // Verificar si ya existe un cliente con el mismo ID
-            Optional<Cliente> clienteExistente = clientes.stream()
-                    .filter(c -> c.getId() == cliente.getId())
-                    .findFirst();
-            
-            if (clienteExistente.isPresent()) {
-                // Actualizar cliente existente
-                int index = clientes.indexOf(clienteExistente.get());
-                clientes.set(index, cliente);
-            } else {
-                // Agregar nuevo cliente
-                clientes.add(cliente);
-            }
+            // Un cliente nuevo aún no tiene versión almacenada
+            guardar(cliente, 0L);
         }
     }
     
+    /**
+     * Guarda un cliente solo si la versión almacenada coincide con la esperada.
+     * Escritores de entidades distintas nunca se bloquean entre sí.
+     * 
+     * @param cliente cliente a guardar
+     * @param versionEsperada versión leída antes de modificar el cliente
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    public abstract void guardar(Cliente cliente, long versionEsperada);
+    
+    /**
+     * Aplica un cambio al cliente almacenado solo si su versión coincide con la esperada.
+     * El cambio y el incremento de versión se realizan de forma atómica.
+     * 
+     * @param id identificador del cliente
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @return el cliente actualizado, o null si no existe
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    public abstract Cliente actualizar(int id, long versionEsperada, Consumer<Cliente> cambio);
+    
+    /**
+     * Guarda un cliente recibido de un repositorio primario conservando su versión.
+     * Solo reemplaza al almacenado si la versión recibida es más reciente,
+     * así que aplicar dos veces el mismo cambio no tiene efecto.
+     * 
+     * @param cliente cliente con la versión asignada por el primario
+     * @return true si se aplicó, false si ya se tenía una versión igual o más reciente
+     */
+    public abstract boolean guardarReplica(Cliente cliente);
+    
     /**
      * Elimina un cliente del repositorio por su ID.
      * 
      * @param id identificador del cliente a eliminar
      * @return true si se eliminó correctamente, false en caso contrario
      */
-    public boolean eliminar(int id) {
-        return clientes.removeIf(cliente -> cliente.getId() == id);
-    }
+    public abstract boolean eliminar(int id);
     
     /**
      * Busca un cliente por su ID.
@@ -61,39 +83,69 @@ public class ClienteRepository {
      * @param id identificador del cliente a buscar
      * @return el cliente encontrado o null si no existe
      */
-    public Cliente buscarPorId(int id) {
-        return clientes.stream()
-                .filter(cliente -> cliente.getId() == id)
-                .findFirst()
-                .orElse(null);
-    }
+    public abstract Cliente buscarPorId(int id);
     
     /**
      * Obtiene todos los clientes del repositorio.
      * 
      * @return lista de todos los clientes
      */
-    public List<Cliente> obtenerTodos() {
-        return new ArrayList<>(clientes);
-    }
+    public abstract List<Cliente> obtenerTodos();
+    
+    /**
+     * Obtiene una página de clientes ordenada por ID.
+     * 
+     * @param cursor cursor de la página anterior, o null para la primera página
+     * @param tamano número máximo de clientes por página
+     * @return la página de clientes solicitada
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    public abstract Pagina<Cliente> obtenerPagina(String cursor, int tamano);
     
     /**
      * Obtiene el número total de clientes en el repositorio.
      * 
      * @return número total de clientes
      */
-    public int contarClientes() {
-        return clientes.size();
-    }
+    public abstract int contarClientes();
     
     /**
      * Obtiene todos los clientes activos.
      * 
      * @return lista de clientes activos
      */
-    public List<Cliente> obtenerClientesActivos() {
-        return clientes.stream()
-                .filter(Cliente::isActivo)
-                .toList();
-    }
+    public abstract List<Cliente> obtenerClientesActivos();
+    
+    /**
+     * Indica si otro cliente ya usa un email, sin distinguir mayúsculas ni
+     * espacios en los extremos. Los emails que el filtro de Bloom del
+     * repositorio descarta no recorren los clientes.
+     * 
+     * @param email email a buscar
+     * @param idExcluido ID del cliente que no cuenta, o 0 para considerar a todos
+     * @return true si algún cliente distinto del excluido tiene el email
+     */
+    public abstract boolean existeEmail(String email, int idExcluido);
+    
+    /**
+     * Obtiene los filtros de Bloom de emails del repositorio, con sus métricas
+     * de falsos positivos; uno por fragmento.
+     * 
+     * @return filtros de emails
+     */
+    public abstract List<FiltroBloomContador<Cliente>> obtenerFiltrosEmail();
+    
+    /**
+     * Registra un oyente de los cambios del repositorio.
+     * 
+     * @param oyente oyente a registrar
+     */
+    public abstract void agregarOyente(OyenteRepositorio<Cliente> oyente);
+    
+    /**
+     * Quita un oyente registrado.
+     * 
+     * @param oyente oyente a quitar
+     */
+    public abstract void quitarOyente(OyenteRepositorio<Cliente> oyente);
 }
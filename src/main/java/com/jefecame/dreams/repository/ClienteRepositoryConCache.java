@@ -0,0 +1,104 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.model.Cliente;
+import java.util.function.Consumer;
+
+/**
+ * Repositorio de clientes con una caché de lectura delante de las búsquedas por ID.
+ *
+ * La caché se invalida en cada guardado o eliminación del cliente.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ClienteRepositoryConCache extends ClienteRepositoryEnMemoria {
+
+    private final CacheLecturas<Cliente> cache;
+
+    /**
+     * Constructor que inicializa el repositorio con una caché de la capacidad indicada.
+     *
+     * @param capacidadCache número máximo de clientes en caché
+     */
+    public ClienteRepositoryConCache(int capacidadCache) {
+        super();
+        this.cache = new CacheLecturas<>(capacidadCache);
+    }
+
+    /**
+     * Guarda un cliente e invalida su entrada en la caché.
+     *
+     * @param cliente cliente a guardar
+     * @param versionEsperada versión leída antes de modificar el cliente
+     */
+    @Override
+    public void guardar(Cliente cliente, long versionEsperada) {
+        super.guardar(cliente, versionEsperada);
+        if (cliente != null) {
+            cache.invalidar(cliente.getId());
+        }
+    }
+
+    /**
+     * Guarda un cliente recibido de un primario e invalida su entrada en la caché.
+     *
+     * @param cliente cliente con la versión asignada por el primario
+     * @return true si se aplicó
+     */
+    @Override
+    public boolean guardarReplica(Cliente cliente) {
+        boolean aplicado = super.guardarReplica(cliente);
+        if (aplicado) {
+            cache.invalidar(cliente.getId());
+        }
+        return aplicado;
+    }
+
+    /**
+     * Aplica un cambio al cliente almacenado e invalida su entrada en la caché.
+     *
+     * @param id identificador del cliente
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @return el cliente actualizado, o null si no existe
+     */
+    @Override
+    public Cliente actualizar(int id, long versionEsperada, Consumer<Cliente> cambio) {
+        Cliente actualizado = super.actualizar(id, versionEsperada, cambio);
+        cache.invalidar(id);
+        return actualizado;
+    }
+
+    /**
+     * Elimina un cliente e invalida su entrada en la caché.
+     *
+     * @param id identificador del cliente a eliminar
+     * @return true si se eliminó correctamente, false en caso contrario
+     */
+    @Override
+    public boolean eliminar(int id) {
+        boolean eliminado = super.eliminar(id);
+        cache.invalidar(id);
+        return eliminado;
+    }
+
+    /**
+     * Busca un cliente por su ID, consultando primero la caché.
+     *
+     * @param id identificador del cliente a buscar
+     * @return el cliente encontrado o null si no existe
+     */
+    @Override
+    public Cliente buscarPorId(int id) {
+        return cache.obtener(id, super::buscarPorId);
+    }
+
+    /**
+     * Obtiene la caché de lectura para consultar sus estadísticas.
+     *
+     * @return la caché de clientes
+     */
+    public CacheLecturas<Cliente> getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,307 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.eventos.EventoRepositorio;
+import com.jefecame.dreams.eventos.Grabacion;
+import com.jefecame.dreams.model.Cliente;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Repositorio de clientes en memoria, ordenado por ID y con su propio control
+ * de versiones por cliente.
+ * 
+ * Mantiene un filtro de Bloom de los emails con cada alta, cambio y baja,
+ * dentro del mismo bloqueo del cliente; un cambio de email debe hacerse con
+ * {@link #actualizar} para que el filtro vea el email anterior.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ClienteRepositoryEnMemoria extends ClienteRepository {
+    
+    private ConcurrentSkipListMap<Integer, Cliente> clientes;
+    private ConcurrentHashMap<Integer, Long> versiones;
+    private CopyOnWriteArrayList<OyenteRepositorio<Cliente>> oyentes;
+    private FiltroBloomContador<Cliente> filtroEmails;
+    
+    /**
+     * Constructor que inicializa el almacenamiento de clientes ordenado por ID.
+     */
+    public ClienteRepositoryEnMemoria() {
+        this.clientes = new ConcurrentSkipListMap<>();
+        this.versiones = new ConcurrentHashMap<>();
+        this.oyentes = new CopyOnWriteArrayList<>();
+        this.filtroEmails = new FiltroBloomContador<>(cliente -> FiltroBloomContador.huella(cliente.getEmail()),
+                FiltroBloomContador.CAPACIDAD_MINIMA);
+    }
+    
+    /**
+     * Guarda un cliente solo si la versión almacenada coincide con la esperada.
+     * Escritores de entidades distintas nunca se bloquean entre sí.
+     * 
+     * @param cliente cliente a guardar
+     * @param versionEsperada versión leída antes de modificar el cliente
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    @Override
+    public void guardar(Cliente cliente, long versionEsperada) {
+        if (cliente == null) {
+            return;
+        }
+        
+        EventoRepositorio evento = Grabacion.activa() ? EventoRepositorio.iniciar() : null;
+        String estado = EventoRepositorio.ERROR;
+        try {
+            versiones.compute(cliente.getId(), (id, versionActual) -> {
+                // Un alta nueva no tiene versión previa contra la cual comparar
+                if (versionActual != null && versionActual != versionEsperada) {
+                    throw new ConflictoVersionException(id, versionEsperada, versionActual);
+                }
+                long nuevaVersion = versionActual == null ? versionEsperada + 1 : versionActual + 1;
+                cliente.setVersion(nuevaVersion);
+                filtroEmails.aplicar(clientes.get(id), cliente, () -> clientes.put(id, cliente));
+                return nuevaVersion;
+            });
+            filtroEmails.crecerSiHaceFalta(clientes::values);
+            notificarGuardado(cliente);
+            estado = EventoRepositorio.GUARDADA;
+        } catch (ConflictoVersionException e) {
+            estado = EventoRepositorio.CONFLICTO;
+            throw e;
+        } finally {
+            if (evento != null) {
+                evento.terminar(EventoRepositorio.CLIENTES, EventoRepositorio.GUARDAR, cliente.getId(), estado);
+            }
+        }
+    }
+    
+    /**
+     * Aplica un cambio al cliente almacenado solo si su versión coincide con la esperada.
+     * El cambio y el incremento de versión se realizan de forma atómica.
+     * 
+     * @param id identificador del cliente
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @return el cliente actualizado, o null si no existe
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    @Override
+    public Cliente actualizar(int id, long versionEsperada, Consumer<Cliente> cambio) {
+        EventoRepositorio evento = Grabacion.activa() ? EventoRepositorio.iniciar() : null;
+        String estado = EventoRepositorio.ERROR;
+        Object[] resultado = new Object[1];
+        try {
+            versiones.computeIfPresent(id, (clave, versionActual) -> {
+                if (versionActual != versionEsperada) {
+                    throw new ConflictoVersionException(clave, versionEsperada, versionActual);
+                }
+                Cliente cliente = clientes.get(clave);
+                filtroEmails.aplicar(cliente, cliente, () -> cambio.accept(cliente));
+                cliente.setVersion(versionActual + 1);
+                resultado[0] = cliente;
+                return versionActual + 1;
+            });
+            if (resultado[0] != null) {
+                notificarGuardado((Cliente) resultado[0]);
+            }
+            estado = resultado[0] != null ? EventoRepositorio.GUARDADA : EventoRepositorio.AUSENTE;
+        } catch (ConflictoVersionException e) {
+            estado = EventoRepositorio.CONFLICTO;
+            throw e;
+        } finally {
+            if (evento != null) {
+                evento.terminar(EventoRepositorio.CLIENTES, EventoRepositorio.ACTUALIZAR, id, estado);
+            }
+        }
+        return (Cliente) resultado[0];
+    }
+    
+    /**
+     * Guarda un cliente recibido de un repositorio primario conservando su versión.
+     * Solo reemplaza al almacenado si la versión recibida es más reciente,
+     * así que aplicar dos veces el mismo cambio no tiene efecto.
+     * 
+     * @param cliente cliente con la versión asignada por el primario
+     * @return true si se aplicó, false si ya se tenía una versión igual o más reciente
+     */
+    @Override
+    public boolean guardarReplica(Cliente cliente) {
+        if (cliente == null) {
+            return false;
+        }
+        
+        boolean[] aplicado = new boolean[1];
+        versiones.compute(cliente.getId(), (id, versionActual) -> {
+            if (versionActual != null && versionActual >= cliente.getVersion()) {
+                return versionActual;
+            }
+            filtroEmails.aplicar(clientes.get(id), cliente, () -> clientes.put(id, cliente));
+            aplicado[0] = true;
+            return cliente.getVersion();
+        });
+        if (aplicado[0]) {
+            filtroEmails.crecerSiHaceFalta(clientes::values);
+            notificarGuardado(cliente);
+        }
+        return aplicado[0];
+    }
+    
+    /**
+     * Elimina un cliente del repositorio por su ID.
+     * 
+     * @param id identificador del cliente a eliminar
+     * @return true si se eliminó correctamente, false en caso contrario
+     */
+    @Override
+    public boolean eliminar(int id) {
+        Cliente[] eliminado = new Cliente[1];
+        versiones.computeIfPresent(id, (clave, version) -> {
+            eliminado[0] = clientes.get(clave);
+            filtroEmails.aplicar(eliminado[0], null, () -> clientes.remove(clave));
+            return null;
+        });
+        if (eliminado[0] != null) {
+            notificarEliminado(eliminado[0]);
+        }
+        return eliminado[0] != null;
+    }
+    
+    /**
+     * Busca un cliente por su ID.
+     * 
+     * @param id identificador del cliente a buscar
+     * @return el cliente encontrado o null si no existe
+     */
+    @Override
+    public Cliente buscarPorId(int id) {
+        EventoRepositorio evento = Grabacion.activa() ? EventoRepositorio.iniciar() : null;
+        Cliente cliente = clientes.get(id);
+        if (evento != null) {
+            evento.terminar(EventoRepositorio.CLIENTES, EventoRepositorio.BUSCAR, id,
+                    cliente != null ? EventoRepositorio.ENCONTRADA : EventoRepositorio.AUSENTE);
+        }
+        return cliente;
+    }
+    
+    /**
+     * Obtiene todos los clientes del repositorio.
+     * 
+     * @return lista de todos los clientes
+     */
+    @Override
+    public List<Cliente> obtenerTodos() {
+        return new ArrayList<>(clientes.values());
+    }
+    
+    /**
+     * Obtiene una página de clientes ordenada por ID.
+     * 
+     * @param cursor cursor de la página anterior, o null para la primera página
+     * @param tamano número máximo de clientes por página
+     * @return la página de clientes solicitada
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    @Override
+    public Pagina<Cliente> obtenerPagina(String cursor, int tamano) {
+        return Pagina.desdeMapa(clientes, cursor, tamano);
+    }
+    
+    /**
+     * Obtiene el número total de clientes en el repositorio.
+     * 
+     * @return número total de clientes
+     */
+    @Override
+    public int contarClientes() {
+        return clientes.size();
+    }
+    
+    /**
+     * Obtiene todos los clientes activos.
+     * 
+     * @return lista de clientes activos
+     */
+    @Override
+    public List<Cliente> obtenerClientesActivos() {
+        return clientes.values().stream()
+                .filter(Cliente::isActivo)
+                .toList();
+    }
+    
+    /**
+     * Indica si otro cliente ya usa un email. Cada respuesta positiva del
+     * filtro se confirma contra los clientes y se informa al filtro.
+     * 
+     * @param email email a buscar
+     * @param idExcluido ID del cliente que no cuenta, o 0 para considerar a todos
+     * @return true si algún cliente distinto del excluido tiene el email
+     */
+    @Override
+    public boolean existeEmail(String email, int idExcluido) {
+        if (email == null || !filtroEmails.puedeContener(FiltroBloomContador.huella(email))) {
+            return false;
+        }
+        String buscado = email.trim();
+        boolean registrado = false;
+        for (Cliente cliente : clientes.values()) {
+            if (cliente.getEmail().equalsIgnoreCase(buscado)) {
+                registrado = true;
+                if (cliente.getId() != idExcluido) {
+                    filtroEmails.registrarConfirmacion(true);
+                    return true;
+                }
+            }
+        }
+        // El email del propio cliente excluido también es un acierto del filtro
+        filtroEmails.registrarConfirmacion(registrado);
+        return false;
+    }
+    
+    /**
+     * Obtiene el filtro de Bloom de emails del repositorio.
+     * 
+     * @return lista con el filtro de emails
+     */
+    @Override
+    public List<FiltroBloomContador<Cliente>> obtenerFiltrosEmail() {
+        return List.of(filtroEmails);
+    }
+    
+    /**
+     * Registra un oyente de los cambios del repositorio.
+     * 
+     * @param oyente oyente a registrar
+     */
+    @Override
+    public void agregarOyente(OyenteRepositorio<Cliente> oyente) {
+        if (oyente != null) {
+            oyentes.add(oyente);
+        }
+    }
+    
+    /**
+     * Quita un oyente registrado.
+     * 
+     * @param oyente oyente a quitar
+     */
+    @Override
+    public void quitarOyente(OyenteRepositorio<Cliente> oyente) {
+        oyentes.remove(oyente);
+    }
+    
+    private void notificarGuardado(Cliente cliente) {
+        for (OyenteRepositorio<Cliente> oyente : oyentes) {
+            oyente.alGuardar(cliente);
+        }
+    }
+    
+    private void notificarEliminado(Cliente cliente) {
+        for (OyenteRepositorio<Cliente> oyente : oyentes) {
+            oyente.alEliminar(cliente);
+        }
+    }
+}
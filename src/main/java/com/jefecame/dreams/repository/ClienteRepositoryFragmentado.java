@@ -0,0 +1,228 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.model.Cliente;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Repositorio de clientes repartido en fragmentos por hash consistente del ID del cliente.
+ *
+ * Las operaciones sobre un cliente van solo a su fragmento; las consultas
+ * sobre todos los clientes se dispersan en paralelo y se unen aquí.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ClienteRepositoryFragmentado extends ClienteRepository {
+
+    private final List<ClienteRepository> fragmentos;
+    private final AnilloConsistente anillo;
+    private final Executor ejecutor;
+
+    /**
+     * Constructor para repartir los clientes entre los fragmentos indicados.
+     *
+     * @param fragmentos repositorios que actúan como fragmentos
+     * @param ejecutor ejecutor para las consultas en paralelo
+     * @throws IllegalArgumentException si no hay fragmentos o el ejecutor es nulo
+     */
+    public ClienteRepositoryFragmentado(List<? extends ClienteRepository> fragmentos, Executor ejecutor) {
+        super();
+        if (fragmentos == null || fragmentos.isEmpty()) {
+            throw new IllegalArgumentException("Debe haber al menos un fragmento");
+        }
+        if (ejecutor == null) {
+            throw new IllegalArgumentException("El ejecutor no puede ser nulo");
+        }
+        this.fragmentos = List.copyOf(fragmentos);
+        this.anillo = new AnilloConsistente(fragmentos.size());
+        this.ejecutor = ejecutor;
+    }
+
+    /**
+     * Guarda un cliente en su fragmento.
+     *
+     * @param cliente cliente a guardar
+     * @param versionEsperada versión leída antes de modificar el cliente
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    @Override
+    public void guardar(Cliente cliente, long versionEsperada) {
+        if (cliente != null) {
+            fragmentoDe(cliente.getId()).guardar(cliente, versionEsperada);
+        }
+    }
+
+    /**
+     * Guarda un cliente recibido de un primario en su fragmento.
+     *
+     * @param cliente cliente con la versión asignada por el primario
+     * @return true si se aplicó
+     */
+    @Override
+    public boolean guardarReplica(Cliente cliente) {
+        return cliente != null && fragmentoDe(cliente.getId()).guardarReplica(cliente);
+    }
+
+    /**
+     * Aplica un cambio al cliente en su fragmento.
+     *
+     * @param id identificador del cliente
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @return el cliente actualizado, o null si no existe
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    @Override
+    public Cliente actualizar(int id, long versionEsperada, Consumer<Cliente> cambio) {
+        return fragmentoDe(id).actualizar(id, versionEsperada, cambio);
+    }
+
+    /**
+     * Elimina un cliente de su fragmento.
+     *
+     * @param id identificador del cliente a eliminar
+     * @return true si se eliminó correctamente, false en caso contrario
+     */
+    @Override
+    public boolean eliminar(int id) {
+        return fragmentoDe(id).eliminar(id);
+    }
+
+    /**
+     * Busca un cliente en su fragmento.
+     *
+     * @param id identificador del cliente a buscar
+     * @return el cliente encontrado o null si no existe
+     */
+    @Override
+    public Cliente buscarPorId(int id) {
+        return fragmentoDe(id).buscarPorId(id);
+    }
+
+    /**
+     * Obtiene todos los clientes de todos los fragmentos.
+     *
+     * @return lista de todos los clientes ordenada por ID
+     */
+    @Override
+    public List<Cliente> obtenerTodos() {
+        List<Cliente> todos = ConsultaDispersa.reunir(fragmentos, ClienteRepository::obtenerTodos, ejecutor);
+        todos.sort(Comparator.comparingInt(Cliente::getId));
+        return todos;
+    }
+
+    /**
+     * Obtiene una página de clientes ordenada por ID uniendo las páginas de los fragmentos.
+     *
+     * @param cursor cursor de la página anterior, o null para la primera página
+     * @param tamano número máximo de clientes por página
+     * @return la página de clientes solicitada
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    @Override
+    public Pagina<Cliente> obtenerPagina(String cursor, int tamano) {
+        return ConsultaDispersa.paginar(fragmentos, fragmento -> fragmento.obtenerPagina(cursor, tamano),
+                Cliente::getId, tamano, ejecutor);
+    }
+
+    /**
+     * Obtiene el número total de clientes de todos los fragmentos.
+     *
+     * @return número total de clientes
+     */
+    @Override
+    public int contarClientes() {
+        return ConsultaDispersa.sumar(fragmentos, ClienteRepository::contarClientes);
+    }
+
+    /**
+     * Obtiene los clientes activos de todos los fragmentos.
+     *
+     * @return lista de clientes activos ordenada por ID
+     */
+    @Override
+    public List<Cliente> obtenerClientesActivos() {
+        List<Cliente> activos = ConsultaDispersa.reunir(fragmentos, ClienteRepository::obtenerClientesActivos, ejecutor);
+        activos.sort(Comparator.comparingInt(Cliente::getId));
+        return activos;
+    }
+
+    /**
+     * Indica si otro cliente ya usa un email, preguntando a cada fragmento
+     * con su propio filtro.
+     *
+     * @param email email a buscar
+     * @param idExcluido ID del cliente que no cuenta, o 0 para considerar a todos
+     * @return true si algún cliente distinto del excluido tiene el email
+     */
+    @Override
+    public boolean existeEmail(String email, int idExcluido) {
+        for (ClienteRepository fragmento : fragmentos) {
+            if (fragmento.existeEmail(email, idExcluido)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtiene los filtros de emails de todos los fragmentos.
+     *
+     * @return filtros de emails en el orden de los fragmentos
+     */
+    @Override
+    public List<FiltroBloomContador<Cliente>> obtenerFiltrosEmail() {
+        List<FiltroBloomContador<Cliente>> filtros = new ArrayList<>();
+        for (ClienteRepository fragmento : fragmentos) {
+            filtros.addAll(fragmento.obtenerFiltrosEmail());
+        }
+        return filtros;
+    }
+
+    /**
+     * Registra el oyente en todos los fragmentos.
+     *
+     * @param oyente oyente a registrar
+     */
+    @Override
+    public void agregarOyente(OyenteRepositorio<Cliente> oyente) {
+        for (ClienteRepository fragmento : fragmentos) {
+            fragmento.agregarOyente(oyente);
+        }
+    }
+
+    /**
+     * Quita el oyente de todos los fragmentos.
+     *
+     * @param oyente oyente a quitar
+     */
+    @Override
+    public void quitarOyente(OyenteRepositorio<Cliente> oyente) {
+        for (ClienteRepository fragmento : fragmentos) {
+            fragmento.quitarOyente(oyente);
+        }
+    }
+
+    /**
+     * Obtiene el fragmento dueño de un cliente.
+     *
+     * @param idCliente identificador del cliente
+     * @return el repositorio del fragmento
+     */
+    public ClienteRepository fragmentoDe(int idCliente) {
+        return fragmentos.get(anillo.fragmentoPara(idCliente));
+    }
+
+    /**
+     * Obtiene los fragmentos del repositorio.
+     *
+     * @return lista inmutable de fragmentos
+     */
+    public List<ClienteRepository> getFragmentos() {
+        return fragmentos;
+    }
+}
@@ -0,0 +1,61 @@
+package com.jefecame.dreams.repository;
+
+/**
+ * Excepción lanzada cuando se intenta guardar una entidad con una versión obsoleta.
+ *
+ * Indica que otro escritor modificó la entidad después de que fue leída;
+ * la operación puede reintentarse leyendo de nuevo la entidad.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ConflictoVersionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int id;
+    private final long versionEsperada;
+    private final long versionActual;
+
+    /**
+     * Constructor para crear la excepción de conflicto.
+     *
+     * @param id identificador de la entidad en conflicto
+     * @param versionEsperada versión con la que se intentó escribir
+     * @param versionActual versión almacenada en el repositorio
+     */
+    public ConflictoVersionException(int id, long versionEsperada, long versionActual) {
+        super("Conflicto de versión en la entidad " + id + ": se esperaba la versión "
+                + versionEsperada + " pero la actual es " + versionActual);
+        this.id = id;
+        this.versionEsperada = versionEsperada;
+        this.versionActual = versionActual;
+    }
+
+    /**
+     * Obtiene el identificador de la entidad en conflicto.
+     *
+     * @return el id de la entidad
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Obtiene la versión con la que se intentó escribir.
+     *
+     * @return la versión esperada
+     */
+    public long getVersionEsperada() {
+        return versionEsperada;
+    }
+
+    /**
+     * Obtiene la versión almacenada en el repositorio.
+     *
+     * @return la versión actual
+     */
+    public long getVersionActual() {
+        return versionActual;
+    }
+}
@@ -0,0 +1,117 @@
+package com.jefecame.dreams.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Consultas de dispersión y recolección sobre los fragmentos de un repositorio.
+ *
+ * Cada fragmento se consulta en paralelo con el ejecutor indicado y los
+ * resultados se unen en el hilo que llama.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+final class ConsultaDispersa {
+
+    private ConsultaDispersa() {
+    }
+
+    /**
+     * Ejecuta una consulta en todos los fragmentos y concatena los resultados en orden de fragmento.
+     *
+     * @param fragmentos fragmentos a consultar
+     * @param consulta consulta a ejecutar en cada fragmento
+     * @param ejecutor ejecutor para las consultas en paralelo
+     * @return lista con los resultados de todos los fragmentos
+     */
+    static <F, T> List<T> reunir(List<F> fragmentos, Function<F, ? extends Collection<T>> consulta,
+                                 Executor ejecutor) {
+        List<CompletableFuture<? extends Collection<T>>> pendientes = new ArrayList<>(fragmentos.size());
+        for (F fragmento : fragmentos) {
+            pendientes.add(CompletableFuture.supplyAsync(() -> consulta.apply(fragmento), ejecutor));
+        }
+
+        List<T> resultado = new ArrayList<>();
+        for (CompletableFuture<? extends Collection<T>> pendiente : pendientes) {
+            resultado.addAll(esperar(pendiente));
+        }
+        return resultado;
+    }
+
+    /**
+     * Suma un contador entero de todos los fragmentos.
+     *
+     * @param fragmentos fragmentos a consultar
+     * @param contador contador a leer en cada fragmento
+     * @return la suma de los contadores
+     */
+    static <F> int sumar(List<F> fragmentos, ToIntFunction<F> contador) {
+        int total = 0;
+        for (F fragmento : fragmentos) {
+            total += contador.applyAsInt(fragmento);
+        }
+        return total;
+    }
+
+    /**
+     * Une las páginas de todos los fragmentos en una sola página ordenada por ID.
+     * Los primeros {@code tamano} elementos globales están siempre entre los
+     * primeros {@code tamano} de algún fragmento.
+     *
+     * @param fragmentos fragmentos a consultar
+     * @param consulta consulta de página a ejecutar en cada fragmento
+     * @param id función que obtiene el ID de un elemento
+     * @param tamano número máximo de elementos de la página
+     * @param ejecutor ejecutor para las consultas en paralelo
+     * @return la página unida
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    static <F, T> Pagina<T> paginar(List<F> fragmentos, Function<F, Pagina<T>> consulta, ToIntFunction<T> id,
+                                    int tamano, Executor ejecutor) {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a 0");
+        }
+
+        List<CompletableFuture<Pagina<T>>> pendientes = new ArrayList<>(fragmentos.size());
+        for (F fragmento : fragmentos) {
+            pendientes.add(CompletableFuture.supplyAsync(() -> consulta.apply(fragmento), ejecutor));
+        }
+
+        List<T> candidatos = new ArrayList<>();
+        boolean hayMas = false;
+        for (CompletableFuture<Pagina<T>> pendiente : pendientes) {
+            Pagina<T> pagina = esperar(pendiente);
+            candidatos.addAll(pagina.getElementos());
+            hayMas |= pagina.hayMas();
+        }
+        candidatos.sort(Comparator.comparingInt(id));
+
+        if (candidatos.size() > tamano) {
+            candidatos = new ArrayList<>(candidatos.subList(0, tamano));
+            hayMas = true;
+        }
+        String siguienteCursor = hayMas && !candidatos.isEmpty()
+                ? Pagina.codificarCursor(id.applyAsInt(candidatos.get(candidatos.size() - 1)))
+                : null;
+        return new Pagina<>(candidatos, siguienteCursor);
+    }
+
+    private static <T> T esperar(CompletableFuture<T> pendiente) {
+        try {
+            return pendiente.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.Producto;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+
+/**
+ * Vista de solo lectura sobre un detalle de venta guardado en el {@link ArchivoDetallesVenta}.
+ *
+ * No copia los datos: cada getter lee el registro directamente del bloque.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+final class DetalleVentaArchivado extends DetalleVenta {
+
+    private final ByteBuffer bloque;
+    private final int posicion;
+    private final IntFunction<Producto> productos;
+
+    /**
+     * Constructor para crear una vista sobre un registro.
+     *
+     * @param bloque bloque de memoria que contiene el registro
+     * @param posicion posición del registro dentro del bloque
+     * @param productos función que resuelve un producto por su ID
+     */
+    DetalleVentaArchivado(ByteBuffer bloque, int posicion, IntFunction<Producto> productos) {
+        super();
+        this.bloque = bloque;
+        this.posicion = posicion;
+        this.productos = productos;
+    }
+
+    @Override
+    public int getId() {
+        return bloque.getInt(posicion + ArchivoDetallesVenta.DESPLAZAMIENTO_ID);
+    }
+
+    @Override
+    public int getIdVenta() {
+        return bloque.getInt(posicion + ArchivoDetallesVenta.DESPLAZAMIENTO_ID_VENTA);
+    }
+
+    @Override
+    public int getIdProducto() {
+        return bloque.getInt(posicion + ArchivoDetallesVenta.DESPLAZAMIENTO_ID_PRODUCTO);
+    }
+
+    @Override
+    public int getCantidad() {
+        return bloque.getInt(posicion + ArchivoDetallesVenta.DESPLAZAMIENTO_CANTIDAD);
+    }
+
+    @Override
+    public BigDecimal getPrecioUnitario() {
+        return BigDecimal.valueOf(bloque.getLong(posicion + ArchivoDetallesVenta.DESPLAZAMIENTO_PRECIO), 2);
+    }
+
+    @Override
+    public BigDecimal getDescuento() {
+        return BigDecimal.valueOf(bloque.getLong(posicion + ArchivoDetallesVenta.DESPLAZAMIENTO_DESCUENTO), 2);
+    }
+
+    @Override
+    public BigDecimal getSubtotal() {
+        return calcularSubtotal();
+    }
+
+    @Override
+    public BigDecimal calcularSubtotal() {
+        return BigDecimal.valueOf(getSubtotalCentavos(), 2);
+    }
+
+    @Override
+    public long getSubtotalCentavos() {
+        long precio = bloque.getLong(posicion + ArchivoDetallesVenta.DESPLAZAMIENTO_PRECIO);
+        long descuento = bloque.getLong(posicion + ArchivoDetallesVenta.DESPLAZAMIENTO_DESCUENTO);
+        return precio * getCantidad() - descuento;
+    }
+
+    @Override
+    public long getImpuestoCentavos() {
+        return bloque.getLong(posicion + ArchivoDetallesVenta.DESPLAZAMIENTO_IMPUESTO);
+    }
+
+    @Override
+    public int getTasaImpuesto() {
+        return bloque.getInt(posicion + ArchivoDetallesVenta.DESPLAZAMIENTO_TASA_IMPUESTO);
+    }
+
+    @Override
+    public Producto getProducto() {
+        return productos.apply(getIdProducto());
+    }
+}
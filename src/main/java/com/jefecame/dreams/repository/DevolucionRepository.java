@@ -0,0 +1,213 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.model.DetalleDevolucion;
+import com.jefecame.dreams.model.Devolucion;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Repositorio para gestionar las devoluciones sobre ventas completadas.
+ * 
+ * Además de las devoluciones por ID, mantiene un índice de la venta original a
+ * sus devoluciones y acumulados que se ajustan al registrar cada una (importe
+ * reembolsado total, por cliente y unidades devueltas por producto). Las
+ * consultas de ingreso neto leen esos acumulados sin recorrer el historial.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class DevolucionRepository {
+    
+    private final ConcurrentSkipListMap<Integer, Devolucion> devoluciones;
+    private final ConcurrentHashMap<Integer, List<Devolucion>> porVenta;
+    private final LongAdder subtotalReembolsadoCentavos;
+    private final LongAdder impuestoReembolsadoCentavos;
+    private final ConcurrentHashMap<Integer, LongAdder> unidadesPorProducto;
+    private final ConcurrentHashMap<Integer, LongAdder> reembolsadoPorCliente;
+    
+    /**
+     * Constructor que inicializa el repositorio vacío.
+     */
+    public DevolucionRepository() {
+        this.devoluciones = new ConcurrentSkipListMap<>();
+        this.porVenta = new ConcurrentHashMap<>();
+        this.subtotalReembolsadoCentavos = new LongAdder();
+        this.impuestoReembolsadoCentavos = new LongAdder();
+        this.unidadesPorProducto = new ConcurrentHashMap<>();
+        this.reembolsadoPorCliente = new ConcurrentHashMap<>();
+    }
+    
+    /**
+     * Registra una devolución sobre una venta de forma atómica respecto a las
+     * demás devoluciones de la misma venta.
+     * 
+     * La función recibe las devoluciones previas de la venta y crea la nueva a
+     * partir de ellas; mientras se ejecuta, ninguna otra devolución de esa venta
+     * puede registrarse, de modo que la validación de unidades disponibles no
+     * compite con otra devolución concurrente.
+     * 
+     * @param idVenta identificador de la venta original
+     * @param crear función que crea la devolución a partir de las previas
+     * @return la devolución registrada
+     * @throws IllegalArgumentException si la función la rechaza o pertenece a otra venta
+     */
+    public Devolucion registrar(int idVenta, Function<List<Devolucion>, Devolucion> crear) {
+        Devolucion[] registrada = new Devolucion[1];
+        porVenta.compute(idVenta, (clave, previas) -> {
+            List<Devolucion> actuales = previas != null ? previas : List.of();
+            Devolucion devolucion = crear.apply(actuales);
+            if (devolucion.getIdVenta() != idVenta) {
+                throw new IllegalArgumentException("La devolución no pertenece a la venta " + idVenta);
+            }
+            
+            List<Devolucion> nuevas = new ArrayList<>(actuales.size() + 1);
+            nuevas.addAll(actuales);
+            nuevas.add(devolucion);
+            devoluciones.put(devolucion.getId(), devolucion);
+            acumular(devolucion);
+            registrada[0] = devolucion;
+            return Collections.unmodifiableList(nuevas);
+        });
+        return registrada[0];
+    }
+    
+    /**
+     * Guarda una devolución existente, por ejemplo al cargar una instantánea.
+     * Queda en el índice de su venta en orden de ID y suma a los acumulados
+     * como una devolución registrada; guardar otra vez la misma no tiene efecto.
+     * 
+     * @param devolucion devolución a guardar
+     * @return true si se guardó, false si ya existía una devolución con ese ID
+     */
+    public boolean guardarReplica(Devolucion devolucion) {
+        if (devolucion == null) {
+            return false;
+        }
+        boolean[] guardada = new boolean[1];
+        porVenta.compute(devolucion.getIdVenta(), (clave, previas) -> {
+            List<Devolucion> actuales = previas != null ? previas : List.of();
+            if (devoluciones.putIfAbsent(devolucion.getId(), devolucion) != null) {
+                return previas;
+            }
+            List<Devolucion> nuevas = new ArrayList<>(actuales.size() + 1);
+            nuevas.addAll(actuales);
+            int posicion = nuevas.size();
+            while (posicion > 0 && nuevas.get(posicion - 1).getId() > devolucion.getId()) {
+                posicion--;
+            }
+            nuevas.add(posicion, devolucion);
+            acumular(devolucion);
+            guardada[0] = true;
+            return Collections.unmodifiableList(nuevas);
+        });
+        return guardada[0];
+    }
+    
+    /**
+     * Busca una devolución por su ID.
+     * 
+     * @param id identificador de la devolución
+     * @return la devolución encontrada o null si no existe
+     */
+    public Devolucion buscarPorId(int id) {
+        return devoluciones.get(id);
+    }
+    
+    /**
+     * Obtiene las devoluciones de una venta en el orden en que se registraron.
+     * 
+     * @param idVenta identificador de la venta original
+     * @return lista inmutable de devoluciones, vacía si la venta no tiene
+     */
+    public List<Devolucion> obtenerPorVenta(int idVenta) {
+        return porVenta.getOrDefault(idVenta, List.of());
+    }
+    
+    /**
+     * Obtiene todas las devoluciones ordenadas por ID.
+     * 
+     * @return lista de devoluciones
+     */
+    public List<Devolucion> obtenerTodas() {
+        return new ArrayList<>(devoluciones.values());
+    }
+    
+    /**
+     * Cuenta el total de devoluciones registradas.
+     * 
+     * @return número de devoluciones
+     */
+    public int contarDevoluciones() {
+        return devoluciones.size();
+    }
+    
+    /**
+     * Obtiene el importe reembolsado antes de impuestos de todas las devoluciones.
+     * 
+     * @return importe en centavos
+     */
+    public long totalReembolsadoCentavos() {
+        return subtotalReembolsadoCentavos.sum();
+    }
+    
+    /**
+     * Obtiene el impuesto reembolsado de todas las devoluciones.
+     * 
+     * @return impuesto en centavos
+     */
+    public long totalImpuestoReembolsadoCentavos() {
+        return impuestoReembolsadoCentavos.sum();
+    }
+    
+    /**
+     * Obtiene el importe reembolsado, impuestos incluidos, de una venta.
+     * 
+     * @param idVenta identificador de la venta original
+     * @return importe en centavos
+     */
+    public long reembolsadoPorVentaCentavos(int idVenta) {
+        long total = 0;
+        for (Devolucion devolucion : obtenerPorVenta(idVenta)) {
+            total += devolucion.getReembolsoCentavos();
+        }
+        return total;
+    }
+    
+    /**
+     * Obtiene el importe reembolsado antes de impuestos a un cliente.
+     * 
+     * @param idCliente identificador del cliente
+     * @return importe en centavos
+     */
+    public long reembolsadoPorClienteCentavos(int idCliente) {
+        LongAdder total = reembolsadoPorCliente.get(idCliente);
+        return total != null ? total.sum() : 0;
+    }
+    
+    /**
+     * Obtiene las unidades devueltas de un producto.
+     * 
+     * @param idProducto identificador del producto
+     * @return unidades devueltas
+     */
+    public long unidadesDevueltas(int idProducto) {
+        LongAdder total = unidadesPorProducto.get(idProducto);
+        return total != null ? total.sum() : 0;
+    }
+    
+    private void acumular(Devolucion devolucion) {
+        subtotalReembolsadoCentavos.add(devolucion.getSubtotalCentavos());
+        impuestoReembolsadoCentavos.add(devolucion.getImpuestoCentavos());
+        reembolsadoPorCliente.computeIfAbsent(devolucion.getIdCliente(), id -> new LongAdder())
+                .add(devolucion.getSubtotalCentavos());
+        for (DetalleDevolucion detalle : devolucion.getDetalles()) {
+            unidadesPorProducto.computeIfAbsent(detalle.getIdProducto(), id -> new LongAdder())
+                    .add(detalle.getCantidad());
+        }
+    }
+}
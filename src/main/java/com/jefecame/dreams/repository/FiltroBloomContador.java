@@ -0,0 +1,398 @@
+package com.jefecame.dreams.repository;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Filtro de Bloom con contadores sobre una clave de las entidades de un repositorio.
+ *
+ * Lo crea y lo mantiene el repositorio dueño de las entidades, que responde
+ * sin recorrerlas si una clave (un nombre o un email) seguro no existe. Cada
+ * posición es un contador de 4 bits, de modo que las eliminaciones y los
+ * cambios de clave restan lo que sumó el alta; un contador que llega a 15
+ * queda fijo para no producir falsos negativos.
+ *
+ * El filtro no guarda las claves. El repositorio envuelve cada cambio de su
+ * almacenamiento en {@link #aplicar}, que toma la huella de la entidad antes
+ * y después del cambio y ajusta los contadores; como el repositorio llama
+ * con la entidad bloqueada, la huella anterior es siempre la que se sumó.
+ * Al superar la capacidad, {@link #crecerSiHaceFalta} reconstruye el filtro
+ * con el doble de contadores a partir de las entidades del repositorio, sin
+ * cambios en curso.
+ *
+ * Las consultas no toman bloqueos. Quien consulta debe confirmar cada
+ * respuesta positiva contra el repositorio e informar el resultado con
+ * {@link #registrarConfirmacion(boolean)}, con lo que el filtro lleva la tasa
+ * de falsos positivos observada junto a la estimada.
+ *
+ * @param <T> tipo de las entidades del repositorio
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class FiltroBloomContador<T> {
+
+    /** Capacidad inicial mínima en número de claves */
+    public static final int CAPACIDAD_MINIMA = 1024;
+    /** Tasa de falsos positivos objetivo por defecto */
+    public static final double TASA_OBJETIVO_POR_DEFECTO = 0.01;
+
+    private static final int BITS_CONTADOR = 4;
+    private static final int CONTADORES_POR_PALABRA = Long.SIZE / BITS_CONTADOR;
+    private static final long CONTADOR_MAXIMO = (1L << BITS_CONTADOR) - 1;
+
+    private final ToLongFunction<T> huella;
+    private final double tasaObjetivo;
+    private final AtomicInteger claves;
+    private final ReentrantReadWriteLock cerrojo;
+    private volatile Tabla tabla;
+
+    private final LongAdder consultas;
+    private final LongAdder negativas;
+    private final LongAdder confirmadas;
+    private final LongAdder falsosPositivos;
+    private final LongAdder reconstrucciones;
+
+    /**
+     * Constructor para crear un filtro con la tasa objetivo por defecto.
+     *
+     * @param huella función que obtiene la huella de 64 bits de la clave de una entidad
+     * @param capacidad número de claves esperado
+     * @throws IllegalArgumentException si algún parámetro es inválido
+     */
+    public FiltroBloomContador(ToLongFunction<T> huella, int capacidad) {
+        this(huella, capacidad, TASA_OBJETIVO_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor para crear un filtro.
+     *
+     * @param huella función que obtiene la huella de 64 bits de la clave de una entidad
+     * @param capacidad número de claves esperado
+     * @param tasaObjetivo tasa de falsos positivos buscada con la capacidad llena
+     * @throws IllegalArgumentException si algún parámetro es inválido
+     */
+    public FiltroBloomContador(ToLongFunction<T> huella, int capacidad, double tasaObjetivo) {
+        if (huella == null) {
+            throw new IllegalArgumentException("La función de huella no puede ser nula");
+        }
+        if (capacidad < 0) {
+            throw new IllegalArgumentException("La capacidad no puede ser negativa");
+        }
+        if (!(tasaObjetivo > 0 && tasaObjetivo < 1)) {
+            throw new IllegalArgumentException("La tasa objetivo debe estar entre 0 y 1");
+        }
+        this.huella = huella;
+        this.tasaObjetivo = tasaObjetivo;
+        this.claves = new AtomicInteger();
+        this.cerrojo = new ReentrantReadWriteLock();
+        this.tabla = new Tabla(Math.max(capacidad, CAPACIDAD_MINIMA), tasaObjetivo);
+        this.consultas = new LongAdder();
+        this.negativas = new LongAdder();
+        this.confirmadas = new LongAdder();
+        this.falsosPositivos = new LongAdder();
+        this.reconstrucciones = new LongAdder();
+    }
+
+    /**
+     * Calcula la huella de 64 bits de un texto sin distinguir mayúsculas, con
+     * el mismo criterio que {@link String#equalsIgnoreCase(String)} y sin los
+     * espacios de los extremos.
+     *
+     * @param texto texto de la clave
+     * @return huella del texto
+     */
+    public static long huella(String texto) {
+        int inicio = 0;
+        int fin = texto.length();
+        while (inicio < fin && texto.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        while (fin > inicio && texto.charAt(fin - 1) <= ' ') {
+            fin--;
+        }
+        long h = 0xcbf29ce484222325L;
+        for (int i = inicio; i < fin; i++) {
+            h ^= Character.toLowerCase(Character.toUpperCase(texto.charAt(i)));
+            h *= 0x100000001b3L;
+        }
+        return mezclar(h);
+    }
+
+    /**
+     * Ejecuta un cambio del almacenamiento del repositorio y ajusta el filtro
+     * a la clave que la entidad tenía antes y a la que tiene después. El
+     * repositorio llama con la entidad bloqueada; la reconstrucción del
+     * filtro espera a que terminen los cambios en curso.
+     *
+     * @param anterior entidad almacenada antes del cambio, o null si es un alta
+     * @param nueva entidad almacenada después del cambio, o null si es una baja;
+     *              puede ser la misma instancia que {@code anterior}
+     * @param cambio cambio a ejecutar sobre el almacenamiento o la entidad
+     */
+    public void aplicar(T anterior, T nueva, Runnable cambio) {
+        cerrojo.readLock().lock();
+        try {
+            long huellaAnterior = anterior != null ? huella.applyAsLong(anterior) : 0;
+            try {
+                cambio.run();
+            } finally {
+                // Si el cambio falló a medias, el filtro sigue a lo que quedó almacenado
+                Tabla actual = tabla;
+                boolean habia = anterior != null;
+                boolean hay = nueva != null;
+                long huellaNueva = hay ? huella.applyAsLong(nueva) : 0;
+                if (habia && (!hay || huellaNueva != huellaAnterior)) {
+                    actual.restar(huellaAnterior);
+                }
+                if (hay && (!habia || huellaNueva != huellaAnterior)) {
+                    actual.sumar(huellaNueva);
+                }
+                claves.addAndGet((hay ? 1 : 0) - (habia ? 1 : 0));
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reconstruye el filtro con el doble de capacidad si el número de claves
+     * la superó. Se llama fuera del bloqueo de la entidad.
+     *
+     * @param entidades proveedor de todas las entidades del repositorio
+     */
+    public void crecerSiHaceFalta(Supplier<? extends Collection<T>> entidades) {
+        if (claves.get() <= tabla.capacidad) {
+            return;
+        }
+        cerrojo.writeLock().lock();
+        try {
+            int capacidad = tabla.capacidad;
+            while (claves.get() > capacidad) {
+                capacidad *= 2;
+            }
+            if (capacidad == tabla.capacidad) {
+                return;
+            }
+            Tabla nueva = new Tabla(capacidad, tasaObjetivo);
+            int contadas = 0;
+            for (T entidad : entidades.get()) {
+                nueva.sumar(huella.applyAsLong(entidad));
+                contadas++;
+            }
+            claves.set(contadas);
+            tabla = nueva;
+            reconstrucciones.increment();
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si una clave puede existir. Una respuesta negativa es segura; una
+     * positiva debe confirmarse contra el repositorio.
+     *
+     * @param huellaClave huella de la clave, calculada con {@link #huella(String)}
+     * @return false si la clave seguro no existe
+     */
+    public boolean puedeContener(long huellaClave) {
+        consultas.increment();
+        boolean positivo = tabla.contiene(huellaClave);
+        if (!positivo) {
+            negativas.increment();
+        }
+        return positivo;
+    }
+
+    /**
+     * Registra el resultado de confirmar una respuesta positiva contra el repositorio.
+     *
+     * @param existe true si la clave existía, false si fue un falso positivo
+     */
+    public void registrarConfirmacion(boolean existe) {
+        if (existe) {
+            confirmadas.increment();
+        } else {
+            falsosPositivos.increment();
+        }
+    }
+
+    /**
+     * Obtiene la tasa de falsos positivos estimada con el número de claves actual,
+     * (1 - e^(-kn/m))^k.
+     *
+     * @return probabilidad estimada de que una clave ausente dé positivo
+     */
+    public double getTasaFalsosPositivosEstimada() {
+        Tabla actual = tabla;
+        double exponente = -(double) actual.funciones * claves.get() / actual.contadores;
+        return Math.pow(1 - Math.exp(exponente), actual.funciones);
+    }
+
+    /**
+     * Obtiene la tasa de falsos positivos observada entre las claves ausentes consultadas.
+     *
+     * @return falsos positivos entre falsos positivos más negativas, 0 si no hubo consultas ausentes
+     */
+    public double getTasaFalsosPositivosObservada() {
+        long falsos = falsosPositivos.sum();
+        long ausentes = falsos + negativas.sum();
+        return ausentes == 0 ? 0 : (double) falsos / ausentes;
+    }
+
+    /**
+     * Obtiene el número de consultas al filtro.
+     *
+     * @return consultas realizadas
+     */
+    public long getConsultas() {
+        return consultas.sum();
+    }
+
+    /**
+     * Obtiene el número de consultas que el filtro respondió sin tocar el repositorio.
+     *
+     * @return respuestas negativas
+     */
+    public long getNegativas() {
+        return negativas.sum();
+    }
+
+    /**
+     * Obtiene el número de respuestas positivas que el repositorio confirmó.
+     *
+     * @return claves existentes informadas
+     */
+    public long getConfirmadas() {
+        return confirmadas.sum();
+    }
+
+    /**
+     * Obtiene el número de respuestas positivas que el repositorio desmintió.
+     *
+     * @return falsos positivos informados
+     */
+    public long getFalsosPositivos() {
+        return falsosPositivos.sum();
+    }
+
+    /**
+     * Obtiene el número de claves del filtro.
+     *
+     * @return claves registradas
+     */
+    public int contarClaves() {
+        return claves.get();
+    }
+
+    /**
+     * Obtiene el número de claves a partir del cual el filtro se reconstruye.
+     *
+     * @return capacidad de la tabla actual
+     */
+    public int getCapacidad() {
+        return tabla.capacidad;
+    }
+
+    /**
+     * Obtiene el número de veces que el filtro creció.
+     *
+     * @return reconstrucciones realizadas
+     */
+    public long getReconstrucciones() {
+        return reconstrucciones.sum();
+    }
+
+    /**
+     * Finalizador de MurmurHash3: reparte los bits de la entrada en toda la huella.
+     */
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Contadores de 4 bits empaquetados en palabras de 64 bits, con las
+     * posiciones de cada clave obtenidas por doble hash de su huella.
+     */
+    private static final class Tabla {
+
+        private final int capacidad;
+        private final int contadores;
+        private final int funciones;
+        private final AtomicLongArray palabras;
+
+        Tabla(int capacidad, double tasaObjetivo) {
+            // m = -n ln p / (ln 2)^2 y k = m/n ln 2
+            double optimo = -capacidad * Math.log(tasaObjetivo) / (Math.log(2) * Math.log(2));
+            long redondeado = ((long) Math.ceil(optimo) + CONTADORES_POR_PALABRA - 1)
+                    / CONTADORES_POR_PALABRA * CONTADORES_POR_PALABRA;
+            this.capacidad = capacidad;
+            this.contadores = (int) Math.min(redondeado, Integer.MAX_VALUE - CONTADORES_POR_PALABRA + 1);
+            this.funciones = Math.max(1, (int) Math.round((double) contadores / capacidad * Math.log(2)));
+            this.palabras = new AtomicLongArray(contadores / CONTADORES_POR_PALABRA);
+        }
+
+        boolean contiene(long huella) {
+            int h1 = (int) huella;
+            int h2 = (int) (huella >>> 32) | 1;
+            for (int i = 0; i < funciones; i++) {
+                int posicion = Math.floorMod(h1 + i * h2, contadores);
+                if (leer(posicion) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void sumar(long huella) {
+            int h1 = (int) huella;
+            int h2 = (int) (huella >>> 32) | 1;
+            for (int i = 0; i < funciones; i++) {
+                modificar(Math.floorMod(h1 + i * h2, contadores), 1);
+            }
+        }
+
+        void restar(long huella) {
+            int h1 = (int) huella;
+            int h2 = (int) (huella >>> 32) | 1;
+            for (int i = 0; i < funciones; i++) {
+                modificar(Math.floorMod(h1 + i * h2, contadores), -1);
+            }
+        }
+
+        private long leer(int posicion) {
+            long palabra = palabras.get(posicion / CONTADORES_POR_PALABRA);
+            return (palabra >>> desplazamiento(posicion)) & CONTADOR_MAXIMO;
+        }
+
+        private void modificar(int posicion, int delta) {
+            int indice = posicion / CONTADORES_POR_PALABRA;
+            int desplazamiento = desplazamiento(posicion);
+            while (true) {
+                long palabra = palabras.get(indice);
+                long contador = (palabra >>> desplazamiento) & CONTADOR_MAXIMO;
+                // Un contador saturado ya no sabe cuántas claves cuenta
+                if (contador == CONTADOR_MAXIMO || (delta < 0 && contador == 0)) {
+                    return;
+                }
+                long nueva = palabra + ((long) delta << desplazamiento);
+                if (palabras.compareAndSet(indice, palabra, nueva)) {
+                    return;
+                }
+            }
+        }
+
+        private static int desplazamiento(int posicion) {
+            return (posicion % CONTADORES_POR_PALABRA) * BITS_CONTADOR;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Venta;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Índice de las ventas en proceso ordenado por su última modificación.
+ *
+ * Se registra como oyente del repositorio de ventas: cada cambio confirmado de
+ * una venta PROCESANDO la mueve al final del índice y al cerrarse o eliminarse
+ * sale de él. Así, las ventas abandonadas quedan al principio y se encuentran
+ * sin recorrer el repositorio. Las ventas de una partición que se elimina o
+ * se descarga también salen del índice. Cada marca guarda la versión que
+ * tenía la venta, para que quien la cancele por inactividad pueda exigir esa
+ * versión.
+ * Las marcas de tiempo viven solo en memoria; las ventas que llegan de una
+ * instantánea cuentan como modificadas al cargarse.
+ *
+ * Un aviso con una versión igual o menor a la de la marca vigente se
+ * descarta. El índice no recuerda las ventas eliminadas, así que una marca
+ * que reaparece por un aviso tardío la retira el barredor al ver que la venta
+ * ya no existe o ya no está en proceso.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class IndiceActividadVentas implements OyenteRepositorio<Venta>, OyenteParticiones {
+
+    private final Clock reloj;
+    private final ConcurrentSkipListSet<Actividad> porInstante;
+    private final ConcurrentHashMap<Integer, Actividad> porVenta;
+
+    /**
+     * Constructor que toma las marcas de tiempo del reloj del sistema.
+     */
+    public IndiceActividadVentas() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * Constructor que toma las marcas de tiempo del reloj indicado.
+     *
+     * @param reloj reloj de las marcas de tiempo
+     * @throws IllegalArgumentException si el reloj es nulo
+     */
+    public IndiceActividadVentas(Clock reloj) {
+        if (reloj == null) {
+            throw new IllegalArgumentException("El reloj no puede ser nulo");
+        }
+        this.reloj = reloj;
+        this.porInstante = new ConcurrentSkipListSet<>();
+        this.porVenta = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void alGuardar(Venta venta) {
+        long version = venta.getVersion();
+        porVenta.compute(venta.getId(), (id, anterior) -> {
+            if (anterior != null && anterior.version >= version) {
+                return anterior;
+            }
+            if (anterior != null) {
+                porInstante.remove(anterior);
+            }
+            if (venta.getEstado() != EstadoVenta.PROCESANDO) {
+                return null;
+            }
+            Actividad nueva = new Actividad(reloj.millis(), id, version);
+            porInstante.add(nueva);
+            return nueva;
+        });
+    }
+
+    @Override
+    public void alEliminar(Venta venta) {
+        descartar(venta.getId());
+    }
+
+    @Override
+    public void alRetirarParticion(LocalDate dia, Collection<Venta> ventas) {
+        for (Venta venta : ventas) {
+            descartar(venta.getId());
+        }
+    }
+
+    /**
+     * Obtiene las ventas en proceso modificadas por última vez antes de un instante,
+     * empezando por la más antigua.
+     *
+     * @param limiteMillis instante límite en milisegundos desde la época
+     * @param maximo número máximo de ventas a devolver
+     * @return IDs de las ventas inactivas, de la más antigua a la más reciente
+     */
+    public List<Integer> inactivasAntesDe(long limiteMillis, int maximo) {
+        List<Integer> ids = new ArrayList<>(Math.min(maximo, 256));
+        for (Actividad actividad : porInstante) {
+            if (actividad.instante >= limiteMillis || ids.size() >= maximo) {
+                break;
+            }
+            ids.add(actividad.idVenta);
+        }
+        return ids;
+    }
+
+    /**
+     * Obtiene la versión de una venta que sigue en proceso y sin modificarse desde
+     * antes de un instante. Un cambio confirmado después de esta lectura deja la
+     * venta en otra versión, así que cancelarla con
+     * {@link VentaRepository#actualizar} y esta versión falla con
+     * {@link ConflictoVersionException} en lugar de cancelar una venta que volvió a usarse.
+     *
+     * @param id identificador de la venta
+     * @param limiteMillis instante límite en milisegundos desde la época
+     * @return la versión de su última modificación, o -1 si la venta ya no está inactiva
+     */
+    public long versionSiInactiva(int id, long limiteMillis) {
+        Actividad actividad = porVenta.get(id);
+        return actividad != null && actividad.instante < limiteMillis ? actividad.version : -1;
+    }
+
+    /**
+     * Quita una venta del índice sin que haya cambiado en el repositorio.
+     *
+     * @param id identificador de la venta
+     */
+    public void descartar(int id) {
+        Actividad anterior = porVenta.remove(id);
+        if (anterior != null) {
+            porInstante.remove(anterior);
+        }
+    }
+
+    /**
+     * Obtiene el número de ventas en proceso del índice.
+     *
+     * @return número de ventas indexadas
+     */
+    public int contarVentas() {
+        return porVenta.size();
+    }
+
+    /**
+     * Obtiene el reloj de las marcas de tiempo.
+     *
+     * @return reloj del índice
+     */
+    public Clock getReloj() {
+        return reloj;
+    }
+
+    /**
+     * Última modificación de una venta y la versión que dejó; se ordena por
+     * instante y luego por ID.
+     */
+    private static final class Actividad implements Comparable<Actividad> {
+
+        private final long instante;
+        private final int idVenta;
+        private final long version;
+
+        Actividad(long instante, int idVenta, long version) {
+            this.instante = instante;
+            this.idVenta = idVenta;
+            this.version = version;
+        }
+
+        @Override
+        public int compareTo(Actividad otra) {
+            int comparacion = Long.compare(instante, otra.instante);
+            return comparacion != 0 ? comparacion : Integer.compare(idVenta, otra.idVenta);
+        }
+
+        @Override
+        public boolean equals(Object otro) {
+            return otro instanceof Actividad actividad
+                    && instante == actividad.instante && idVenta == actividad.idVenta;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(instante) * 31 + idVenta;
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.codec.CodecBinario;
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.Venta;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32C;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Libro de ventas histórico en archivos diarios de solo agregado.
+ *
+ * Cada día tiene un archivo de datos {@code libro-<fecha>.dat} con sus ventas
+ * en orden de ID y un índice disperso {@code libro-<fecha>.idx}. Cada registro
+ * de datos lleva el ID de la venta, su longitud, un CRC-32C y la venta
+ * codificada con el {@link CodecBinario}. El índice tiene una entrada (ID,
+ * posición) cada {@value #BLOQUE} bytes de datos, así que ocupa poco y se
+ * mantiene completo en memoria.
+ *
+ * Buscar una venta descarta los días cuyo rango de IDs no la cubre, ubica el
+ * bloque con una búsqueda binaria en el índice y lo lee con una lectura
+ * posicional del FileChannel, sin mantener archivos abiertos entre consultas.
+ * Agregar a un día ya escrito requiere IDs mayores que el último del día.
+ *
+ * Al abrir el directorio se revisa la cola de cada día: un registro cortado o
+ * con CRC inválido por una escritura interrumpida se recorta junto con las
+ * entradas del índice que apuntan más allá de los datos válidos.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class LibroVentas {
+
+    private static final Logger logger = LoggerFactory.getLogger(LibroVentas.class);
+
+    /** Bytes de datos entre dos entradas del índice */
+    public static final int BLOQUE = 4096;
+
+    private static final int MAGIA_DATOS = 0x564C4944;
+    private static final int MAGIA_INDICE = 0x564C4958;
+    private static final int CABECERA_DATOS = Integer.BYTES + Long.BYTES;
+    private static final int CABECERA_INDICE = Integer.BYTES;
+    private static final int CABECERA_REGISTRO = 3 * Integer.BYTES;
+    private static final int ENTRADA_INDICE = Integer.BYTES + Long.BYTES;
+    private static final String PREFIJO = "libro-";
+    private static final String EXTENSION_DATOS = ".dat";
+    private static final String EXTENSION_INDICE = ".idx";
+
+    private final Path directorio;
+    private final ConcurrentSkipListMap<LocalDate, DiaLibro> dias;
+
+    /**
+     * Constructor que abre el libro de un directorio y carga los índices de sus días.
+     *
+     * @param directorio directorio del libro; se crea si no existe
+     * @throws IOException si falla la lectura de algún día
+     * @throws IllegalArgumentException si algún archivo no es un día del libro
+     */
+    public LibroVentas(Path directorio) throws IOException {
+        this.directorio = directorio;
+        this.dias = new ConcurrentSkipListMap<>();
+        Files.createDirectories(directorio);
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio,
+                PREFIJO + "*" + EXTENSION_DATOS)) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                LocalDate dia;
+                try {
+                    dia = LocalDate.parse(nombre.substring(PREFIJO.length(),
+                            nombre.length() - EXTENSION_DATOS.length()));
+                } catch (DateTimeParseException e) {
+                    logger.debug("Se ignora {} en el libro de ventas", nombre);
+                    continue;
+                }
+                dias.put(dia, abrirDia(dia));
+            }
+        }
+        logger.info("Libro de ventas en {} con {} días", directorio, dias.size());
+    }
+
+    /**
+     * Agrega ventas al archivo de un día, creándolo si no existe.
+     * Los datos y el índice se sincronizan con el disco antes de publicarse.
+     *
+     * @param dia día de creación de las ventas
+     * @param ventas ventas ordenadas por ID, todas con ID mayor al último del día
+     * @return número de ventas escritas
+     * @throws IllegalArgumentException si los IDs no son crecientes
+     * @throws IOException si falla la escritura
+     */
+    public synchronized int escribirDia(LocalDate dia, Collection<Venta> ventas) throws IOException {
+        if (ventas.isEmpty()) {
+            return 0;
+        }
+        DiaLibro existente = dias.get(dia);
+        Indice anterior = existente != null ? existente.indice : null;
+        int ultimoId = anterior != null ? anterior.idMaximo : Integer.MIN_VALUE;
+        for (Venta venta : ventas) {
+            if (venta.getId() <= ultimoId) {
+                throw new IllegalArgumentException("El libro del día " + dia
+                        + " solo admite ventas con ID creciente; la venta " + venta.getId()
+                        + " no es mayor que " + ultimoId);
+            }
+            ultimoId = venta.getId();
+        }
+
+        DiaLibro libro = existente;
+        if (libro == null) {
+            libro = crearDia(dia);
+            dias.put(dia, libro);
+        }
+        Indice indice = libro.indice;
+        long inicio = indice.finDatos;
+        List<long[]> entradas = new ArrayList<>();
+        ByteBuffer datos = codificar(ventas, inicio, indice.ultimaEntrada(), entradas);
+        ByteBuffer nuevasEntradas = ByteBuffer.allocate(entradas.size() * ENTRADA_INDICE);
+        for (long[] entrada : entradas) {
+            nuevasEntradas.putInt((int) entrada[0]).putLong(entrada[1]);
+        }
+        nuevasEntradas.flip();
+
+        try (FileChannel canal = FileChannel.open(libro.datos, StandardOpenOption.WRITE)) {
+            escribirCompleto(canal, datos, inicio);
+            canal.force(false);
+        }
+        try (FileChannel canal = FileChannel.open(libro.rutaIndice, StandardOpenOption.WRITE)) {
+            escribirCompleto(canal, nuevasEntradas, CABECERA_INDICE + (long) indice.cuenta * ENTRADA_INDICE);
+            canal.force(false);
+        }
+
+        libro.indice = indice.agregar(entradas, inicio + datos.limit(), ultimoId);
+        return ventas.size();
+    }
+
+    /**
+     * Busca una venta por su ID en los días del libro.
+     *
+     * @param id identificador de la venta
+     * @param clientes función que resuelve un cliente por su ID
+     * @param productos función que resuelve un producto por su ID
+     * @return la venta leída del libro, o null si no está
+     * @throws IOException si falla la lectura o el registro está dañado
+     */
+    public Venta buscar(int id, IntFunction<Cliente> clientes, IntFunction<Producto> productos) throws IOException {
+        for (DiaLibro libro : dias.descendingMap().values()) {
+            Indice indice = libro.indice;
+            if (indice.cuenta == 0 || id < indice.ids[0] || id > indice.idMaximo) {
+                continue;
+            }
+            Venta venta = buscarEnDia(libro, indice, id, clientes, productos);
+            if (venta != null) {
+                return venta;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Indica si el libro tiene un archivo para el día.
+     *
+     * @param dia día a consultar
+     * @return true si el día está en el libro
+     */
+    public boolean contieneDia(LocalDate dia) {
+        return dias.containsKey(dia);
+    }
+
+    /**
+     * Obtiene los días que tiene el libro.
+     *
+     * @return días en orden ascendente
+     */
+    public List<LocalDate> obtenerDias() {
+        return new ArrayList<>(dias.keySet());
+    }
+
+    /**
+     * Obtiene el directorio del libro.
+     *
+     * @return el directorio
+     */
+    public Path getDirectorio() {
+        return directorio;
+    }
+
+    /**
+     * Obtiene el número total de entradas de los índices en memoria.
+     *
+     * @return entradas de índice de todos los días
+     */
+    public int contarEntradasIndice() {
+        int total = 0;
+        for (DiaLibro libro : dias.values()) {
+            total += libro.indice.cuenta;
+        }
+        return total;
+    }
+
+    private Venta buscarEnDia(DiaLibro libro, Indice indice, int id, IntFunction<Cliente> clientes,
+                              IntFunction<Producto> productos) throws IOException {
+        int posicion = Arrays.binarySearch(indice.ids, 0, indice.cuenta, id);
+        if (posicion < 0) {
+            posicion = -posicion - 2;
+        }
+        long desde = indice.posiciones[posicion];
+        long hasta = posicion + 1 < indice.cuenta ? indice.posiciones[posicion + 1] : indice.finDatos;
+
+        ByteBuffer bloque = ByteBuffer.allocate((int) (hasta - desde));
+        try (FileChannel canal = FileChannel.open(libro.datos, StandardOpenOption.READ)) {
+            while (bloque.hasRemaining()) {
+                if (canal.read(bloque, desde + bloque.position()) < 0) {
+                    throw new IOException("El libro del día " + libro.dia + " terminó antes de lo indicado por su índice");
+                }
+            }
+        }
+        bloque.flip();
+
+        while (bloque.remaining() >= CABECERA_REGISTRO) {
+            int idRegistro = bloque.getInt();
+            int longitud = bloque.getInt();
+            int crc = bloque.getInt();
+            if (longitud < 0 || longitud > bloque.remaining()) {
+                throw new IOException("Registro cortado en el libro del día " + libro.dia);
+            }
+            if (idRegistro > id) {
+                return null;
+            }
+            if (idRegistro < id) {
+                bloque.position(bloque.position() + longitud);
+                continue;
+            }
+            ByteBuffer contenido = bloque.slice(bloque.position(), longitud);
+            if (calcularCrc(contenido) != crc) {
+                throw new IOException("CRC inválido en la venta " + id + " del libro del día " + libro.dia);
+            }
+            return new CodecBinario().decodificarVenta(contenido, clientes, productos);
+        }
+        return null;
+    }
+
+    /**
+     * Codifica los registros de un lote y anota las entradas de índice que les
+     * corresponden, a partir de la posición donde se agregarán.
+     */
+    private static ByteBuffer codificar(Collection<Venta> ventas, long inicio, long ultimaEntrada,
+                                        List<long[]> entradas) {
+        int capacidad = 1024 + ventas.size() * 128;
+        CodecBinario codec = new CodecBinario();
+        CRC32C crc = new CRC32C();
+        while (true) {
+            ByteBuffer datos = ByteBuffer.allocate(capacidad);
+            entradas.clear();
+            long entrada = ultimaEntrada;
+            try {
+                for (Venta venta : ventas) {
+                    long posicion = inicio + datos.position();
+                    if (entrada < 0 || posicion - entrada >= BLOQUE) {
+                        entradas.add(new long[] {venta.getId(), posicion});
+                        entrada = posicion;
+                    }
+                    int cabecera = datos.position();
+                    datos.position(cabecera + CABECERA_REGISTRO);
+                    codec.reiniciarDiccionario();
+                    codec.codificarVenta(venta, datos);
+                    int longitud = datos.position() - cabecera - CABECERA_REGISTRO;
+                    crc.reset();
+                    crc.update(datos.slice(cabecera + CABECERA_REGISTRO, longitud));
+                    datos.putInt(cabecera, venta.getId())
+                            .putInt(cabecera + Integer.BYTES, longitud)
+                            .putInt(cabecera + 2 * Integer.BYTES, (int) crc.getValue());
+                }
+                return datos.flip();
+            } catch (BufferOverflowException e) {
+                capacidad *= 2;
+            }
+        }
+    }
+
+    private DiaLibro crearDia(LocalDate dia) throws IOException {
+        Path datos = rutaDatos(dia);
+        Path indice = rutaIndice(dia);
+        ByteBuffer cabecera = ByteBuffer.allocate(CABECERA_DATOS).putInt(MAGIA_DATOS).putLong(dia.toEpochDay()).flip();
+        try (FileChannel canal = FileChannel.open(datos, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            escribirCompleto(canal, cabecera, 0);
+        }
+        try (FileChannel canal = FileChannel.open(indice, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            escribirCompleto(canal, ByteBuffer.allocate(CABECERA_INDICE).putInt(MAGIA_INDICE).flip(), 0);
+        }
+        return new DiaLibro(dia, datos, indice, Indice.vacio(CABECERA_DATOS));
+    }
+
+    /**
+     * Carga el índice de un día y revisa la cola de sus datos a partir de la
+     * última entrada, recortando lo que haya dejado una escritura interrumpida.
+     */
+    private DiaLibro abrirDia(LocalDate dia) throws IOException {
+        Path datos = rutaDatos(dia);
+        Path rutaIndice = rutaIndice(dia);
+        try (FileChannel canalDatos = FileChannel.open(datos, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer cabecera = leer(canalDatos, 0, CABECERA_DATOS);
+            if (cabecera.remaining() < CABECERA_DATOS || cabecera.getInt() != MAGIA_DATOS
+                    || cabecera.getLong() != dia.toEpochDay()) {
+                throw new IllegalArgumentException("El archivo no es un día del libro de ventas: " + datos);
+            }
+            long tamanoDatos = canalDatos.size();
+
+            int[] ids = new int[0];
+            long[] posiciones = new long[0];
+            int cuenta = 0;
+            if (Files.exists(rutaIndice)) {
+                try (FileChannel canalIndice = FileChannel.open(rutaIndice, StandardOpenOption.READ)) {
+                    ByteBuffer contenido = leer(canalIndice, 0, (int) canalIndice.size());
+                    if (contenido.remaining() >= CABECERA_INDICE && contenido.getInt() == MAGIA_INDICE) {
+                        int maximo = contenido.remaining() / ENTRADA_INDICE;
+                        ids = new int[maximo];
+                        posiciones = new long[maximo];
+                        while (contenido.remaining() >= ENTRADA_INDICE) {
+                            int id = contenido.getInt();
+                            long posicion = contenido.getLong();
+                            if (posicion >= tamanoDatos || (cuenta > 0 && id <= ids[cuenta - 1])) {
+                                break;
+                            }
+                            ids[cuenta] = id;
+                            posiciones[cuenta++] = posicion;
+                        }
+                    }
+                }
+            }
+
+            // Recorre la cola desde la última entrada del índice, o desde el inicio si no hay índice;
+            // si el registro de esa entrada está dañado, la entrada se descarta y se retrocede una
+            long posicion;
+            int idMaximo;
+            List<long[]> faltantes = new ArrayList<>();
+            ByteBuffer cola;
+            CRC32C crc = new CRC32C();
+            while (true) {
+                posicion = cuenta > 0 ? posiciones[cuenta - 1] : CABECERA_DATOS;
+                long ultimaEntrada = cuenta > 0 ? posiciones[cuenta - 1] : -1;
+                idMaximo = cuenta > 0 ? ids[cuenta - 1] - 1 : Integer.MIN_VALUE;
+                faltantes.clear();
+                cola = leer(canalDatos, posicion, (int) (tamanoDatos - posicion));
+                while (cola.remaining() >= CABECERA_REGISTRO) {
+                    int inicio = cola.position();
+                    int id = cola.getInt();
+                    int longitud = cola.getInt();
+                    int esperado = cola.getInt();
+                    if (longitud < 0 || longitud > cola.remaining() || id <= idMaximo) {
+                        cola.position(inicio);
+                        break;
+                    }
+                    crc.reset();
+                    crc.update(cola.slice(cola.position(), longitud));
+                    if ((int) crc.getValue() != esperado) {
+                        cola.position(inicio);
+                        break;
+                    }
+                    long actual = posicion + inicio;
+                    if (ultimaEntrada < 0 || actual - ultimaEntrada >= BLOQUE) {
+                        faltantes.add(new long[] {id, actual});
+                        ultimaEntrada = actual;
+                    }
+                    idMaximo = id;
+                    cola.position(cola.position() + longitud);
+                }
+                if (cuenta == 0 || cola.position() > 0) {
+                    break;
+                }
+                cuenta--;
+            }
+
+            long finDatos = posicion + cola.position();
+            if (finDatos < tamanoDatos) {
+                logger.warn("Se recortan {} bytes incompletos al final de {}", tamanoDatos - finDatos, datos);
+                canalDatos.truncate(finDatos);
+            }
+            Indice indice = new Indice(ids, posiciones, cuenta, finDatos, idMaximo).agregar(faltantes, finDatos, idMaximo);
+            reescribirIndice(rutaIndice, indice);
+            return new DiaLibro(dia, datos, rutaIndice, indice);
+        }
+    }
+
+    private static void reescribirIndice(Path ruta, Indice indice) throws IOException {
+        ByteBuffer contenido = ByteBuffer.allocate(CABECERA_INDICE + indice.cuenta * ENTRADA_INDICE);
+        contenido.putInt(MAGIA_INDICE);
+        for (int i = 0; i < indice.cuenta; i++) {
+            contenido.putInt(indice.ids[i]).putLong(indice.posiciones[i]);
+        }
+        contenido.flip();
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            escribirCompleto(canal, contenido, 0);
+            canal.truncate(contenido.limit());
+            canal.force(false);
+        }
+    }
+
+    private static ByteBuffer leer(FileChannel canal, long posicion, int bytes) throws IOException {
+        ByteBuffer contenido = ByteBuffer.allocate(Math.max(bytes, 0));
+        while (contenido.hasRemaining()) {
+            if (canal.read(contenido, posicion + contenido.position()) < 0) {
+                break;
+            }
+        }
+        return contenido.flip();
+    }
+
+    private static void escribirCompleto(FileChannel canal, ByteBuffer contenido, long posicion) throws IOException {
+        while (contenido.hasRemaining()) {
+            canal.write(contenido, posicion + contenido.position());
+        }
+    }
+
+    private static int calcularCrc(ByteBuffer contenido) {
+        CRC32C crc = new CRC32C();
+        crc.update(contenido.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private Path rutaDatos(LocalDate dia) {
+        return directorio.resolve(PREFIJO + dia + EXTENSION_DATOS);
+    }
+
+    private Path rutaIndice(LocalDate dia) {
+        return directorio.resolve(PREFIJO + dia + EXTENSION_INDICE);
+    }
+
+    /** Archivos de un día y su índice publicado */
+    private static final class DiaLibro {
+        private final LocalDate dia;
+        private final Path datos;
+        private final Path rutaIndice;
+        private volatile Indice indice;
+
+        private DiaLibro(LocalDate dia, Path datos, Path rutaIndice, Indice indice) {
+            this.dia = dia;
+            this.datos = datos;
+            this.rutaIndice = rutaIndice;
+            this.indice = indice;
+        }
+    }
+
+    /**
+     * Índice disperso inmutable de un día. Agregar entradas crea una instancia
+     * nueva; los arreglos se comparten mientras tengan espacio, ya que los
+     * lectores nunca pasan de su propia cuenta.
+     */
+    private static final class Indice {
+        private final int[] ids;
+        private final long[] posiciones;
+        private final int cuenta;
+        private final long finDatos;
+        private final int idMaximo;
+
+        private Indice(int[] ids, long[] posiciones, int cuenta, long finDatos, int idMaximo) {
+            this.ids = ids;
+            this.posiciones = posiciones;
+            this.cuenta = cuenta;
+            this.finDatos = finDatos;
+            this.idMaximo = idMaximo;
+        }
+
+        private static Indice vacio(long finDatos) {
+            return new Indice(new int[16], new long[16], 0, finDatos, Integer.MIN_VALUE);
+        }
+
+        private long ultimaEntrada() {
+            return cuenta > 0 ? posiciones[cuenta - 1] : -1;
+        }
+
+        private Indice agregar(List<long[]> entradas, long nuevoFin, int nuevoIdMaximo) {
+            int[] nuevosIds = ids;
+            long[] nuevasPosiciones = posiciones;
+            int total = cuenta + entradas.size();
+            if (total > ids.length) {
+                int capacidad = Math.max(total, ids.length * 2);
+                nuevosIds = Arrays.copyOf(ids, capacidad);
+                nuevasPosiciones = Arrays.copyOf(posiciones, capacidad);
+            }
+            for (int i = 0; i < entradas.size(); i++) {
+                nuevosIds[cuenta + i] = (int) entradas.get(i)[0];
+                nuevasPosiciones[cuenta + i] = entradas.get(i)[1];
+            }
+            return new Indice(nuevosIds, nuevasPosiciones, total, nuevoFin, nuevoIdMaximo);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.jefecame.dreams.repository;
+
+import java.util.List;
+
+/**
+ * Excepción lanzada cuando una operación de mantenimiento de particiones de
+ * un repositorio fragmentado falla en algunos fragmentos.
+ *
+ * La operación se intenta en todos los fragmentos aunque alguno falle, así
+ * que los fragmentos completados ya quedaron en su estado final. Cada paso
+ * por fragmento es idempotente, de modo que repetir la operación solo
+ * termina los fragmentos fallidos. La causa es el primer fallo; los demás
+ * quedan como suprimidos.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class MantenimientoIncompletoException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Integer> completados;
+    private final List<Integer> fallidos;
+
+    /**
+     * Constructor para crear la excepción de mantenimiento incompleto.
+     *
+     * @param operacion nombre de la operación
+     * @param completados índices de los fragmentos en los que se completó
+     * @param fallidos índices de los fragmentos en los que falló
+     * @param causa primer fallo
+     */
+    public MantenimientoIncompletoException(String operacion, List<Integer> completados, List<Integer> fallidos,
+                                            Exception causa) {
+        super("No se pudo " + operacion + " en los fragmentos " + fallidos + " (completados: " + completados
+                + "): " + causa.getMessage(), causa);
+        this.completados = List.copyOf(completados);
+        this.fallidos = List.copyOf(fallidos);
+    }
+
+    /**
+     * Obtiene los fragmentos en los que la operación se completó.
+     *
+     * @return índices de los fragmentos completados
+     */
+    public List<Integer> getCompletados() {
+        return completados;
+    }
+
+    /**
+     * Obtiene los fragmentos en los que la operación falló.
+     *
+     * @return índices de los fragmentos fallidos
+     */
+    public List<Integer> getFallidos() {
+        return fallidos;
+    }
+}
@@ -0,0 +1,29 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.model.Venta;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Oyente de las particiones de ventas que salen de memoria.
+ *
+ * Eliminar o descargar una partición sellada no avisa a los
+ * {@link OyenteRepositorio} venta por venta; en su lugar se emite un solo
+ * aviso con el día y las ventas retiradas, después de quitar la partición del
+ * repositorio. Las ventas de una partición sellada ya no cambian, pero un
+ * aviso de guardado que se emitió antes de sellarla puede llegar después de
+ * este; quien guarde estado por venta debe descartarlo.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public interface OyenteParticiones {
+
+    /**
+     * Se invoca después de retirar de memoria la partición sellada de un día.
+     *
+     * @param dia día de la partición
+     * @param ventas ventas que contenía la partición
+     */
+    void alRetirarParticion(LocalDate dia, Collection<Venta> ventas);
+}
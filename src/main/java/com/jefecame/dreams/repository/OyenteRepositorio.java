@@ -0,0 +1,38 @@
+package com.jefecame.dreams.repository;
+
+/**
+ * Oyente de los cambios confirmados en un repositorio.
+ *
+ * Garantía de orden: el repositorio avisa en el hilo que hizo el cambio,
+ * después de confirmarlo y de soltar el bloqueo de la entidad. Por eso el
+ * oyente puede volver a escribir en el repositorio, pero los avisos de una
+ * misma entidad pueden llegar desordenados cuando dos hilos la cambian a la
+ * vez. Cada aviso lleva la entidad con su versión; un oyente que guarde
+ * estado por entidad debe leer la versión antes que el resto de la entidad y
+ * descartar los avisos con una versión igual o menor a la que ya aplicó. Los
+ * IDs no se reutilizan, así que un alGuardar que llega después del
+ * alEliminar de la misma entidad también es obsoleto.
+ *
+ * Esta es la única garantía de orden de los oyentes; las implementaciones
+ * remiten aquí en lugar de repetirla.
+ *
+ * @param <T> tipo de las entidades del repositorio
+ * @author jefecame
+ * @version 1.0.0
+ */
+public interface OyenteRepositorio<T> {
+
+    /**
+     * Se invoca después de guardar o actualizar una entidad.
+     *
+     * @param entidad entidad con su nueva versión
+     */
+    void alGuardar(T entidad);
+
+    /**
+     * Se invoca después de eliminar una entidad.
+     *
+     * @param entidad entidad eliminada, con la última versión que tuvo
+     */
+    void alEliminar(T entidad);
+}
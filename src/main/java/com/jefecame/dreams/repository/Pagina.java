@@ -0,0 +1,134 @@
+package com.jefecame.dreams.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Página de resultados de un listado paginado por clave (keyset).
+ *
+ * El cursor es opaco para quien lo recibe: codifica el último identificador
+ * entregado, de modo que la siguiente página continúa justo después de él
+ * aunque se inserten elementos nuevos entre una consulta y otra.
+ *
+ * @param <T> tipo de los elementos de la página
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class Pagina<T> {
+
+    private static final String PREFIJO_CURSOR = "id:";
+
+    private final List<T> elementos;
+    private final String siguienteCursor;
+
+    /**
+     * Constructor para crear una página de resultados.
+     *
+     * @param elementos elementos de la página
+     * @param siguienteCursor cursor de la siguiente página, o null si no hay más
+     */
+    public Pagina(List<T> elementos, String siguienteCursor) {
+        this.elementos = Collections.unmodifiableList(elementos);
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    /**
+     * Obtiene los elementos de la página.
+     *
+     * @return lista inmutable de elementos
+     */
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    /**
+     * Obtiene el cursor para solicitar la siguiente página.
+     *
+     * @return el cursor de la siguiente página, o null si es la última
+     */
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    /**
+     * Indica si existen más elementos después de esta página.
+     *
+     * @return true si hay una siguiente página, false en caso contrario
+     */
+    public boolean hayMas() {
+        return siguienteCursor != null;
+    }
+
+    /**
+     * Construye una página a partir de un mapa ordenado por identificador.
+     *
+     * @param <T> tipo de los elementos
+     * @param mapa mapa ordenado por identificador
+     * @param cursor cursor recibido en la página anterior, o null para la primera
+     * @param tamano número máximo de elementos de la página
+     * @return la página solicitada
+     * @throws IllegalArgumentException si el tamaño o el cursor son inválidos
+     */
+    public static <T> Pagina<T> desdeMapa(NavigableMap<Integer, T> mapa, String cursor, int tamano) {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a 0");
+        }
+
+        NavigableMap<Integer, T> restantes = cursor == null
+                ? mapa
+                : mapa.tailMap(decodificarCursor(cursor), false);
+
+        List<T> elementos = new ArrayList<>(tamano);
+        int ultimoId = 0;
+        boolean hayMas = false;
+
+        Iterator<Map.Entry<Integer, T>> iterador = restantes.entrySet().iterator();
+        while (iterador.hasNext()) {
+            Map.Entry<Integer, T> entrada = iterador.next();
+            if (elementos.size() == tamano) {
+                hayMas = true;
+                break;
+            }
+            elementos.add(entrada.getValue());
+            ultimoId = entrada.getKey();
+        }
+
+        return new Pagina<>(elementos, hayMas ? codificarCursor(ultimoId) : null);
+    }
+
+    /**
+     * Codifica un identificador como cursor opaco.
+     *
+     * @param id último identificador entregado
+     * @return el cursor codificado
+     */
+    public static String codificarCursor(int id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIJO_CURSOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor opaco al identificador que representa.
+     *
+     * @param cursor cursor a decodificar
+     * @return el último identificador entregado
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public static int decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!valor.startsWith(PREFIJO_CURSOR)) {
+                throw new IllegalArgumentException("Cursor de paginación inválido");
+            }
+            return Integer.parseInt(valor.substring(PREFIJO_CURSOR.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido", e);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Venta;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Partición de ventas creadas en un mismo día.
+ *
+ * Mientras está abierta guarda las ventas en un mapa ordenado por ID con su
+ * propio control de versiones. Una vez sellada es de solo lectura y puede
+ * compactarse a un arreglo ordenado, que ocupa mucho menos que los nodos del mapa.
+ * El rango de IDs de la partición permite descartarla en las búsquedas por ID.
+ * Los detalles de sus ventas cerradas viven en un {@link ArchivoDetallesVenta}
+ * propio, que se libera junto con la partición.
+ *
+ * Las altas, cambios y bajas comparten el cerrojo de lectura, y sellar y
+ * compactar toman el de escritura. Así una escritura que ya comprobó que la
+ * partición está abierta termina antes de que se selle, y la compactación
+ * no vacía el mapa con escrituras a medias.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ParticionVentas {
+
+    private final LocalDate dia;
+    private final ConcurrentSkipListMap<Integer, Venta> ventas;
+    private final ConcurrentHashMap<Integer, Long> versiones;
+    private final AtomicInteger idMinimo;
+    private final AtomicInteger idMaximo;
+    private final ReentrantReadWriteLock cerrojo;
+    private final ArchivoDetallesVenta archivoDetalles;
+    private volatile boolean sellada;
+    private volatile int[] idsCompactados;
+    private volatile Venta[] ventasCompactadas;
+
+    /**
+     * Constructor que crea una partición abierta y vacía.
+     *
+     * @param dia día de creación de las ventas de la partición
+     */
+    ParticionVentas(LocalDate dia) {
+        this.dia = dia;
+        this.ventas = new ConcurrentSkipListMap<>();
+        this.versiones = new ConcurrentHashMap<>();
+        this.idMinimo = new AtomicInteger(Integer.MAX_VALUE);
+        this.idMaximo = new AtomicInteger(Integer.MIN_VALUE);
+        this.cerrojo = new ReentrantReadWriteLock();
+        this.archivoDetalles = new ArchivoDetallesVenta();
+        this.sellada = false;
+    }
+
+    /**
+     * Crea una partición sellada y compactada con ventas cargadas desde disco.
+     *
+     * @param dia día de creación de las ventas
+     * @param ventasCargadas ventas de la partición
+     * @return la partición de solo lectura
+     */
+    static ParticionVentas sellada(LocalDate dia, List<Venta> ventasCargadas) {
+        ParticionVentas particion = new ParticionVentas(dia);
+        for (Venta venta : ventasCargadas) {
+            particion.ventas.put(venta.getId(), venta);
+            particion.idMinimo.accumulateAndGet(venta.getId(), Math::min);
+            particion.idMaximo.accumulateAndGet(venta.getId(), Math::max);
+        }
+        particion.sellada = true;
+        particion.compactar();
+        return particion;
+    }
+
+    /**
+     * Guarda una venta solo si la versión almacenada coincide con la esperada.
+     *
+     * @param venta venta a guardar
+     * @param versionEsperada versión leída antes de modificar la venta
+     * @param oyente oyente a avisar con la venta guardada
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     * @throws IllegalStateException si la partición está sellada
+     */
+    void guardar(Venta venta, long versionEsperada, OyenteRepositorio<Venta> oyente) {
+        cerrojo.readLock().lock();
+        try {
+            validarAbierta();
+            versiones.compute(venta.getId(), (id, versionActual) -> {
+                // Un alta nueva no tiene versión previa contra la cual comparar
+                if (versionActual != null && versionActual != versionEsperada) {
+                    throw new ConflictoVersionException(id, versionEsperada, versionActual);
+                }
+                long nuevaVersion = versionActual == null ? versionEsperada + 1 : versionActual + 1;
+                venta.setVersion(nuevaVersion);
+                ventas.put(id, venta);
+                idMinimo.accumulateAndGet(id, Math::min);
+                idMaximo.accumulateAndGet(id, Math::max);
+                return nuevaVersion;
+            });
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        oyente.alGuardar(venta);
+    }
+
+    /**
+     * Guarda una venta recibida de un primario si su versión es más reciente que la almacenada.
+     *
+     * @param venta venta con la versión asignada por el primario
+     * @param oyente oyente a avisar si la venta se aplica
+     * @return true si se aplicó
+     * @throws IllegalStateException si la partición está sellada
+     */
+    boolean guardarReplica(Venta venta, OyenteRepositorio<Venta> oyente) {
+        boolean[] aplicado = new boolean[1];
+        cerrojo.readLock().lock();
+        try {
+            validarAbierta();
+            versiones.compute(venta.getId(), (id, versionActual) -> {
+                if (versionActual != null && versionActual >= venta.getVersion()) {
+                    return versionActual;
+                }
+                ventas.put(id, venta);
+                idMinimo.accumulateAndGet(id, Math::min);
+                idMaximo.accumulateAndGet(id, Math::max);
+                aplicado[0] = true;
+                return venta.getVersion();
+            });
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        if (aplicado[0]) {
+            oyente.alGuardar(venta);
+        }
+        return aplicado[0];
+    }
+
+    /**
+     * Aplica un cambio a la venta almacenada solo si su versión coincide con la esperada.
+     *
+     * @param id identificador de la venta
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @param oyente oyente a avisar con la venta actualizada
+     * @return la venta actualizada, o null si no existe
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     * @throws IllegalStateException si la partición está sellada
+     */
+    Venta actualizar(int id, long versionEsperada, Consumer<Venta> cambio, OyenteRepositorio<Venta> oyente) {
+        Object[] resultado = new Object[1];
+        cerrojo.readLock().lock();
+        try {
+            validarAbierta();
+            versiones.computeIfPresent(id, (clave, versionActual) -> {
+                if (versionActual != versionEsperada) {
+                    throw new ConflictoVersionException(clave, versionEsperada, versionActual);
+                }
+                Venta venta = ventas.get(clave);
+                cambio.accept(venta);
+                venta.setVersion(versionActual + 1);
+                resultado[0] = venta;
+                return versionActual + 1;
+            });
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        if (resultado[0] != null) {
+            oyente.alGuardar((Venta) resultado[0]);
+        }
+        return (Venta) resultado[0];
+    }
+
+    /**
+     * Elimina una venta de la partición.
+     *
+     * @param id identificador de la venta
+     * @param oyente oyente a avisar con la eliminación
+     * @return true si se eliminó, false si no existía
+     * @throws IllegalStateException si la partición está sellada
+     */
+    boolean eliminar(int id, OyenteRepositorio<Venta> oyente) {
+        Venta[] eliminada = new Venta[1];
+        cerrojo.readLock().lock();
+        try {
+            validarAbierta();
+            versiones.computeIfPresent(id, (clave, version) -> {
+                eliminada[0] = ventas.remove(clave);
+                return null;
+            });
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        if (eliminada[0] != null) {
+            oyente.alEliminar(eliminada[0]);
+        }
+        return eliminada[0] != null;
+    }
+
+    /**
+     * Busca una venta por su ID dentro de la partición.
+     *
+     * @param id identificador de la venta
+     * @return la venta encontrada o null si no existe
+     */
+    Venta buscar(int id) {
+        if (!puedeContener(id)) {
+            return null;
+        }
+        Venta[] compactadas = ventasCompactadas;
+        if (compactadas != null) {
+            int indice = Arrays.binarySearch(idsCompactados, id);
+            return indice >= 0 ? compactadas[indice] : null;
+        }
+        return ventas.get(id);
+    }
+
+    /**
+     * Indica si el ID cae dentro del rango de IDs guardados en la partición.
+     *
+     * @param id identificador a comprobar
+     * @return false si la partición seguro no contiene el ID
+     */
+    boolean puedeContener(int id) {
+        return id >= idMinimo.get() && id <= idMaximo.get();
+    }
+
+    /**
+     * Obtiene las ventas de la partición ordenadas por ID.
+     *
+     * @return vista de solo lectura de las ventas
+     */
+    Collection<Venta> valores() {
+        Venta[] compactadas = ventasCompactadas;
+        if (compactadas != null) {
+            return Collections.unmodifiableList(Arrays.asList(compactadas));
+        }
+        return Collections.unmodifiableCollection(ventas.values());
+    }
+
+    /**
+     * Obtiene hasta {@code limite} ventas con ID mayor al indicado, ordenadas por ID.
+     *
+     * @param despuesDe ID a partir del cual buscar (exclusivo)
+     * @param limite número máximo de ventas
+     * @return lista de ventas
+     */
+    List<Venta> primerasDespuesDe(int despuesDe, int limite) {
+        List<Venta> resultado = new ArrayList<>(Math.min(limite, 64));
+        if (despuesDe >= idMaximo.get()) {
+            return resultado;
+        }
+        Venta[] compactadas = ventasCompactadas;
+        if (compactadas != null) {
+            int indice = Arrays.binarySearch(idsCompactados, despuesDe);
+            indice = indice >= 0 ? indice + 1 : -indice - 1;
+            for (; indice < compactadas.length && resultado.size() < limite; indice++) {
+                resultado.add(compactadas[indice]);
+            }
+            return resultado;
+        }
+        for (Venta venta : ventas.tailMap(despuesDe, false).values()) {
+            if (resultado.size() >= limite) {
+                break;
+            }
+            resultado.add(venta);
+        }
+        return resultado;
+    }
+
+    /**
+     * Sella la partición: a partir de aquí no admite altas, cambios ni bajas.
+     *
+     * @throws IllegalStateException si quedan ventas en proceso
+     */
+    void sellar() {
+        cerrojo.writeLock().lock();
+        try {
+            if (sellada) {
+                return;
+            }
+            boolean hayEnProceso = ventas.values().stream()
+                    .anyMatch(venta -> venta.getEstado() == EstadoVenta.PROCESANDO);
+            if (hayEnProceso) {
+                throw new IllegalStateException("La partición " + dia + " tiene ventas en proceso");
+            }
+            sellada = true;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compacta una partición sellada a un arreglo ordenado por ID.
+     *
+     * @throws IllegalStateException si la partición no está sellada
+     */
+    void compactar() {
+        cerrojo.writeLock().lock();
+        try {
+            if (!sellada) {
+                throw new IllegalStateException("Solo se puede compactar una partición sellada: " + dia);
+            }
+            if (ventasCompactadas != null) {
+                return;
+            }
+            Venta[] compactadas = ventas.values().toArray(new Venta[0]);
+            int[] ids = new int[compactadas.length];
+            for (int i = 0; i < compactadas.length; i++) {
+                ids[i] = compactadas[i].getId();
+            }
+            idsCompactados = ids;
+            ventasCompactadas = compactadas;
+            ventas.clear();
+            versiones.clear();
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    private void validarAbierta() {
+        if (sellada) {
+            throw new IllegalStateException("La partición " + dia + " está sellada y es de solo lectura");
+        }
+    }
+
+    /**
+     * Obtiene el día de la partición.
+     *
+     * @return día de creación de las ventas
+     */
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    /**
+     * Obtiene el número de ventas de la partición.
+     *
+     * @return número de ventas
+     */
+    public int contarVentas() {
+        Venta[] compactadas = ventasCompactadas;
+        return compactadas != null ? compactadas.length : ventas.size();
+    }
+
+    /**
+     * Indica si la partición está sellada.
+     *
+     * @return true si es de solo lectura
+     */
+    public boolean isSellada() {
+        return sellada;
+    }
+
+    /**
+     * Obtiene el archivo fuera del heap de los detalles de las ventas cerradas del día.
+     *
+     * @return el archivo de detalles de la partición
+     */
+    ArchivoDetallesVenta getArchivoDetalles() {
+        return archivoDetalles;
+    }
+
+    /**
+     * Indica si la partición está compactada.
+     *
+     * @return true si sus ventas están en un arreglo ordenado
+     */
+    public boolean isCompactada() {
+        return ventasCompactadas != null;
+    }
+}
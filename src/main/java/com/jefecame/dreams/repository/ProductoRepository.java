@@ -1,59 +1,82 @@
 package com.jefecame.dreams.repository;
 
+import com.jefecame.dreams.inventario.OyenteExistencias;
 import com.jefecame.dreams.model.Producto;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Repositorio para gestionar los datos de los productos.
  * 
+ * Define las operaciones comunes sin fijar el almacenamiento: {@link ProductoRepositoryEnMemoria}
+ * guarda los productos en un mapa, y {@link ProductoRepositoryFragmentado} coordina varios
+ * fragmentos sin guardar nada por sí mismo.
+ * 
  * @author jefecame
  * @version 1.0.0
  */
-public class ProductoRepository {
-    
-    private List<Producto> productos;
+public abstract class ProductoRepository {
     
     /**
-     * Constructor que inicializa la lista de productos.
+     * Constructor para las implementaciones del repositorio.
      */
-    public ProductoRepository() {
-        this.productos = new ArrayList<>();
+    protected ProductoRepository() {
     }
     
     /**
-     * Guarda un producto en el repositorio.
+     * Da de alta un producto nuevo en el repositorio. Los cambios a un producto existente se
+     * hacen con {@link #actualizar} o {@link #guardar(Producto, long)} indicando la
+     * versión leída.
      * 
      * @param producto producto a guardar
+     * @throws ConflictoVersionException si ya existe un producto con el mismo ID
      */
     public void guardar(Producto producto) {
         if (producto != null) {
-            // Verificar si ya existe un producto con el mismo ID
-            Optional<Producto> productoExistente = productos.stream()
-                    .filter(p -> p.getId() == producto.getId())
-                    .findFirst();
-            
-            if (productoExistente.isPresent()) {
-                // Actualizar producto existente
-                int index = productos.indexOf(productoExistente.get());
-                productos.set(index, producto);
-            } else {
-                // Agregar nuevo producto
-                productos.add(producto);
-            }
+            // Un producto nuevo aún no tiene versión almacenada
+            guardar(producto, 0L);
         }
     }
     
+    /**
+     * Guarda un producto solo si la versión almacenada coincide con la esperada.
+     * Escritores de entidades distintas nunca se bloquean entre sí.
+     * 
+     * @param producto producto a guardar
+     * @param versionEsperada versión leída antes de modificar el producto
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    public abstract void guardar(Producto producto, long versionEsperada);
+    
+    /**
+     * Aplica un cambio al producto almacenado solo si su versión coincide con la esperada.
+     * El cambio y el incremento de versión se realizan de forma atómica.
+     * 
+     * @param id identificador del producto
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @return el producto actualizado, o null si no existe
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    public abstract Producto actualizar(int id, long versionEsperada, Consumer<Producto> cambio);
+    
+    /**
+     * Guarda un producto recibido de un repositorio primario conservando su versión.
+     * Solo reemplaza al almacenado si la versión recibida es más reciente,
+     * así que aplicar dos veces el mismo cambio no tiene efecto.
+     * 
+     * @param producto producto con la versión asignada por el primario
+     * @return true si se aplicó, false si ya se tenía una versión igual o más reciente
+     */
+    public abstract boolean guardarReplica(Producto producto);
+    
     /**
      * Elimina un producto del repositorio por su ID.
      * 
      * @param id identificador del producto a eliminar
      * @return true si se eliminó correctamente, false en caso contrario
      */
-    public boolean eliminar(int id) {
-        return productos.removeIf(producto -> producto.getId() == id);
-    }
+    public abstract boolean eliminar(int id);
     
     /**
      * Busca un producto por su ID.
@@ -61,52 +84,45 @@ public class ProductoRepository {
      * @param id identificador del producto a buscar
      * @return el producto encontrado o null si no existe
      */
-    public Producto buscarPorId(int id) {
-        return productos.stream()
-                .filter(producto -> producto.getId() == id)
-                .findFirst()
-                .orElse(null);
-    }
+    public abstract Producto buscarPorId(int id);
     
     /**
      * Obtiene todos los productos del repositorio.
      * 
      * @return lista de todos los productos
      */
-    public List<Producto> obtenerTodos() {
-        return new ArrayList<>(productos);
-    }
+    public abstract List<Producto> obtenerTodos();
+    
+    /**
+     * Obtiene una página de productos ordenada por ID.
+     * 
+     * @param cursor cursor de la página anterior, o null para la primera página
+     * @param tamano número máximo de productos por página
+     * @return la página de productos solicitada
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    public abstract Pagina<Producto> obtenerPagina(String cursor, int tamano);
     
     /**
      * Obtiene el número total de productos en el repositorio.
      * 
      * @return número total de productos
      */
-    public int contarProductos() {
-        return productos.size();
-    }
+    public abstract int contarProductos();
     
     /**
      * Obtiene todos los productos activos.
      * 
      * @return lista de productos activos
      */
-    public List<Producto> obtenerProductosActivos() {
-        return productos.stream()
-                .filter(Producto::isActivo)
-                .toList();
-    }
+    public abstract List<Producto> obtenerProductosActivos();
     
     /**
      * Obtiene todos los productos con stock disponible.
      * 
      * @return lista de productos con stock mayor a 0
      */
-    public List<Producto> obtenerProductosConStock() {
-        return productos.stream()
-                .filter(producto -> producto.getStock() > 0 && producto.isActivo())
-                .toList();
-    }
+    public abstract List<Producto> obtenerProductosConStock();
     
     /**
      * Busca productos por nombre (búsqueda parcial).
@@ -114,14 +130,54 @@ public class ProductoRepository {
      * @param nombre nombre o parte del nombre a buscar
      * @return lista de productos que coinciden con el nombre
      */
-    public List<Producto> buscarPorNombre(String nombre) {
-        if (nombre == null || nombre.trim().isEmpty()) {
-            return new ArrayList<>();
-        }
-        
-        return productos.stream()
-                .filter(producto -> producto.getNombre().toLowerCase()
-                        .contains(nombre.toLowerCase().trim()))
-                .toList();
-    }
+    public abstract List<Producto> buscarPorNombre(String nombre);
+    
+    /**
+     * Indica si otro producto ya usa un nombre, sin distinguir mayúsculas ni
+     * espacios en los extremos. Los nombres que el filtro de Bloom del
+     * repositorio descarta no recorren los productos.
+     * 
+     * @param nombre nombre a buscar
+     * @param idExcluido ID del producto que no cuenta, o 0 para considerar a todos
+     * @return true si algún producto distinto del excluido tiene el nombre
+     */
+    public abstract boolean existeNombre(String nombre, int idExcluido);
+    
+    /**
+     * Obtiene los filtros de Bloom de nombres del repositorio, con sus
+     * métricas de falsos positivos; uno por fragmento.
+     * 
+     * @return filtros de nombres
+     */
+    public abstract List<FiltroBloomContador<Producto>> obtenerFiltrosNombre();
+    
+    /**
+     * Registra un oyente de los cambios del repositorio.
+     * 
+     * @param oyente oyente a registrar
+     */
+    public abstract void agregarOyente(OyenteRepositorio<Producto> oyente);
+    
+    /**
+     * Quita un oyente registrado.
+     * 
+     * @param oyente oyente a quitar
+     */
+    public abstract void quitarOyente(OyenteRepositorio<Producto> oyente);
+    
+    /**
+     * Registra un oyente de los cambios de existencias de los productos guardados.
+     * Las existencias cambian sin pasar por el repositorio ni por la versión del
+     * producto, así que estos avisos no llegan a los {@link OyenteRepositorio}.
+     * 
+     * @param oyente oyente a registrar
+     */
+    public abstract void agregarOyenteExistencias(OyenteExistencias oyente);
+    
+    /**
+     * Quita un oyente de existencias registrado.
+     * 
+     * @param oyente oyente a quitar
+     */
+    public abstract void quitarOyenteExistencias(OyenteExistencias oyente);
 }
@@ -0,0 +1,104 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.model.Producto;
+import java.util.function.Consumer;
+
+/**
+ * Repositorio de productos con una caché de lectura delante de las búsquedas por ID.
+ *
+ * La caché se invalida en cada guardado o eliminación del producto.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ProductoRepositoryConCache extends ProductoRepositoryEnMemoria {
+
+    private final CacheLecturas<Producto> cache;
+
+    /**
+     * Constructor que inicializa el repositorio con una caché de la capacidad indicada.
+     *
+     * @param capacidadCache número máximo de productos en caché
+     */
+    public ProductoRepositoryConCache(int capacidadCache) {
+        super();
+        this.cache = new CacheLecturas<>(capacidadCache);
+    }
+
+    /**
+     * Guarda un producto e invalida su entrada en la caché.
+     *
+     * @param producto producto a guardar
+     * @param versionEsperada versión leída antes de modificar el producto
+     */
+    @Override
+    public void guardar(Producto producto, long versionEsperada) {
+        super.guardar(producto, versionEsperada);
+        if (producto != null) {
+            cache.invalidar(producto.getId());
+        }
+    }
+
+    /**
+     * Guarda un producto recibido de un primario e invalida su entrada en la caché.
+     *
+     * @param producto producto con la versión asignada por el primario
+     * @return true si se aplicó
+     */
+    @Override
+    public boolean guardarReplica(Producto producto) {
+        boolean aplicado = super.guardarReplica(producto);
+        if (aplicado) {
+            cache.invalidar(producto.getId());
+        }
+        return aplicado;
+    }
+
+    /**
+     * Aplica un cambio al producto almacenado e invalida su entrada en la caché.
+     *
+     * @param id identificador del producto
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @return el producto actualizado, o null si no existe
+     */
+    @Override
+    public Producto actualizar(int id, long versionEsperada, Consumer<Producto> cambio) {
+        Producto actualizado = super.actualizar(id, versionEsperada, cambio);
+        cache.invalidar(id);
+        return actualizado;
+    }
+
+    /**
+     * Elimina un producto e invalida su entrada en la caché.
+     *
+     * @param id identificador del producto a eliminar
+     * @return true si se eliminó correctamente, false en caso contrario
+     */
+    @Override
+    public boolean eliminar(int id) {
+        boolean eliminado = super.eliminar(id);
+        cache.invalidar(id);
+        return eliminado;
+    }
+
+    /**
+     * Busca un producto por su ID, consultando primero la caché.
+     *
+     * @param id identificador del producto a buscar
+     * @return el producto encontrado o null si no existe
+     */
+    @Override
+    public Producto buscarPorId(int id) {
+        return cache.obtener(id, super::buscarPorId);
+    }
+
+    /**
+     * Obtiene la caché de lectura para consultar sus estadísticas.
+     *
+     * @return la caché de productos
+     */
+    public CacheLecturas<Producto> getCache() {
+        return cache;
+    }
+}
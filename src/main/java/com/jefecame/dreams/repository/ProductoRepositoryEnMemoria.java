@@ -0,0 +1,385 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.eventos.EventoRepositorio;
+import com.jefecame.dreams.eventos.Grabacion;
+import com.jefecame.dreams.inventario.OyenteExistencias;
+import com.jefecame.dreams.model.Producto;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Repositorio de productos en memoria, ordenado por ID y con su propio control
+ * de versiones por producto.
+ * 
+ * Al guardar un producto le asigna a su inventario el aviso de cambios de
+ * existencias, que el repositorio reparte entre sus oyentes de existencias.
+ * 
+ * Mantiene un filtro de Bloom de los nombres con cada alta, cambio y baja,
+ * dentro del mismo bloqueo del producto; un cambio de nombre debe hacerse con
+ * {@link #actualizar} para que el filtro vea el nombre anterior.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ProductoRepositoryEnMemoria extends ProductoRepository {
+    
+    private ConcurrentSkipListMap<Integer, Producto> productos;
+    private ConcurrentHashMap<Integer, Long> versiones;
+    private CopyOnWriteArrayList<OyenteRepositorio<Producto>> oyentes;
+    private CopyOnWriteArrayList<OyenteExistencias> oyentesExistencias;
+    private FiltroBloomContador<Producto> filtroNombres;
+    
+    /**
+     * Constructor que inicializa el almacenamiento de productos ordenado por ID.
+     */
+    public ProductoRepositoryEnMemoria() {
+        this.productos = new ConcurrentSkipListMap<>();
+        this.versiones = new ConcurrentHashMap<>();
+        this.oyentes = new CopyOnWriteArrayList<>();
+        this.oyentesExistencias = new CopyOnWriteArrayList<>();
+        this.filtroNombres = new FiltroBloomContador<>(producto -> FiltroBloomContador.huella(producto.getNombre()),
+                FiltroBloomContador.CAPACIDAD_MINIMA);
+    }
+    
+    /**
+     * Guarda un producto solo si la versión almacenada coincide con la esperada.
+     * Escritores de entidades distintas nunca se bloquean entre sí.
+     * 
+     * @param producto producto a guardar
+     * @param versionEsperada versión leída antes de modificar el producto
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    @Override
+    public void guardar(Producto producto, long versionEsperada) {
+        if (producto == null) {
+            return;
+        }
+        
+        EventoRepositorio evento = Grabacion.activa() ? EventoRepositorio.iniciar() : null;
+        String estado = EventoRepositorio.ERROR;
+        try {
+            versiones.compute(producto.getId(), (id, versionActual) -> {
+                // Un alta nueva no tiene versión previa contra la cual comparar
+                if (versionActual != null && versionActual != versionEsperada) {
+                    throw new ConflictoVersionException(id, versionEsperada, versionActual);
+                }
+                long nuevaVersion = versionActual == null ? versionEsperada + 1 : versionActual + 1;
+                producto.setVersion(nuevaVersion);
+                // El aviso se asigna antes de publicar el producto para no perder ningún cambio
+                vigilarExistencias(producto, productos.get(id));
+                filtroNombres.aplicar(productos.get(id), producto, () -> productos.put(id, producto));
+                return nuevaVersion;
+            });
+            filtroNombres.crecerSiHaceFalta(productos::values);
+            notificarGuardado(producto);
+            estado = EventoRepositorio.GUARDADA;
+        } catch (ConflictoVersionException e) {
+            estado = EventoRepositorio.CONFLICTO;
+            throw e;
+        } finally {
+            if (evento != null) {
+                evento.terminar(EventoRepositorio.PRODUCTOS, EventoRepositorio.GUARDAR, producto.getId(), estado);
+            }
+        }
+    }
+    
+    /**
+     * Aplica un cambio al producto almacenado solo si su versión coincide con la esperada.
+     * El cambio y el incremento de versión se realizan de forma atómica.
+     * 
+     * @param id identificador del producto
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @return el producto actualizado, o null si no existe
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    @Override
+    public Producto actualizar(int id, long versionEsperada, Consumer<Producto> cambio) {
+        EventoRepositorio evento = Grabacion.activa() ? EventoRepositorio.iniciar() : null;
+        String estado = EventoRepositorio.ERROR;
+        Object[] resultado = new Object[1];
+        try {
+            versiones.computeIfPresent(id, (clave, versionActual) -> {
+                if (versionActual != versionEsperada) {
+                    throw new ConflictoVersionException(clave, versionEsperada, versionActual);
+                }
+                Producto producto = productos.get(clave);
+                filtroNombres.aplicar(producto, producto, () -> cambio.accept(producto));
+                producto.setVersion(versionActual + 1);
+                resultado[0] = producto;
+                return versionActual + 1;
+            });
+            if (resultado[0] != null) {
+                notificarGuardado((Producto) resultado[0]);
+            }
+            estado = resultado[0] != null ? EventoRepositorio.GUARDADA : EventoRepositorio.AUSENTE;
+        } catch (ConflictoVersionException e) {
+            estado = EventoRepositorio.CONFLICTO;
+            throw e;
+        } finally {
+            if (evento != null) {
+                evento.terminar(EventoRepositorio.PRODUCTOS, EventoRepositorio.ACTUALIZAR, id, estado);
+            }
+        }
+        return (Producto) resultado[0];
+    }
+    
+    /**
+     * Guarda un producto recibido de un repositorio primario conservando su versión.
+     * Solo reemplaza al almacenado si la versión recibida es más reciente,
+     * así que aplicar dos veces el mismo cambio no tiene efecto.
+     * 
+     * @param producto producto con la versión asignada por el primario
+     * @return true si se aplicó, false si ya se tenía una versión igual o más reciente
+     */
+    @Override
+    public boolean guardarReplica(Producto producto) {
+        if (producto == null) {
+            return false;
+        }
+        
+        boolean[] aplicado = new boolean[1];
+        versiones.compute(producto.getId(), (id, versionActual) -> {
+            if (versionActual != null && versionActual >= producto.getVersion()) {
+                return versionActual;
+            }
+            vigilarExistencias(producto, productos.get(id));
+            filtroNombres.aplicar(productos.get(id), producto, () -> productos.put(id, producto));
+            aplicado[0] = true;
+            return producto.getVersion();
+        });
+        if (aplicado[0]) {
+            filtroNombres.crecerSiHaceFalta(productos::values);
+            notificarGuardado(producto);
+        }
+        return aplicado[0];
+    }
+    
+    /**
+     * Elimina un producto del repositorio por su ID.
+     * 
+     * @param id identificador del producto a eliminar
+     * @return true si se eliminó correctamente, false en caso contrario
+     */
+    @Override
+    public boolean eliminar(int id) {
+        Producto[] eliminado = new Producto[1];
+        versiones.computeIfPresent(id, (clave, version) -> {
+            Producto producto = productos.get(clave);
+            filtroNombres.aplicar(producto, null, () -> productos.remove(clave));
+            if (producto != null) {
+                producto.getInventario().asignarOyente(clave, null);
+            }
+            eliminado[0] = producto;
+            return null;
+        });
+        if (eliminado[0] != null) {
+            notificarEliminado(eliminado[0]);
+        }
+        return eliminado[0] != null;
+    }
+    
+    /**
+     * Busca un producto por su ID.
+     * 
+     * @param id identificador del producto a buscar
+     * @return el producto encontrado o null si no existe
+     */
+    @Override
+    public Producto buscarPorId(int id) {
+        EventoRepositorio evento = Grabacion.activa() ? EventoRepositorio.iniciar() : null;
+        Producto producto = productos.get(id);
+        if (evento != null) {
+            evento.terminar(EventoRepositorio.PRODUCTOS, EventoRepositorio.BUSCAR, id,
+                    producto != null ? EventoRepositorio.ENCONTRADA : EventoRepositorio.AUSENTE);
+        }
+        return producto;
+    }
+    
+    /**
+     * Obtiene todos los productos del repositorio.
+     * 
+     * @return lista de todos los productos
+     */
+    @Override
+    public List<Producto> obtenerTodos() {
+        return new ArrayList<>(productos.values());
+    }
+    
+    /**
+     * Obtiene una página de productos ordenada por ID.
+     * 
+     * @param cursor cursor de la página anterior, o null para la primera página
+     * @param tamano número máximo de productos por página
+     * @return la página de productos solicitada
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    @Override
+    public Pagina<Producto> obtenerPagina(String cursor, int tamano) {
+        return Pagina.desdeMapa(productos, cursor, tamano);
+    }
+    
+    /**
+     * Obtiene el número total de productos en el repositorio.
+     * 
+     * @return número total de productos
+     */
+    @Override
+    public int contarProductos() {
+        return productos.size();
+    }
+    
+    /**
+     * Obtiene todos los productos activos.
+     * 
+     * @return lista de productos activos
+     */
+    @Override
+    public List<Producto> obtenerProductosActivos() {
+        return productos.values().stream()
+                .filter(Producto::isActivo)
+                .toList();
+    }
+    
+    /**
+     * Obtiene todos los productos con stock disponible.
+     * 
+     * @return lista de productos con stock mayor a 0
+     */
+    @Override
+    public List<Producto> obtenerProductosConStock() {
+        return productos.values().stream()
+                .filter(producto -> producto.getStock() > 0 && producto.isActivo())
+                .toList();
+    }
+    
+    /**
+     * Busca productos por nombre (búsqueda parcial).
+     * 
+     * @param nombre nombre o parte del nombre a buscar
+     * @return lista de productos que coinciden con el nombre
+     */
+    @Override
+    public List<Producto> buscarPorNombre(String nombre) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        return productos.values().stream()
+                .filter(producto -> producto.getNombre().toLowerCase()
+                        .contains(nombre.toLowerCase().trim()))
+                .toList();
+    }
+    
+    /**
+     * Indica si otro producto ya usa un nombre. Cada respuesta positiva del
+     * filtro se confirma contra los productos y se informa al filtro.
+     * 
+     * @param nombre nombre a buscar
+     * @param idExcluido ID del producto que no cuenta, o 0 para considerar a todos
+     * @return true si algún producto distinto del excluido tiene el nombre
+     */
+    @Override
+    public boolean existeNombre(String nombre, int idExcluido) {
+        if (nombre == null || !filtroNombres.puedeContener(FiltroBloomContador.huella(nombre))) {
+            return false;
+        }
+        String buscado = nombre.trim();
+        boolean registrado = false;
+        for (Producto producto : productos.values()) {
+            if (producto.getNombre().equalsIgnoreCase(buscado)) {
+                registrado = true;
+                if (producto.getId() != idExcluido) {
+                    filtroNombres.registrarConfirmacion(true);
+                    return true;
+                }
+            }
+        }
+        // El nombre del propio producto excluido también es un acierto del filtro
+        filtroNombres.registrarConfirmacion(registrado);
+        return false;
+    }
+    
+    /**
+     * Obtiene el filtro de Bloom de nombres del repositorio.
+     * 
+     * @return lista con el filtro de nombres
+     */
+    @Override
+    public List<FiltroBloomContador<Producto>> obtenerFiltrosNombre() {
+        return List.of(filtroNombres);
+    }
+    
+    /**
+     * Registra un oyente de los cambios del repositorio.
+     * 
+     * @param oyente oyente a registrar
+     */
+    @Override
+    public void agregarOyente(OyenteRepositorio<Producto> oyente) {
+        if (oyente != null) {
+            oyentes.add(oyente);
+        }
+    }
+    
+    /**
+     * Quita un oyente registrado.
+     * 
+     * @param oyente oyente a quitar
+     */
+    @Override
+    public void quitarOyente(OyenteRepositorio<Producto> oyente) {
+        oyentes.remove(oyente);
+    }
+    
+    /**
+     * Registra un oyente de los cambios de existencias de los productos guardados.
+     * 
+     * @param oyente oyente a registrar
+     */
+    @Override
+    public void agregarOyenteExistencias(OyenteExistencias oyente) {
+        if (oyente != null) {
+            oyentesExistencias.add(oyente);
+        }
+    }
+    
+    /**
+     * Quita un oyente de existencias registrado.
+     * 
+     * @param oyente oyente a quitar
+     */
+    @Override
+    public void quitarOyenteExistencias(OyenteExistencias oyente) {
+        oyentesExistencias.remove(oyente);
+    }
+    
+    private void vigilarExistencias(Producto producto, Producto anterior) {
+        if (anterior != null && anterior != producto) {
+            anterior.getInventario().asignarOyente(anterior.getId(), null);
+        }
+        producto.getInventario().asignarOyente(producto.getId(), this::notificarExistencias);
+    }
+    
+    private void notificarExistencias(int idProducto, int ubicacion, int existencias, int cambio) {
+        for (OyenteExistencias oyente : oyentesExistencias) {
+            oyente.alCambiarExistencias(idProducto, ubicacion, existencias, cambio);
+        }
+    }
+    
+    private void notificarGuardado(Producto producto) {
+        for (OyenteRepositorio<Producto> oyente : oyentes) {
+            oyente.alGuardar(producto);
+        }
+    }
+    
+    private void notificarEliminado(Producto producto) {
+        for (OyenteRepositorio<Producto> oyente : oyentes) {
+            oyente.alEliminar(producto);
+        }
+    }
+}
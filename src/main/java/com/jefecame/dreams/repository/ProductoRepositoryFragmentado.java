@@ -0,0 +1,281 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.inventario.OyenteExistencias;
+import com.jefecame.dreams.model.Producto;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Repositorio de productos repartido en fragmentos por hash consistente del ID del producto.
+ *
+ * Las operaciones sobre un producto van solo a su fragmento; las consultas
+ * sobre todos los productos se dispersan en paralelo y se unen aquí.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class ProductoRepositoryFragmentado extends ProductoRepository {
+
+    private final List<ProductoRepository> fragmentos;
+    private final AnilloConsistente anillo;
+    private final Executor ejecutor;
+
+    /**
+     * Constructor para repartir los productos entre los fragmentos indicados.
+     *
+     * @param fragmentos repositorios que actúan como fragmentos
+     * @param ejecutor ejecutor para las consultas en paralelo
+     * @throws IllegalArgumentException si no hay fragmentos o el ejecutor es nulo
+     */
+    public ProductoRepositoryFragmentado(List<? extends ProductoRepository> fragmentos, Executor ejecutor) {
+        super();
+        if (fragmentos == null || fragmentos.isEmpty()) {
+            throw new IllegalArgumentException("Debe haber al menos un fragmento");
+        }
+        if (ejecutor == null) {
+            throw new IllegalArgumentException("El ejecutor no puede ser nulo");
+        }
+        this.fragmentos = List.copyOf(fragmentos);
+        this.anillo = new AnilloConsistente(fragmentos.size());
+        this.ejecutor = ejecutor;
+    }
+
+    /**
+     * Guarda un producto en su fragmento.
+     *
+     * @param producto producto a guardar
+     * @param versionEsperada versión leída antes de modificar el producto
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    @Override
+    public void guardar(Producto producto, long versionEsperada) {
+        if (producto != null) {
+            fragmentoDe(producto.getId()).guardar(producto, versionEsperada);
+        }
+    }
+
+    /**
+     * Guarda un producto recibido de un primario en su fragmento.
+     *
+     * @param producto producto con la versión asignada por el primario
+     * @return true si se aplicó
+     */
+    @Override
+    public boolean guardarReplica(Producto producto) {
+        return producto != null && fragmentoDe(producto.getId()).guardarReplica(producto);
+    }
+
+    /**
+     * Aplica un cambio al producto en su fragmento.
+     *
+     * @param id identificador del producto
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @return el producto actualizado, o null si no existe
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    @Override
+    public Producto actualizar(int id, long versionEsperada, Consumer<Producto> cambio) {
+        return fragmentoDe(id).actualizar(id, versionEsperada, cambio);
+    }
+
+    /**
+     * Elimina un producto de su fragmento.
+     *
+     * @param id identificador del producto a eliminar
+     * @return true si se eliminó correctamente, false en caso contrario
+     */
+    @Override
+    public boolean eliminar(int id) {
+        return fragmentoDe(id).eliminar(id);
+    }
+
+    /**
+     * Busca un producto en su fragmento.
+     *
+     * @param id identificador del producto a buscar
+     * @return el producto encontrado o null si no existe
+     */
+    @Override
+    public Producto buscarPorId(int id) {
+        return fragmentoDe(id).buscarPorId(id);
+    }
+
+    /**
+     * Obtiene todos los productos de todos los fragmentos.
+     *
+     * @return lista de todos los productos ordenada por ID
+     */
+    @Override
+    public List<Producto> obtenerTodos() {
+        List<Producto> todos = ConsultaDispersa.reunir(fragmentos, ProductoRepository::obtenerTodos, ejecutor);
+        todos.sort(Comparator.comparingInt(Producto::getId));
+        return todos;
+    }
+
+    /**
+     * Obtiene una página de productos ordenada por ID uniendo las páginas de los fragmentos.
+     *
+     * @param cursor cursor de la página anterior, o null para la primera página
+     * @param tamano número máximo de productos por página
+     * @return la página de productos solicitada
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    @Override
+    public Pagina<Producto> obtenerPagina(String cursor, int tamano) {
+        return ConsultaDispersa.paginar(fragmentos, fragmento -> fragmento.obtenerPagina(cursor, tamano),
+                Producto::getId, tamano, ejecutor);
+    }
+
+    /**
+     * Obtiene el número total de productos de todos los fragmentos.
+     *
+     * @return número total de productos
+     */
+    @Override
+    public int contarProductos() {
+        return ConsultaDispersa.sumar(fragmentos, ProductoRepository::contarProductos);
+    }
+
+    /**
+     * Obtiene los productos activos de todos los fragmentos.
+     *
+     * @return lista de productos activos ordenada por ID
+     */
+    @Override
+    public List<Producto> obtenerProductosActivos() {
+        List<Producto> activos = ConsultaDispersa.reunir(fragmentos, ProductoRepository::obtenerProductosActivos, ejecutor);
+        activos.sort(Comparator.comparingInt(Producto::getId));
+        return activos;
+    }
+
+    /**
+     * Obtiene los productos con stock de todos los fragmentos.
+     *
+     * @return lista de productos con stock ordenada por ID
+     */
+    @Override
+    public List<Producto> obtenerProductosConStock() {
+        List<Producto> conStock = ConsultaDispersa.reunir(fragmentos, ProductoRepository::obtenerProductosConStock, ejecutor);
+        conStock.sort(Comparator.comparingInt(Producto::getId));
+        return conStock;
+    }
+
+    /**
+     * Busca productos por nombre en todos los fragmentos.
+     *
+     * @param nombre nombre o parte del nombre a buscar
+     * @return lista de productos que coinciden, ordenada por ID
+     */
+    @Override
+    public List<Producto> buscarPorNombre(String nombre) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Producto> encontrados = ConsultaDispersa.reunir(fragmentos, fragmento -> fragmento.buscarPorNombre(nombre), ejecutor);
+        encontrados.sort(Comparator.comparingInt(Producto::getId));
+        return encontrados;
+    }
+
+    /**
+     * Indica si otro producto ya usa un nombre, preguntando a cada fragmento
+     * con su propio filtro.
+     *
+     * @param nombre nombre a buscar
+     * @param idExcluido ID del producto que no cuenta, o 0 para considerar a todos
+     * @return true si algún producto distinto del excluido tiene el nombre
+     */
+    @Override
+    public boolean existeNombre(String nombre, int idExcluido) {
+        for (ProductoRepository fragmento : fragmentos) {
+            if (fragmento.existeNombre(nombre, idExcluido)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtiene los filtros de nombres de todos los fragmentos.
+     *
+     * @return filtros de nombres en el orden de los fragmentos
+     */
+    @Override
+    public List<FiltroBloomContador<Producto>> obtenerFiltrosNombre() {
+        List<FiltroBloomContador<Producto>> filtros = new ArrayList<>();
+        for (ProductoRepository fragmento : fragmentos) {
+            filtros.addAll(fragmento.obtenerFiltrosNombre());
+        }
+        return filtros;
+    }
+
+    /**
+     * Registra el oyente en todos los fragmentos.
+     *
+     * @param oyente oyente a registrar
+     */
+    @Override
+    public void agregarOyente(OyenteRepositorio<Producto> oyente) {
+        for (ProductoRepository fragmento : fragmentos) {
+            fragmento.agregarOyente(oyente);
+        }
+    }
+
+    /**
+     * Quita el oyente de todos los fragmentos.
+     *
+     * @param oyente oyente a quitar
+     */
+    @Override
+    public void quitarOyente(OyenteRepositorio<Producto> oyente) {
+        for (ProductoRepository fragmento : fragmentos) {
+            fragmento.quitarOyente(oyente);
+        }
+    }
+
+    /**
+     * Registra el oyente de existencias en todos los fragmentos.
+     *
+     * @param oyente oyente a registrar
+     */
+    @Override
+    public void agregarOyenteExistencias(OyenteExistencias oyente) {
+        for (ProductoRepository fragmento : fragmentos) {
+            fragmento.agregarOyenteExistencias(oyente);
+        }
+    }
+
+    /**
+     * Quita el oyente de existencias de todos los fragmentos.
+     *
+     * @param oyente oyente a quitar
+     */
+    @Override
+    public void quitarOyenteExistencias(OyenteExistencias oyente) {
+        for (ProductoRepository fragmento : fragmentos) {
+            fragmento.quitarOyenteExistencias(oyente);
+        }
+    }
+
+    /**
+     * Obtiene el fragmento dueño de un producto.
+     *
+     * @param idProducto identificador del producto
+     * @return el repositorio del fragmento
+     */
+    public ProductoRepository fragmentoDe(int idProducto) {
+        return fragmentos.get(anillo.fragmentoPara(idProducto));
+    }
+
+    /**
+     * Obtiene los fragmentos del repositorio.
+     *
+     * @return lista inmutable de fragmentos
+     */
+    public List<ProductoRepository> getFragmentos() {
+        return fragmentos;
+    }
+}
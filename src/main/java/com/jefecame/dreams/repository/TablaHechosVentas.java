@@ -0,0 +1,226 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.Venta;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tabla de hechos columnar con las líneas de las ventas finalizadas.
+ *
+ * Cada columna es un arreglo primitivo y cada fila corresponde a un
+ * detalle de venta, de modo que las consultas de reportes recorren
+ * memoria contigua en lugar de navegar los objetos Venta del repositorio.
+ * El importe vendido total se acumula al registrar cada venta.
+ *
+ * Las filas solo se agregan y nunca cambian. Un único escritor a la vez
+ * llena las filas nuevas y después publica el número de filas en un campo
+ * volátil; las consultas leen ese número y recorren las columnas sin tomar
+ * ningún candado. Al crecer, las columnas se copian a arreglos nuevos antes
+ * de escribir filas en ellos, así que cualquier juego de columnas que vea un
+ * lector contiene todas las filas publicadas.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class TablaHechosVentas {
+
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    private volatile Columnas columnas;
+    private volatile int filas;
+    private volatile long totalCentavos;
+
+    /**
+     * Constructor que inicializa las columnas con la capacidad por defecto.
+     */
+    public TablaHechosVentas() {
+        this.columnas = new Columnas(CAPACIDAD_INICIAL);
+        this.filas = 0;
+    }
+
+    /**
+     * Agrega una fila por cada detalle de la venta indicada. Los escritores
+     * se atienden de uno en uno; las consultas no esperan por ellos.
+     *
+     * @param venta venta finalizada a registrar
+     */
+    public synchronized void registrarVenta(Venta venta) {
+        if (venta == null) {
+            return;
+        }
+
+        List<DetalleVenta> detalles = venta.getLineas();
+        int fila = filas;
+        Columnas destino = asegurarCapacidad(fila + detalles.size());
+
+        long fecha = venta.getFechaCreacion().atZone(ZoneId.systemDefault()).toEpochSecond();
+        long total = totalCentavos;
+
+        for (DetalleVenta detalle : detalles) {
+            destino.idVenta[fila] = venta.getId();
+            destino.idCliente[fila] = venta.getIdCliente();
+            destino.idProducto[fila] = detalle.getIdProducto();
+            destino.cantidad[fila] = detalle.getCantidad();
+            destino.precioCentavos[fila] = aCentavos(detalle.getPrecioUnitario());
+            destino.descuentoCentavos[fila] = aCentavos(detalle.getDescuento());
+            destino.fechaEpoch[fila] = fecha;
+            total += destino.importe(fila);
+            fila++;
+        }
+
+        totalCentavos = total;
+        // Publicar al final: las filas ya escritas son visibles para quien lea este valor
+        filas = fila;
+    }
+
+    /**
+     * Obtiene el número de filas registradas.
+     *
+     * @return número de filas
+     */
+    public int contarFilas() {
+        return filas;
+    }
+
+    /**
+     * Calcula el importe vendido (con descuentos y antes de impuestos) de todas las filas.
+     *
+     * @return importe total en centavos
+     */
+    public long totalVendidoCentavos() {
+        return totalCentavos;
+    }
+
+    /**
+     * Calcula las unidades vendidas de un producto.
+     *
+     * @param producto identificador del producto
+     * @return unidades vendidas del producto
+     */
+    public long unidadesVendidas(int producto) {
+        int total = filas;
+        Columnas actuales = columnas;
+        long unidades = 0;
+        for (int i = 0; i < total; i++) {
+            if (actuales.idProducto[i] == producto) {
+                unidades += actuales.cantidad[i];
+            }
+        }
+        return unidades;
+    }
+
+    /**
+     * Calcula el importe comprado (antes de impuestos) por un cliente.
+     *
+     * @param cliente identificador del cliente
+     * @return importe en centavos
+     */
+    public long totalPorClienteCentavos(int cliente) {
+        int total = filas;
+        Columnas actuales = columnas;
+        long importe = 0;
+        for (int i = 0; i < total; i++) {
+            if (actuales.idCliente[i] == cliente) {
+                importe += actuales.importe(i);
+            }
+        }
+        return importe;
+    }
+
+    /**
+     * Calcula el importe vendido (antes de impuestos) en un rango de fechas.
+     *
+     * @param desdeEpoch inicio del rango en segundos epoch (inclusivo)
+     * @param hastaEpoch fin del rango en segundos epoch (inclusivo)
+     * @return importe en centavos
+     */
+    public long totalEnRangoCentavos(long desdeEpoch, long hastaEpoch) {
+        int total = filas;
+        Columnas actuales = columnas;
+        long importe = 0;
+        for (int i = 0; i < total; i++) {
+            long fecha = actuales.fechaEpoch[i];
+            if (fecha >= desdeEpoch && fecha <= hastaEpoch) {
+                importe += actuales.importe(i);
+            }
+        }
+        return importe;
+    }
+
+    /**
+     * Devuelve columnas con espacio para el número de filas indicado,
+     * publicando una copia más grande si las actuales no alcanzan.
+     *
+     * @param requerida número de filas que deben caber
+     * @return columnas en las que escribir
+     */
+    private Columnas asegurarCapacidad(int requerida) {
+        Columnas actuales = columnas;
+        if (requerida <= actuales.idVenta.length) {
+            return actuales;
+        }
+
+        Columnas nuevas = actuales.copiar(Math.max(requerida, actuales.idVenta.length * 2));
+        columnas = nuevas;
+        return nuevas;
+    }
+
+    /**
+     * Convierte un importe a centavos redondeando a dos decimales.
+     *
+     * @param importe importe a convertir
+     * @return importe en centavos
+     */
+    static long aCentavos(BigDecimal importe) {
+        if (importe == null) {
+            return 0;
+        }
+        return importe.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    /**
+     * Juego de columnas de la tabla. Se reemplaza completo al crecer para que
+     * los lectores nunca mezclen arreglos de capacidades distintas.
+     */
+    private static final class Columnas {
+
+        private final int[] idVenta;
+        private final int[] idCliente;
+        private final int[] idProducto;
+        private final int[] cantidad;
+        private final long[] precioCentavos;
+        private final long[] descuentoCentavos;
+        private final long[] fechaEpoch;
+
+        Columnas(int capacidad) {
+            this(new int[capacidad], new int[capacidad], new int[capacidad], new int[capacidad],
+                    new long[capacidad], new long[capacidad], new long[capacidad]);
+        }
+
+        private Columnas(int[] idVenta, int[] idCliente, int[] idProducto, int[] cantidad,
+                         long[] precioCentavos, long[] descuentoCentavos, long[] fechaEpoch) {
+            this.idVenta = idVenta;
+            this.idCliente = idCliente;
+            this.idProducto = idProducto;
+            this.cantidad = cantidad;
+            this.precioCentavos = precioCentavos;
+            this.descuentoCentavos = descuentoCentavos;
+            this.fechaEpoch = fechaEpoch;
+        }
+
+        Columnas copiar(int capacidad) {
+            return new Columnas(Arrays.copyOf(idVenta, capacidad), Arrays.copyOf(idCliente, capacidad),
+                    Arrays.copyOf(idProducto, capacidad), Arrays.copyOf(cantidad, capacidad),
+                    Arrays.copyOf(precioCentavos, capacidad), Arrays.copyOf(descuentoCentavos, capacidad),
+                    Arrays.copyOf(fechaEpoch, capacidad));
+        }
+
+        long importe(int fila) {
+            return cantidad[fila] * precioCentavos[fila] - descuentoCentavos[fila];
+        }
+    }
+}
@@ -1,93 +1,203 @@
 package com.jefecame.dreams.repository;
 
-import com.jefecame.dreams.model.Venta;
-import com.jefecame.dreams.model.EstadoVenta;
 import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.Venta;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.time.YearMonth;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 /**
  * Repositorio para gestionar los datos de las ventas.
  * 
+ * Define las operaciones comunes sin fijar el almacenamiento:
+ * {@link VentaRepositoryEnMemoria} guarda las ventas en particiones diarias y
+ * {@link VentaRepositoryFragmentado} coordina varios fragmentos sin guardar
+ * ventas por sí mismo. La tabla de hechos y el {@link LibroVentas} viven
+ * aquí porque sirven a los reportes de todo el repositorio, esté o no
+ * fragmentado; el archivo de detalles es de cada partición.
+ * 
  * @author jefecame
  * @version 1.0.0
  */
-public class VentaRepository {
+public abstract class VentaRepository {
     
-    private List<Venta> ventas;
+    private final TablaHechosVentas tablaHechos;
+    private volatile LibroVentas libro;
+    private volatile IntFunction<Cliente> clientesLibro;
+    private volatile IntFunction<Producto> productosLibro;
     
     /**
-     * Constructor que inicializa la lista de ventas.
+     * Constructor que inicializa la tabla de hechos.
      */
-    public VentaRepository() {
-        this.ventas = new ArrayList<>();
+    protected VentaRepository() {
+        this.tablaHechos = new TablaHechosVentas();
     }
     
     /**
-     * Guarda una venta en el repositorio.
+     * Da de alta una venta nueva en el repositorio. Los cambios a una venta existente se
+     * hacen con {@link #actualizar} o {@link #guardar(Venta, long)} indicando la
+     * versión leída.
      * 
      * @param venta venta a guardar
+     * @throws ConflictoVersionException si ya existe una venta con el mismo ID
      */
     public void guardar(Venta venta) {
         if (venta != null) {
-            // Verificar si ya existe una venta con el mismo ID
-            Optional<Venta> ventaExistente = ventas.stream()
-                    .filter(v -> v.getId() == venta.getId())
-                    .findFirst();
-            
-            if (ventaExistente.isPresent()) {
-                // Actualizar venta existente
-                int index = ventas.indexOf(ventaExistente.get());
-                ventas.set(index, venta);
-            } else {
-                // Agregar nueva venta
-                ventas.add(venta);
-            }
+            // Una venta nueva aún no tiene versión almacenada
+            guardar(venta, 0L);
         }
     }
     
+    /**
+     * Guarda una venta solo si la versión almacenada coincide con la esperada.
+     * Escritores de entidades distintas nunca se bloquean entre sí.
+     * 
+     * @param venta venta a guardar
+     * @param versionEsperada versión leída antes de modificar la venta
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     * @throws IllegalStateException si la partición del día de la venta está sellada
+     */
+    public abstract void guardar(Venta venta, long versionEsperada);
+    
+    /**
+     * Aplica un cambio a la venta almacenada solo si su versión coincide con la esperada.
+     * El cambio y el incremento de versión se realizan de forma atómica.
+     * 
+     * @param id identificador de la venta
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @return la venta actualizada, o null si no existe
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     * @throws IllegalStateException si la partición de la venta está sellada
+     */
+    public abstract Venta actualizar(int id, long versionEsperada, Consumer<Venta> cambio);
+    
+    /**
+     * Aplica un cambio a una venta que el llamador ya tiene, solo si la versión
+     * almacenada coincide con la esperada. Los repositorios fragmentados usan el
+     * cliente de la venta para ir directo a su fragmento.
+     * 
+     * @param venta venta a modificar; solo se usan su ID y su cliente
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @return la venta actualizada, o null si no existe
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     * @throws IllegalStateException si la partición de la venta está sellada
+     */
+    public Venta actualizar(Venta venta, long versionEsperada, Consumer<Venta> cambio) {
+        return actualizar(venta.getId(), versionEsperada, cambio);
+    }
+    
+    /**
+     * Guarda una venta recibida de un repositorio primario conservando su versión.
+     * Solo reemplaza a la almacenada si la versión recibida es más reciente.
+     * 
+     * @param venta venta con la versión asignada por el primario
+     * @return true si se aplicó, false si ya se tenía una versión igual o más reciente
+     * @throws IllegalStateException si la partición del día de la venta está sellada
+     */
+    public abstract boolean guardarReplica(Venta venta);
+    
     /**
      * Elimina una venta del repositorio por su ID.
      * 
      * @param id identificador de la venta a eliminar
      * @return true si se eliminó correctamente, false en caso contrario
+     * @throws IllegalStateException si la partición de la venta está sellada
      */
-    public boolean eliminar(int id) {
-        return ventas.removeIf(venta -> venta.getId() == id);
-    }
+    public abstract boolean eliminar(int id);
     
     /**
-     * Busca una venta por su ID.
+     * Busca una venta por su ID. Si no está en memoria y hay un
+     * {@link LibroVentas} configurado, se busca en el libro histórico; las
+     * ventas del libro son de días sellados y no se pueden modificar.
      * 
      * @param id identificador de la venta a buscar
      * @return la venta encontrada o null si no existe
+     * @throws UncheckedIOException si falla la lectura del libro
      */
     public Venta buscarPorId(int id) {
-        return ventas.stream()
-                .filter(venta -> venta.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return buscarEnLibroSiFalta(id, buscarEnMemoria(id));
     }
     
     /**
-     * Obtiene todas las ventas del repositorio.
+     * Busca una venta por su ID conociendo el ID de su cliente. Los
+     * repositorios fragmentados solo buscan en el fragmento del cliente; si la
+     * venta no está en memoria se busca en el libro como en {@link #buscarPorId(int)}.
+     * 
+     * @param id identificador de la venta a buscar
+     * @param idCliente identificador del cliente de la venta
+     * @return la venta encontrada o null si no existe
+     * @throws UncheckedIOException si falla la lectura del libro
+     */
+    public Venta buscarPorId(int id, int idCliente) {
+        return buscarEnLibroSiFalta(id, buscarEnMemoria(id, idCliente));
+    }
+    
+    private Venta buscarEnLibroSiFalta(int id, Venta venta) {
+        LibroVentas actual = libro;
+        if (venta != null || actual == null) {
+            return venta;
+        }
+        try {
+            return actual.buscar(id, clientesLibro, productosLibro);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al leer el libro de ventas", e);
+        }
+    }
+    
+    /**
+     * Busca una venta por su ID solo entre las ventas en memoria, que son las
+     * únicas que se pueden modificar.
+     * 
+     * @param id identificador de la venta a buscar
+     * @return la venta encontrada o null si no está en memoria
+     */
+    protected abstract Venta buscarEnMemoria(int id);
+    
+    /**
+     * Busca una venta en memoria conociendo el ID de su cliente.
      * 
-     * @return lista de todas las ventas
+     * @param id identificador de la venta a buscar
+     * @param idCliente identificador del cliente de la venta
+     * @return la venta encontrada o null si no está en memoria
      */
-    public List<Venta> obtenerTodas() {
-        return new ArrayList<>(ventas);
+    protected Venta buscarEnMemoria(int id, int idCliente) {
+        return buscarEnMemoria(id);
     }
     
+    /**
+     * Obtiene todas las ventas del repositorio.
+     * 
+     * @return lista de todas las ventas ordenada por ID
+     */
+    public abstract List<Venta> obtenerTodas();
+    
+    /**
+     * Obtiene una página de ventas ordenada por ID.
+     * 
+     * @param cursor cursor de la página anterior, o null para la primera página
+     * @param tamano número máximo de ventas por página
+     * @return la página de ventas solicitada
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    public abstract Pagina<Venta> obtenerPagina(String cursor, int tamano);
+    
     /**
      * Obtiene el número total de ventas en el repositorio.
      * 
      * @return número total de ventas
      */
-    public int contarVentas() {
-        return ventas.size();
-    }
+    public abstract int contarVentas();
     
     /**
      * Obtiene todas las ventas por estado.
@@ -95,11 +205,7 @@ public class VentaRepository {
      * @param estado estado de las ventas a filtrar
      * @return lista de ventas con el estado especificado
      */
-    public List<Venta> obtenerVentasPorEstado(EstadoVenta estado) {
-        return ventas.stream()
-                .filter(venta -> venta.getEstado() == estado)
-                .toList();
-    }
+    public abstract List<Venta> obtenerVentasPorEstado(EstadoVenta estado);
     
     /**
      * Obtiene todas las ventas de un cliente específico.
@@ -107,16 +213,7 @@ public class VentaRepository {
      * @param cliente cliente del cual obtener las ventas
      * @return lista de ventas del cliente
      */
-    public List<Venta> obtenerVentasPorCliente(Cliente cliente) {
-        if (cliente == null) {
-            return new ArrayList<>();
-        }
-        
-        return ventas.stream()
-                .filter(venta -> venta.getCliente() != null && 
-                               venta.getCliente().getId() == cliente.getId())
-                .toList();
-    }
+    public abstract List<Venta> obtenerVentasPorCliente(Cliente cliente);
     
     /**
      * Obtiene ventas en un rango de fechas.
@@ -125,16 +222,7 @@ public class VentaRepository {
      * @param fechaFin fecha de fin del rango
      * @return lista de ventas en el rango especificado
      */
-    public List<Venta> obtenerVentasPorFecha(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        if (fechaInicio == null || fechaFin == null) {
-            return new ArrayList<>();
-        }
-        
-        return ventas.stream()
-                .filter(venta -> venta.getFechaCreacion().isAfter(fechaInicio.minusSeconds(1)) && 
-                               venta.getFechaCreacion().isBefore(fechaFin.plusSeconds(1)))
-                .toList();
-    }
+    public abstract List<Venta> obtenerVentasPorFecha(LocalDateTime fechaInicio, LocalDateTime fechaFin);
     
     /**
      * Obtiene todas las ventas completadas.
@@ -153,4 +241,263 @@ public class VentaRepository {
     public List<Venta> obtenerVentasEnProceso() {
         return obtenerVentasPorEstado(EstadoVenta.PROCESANDO);
     }
+    
+    /**
+     * Registra las líneas de una venta finalizada en la tabla de hechos.
+     * 
+     * @param venta venta finalizada
+     */
+    public void registrarVentaFinalizada(Venta venta) {
+        tablaHechos.registrarVenta(venta);
+    }
+    
+    /**
+     * Obtiene la tabla de hechos columnar usada por los reportes.
+     * 
+     * @return la tabla de hechos de ventas
+     */
+    public TablaHechosVentas getTablaHechos() {
+        return tablaHechos;
+    }
+    
+    /**
+     * Mueve los detalles de una venta cerrada al archivo fuera del heap de su
+     * partición. Las ventas en estado PROCESANDO conservan sus detalles como
+     * objetos completos, y una venta ya archivada no se vuelve a copiar.
+     * 
+     * @param venta venta COMPLETADA o CANCELADA
+     * @param productos función que resuelve un producto por su ID al leer los detalles
+     * @return true si los detalles se archivaron, false en caso contrario
+     */
+    public boolean archivarDetalles(Venta venta, IntFunction<Producto> productos) {
+        if (venta == null || venta.getEstado() == EstadoVenta.PROCESANDO) {
+            return false;
+        }
+        
+        List<DetalleVenta> detalles = venta.getLineas();
+        if (detalles.isEmpty() || detalles.get(0) instanceof DetalleVentaArchivado) {
+            return false;
+        }
+        ArchivoDetallesVenta archivo = buscarArchivoDetalles(venta);
+        return archivo != null && venta.archivarDetalles(archivo.archivar(detalles, productos));
+    }
+    
+    /**
+     * Busca el archivo de detalles de la partición que guarda la venta.
+     * 
+     * @param venta venta guardada en el repositorio
+     * @return el archivo de detalles, o null si la venta no está en memoria
+     */
+    protected abstract ArchivoDetallesVenta buscarArchivoDetalles(Venta venta);
+    
+    /**
+     * Obtiene los bytes de memoria directa reservados por los archivos de
+     * detalles de las particiones en memoria.
+     * 
+     * @return bytes reservados fuera del heap
+     */
+    public abstract long bytesDetallesArchivados();
+    
+    /**
+     * Registra un oyente de los cambios del repositorio.
+     * 
+     * @param oyente oyente a registrar
+     */
+    public abstract void agregarOyente(OyenteRepositorio<Venta> oyente);
+    
+    /**
+     * Quita un oyente registrado.
+     * 
+     * @param oyente oyente a quitar
+     */
+    public abstract void quitarOyente(OyenteRepositorio<Venta> oyente);
+    
+    /**
+     * Registra un oyente de las particiones que se eliminan o se descargan.
+     * Esas ventas salen de memoria sin avisar a los {@link OyenteRepositorio}.
+     * 
+     * @param oyente oyente a registrar
+     */
+    public abstract void agregarOyenteParticiones(OyenteParticiones oyente);
+    
+    /**
+     * Quita un oyente de particiones registrado.
+     * 
+     * @param oyente oyente a quitar
+     */
+    public abstract void quitarOyenteParticiones(OyenteParticiones oyente);
+    
+    // Particiones
+    
+    /**
+     * Obtiene los días que tienen partición en memoria.
+     * 
+     * @return días particionados en orden ascendente
+     */
+    public abstract List<LocalDate> obtenerDiasParticionados();
+    
+    /**
+     * Sella la partición de un día; sus ventas pasan a ser de solo lectura.
+     * 
+     * @param dia día de la partición
+     * @return true si la partición existe y quedó sellada
+     * @throws IllegalStateException si la partición tiene ventas en proceso
+     */
+    public abstract boolean sellarParticion(LocalDate dia);
+    
+    /**
+     * Compacta la partición sellada de un día a un arreglo ordenado por ID.
+     * 
+     * @param dia día de la partición
+     * @return true si la partición existe y quedó compactada
+     * @throws IllegalStateException si la partición no está sellada
+     */
+    public abstract boolean compactarParticion(LocalDate dia);
+    
+    /**
+     * Sella y compacta todas las particiones anteriores al día indicado.
+     * Las particiones con ventas todavía en proceso se dejan abiertas.
+     * 
+     * @param dia primer día que permanece abierto
+     * @return número de particiones selladas y compactadas
+     */
+    public abstract int sellarAnterioresA(LocalDate dia);
+    
+    /**
+     * Descarta la partición sellada de un día sin recorrer sus ventas y avisa a
+     * los {@link OyenteParticiones}. La tabla de hechos conserva las líneas ya
+     * registradas para los reportes.
+     * 
+     * @param dia día de la partición
+     * @return true si se eliminó la partición
+     * @throws IllegalStateException si la partición no está sellada
+     */
+    public abstract boolean eliminarParticion(LocalDate dia);
+    
+    /**
+     * Descarta todas las particiones de un mes sin recorrer sus ventas. No
+     * descarta ninguna si alguna no está sellada.
+     * 
+     * @param mes mes a descartar
+     * @return número de particiones eliminadas
+     * @throws IllegalStateException si alguna partición del mes no está sellada
+     */
+    public abstract int eliminarMes(YearMonth mes);
+    
+    /**
+     * Escribe una partición sellada en disco, la retira de memoria y avisa a
+     * los {@link OyenteParticiones}.
+     * 
+     * @param dia día de la partición
+     * @param directorio directorio donde escribir el archivo
+     * @return ruta del archivo escrito, o null si la partición no existe
+     * @throws IllegalStateException si la partición no está sellada
+     * @throws IOException si falla la escritura
+     */
+    public abstract Path descargarParticion(LocalDate dia, Path directorio) throws IOException;
+    
+    /**
+     * Sella, escribe en disco y retira de memoria todas las particiones de un mes.
+     * 
+     * @param mes mes a archivar
+     * @param directorio directorio donde escribir los archivos
+     * @return rutas de los archivos escritos
+     * @throws IllegalStateException si alguna partición tiene ventas en proceso
+     * @throws IOException si falla la escritura
+     */
+    public abstract List<Path> descargarMes(YearMonth mes, Path directorio) throws IOException;
+    
+    /**
+     * Carga desde disco una partición descargada como partición sellada y compactada.
+     * 
+     * @param archivo archivo escrito por {@link #descargarParticion}
+     * @param clientes función que resuelve un cliente por su ID
+     * @param productos función que resuelve un producto por su ID
+     * @return la partición cargada
+     * @throws IllegalArgumentException si el archivo no es una partición de ventas
+     * @throws IOException si falla la lectura
+     */
+    public abstract ParticionVentas cargarParticion(Path archivo, IntFunction<Cliente> clientes,
+                                                    IntFunction<Producto> productos) throws IOException;
+    
+    /**
+     * Configura el libro histórico al que se descargan los días sellados y
+     * en el que {@link #buscarPorId} busca las ventas que no están en memoria.
+     * 
+     * @param libro libro de ventas, o null para desactivarlo
+     * @param clientes función que resuelve un cliente por su ID al leer del libro
+     * @param productos función que resuelve un producto por su ID al leer del libro
+     * @throws IllegalArgumentException si hay libro y alguna función es nula
+     */
+    public void setLibro(LibroVentas libro, IntFunction<Cliente> clientes, IntFunction<Producto> productos) {
+        if (libro != null && (clientes == null || productos == null)) {
+            throw new IllegalArgumentException("El libro requiere funciones para resolver clientes y productos");
+        }
+        this.clientesLibro = clientes;
+        this.productosLibro = productos;
+        this.libro = libro;
+    }
+    
+    /**
+     * Obtiene el libro histórico de ventas.
+     * 
+     * @return el libro, o null si no está configurado
+     */
+    public LibroVentas getLibro() {
+        return libro;
+    }
+    
+    /**
+     * Agrega las ventas de una partición sellada al {@link LibroVentas}, la
+     * retira de memoria y avisa a los {@link OyenteParticiones}.
+     * 
+     * @param dia día de la partición
+     * @return true si la partición existía y se descargó
+     * @throws IllegalStateException si no hay libro configurado o la partición no está sellada
+     * @throws IOException si falla la escritura del libro
+     */
+    public abstract boolean descargarEnLibro(LocalDate dia) throws IOException;
+    
+    /**
+     * Sella y descarga al {@link LibroVentas} todas las particiones anteriores
+     * al día indicado. Las particiones con ventas todavía en proceso se dejan
+     * en memoria.
+     * 
+     * @param dia primer día que permanece en memoria
+     * @return número de particiones descargadas
+     * @throws IllegalStateException si no hay libro configurado
+     * @throws IOException si falla la escritura del libro
+     */
+    public int descargarEnLibroAnterioresA(LocalDate dia) throws IOException {
+        validarLibro();
+        sellarAnterioresA(dia);
+        int descargadas = 0;
+        for (LocalDate anterior : obtenerDiasParticionados()) {
+            if (!anterior.isBefore(dia)) {
+                break;
+            }
+            try {
+                if (descargarEnLibro(anterior)) {
+                    descargadas++;
+                }
+            } catch (IllegalStateException e) {
+                // Tiene ventas en proceso; se intentará en la siguiente pasada
+            }
+        }
+        return descargadas;
+    }
+    
+    /**
+     * Obtiene el libro configurado o falla si no lo hay.
+     * 
+     * @return el libro de ventas
+     * @throws IllegalStateException si no hay libro configurado
+     */
+    protected LibroVentas validarLibro() {
+        LibroVentas actual = libro;
+        if (actual == null) {
+            throw new IllegalStateException("No hay libro de ventas configurado");
+        }
+        return actual;
+    }
 }
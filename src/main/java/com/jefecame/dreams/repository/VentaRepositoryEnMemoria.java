@@ -0,0 +1,660 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.eventos.EventoRepositorio;
+import com.jefecame.dreams.eventos.Grabacion;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.codec.CodecBinario;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Repositorio de ventas en memoria, particionado por día de creación.
+ * 
+ * Cada partición lleva su propio control de versiones. Las consultas por fecha solo
+ * recorren las particiones del rango, y los días antiguos pueden sellarse,
+ * compactarse, descargarse a disco o descartarse completos. Con un
+ * {@link LibroVentas} configurado, los días sellados pueden pasarse al libro
+ * histórico, donde siguen disponibles para búsquedas por ID.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class VentaRepositoryEnMemoria extends VentaRepository {
+    
+    private static final int MAGIA_ARCHIVO = 0x56504152;
+    private static final String PREFIJO_ARCHIVO = "ventas-";
+    private static final String EXTENSION_ARCHIVO = ".bin";
+    
+    private ConcurrentSkipListMap<LocalDate, ParticionVentas> particiones;
+    private CopyOnWriteArrayList<OyenteRepositorio<Venta>> oyentes;
+    private OyenteRepositorio<Venta> difusor;
+    private CopyOnWriteArrayList<OyenteParticiones> oyentesParticiones;
+    
+    /**
+     * Constructor que inicializa el almacenamiento de ventas particionado por día de creación.
+     */
+    public VentaRepositoryEnMemoria() {
+        this.particiones = new ConcurrentSkipListMap<>();
+        this.oyentes = new CopyOnWriteArrayList<>();
+        this.oyentesParticiones = new CopyOnWriteArrayList<>();
+        this.difusor = new OyenteRepositorio<>() {
+            @Override
+            public void alGuardar(Venta venta) {
+                for (OyenteRepositorio<Venta> oyente : oyentes) {
+                    oyente.alGuardar(venta);
+                }
+            }
+            
+            @Override
+            public void alEliminar(Venta venta) {
+                for (OyenteRepositorio<Venta> oyente : oyentes) {
+                    oyente.alEliminar(venta);
+                }
+            }
+        };
+    }
+    
+    /**
+     * Guarda una venta solo si la versión almacenada coincide con la esperada.
+     * Escritores de entidades distintas nunca se bloquean entre sí.
+     * 
+     * @param venta venta a guardar
+     * @param versionEsperada versión leída antes de modificar la venta
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     * @throws IllegalStateException si la partición del día de la venta está sellada
+     */
+    @Override
+    public void guardar(Venta venta, long versionEsperada) {
+        if (venta == null) {
+            return;
+        }
+        
+        EventoRepositorio evento = Grabacion.activa() ? EventoRepositorio.iniciar() : null;
+        String estado = EventoRepositorio.ERROR;
+        try {
+            LocalDate dia = venta.getFechaCreacion().toLocalDate();
+            particiones.computeIfAbsent(dia, ParticionVentas::new).guardar(venta, versionEsperada, difusor);
+            estado = EventoRepositorio.GUARDADA;
+        } catch (ConflictoVersionException e) {
+            estado = EventoRepositorio.CONFLICTO;
+            throw e;
+        } finally {
+            if (evento != null) {
+                evento.terminar(EventoRepositorio.VENTAS, EventoRepositorio.GUARDAR, venta.getId(), estado);
+            }
+        }
+    }
+    
+    /**
+     * Aplica un cambio a la venta almacenada solo si su versión coincide con la esperada.
+     * El cambio y el incremento de versión se realizan de forma atómica.
+     * 
+     * @param id identificador de la venta
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @return la venta actualizada, o null si no existe
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     * @throws IllegalStateException si la partición de la venta está sellada
+     */
+    @Override
+    public Venta actualizar(int id, long versionEsperada, Consumer<Venta> cambio) {
+        EventoRepositorio evento = Grabacion.activa() ? EventoRepositorio.iniciar() : null;
+        String estado = EventoRepositorio.ERROR;
+        try {
+            ParticionVentas particion = buscarParticion(id);
+            Venta venta = particion != null ? particion.actualizar(id, versionEsperada, cambio, difusor) : null;
+            estado = venta != null ? EventoRepositorio.GUARDADA : EventoRepositorio.AUSENTE;
+            return venta;
+        } catch (ConflictoVersionException e) {
+            estado = EventoRepositorio.CONFLICTO;
+            throw e;
+        } finally {
+            if (evento != null) {
+                evento.terminar(EventoRepositorio.VENTAS, EventoRepositorio.ACTUALIZAR, id, estado);
+            }
+        }
+    }
+    
+    /**
+     * Guarda una venta recibida de un repositorio primario conservando su versión.
+     * Solo reemplaza a la almacenada si la versión recibida es más reciente.
+     * 
+     * @param venta venta con la versión asignada por el primario
+     * @return true si se aplicó, false si ya se tenía una versión igual o más reciente
+     * @throws IllegalStateException si la partición del día de la venta está sellada
+     */
+    @Override
+    public boolean guardarReplica(Venta venta) {
+        if (venta == null) {
+            return false;
+        }
+        
+        LocalDate dia = venta.getFechaCreacion().toLocalDate();
+        return particiones.computeIfAbsent(dia, ParticionVentas::new).guardarReplica(venta, difusor);
+    }
+    
+    /**
+     * Elimina una venta del repositorio por su ID.
+     * 
+     * @param id identificador de la venta a eliminar
+     * @return true si se eliminó correctamente, false en caso contrario
+     * @throws IllegalStateException si la partición de la venta está sellada
+     */
+    @Override
+    public boolean eliminar(int id) {
+        ParticionVentas particion = buscarParticion(id);
+        return particion != null && particion.eliminar(id, difusor);
+    }
+    
+    /**
+     * Busca una venta por su ID entre las particiones en memoria.
+     * Recorre las particiones de la más reciente a la más antigua y descarta
+     * las que no cubren el ID sin consultar sus ventas.
+     * 
+     * @param id identificador de la venta a buscar
+     * @return la venta encontrada o null si no está en memoria
+     */
+    @Override
+    protected Venta buscarEnMemoria(int id) {
+        EventoRepositorio evento = Grabacion.activa() ? EventoRepositorio.iniciar() : null;
+        Venta encontrada = null;
+        for (ParticionVentas particion : particiones.descendingMap().values()) {
+            Venta venta = particion.buscar(id);
+            if (venta != null) {
+                encontrada = venta;
+                break;
+            }
+        }
+        if (evento != null) {
+            evento.terminar(EventoRepositorio.VENTAS, EventoRepositorio.BUSCAR, id,
+                    encontrada != null ? EventoRepositorio.ENCONTRADA : EventoRepositorio.AUSENTE);
+        }
+        return encontrada;
+    }
+    
+    /**
+     * Obtiene todas las ventas del repositorio.
+     * 
+     * @return lista de todas las ventas ordenada por ID
+     */
+    @Override
+    public List<Venta> obtenerTodas() {
+        List<Venta> todas = new ArrayList<>();
+        for (ParticionVentas particion : particiones.values()) {
+            todas.addAll(particion.valores());
+        }
+        // Las particiones ya vienen casi en orden de ID; solo se corrigen los bordes entre días
+        todas.sort(Comparator.comparingInt(Venta::getId));
+        return todas;
+    }
+    
+    /**
+     * Obtiene una página de ventas ordenada por ID.
+     * Cada partición aporta como máximo una página más uno de candidatos.
+     * 
+     * @param cursor cursor de la página anterior, o null para la primera página
+     * @param tamano número máximo de ventas por página
+     * @return la página de ventas solicitada
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    @Override
+    public Pagina<Venta> obtenerPagina(String cursor, int tamano) {
+        TreeMap<Integer, Venta> candidatas = new TreeMap<>();
+        if (tamano > 0) {
+            int despuesDe = cursor == null ? Integer.MIN_VALUE : Pagina.decodificarCursor(cursor);
+            int limite = tamano == Integer.MAX_VALUE ? tamano : tamano + 1;
+            for (ParticionVentas particion : particiones.values()) {
+                for (Venta venta : particion.primerasDespuesDe(despuesDe, limite)) {
+                    candidatas.put(venta.getId(), venta);
+                }
+            }
+        }
+        return Pagina.desdeMapa(candidatas, cursor, tamano);
+    }
+    
+    /**
+     * Obtiene el número total de ventas en el repositorio.
+     * 
+     * @return número total de ventas
+     */
+    @Override
+    public int contarVentas() {
+        int total = 0;
+        for (ParticionVentas particion : particiones.values()) {
+            total += particion.contarVentas();
+        }
+        return total;
+    }
+    
+    /**
+     * Busca el archivo de detalles de la partición del día de creación de la venta.
+     * 
+     * @param venta venta guardada en el repositorio
+     * @return el archivo de detalles, o null si la partición no está en memoria
+     */
+    @Override
+    protected ArchivoDetallesVenta buscarArchivoDetalles(Venta venta) {
+        ParticionVentas particion = particiones.get(venta.getFechaCreacion().toLocalDate());
+        return particion != null ? particion.getArchivoDetalles() : null;
+    }
+    
+    /**
+     * Obtiene los bytes de memoria directa reservados por los archivos de
+     * detalles de las particiones en memoria.
+     * 
+     * @return bytes reservados fuera del heap
+     */
+    @Override
+    public long bytesDetallesArchivados() {
+        long total = 0;
+        for (ParticionVentas particion : particiones.values()) {
+            total += particion.getArchivoDetalles().bytesReservados();
+        }
+        return total;
+    }
+    
+    /**
+     * Obtiene todas las ventas por estado.
+     * 
+     * @param estado estado de las ventas a filtrar
+     * @return lista de ventas con el estado especificado
+     */
+    @Override
+    public List<Venta> obtenerVentasPorEstado(EstadoVenta estado) {
+        return particiones.values().stream()
+                .flatMap(particion -> particion.valores().stream())
+                .filter(venta -> venta.getEstado() == estado)
+                .toList();
+    }
+    
+    /**
+     * Obtiene todas las ventas de un cliente específico.
+     * 
+     * @param cliente cliente del cual obtener las ventas
+     * @return lista de ventas del cliente
+     */
+    @Override
+    public List<Venta> obtenerVentasPorCliente(Cliente cliente) {
+        if (cliente == null) {
+            return new ArrayList<>();
+        }
+        
+        return particiones.values().stream()
+                .flatMap(particion -> particion.valores().stream())
+                .filter(venta -> venta.getCliente() != null && 
+                               venta.getCliente().getId() == cliente.getId())
+                .toList();
+    }
+    
+    /**
+     * Obtiene ventas en un rango de fechas.
+     * Solo se consultan las particiones de los días dentro del rango.
+     * 
+     * @param fechaInicio fecha de inicio del rango
+     * @param fechaFin fecha de fin del rango
+     * @return lista de ventas en el rango especificado
+     */
+    @Override
+    public List<Venta> obtenerVentasPorFecha(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        if (fechaInicio == null || fechaFin == null) {
+            return new ArrayList<>();
+        }
+        
+        LocalDateTime desde = fechaInicio.minusSeconds(1);
+        LocalDateTime hasta = fechaFin.plusSeconds(1);
+        if (desde.isAfter(hasta)) {
+            return new ArrayList<>();
+        }
+        
+        return particiones.subMap(desde.toLocalDate(), true, hasta.toLocalDate(), true).values().stream()
+                .flatMap(particion -> particion.valores().stream())
+                .filter(venta -> venta.getFechaCreacion().isAfter(desde) && 
+                               venta.getFechaCreacion().isBefore(hasta))
+                .toList();
+    }
+    
+    /**
+     * Registra un oyente de los cambios del repositorio.
+     * 
+     * @param oyente oyente a registrar
+     */
+    @Override
+    public void agregarOyente(OyenteRepositorio<Venta> oyente) {
+        if (oyente != null) {
+            oyentes.add(oyente);
+        }
+    }
+    
+    /**
+     * Quita un oyente registrado.
+     * 
+     * @param oyente oyente a quitar
+     */
+    @Override
+    public void quitarOyente(OyenteRepositorio<Venta> oyente) {
+        oyentes.remove(oyente);
+    }
+    
+    // Particiones
+    
+    /**
+     * Obtiene los días que tienen partición en memoria.
+     * 
+     * @return días particionados en orden ascendente
+     */
+    @Override
+    public List<LocalDate> obtenerDiasParticionados() {
+        return new ArrayList<>(particiones.keySet());
+    }
+    
+    /**
+     * Obtiene la partición de un día.
+     * 
+     * @param dia día de creación de las ventas
+     * @return la partición, o null si no existe
+     */
+    public ParticionVentas obtenerParticion(LocalDate dia) {
+        return particiones.get(dia);
+    }
+    
+    /**
+     * Sella la partición de un día; sus ventas pasan a ser de solo lectura.
+     * 
+     * @param dia día de la partición
+     * @return true si la partición existe y quedó sellada
+     * @throws IllegalStateException si la partición tiene ventas en proceso
+     */
+    @Override
+    public boolean sellarParticion(LocalDate dia) {
+        ParticionVentas particion = particiones.get(dia);
+        if (particion == null) {
+            return false;
+        }
+        particion.sellar();
+        return true;
+    }
+    
+    /**
+     * Compacta la partición sellada de un día a un arreglo ordenado por ID.
+     * 
+     * @param dia día de la partición
+     * @return true si la partición existe y quedó compactada
+     * @throws IllegalStateException si la partición no está sellada
+     */
+    @Override
+    public boolean compactarParticion(LocalDate dia) {
+        ParticionVentas particion = particiones.get(dia);
+        if (particion == null) {
+            return false;
+        }
+        particion.compactar();
+        return true;
+    }
+    
+    /**
+     * Sella y compacta todas las particiones anteriores al día indicado.
+     * Las particiones con ventas todavía en proceso se dejan abiertas.
+     * 
+     * @param dia primer día que permanece abierto
+     * @return número de particiones selladas y compactadas
+     */
+    @Override
+    public int sellarAnterioresA(LocalDate dia) {
+        int selladas = 0;
+        for (ParticionVentas particion : particiones.headMap(dia, false).values()) {
+            try {
+                particion.sellar();
+                particion.compactar();
+                selladas++;
+            } catch (IllegalStateException e) {
+                // Tiene ventas en proceso; se intentará en la siguiente pasada
+            }
+        }
+        return selladas;
+    }
+    
+    /**
+     * Descarta la partición sellada de un día sin recorrer sus ventas y avisa a
+     * los {@link OyenteParticiones}. La tabla de hechos conserva las líneas ya
+     * registradas para los reportes.
+     * 
+     * @param dia día de la partición
+     * @return true si se eliminó la partición
+     * @throws IllegalStateException si la partición no está sellada
+     */
+    @Override
+    public boolean eliminarParticion(LocalDate dia) {
+        ParticionVentas particion = particiones.get(dia);
+        if (particion == null) {
+            return false;
+        }
+        validarSellada(particion, "eliminar");
+        return retirar(particion);
+    }
+    
+    /**
+     * Descarta todas las particiones de un mes sin recorrer sus ventas. No
+     * descarta ninguna si alguna no está sellada.
+     * 
+     * @param mes mes a descartar
+     * @return número de particiones eliminadas
+     * @throws IllegalStateException si alguna partición del mes no está sellada
+     */
+    @Override
+    public int eliminarMes(YearMonth mes) {
+        List<ParticionVentas> delMes = new ArrayList<>(particionesDelMes(mes).values());
+        for (ParticionVentas particion : delMes) {
+            validarSellada(particion, "eliminar");
+        }
+        int eliminadas = 0;
+        for (ParticionVentas particion : delMes) {
+            if (retirar(particion)) {
+                eliminadas++;
+            }
+        }
+        return eliminadas;
+    }
+    
+    /**
+     * Escribe una partición sellada en disco con el {@link CodecBinario} y la
+     * retira de memoria.
+     * 
+     * @param dia día de la partición
+     * @param directorio directorio donde escribir el archivo
+     * @return ruta del archivo escrito, o null si la partición no existe
+     * @throws IllegalStateException si la partición no está sellada
+     * @throws IOException si falla la escritura
+     */
+    @Override
+    public Path descargarParticion(LocalDate dia, Path directorio) throws IOException {
+        ParticionVentas particion = particiones.get(dia);
+        if (particion == null) {
+            return null;
+        }
+        validarSellada(particion, "descargar");
+        
+        Path archivo = directorio.resolve(PREFIJO_ARCHIVO + dia + EXTENSION_ARCHIVO);
+        ByteBuffer contenido = codificarParticion(particion);
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (contenido.hasRemaining()) {
+                canal.write(contenido);
+            }
+            canal.force(false);
+        }
+        retirar(particion);
+        return archivo;
+    }
+    
+    /**
+     * Sella, escribe en disco y retira de memoria todas las particiones de un mes.
+     * 
+     * @param mes mes a archivar
+     * @param directorio directorio donde escribir los archivos
+     * @return rutas de los archivos escritos
+     * @throws IllegalStateException si alguna partición tiene ventas en proceso
+     * @throws IOException si falla la escritura
+     */
+    @Override
+    public List<Path> descargarMes(YearMonth mes, Path directorio) throws IOException {
+        List<Path> archivos = new ArrayList<>();
+        for (LocalDate dia : new ArrayList<>(particionesDelMes(mes).keySet())) {
+            sellarParticion(dia);
+            archivos.add(descargarParticion(dia, directorio));
+        }
+        return archivos;
+    }
+    
+    /**
+     * Carga desde disco una partición descargada como partición sellada y compactada.
+     * 
+     * @param archivo archivo escrito por {@link #descargarParticion}
+     * @param clientes función que resuelve un cliente por su ID
+     * @param productos función que resuelve un producto por su ID
+     * @return la partición cargada
+     * @throws IllegalArgumentException si el archivo no es una partición de ventas
+     * @throws IOException si falla la lectura
+     */
+    @Override
+    public ParticionVentas cargarParticion(Path archivo, IntFunction<Cliente> clientes,
+                                           IntFunction<Producto> productos) throws IOException {
+        ByteBuffer contenido;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            contenido = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        if (contenido.remaining() < Integer.BYTES || contenido.getInt() != MAGIA_ARCHIVO) {
+            throw new IllegalArgumentException("El archivo no contiene una partición de ventas: " + archivo);
+        }
+        
+        LocalDate dia = LocalDate.ofEpochDay(CodecBinario.leerVarlong(contenido));
+        int cantidad = CodecBinario.leerVarint(contenido);
+        CodecBinario codec = new CodecBinario();
+        List<Venta> cargadas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            cargadas.add(codec.decodificarVenta(contenido, clientes, productos));
+        }
+        
+        ParticionVentas particion = ParticionVentas.sellada(dia, cargadas);
+        particiones.put(dia, particion);
+        return particion;
+    }
+    
+    /**
+     * Agrega las ventas de una partición sellada al {@link LibroVentas} y la
+     * retira de memoria.
+     * 
+     * @param dia día de la partición
+     * @return true si la partición existía y se descargó
+     * @throws IllegalStateException si no hay libro configurado o la partición no está sellada
+     * @throws IOException si falla la escritura del libro
+     */
+    @Override
+    public boolean descargarEnLibro(LocalDate dia) throws IOException {
+        LibroVentas destino = validarLibro();
+        ParticionVentas particion = particiones.get(dia);
+        if (particion == null) {
+            return false;
+        }
+        validarSellada(particion, "descargar");
+        destino.escribirDia(dia, particion.valores());
+        retirar(particion);
+        return true;
+    }
+    
+    /**
+     * Registra un oyente de las particiones que se eliminan o se descargan.
+     * 
+     * @param oyente oyente a registrar
+     */
+    @Override
+    public void agregarOyenteParticiones(OyenteParticiones oyente) {
+        if (oyente != null) {
+            oyentesParticiones.add(oyente);
+        }
+    }
+    
+    /**
+     * Quita un oyente de particiones registrado.
+     * 
+     * @param oyente oyente a quitar
+     */
+    @Override
+    public void quitarOyenteParticiones(OyenteParticiones oyente) {
+        oyentesParticiones.remove(oyente);
+    }
+    
+    /**
+     * Quita de memoria una partición sellada y avisa a los oyentes de particiones.
+     * 
+     * @return false si otro hilo ya la había retirado
+     */
+    private boolean retirar(ParticionVentas particion) {
+        if (!particiones.remove(particion.getDia(), particion)) {
+            return false;
+        }
+        Collection<Venta> ventas = particion.valores();
+        for (OyenteParticiones oyente : oyentesParticiones) {
+            oyente.alRetirarParticion(particion.getDia(), ventas);
+        }
+        return true;
+    }
+    
+    private static void validarSellada(ParticionVentas particion, String operacion) {
+        if (!particion.isSellada()) {
+            throw new IllegalStateException("Solo se puede " + operacion + " una partición sellada: " + particion.getDia());
+        }
+    }
+    
+    private ParticionVentas buscarParticion(int id) {
+        for (ParticionVentas particion : particiones.descendingMap().values()) {
+            if (particion.buscar(id) != null) {
+                return particion;
+            }
+        }
+        return null;
+    }
+    
+    private NavigableMap<LocalDate, ParticionVentas> particionesDelMes(YearMonth mes) {
+        return particiones.subMap(mes.atDay(1), true, mes.atEndOfMonth(), true);
+    }
+    
+    private ByteBuffer codificarParticion(ParticionVentas particion) {
+        int capacidad = 1024 + particion.contarVentas() * 64;
+        while (true) {
+            ByteBuffer contenido = ByteBuffer.allocate(capacidad);
+            try {
+                CodecBinario codec = new CodecBinario();
+                contenido.putInt(MAGIA_ARCHIVO);
+                CodecBinario.escribirVarlong(contenido, particion.getDia().toEpochDay());
+                CodecBinario.escribirVarint(contenido, particion.contarVentas());
+                for (Venta venta : particion.valores()) {
+                    codec.codificarVenta(venta, contenido);
+                }
+                return contenido.flip();
+            } catch (BufferOverflowException e) {
+                // El diccionario de cadenas se reinicia con el nuevo codec, así que basta con repetir
+                capacidad *= 2;
+            }
+        }
+    }
+}
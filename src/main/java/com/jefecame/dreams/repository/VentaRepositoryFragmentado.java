@@ -0,0 +1,592 @@
+package com.jefecame.dreams.repository;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.Venta;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Repositorio de ventas repartido en fragmentos por hash consistente del ID del cliente.
+ *
+ * Todas las ventas de un cliente viven en el mismo fragmento que el cliente,
+ * así que el historial de un cliente se resuelve en un solo fragmento, igual
+ * que las búsquedas y los cambios de quien ya tiene la venta
+ * ({@link #buscarPorId(int, int)} y {@link #actualizar(Venta, long, Consumer)}).
+ * Las búsquedas solo por ID de venta recorren los fragmentos, que descartan
+ * rápido las particiones que no cubren el ID, y las consultas por estado o
+ * por fecha se dispersan en paralelo. La tabla de hechos se mantiene en este
+ * repositorio para que los reportes sigan siendo globales; las ventas y sus
+ * detalles archivados solo se guardan en los fragmentos.
+ *
+ * El mantenimiento de particiones se intenta en todos los fragmentos aunque
+ * alguno falle y, si hubo fallos, lanza una {@link MantenimientoIncompletoException}
+ * con los fragmentos completados y los fallidos. Los pasos por fragmento son
+ * idempotentes, así que repetir la operación termina solo lo que faltó.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class VentaRepositoryFragmentado extends VentaRepository {
+
+    private static final String PREFIJO_DIRECTORIO_FRAGMENTO = "fragmento-";
+
+    private final List<VentaRepositoryEnMemoria> fragmentos;
+    private final AnilloConsistente anillo;
+    private final Executor ejecutor;
+
+    /**
+     * Constructor para repartir las ventas entre los fragmentos indicados.
+     *
+     * @param fragmentos repositorios que actúan como fragmentos
+     * @param ejecutor ejecutor para las consultas en paralelo
+     * @throws IllegalArgumentException si no hay fragmentos o el ejecutor es nulo
+     */
+    public VentaRepositoryFragmentado(List<? extends VentaRepositoryEnMemoria> fragmentos, Executor ejecutor) {
+        if (fragmentos == null || fragmentos.isEmpty()) {
+            throw new IllegalArgumentException("Debe haber al menos un fragmento");
+        }
+        if (ejecutor == null) {
+            throw new IllegalArgumentException("El ejecutor no puede ser nulo");
+        }
+        this.fragmentos = List.copyOf(fragmentos);
+        this.anillo = new AnilloConsistente(fragmentos.size());
+        this.ejecutor = ejecutor;
+    }
+
+    /**
+     * Guarda una venta en el fragmento de su cliente.
+     *
+     * @param venta venta a guardar
+     * @param versionEsperada versión leída antes de modificar la venta
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    @Override
+    public void guardar(Venta venta, long versionEsperada) {
+        if (venta != null) {
+            fragmentoDeCliente(venta.getIdCliente()).guardar(venta, versionEsperada);
+        }
+    }
+
+    /**
+     * Guarda una venta recibida de un primario en el fragmento de su cliente.
+     *
+     * @param venta venta con la versión asignada por el primario
+     * @return true si se aplicó
+     */
+    @Override
+    public boolean guardarReplica(Venta venta) {
+        return venta != null && fragmentoDeCliente(venta.getIdCliente()).guardarReplica(venta);
+    }
+
+    /**
+     * Aplica un cambio a la venta en el fragmento que la contiene.
+     *
+     * @param id identificador de la venta
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @return la venta actualizada, o null si no existe
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    @Override
+    public Venta actualizar(int id, long versionEsperada, Consumer<Venta> cambio) {
+        VentaRepositoryEnMemoria fragmento = fragmentoDeVenta(id);
+        return fragmento != null ? fragmento.actualizar(id, versionEsperada, cambio) : null;
+    }
+
+    /**
+     * Aplica un cambio a la venta en el fragmento de su cliente, sin buscarla
+     * en los demás fragmentos.
+     *
+     * @param venta venta a modificar; solo se usan su ID y su cliente
+     * @param versionEsperada versión leída antes de decidir el cambio
+     * @param cambio cambio a aplicar
+     * @return la venta actualizada, o null si no existe
+     * @throws ConflictoVersionException si la versión almacenada es distinta
+     */
+    @Override
+    public Venta actualizar(Venta venta, long versionEsperada, Consumer<Venta> cambio) {
+        return fragmentoDeCliente(venta.getIdCliente()).actualizar(venta.getId(), versionEsperada, cambio);
+    }
+
+    /**
+     * Elimina una venta del fragmento que la contiene.
+     *
+     * @param id identificador de la venta a eliminar
+     * @return true si se eliminó correctamente, false en caso contrario
+     */
+    @Override
+    public boolean eliminar(int id) {
+        VentaRepositoryEnMemoria fragmento = fragmentoDeVenta(id);
+        return fragmento != null && fragmento.eliminar(id);
+    }
+
+    /**
+     * Busca una venta por su ID en los fragmentos.
+     *
+     * @param id identificador de la venta a buscar
+     * @return la venta encontrada o null si no está en memoria
+     */
+    @Override
+    protected Venta buscarEnMemoria(int id) {
+        for (VentaRepositoryEnMemoria fragmento : fragmentos) {
+            Venta venta = fragmento.buscarEnMemoria(id);
+            if (venta != null) {
+                return venta;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Busca una venta en memoria solo en el fragmento de su cliente.
+     *
+     * @param id identificador de la venta a buscar
+     * @param idCliente identificador del cliente de la venta
+     * @return la venta encontrada o null si no está en memoria
+     */
+    @Override
+    protected Venta buscarEnMemoria(int id, int idCliente) {
+        return fragmentoDeCliente(idCliente).buscarEnMemoria(id);
+    }
+
+    /**
+     * Obtiene todas las ventas de todos los fragmentos.
+     *
+     * @return lista de todas las ventas ordenada por ID
+     */
+    @Override
+    public List<Venta> obtenerTodas() {
+        return ordenadas(ConsultaDispersa.reunir(fragmentos, VentaRepository::obtenerTodas, ejecutor));
+    }
+
+    /**
+     * Obtiene una página de ventas ordenada por ID uniendo las páginas de los fragmentos.
+     *
+     * @param cursor cursor de la página anterior, o null para la primera página
+     * @param tamano número máximo de ventas por página
+     * @return la página de ventas solicitada
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    @Override
+    public Pagina<Venta> obtenerPagina(String cursor, int tamano) {
+        return ConsultaDispersa.paginar(fragmentos, fragmento -> fragmento.obtenerPagina(cursor, tamano),
+                Venta::getId, tamano, ejecutor);
+    }
+
+    /**
+     * Obtiene el número total de ventas de todos los fragmentos.
+     *
+     * @return número total de ventas
+     */
+    @Override
+    public int contarVentas() {
+        return ConsultaDispersa.sumar(fragmentos, VentaRepository::contarVentas);
+    }
+
+    /**
+     * Busca el archivo de detalles en el fragmento dueño del cliente de la venta.
+     *
+     * @param venta venta guardada en el repositorio
+     * @return el archivo de detalles, o null si la venta no está en memoria
+     */
+    @Override
+    protected ArchivoDetallesVenta buscarArchivoDetalles(Venta venta) {
+        return fragmentoDeCliente(venta.getIdCliente()).buscarArchivoDetalles(venta);
+    }
+
+    /**
+     * Obtiene los bytes de memoria directa reservados por los archivos de
+     * detalles de todos los fragmentos.
+     *
+     * @return bytes reservados fuera del heap
+     */
+    @Override
+    public long bytesDetallesArchivados() {
+        long total = 0;
+        for (VentaRepositoryEnMemoria fragmento : fragmentos) {
+            total += fragmento.bytesDetallesArchivados();
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene las ventas por estado dispersando la consulta en paralelo.
+     *
+     * @param estado estado de las ventas a filtrar
+     * @return lista de ventas con el estado especificado, ordenada por ID
+     */
+    @Override
+    public List<Venta> obtenerVentasPorEstado(EstadoVenta estado) {
+        return ordenadas(ConsultaDispersa.reunir(fragmentos, fragmento -> fragmento.obtenerVentasPorEstado(estado), ejecutor));
+    }
+
+    /**
+     * Obtiene las ventas de un cliente desde su fragmento.
+     *
+     * @param cliente cliente del cual obtener las ventas
+     * @return lista de ventas del cliente
+     */
+    @Override
+    public List<Venta> obtenerVentasPorCliente(Cliente cliente) {
+        if (cliente == null) {
+            return new ArrayList<>();
+        }
+        return fragmentoDeCliente(cliente.getId()).obtenerVentasPorCliente(cliente);
+    }
+
+    /**
+     * Obtiene ventas en un rango de fechas dispersando la consulta en paralelo.
+     *
+     * @param fechaInicio fecha de inicio del rango
+     * @param fechaFin fecha de fin del rango
+     * @return lista de ventas en el rango especificado, ordenada por ID
+     */
+    @Override
+    public List<Venta> obtenerVentasPorFecha(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        if (fechaInicio == null || fechaFin == null) {
+            return new ArrayList<>();
+        }
+        return ordenadas(ConsultaDispersa.reunir(fragmentos,
+                fragmento -> fragmento.obtenerVentasPorFecha(fechaInicio, fechaFin), ejecutor));
+    }
+
+    /**
+     * Registra el oyente en todos los fragmentos.
+     *
+     * @param oyente oyente a registrar
+     */
+    @Override
+    public void agregarOyente(OyenteRepositorio<Venta> oyente) {
+        for (VentaRepositoryEnMemoria fragmento : fragmentos) {
+            fragmento.agregarOyente(oyente);
+        }
+    }
+
+    /**
+     * Quita el oyente de todos los fragmentos.
+     *
+     * @param oyente oyente a quitar
+     */
+    @Override
+    public void quitarOyente(OyenteRepositorio<Venta> oyente) {
+        for (VentaRepositoryEnMemoria fragmento : fragmentos) {
+            fragmento.quitarOyente(oyente);
+        }
+    }
+
+    /**
+     * Registra el oyente de particiones en todos los fragmentos; cada fragmento
+     * avisa de su parte de la partición.
+     *
+     * @param oyente oyente a registrar
+     */
+    @Override
+    public void agregarOyenteParticiones(OyenteParticiones oyente) {
+        for (VentaRepositoryEnMemoria fragmento : fragmentos) {
+            fragmento.agregarOyenteParticiones(oyente);
+        }
+    }
+
+    /**
+     * Quita el oyente de particiones de todos los fragmentos.
+     *
+     * @param oyente oyente a quitar
+     */
+    @Override
+    public void quitarOyenteParticiones(OyenteParticiones oyente) {
+        for (VentaRepositoryEnMemoria fragmento : fragmentos) {
+            fragmento.quitarOyenteParticiones(oyente);
+        }
+    }
+
+    // Particiones
+
+    /**
+     * Obtiene los días que tienen partición en algún fragmento.
+     *
+     * @return días particionados en orden ascendente
+     */
+    @Override
+    public List<LocalDate> obtenerDiasParticionados() {
+        TreeSet<LocalDate> dias = new TreeSet<>();
+        for (VentaRepositoryEnMemoria fragmento : fragmentos) {
+            dias.addAll(fragmento.obtenerDiasParticionados());
+        }
+        return new ArrayList<>(dias);
+    }
+
+    /**
+     * Sella la partición del día en todos los fragmentos.
+     *
+     * @param dia día de la partición
+     * @return true si algún fragmento tenía la partición
+     * @throws MantenimientoIncompletoException si la partición de algún fragmento tiene ventas en proceso
+     */
+    @Override
+    public boolean sellarParticion(LocalDate dia) {
+        return enCadaFragmento("sellar la partición " + dia,
+                (fragmento, indice) -> fragmento.sellarParticion(dia)).contains(true);
+    }
+
+    /**
+     * Compacta la partición sellada del día en todos los fragmentos.
+     *
+     * @param dia día de la partición
+     * @return true si algún fragmento tenía la partición
+     * @throws MantenimientoIncompletoException si la partición de algún fragmento no está sellada
+     */
+    @Override
+    public boolean compactarParticion(LocalDate dia) {
+        return enCadaFragmento("compactar la partición " + dia,
+                (fragmento, indice) -> fragmento.compactarParticion(dia)).contains(true);
+    }
+
+    /**
+     * Sella y compacta las particiones anteriores al día indicado en todos los fragmentos.
+     *
+     * @param dia primer día que permanece abierto
+     * @return número de particiones selladas y compactadas
+     */
+    @Override
+    public int sellarAnterioresA(LocalDate dia) {
+        return ConsultaDispersa.sumar(fragmentos, fragmento -> fragmento.sellarAnterioresA(dia));
+    }
+
+    /**
+     * Descarta la partición sellada del día en todos los fragmentos. No
+     * descarta ninguna si la de algún fragmento no está sellada.
+     *
+     * @param dia día de la partición
+     * @return true si algún fragmento tenía la partición
+     * @throws IllegalStateException si la partición de algún fragmento no está sellada
+     */
+    @Override
+    public boolean eliminarParticion(LocalDate dia) {
+        validarSelladas(dia, dia);
+        boolean eliminada = false;
+        for (VentaRepositoryEnMemoria fragmento : fragmentos) {
+            eliminada |= fragmento.eliminarParticion(dia);
+        }
+        return eliminada;
+    }
+
+    /**
+     * Descarta las particiones de un mes en todos los fragmentos. No descarta
+     * ninguna si alguna no está sellada.
+     *
+     * @param mes mes a descartar
+     * @return número de particiones eliminadas
+     * @throws IllegalStateException si alguna partición del mes no está sellada
+     */
+    @Override
+    public int eliminarMes(YearMonth mes) {
+        validarSelladas(mes.atDay(1), mes.atEndOfMonth());
+        return ConsultaDispersa.sumar(fragmentos, fragmento -> fragmento.eliminarMes(mes));
+    }
+
+    /**
+     * Escribe la partición sellada del día de cada fragmento en un subdirectorio
+     * {@code fragmento-N} del directorio indicado.
+     *
+     * @param dia día de la partición
+     * @param directorio directorio base de los archivos
+     * @return el directorio base, o null si ningún fragmento tenía la partición
+     * @throws MantenimientoIncompletoException si en algún fragmento la partición no está
+     *         sellada o falla la escritura; la causa conserva la {@link IOException}
+     */
+    @Override
+    public Path descargarParticion(LocalDate dia, Path directorio) {
+        List<Path> archivos = enCadaFragmento("descargar la partición " + dia,
+                (fragmento, indice) -> fragmento.descargarParticion(dia, directorioFragmento(directorio, indice)));
+        return archivos.stream().anyMatch(archivo -> archivo != null) ? directorio : null;
+    }
+
+    /**
+     * Sella, escribe en disco y retira de memoria las particiones de un mes en todos los fragmentos.
+     *
+     * @param mes mes a archivar
+     * @param directorio directorio base de los archivos
+     * @return rutas de los archivos escritos
+     * @throws MantenimientoIncompletoException si en algún fragmento una partición tiene ventas
+     *         en proceso o falla la escritura; la causa conserva la {@link IOException}
+     */
+    @Override
+    public List<Path> descargarMes(YearMonth mes, Path directorio) {
+        List<Path> archivos = new ArrayList<>();
+        for (List<Path> delFragmento : enCadaFragmento("descargar el mes " + mes,
+                (fragmento, indice) -> fragmento.descargarMes(mes, directorioFragmento(directorio, indice)))) {
+            archivos.addAll(delFragmento);
+        }
+        return archivos;
+    }
+
+    /**
+     * Agrega al {@link LibroVentas} las particiones selladas del día de todos los
+     * fragmentos, mezcladas en orden de ID, y las retira de memoria.
+     *
+     * @param dia día de la partición
+     * @return true si algún fragmento tenía la partición
+     * @throws IllegalStateException si no hay libro configurado o alguna partición no está sellada
+     * @throws IOException si falla la escritura del libro
+     */
+    @Override
+    public boolean descargarEnLibro(LocalDate dia) throws IOException {
+        LibroVentas destino = validarLibro();
+        List<Venta> ventas = new ArrayList<>();
+        boolean existe = false;
+        for (VentaRepositoryEnMemoria fragmento : fragmentos) {
+            ParticionVentas particion = fragmento.obtenerParticion(dia);
+            if (particion == null) {
+                continue;
+            }
+            if (!particion.isSellada()) {
+                throw new IllegalStateException("Solo se puede descargar una partición sellada: " + dia);
+            }
+            ventas.addAll(particion.valores());
+            existe = true;
+        }
+        if (!existe) {
+            return false;
+        }
+        ventas.sort(Comparator.comparingInt(Venta::getId));
+        destino.escribirDia(dia, ventas);
+        for (VentaRepositoryEnMemoria fragmento : fragmentos) {
+            fragmento.eliminarParticion(dia);
+        }
+        return true;
+    }
+
+    /**
+     * Carga una partición descargada en el fragmento indicado por su subdirectorio.
+     *
+     * @param archivo archivo dentro de un subdirectorio {@code fragmento-N}
+     * @param clientes función que resuelve un cliente por su ID
+     * @param productos función que resuelve un producto por su ID
+     * @return la partición cargada
+     * @throws IllegalArgumentException si el archivo no pertenece a un fragmento de este repositorio
+     * @throws IOException si falla la lectura
+     */
+    @Override
+    public ParticionVentas cargarParticion(Path archivo, IntFunction<Cliente> clientes,
+                                           IntFunction<Producto> productos) throws IOException {
+        Path padre = archivo.toAbsolutePath().getParent();
+        String nombre = padre != null ? padre.getFileName().toString() : "";
+        int indice;
+        try {
+            indice = nombre.startsWith(PREFIJO_DIRECTORIO_FRAGMENTO)
+                    ? Integer.parseInt(nombre.substring(PREFIJO_DIRECTORIO_FRAGMENTO.length()))
+                    : -1;
+        } catch (NumberFormatException e) {
+            indice = -1;
+        }
+        if (indice < 0 || indice >= fragmentos.size()) {
+            throw new IllegalArgumentException("El archivo no pertenece a un fragmento: " + archivo);
+        }
+        return fragmentos.get(indice).cargarParticion(archivo, clientes, productos);
+    }
+
+    /**
+     * Obtiene el fragmento dueño de las ventas de un cliente.
+     *
+     * @param idCliente identificador del cliente
+     * @return el repositorio del fragmento
+     */
+    public VentaRepositoryEnMemoria fragmentoDeCliente(int idCliente) {
+        return fragmentos.get(anillo.fragmentoPara(idCliente));
+    }
+
+    /**
+     * Obtiene los fragmentos del repositorio.
+     *
+     * @return lista inmutable de fragmentos
+     */
+    public List<VentaRepositoryEnMemoria> getFragmentos() {
+        return fragmentos;
+    }
+
+    /**
+     * Ejecuta un paso de mantenimiento en cada fragmento, siguiendo con los
+     * demás aunque alguno falle.
+     *
+     * @param operacion descripción de la operación para el mensaje de error
+     * @param paso paso a ejecutar en cada fragmento
+     * @return resultado de cada fragmento, en orden de fragmento
+     * @throws MantenimientoIncompletoException si el paso falló en algún fragmento
+     */
+    private <R> List<R> enCadaFragmento(String operacion, PasoFragmento<R> paso) {
+        List<R> resultados = new ArrayList<>(fragmentos.size());
+        List<Integer> completados = new ArrayList<>();
+        List<Integer> fallidos = new ArrayList<>();
+        Exception primerFallo = null;
+        for (int i = 0; i < fragmentos.size(); i++) {
+            try {
+                resultados.add(paso.aplicar(fragmentos.get(i), i));
+                completados.add(i);
+            } catch (IOException | RuntimeException e) {
+                fallidos.add(i);
+                if (primerFallo == null) {
+                    primerFallo = e;
+                } else {
+                    primerFallo.addSuppressed(e);
+                }
+            }
+        }
+        if (primerFallo != null) {
+            throw new MantenimientoIncompletoException(operacion, completados, fallidos, primerFallo);
+        }
+        return resultados;
+    }
+
+    private VentaRepositoryEnMemoria fragmentoDeVenta(int id) {
+        for (VentaRepositoryEnMemoria fragmento : fragmentos) {
+            if (fragmento.buscarEnMemoria(id) != null) {
+                return fragmento;
+            }
+        }
+        return null;
+    }
+
+    private void validarSelladas(LocalDate desde, LocalDate hasta) {
+        for (VentaRepositoryEnMemoria fragmento : fragmentos) {
+            for (LocalDate dia : fragmento.obtenerDiasParticionados()) {
+                if (dia.isBefore(desde) || dia.isAfter(hasta)) {
+                    continue;
+                }
+                ParticionVentas particion = fragmento.obtenerParticion(dia);
+                if (particion != null && !particion.isSellada()) {
+                    throw new IllegalStateException("Solo se puede eliminar una partición sellada: " + dia);
+                }
+            }
+        }
+    }
+
+    private static List<Venta> ordenadas(List<Venta> ventas) {
+        ventas.sort(Comparator.comparingInt(Venta::getId));
+        return ventas;
+    }
+
+    private static Path directorioFragmento(Path directorio, int indice) throws IOException {
+        return Files.createDirectories(directorio.resolve(PREFIJO_DIRECTORIO_FRAGMENTO + indice));
+    }
+
+    /**
+     * Paso de mantenimiento sobre un fragmento.
+     */
+    private interface PasoFragmento<R> {
+
+        R aplicar(VentaRepositoryEnMemoria fragmento, int indice) throws IOException;
+    }
+}
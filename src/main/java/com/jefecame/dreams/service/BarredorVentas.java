@@ -0,0 +1,214 @@
+package com.jefecame.dreams.service;
+
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.ConflictoVersionException;
+import com.jefecame.dreams.repository.IndiceActividadVentas;
+import com.jefecame.dreams.repository.VentaRepository;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Barredor periódico de ventas abandonadas.
+ *
+ * Cancela, por lotes y mediante {@link VentaService#cancelarVentaSinCambios}, las
+ * ventas PROCESANDO que no se han modificado en más de la edad máxima, de modo
+ * que su stock vuelve a la ubicación. Cada venta se cancela con la versión que
+ * el índice registró al marcarla inactiva: si alguien la modifica mientras
+ * tanto, la cancelación falla por conflicto y la venta se conserva.
+ *
+ * Las ventas inactivas se obtienen del principio de un
+ * {@link IndiceActividadVentas}, sin recorrer el repositorio; el índice debe
+ * estar registrado como oyente del repositorio, idealmente antes de cargar los
+ * datos para que incluya las ventas de la instantánea.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class BarredorVentas {
+
+    private static final Logger logger = LoggerFactory.getLogger(BarredorVentas.class);
+
+    /** Número de ventas por lote por defecto */
+    public static final int TAMANO_LOTE_POR_DEFECTO = 100;
+
+    private final VentaService ventaService;
+    private final VentaRepository ventaRepository;
+    private final IndiceActividadVentas indice;
+    private final Duration edadMaxima;
+    private final Duration intervalo;
+    private final int tamanoLote;
+    private final LongAdder canceladas;
+    private ScheduledExecutorService programador;
+
+    /**
+     * Constructor para crear el barredor.
+     *
+     * @param ventaService servicio con el que se cancelan las ventas
+     * @param ventaRepository repositorio de ventas a vigilar
+     * @param indice índice de actividad de las ventas en proceso
+     * @param edadMaxima tiempo sin cambios tras el cual una venta se cancela
+     * @param intervalo tiempo entre barridos
+     * @param tamanoLote número máximo de ventas que se cancelan por lote
+     * @throws IllegalArgumentException si algún parámetro es inválido
+     */
+    public BarredorVentas(VentaService ventaService, VentaRepository ventaRepository, IndiceActividadVentas indice,
+                          Duration edadMaxima, Duration intervalo, int tamanoLote) {
+        if (ventaService == null || ventaRepository == null || indice == null) {
+            throw new IllegalArgumentException("El servicio, el repositorio y el índice no pueden ser nulos");
+        }
+        if (edadMaxima == null || edadMaxima.isNegative() || edadMaxima.isZero()) {
+            throw new IllegalArgumentException("La edad máxima debe ser positiva");
+        }
+        if (intervalo == null || intervalo.isNegative() || intervalo.isZero()) {
+            throw new IllegalArgumentException("El intervalo entre barridos debe ser positivo");
+        }
+        if (tamanoLote < 1) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser al menos 1");
+        }
+        this.ventaService = ventaService;
+        this.ventaRepository = ventaRepository;
+        this.indice = indice;
+        this.edadMaxima = edadMaxima;
+        this.intervalo = intervalo;
+        this.tamanoLote = tamanoLote;
+        this.canceladas = new LongAdder();
+    }
+
+    /**
+     * Programa los barridos periódicos.
+     *
+     * @throws IllegalStateException si el barredor ya está iniciado
+     */
+    public synchronized void iniciar() {
+        if (programador != null) {
+            throw new IllegalStateException("El barredor de ventas ya está iniciado");
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("barredor-ventas").daemon().factory());
+        long periodo = intervalo.toMillis();
+        programador.scheduleWithFixedDelay(this::barrerProgramado, periodo, periodo, TimeUnit.MILLISECONDS);
+        logger.info("Barredor de ventas iniciado: edad máxima {}, intervalo {}", edadMaxima, intervalo);
+    }
+
+    /**
+     * Detiene los barridos programados.
+     */
+    public synchronized void detener() {
+        if (programador == null) {
+            return;
+        }
+        programador.shutdownNow();
+        programador = null;
+    }
+
+    /**
+     * Cancela por lotes todas las ventas inactivas por más de la edad máxima.
+     *
+     * @return número de ventas canceladas en este barrido
+     */
+    public int barrer() {
+        long limite = indice.getReloj().millis() - edadMaxima.toMillis();
+        int total = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Integer> lote = indice.inactivasAntesDe(limite, tamanoLote);
+            if (lote.isEmpty()) {
+                break;
+            }
+            int canceladasLote = 0;
+            boolean conflicto = false;
+            for (int id : lote) {
+                switch (cancelarSiInactiva(id, limite)) {
+                    case CANCELADA -> canceladasLote++;
+                    case CONFLICTO -> conflicto = true;
+                    default -> { }
+                }
+            }
+            total += canceladasLote;
+            logger.debug("Lote de barrido: {} ventas revisadas, {} canceladas", lote.size(), canceladasLote);
+            // Una venta que se sigue modificando se revisa en el siguiente barrido
+            if (conflicto || lote.size() < tamanoLote) {
+                break;
+            }
+        }
+        if (total > 0) {
+            canceladas.add(total);
+            logger.info("Barrido de ventas: {} ventas inactivas canceladas", total);
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene el número de ventas canceladas desde que se creó el barredor.
+     *
+     * @return ventas canceladas por inactividad
+     */
+    public long contarCanceladas() {
+        return canceladas.sum();
+    }
+
+    /**
+     * Obtiene el índice de actividad que usa el barredor.
+     *
+     * @return índice de actividad de las ventas en proceso
+     */
+    public IndiceActividadVentas getIndice() {
+        return indice;
+    }
+
+    /**
+     * Obtiene la edad máxima de una venta sin cambios.
+     *
+     * @return tiempo sin cambios tras el cual una venta se cancela
+     */
+    public Duration getEdadMaxima() {
+        return edadMaxima;
+    }
+
+    private ResultadoBarrido cancelarSiInactiva(int id, long limite) {
+        // La venta pudo modificarse entre la lectura del lote y este punto
+        long version = indice.versionSiInactiva(id, limite);
+        if (version < 0) {
+            return ResultadoBarrido.OMITIDA;
+        }
+        Venta venta = ventaRepository.buscarPorId(id);
+        if (venta == null || venta.getEstado() != EstadoVenta.PROCESANDO) {
+            indice.descartar(id);
+            return ResultadoBarrido.OMITIDA;
+        }
+        try {
+            // Un cambio posterior a la versión observada hace fallar la cancelación
+            if (ventaService.cancelarVentaSinCambios(id, version)) {
+                return ResultadoBarrido.CANCELADA;
+            }
+        } catch (ConflictoVersionException e) {
+            return ResultadoBarrido.CONFLICTO;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            logger.warn("No se pudo cancelar la venta inactiva {}: {}", id, e.getMessage());
+        }
+        // Se quita del índice para que un barrido no la intente de nuevo
+        indice.descartar(id);
+        return ResultadoBarrido.OMITIDA;
+    }
+
+    private void barrerProgramado() {
+        try {
+            barrer();
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría los barridos siguientes
+            logger.error("Error en el barrido de ventas", e);
+        }
+    }
+
+    private enum ResultadoBarrido {
+        CANCELADA,
+        CONFLICTO,
+        OMITIDA
+    }
+}
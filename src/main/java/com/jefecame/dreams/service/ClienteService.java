@@ -1,8 +1,19 @@
 package com.jefecame.dreams.service;
 
+import com.jefecame.dreams.busqueda.Coincidencia;
+import com.jefecame.dreams.busqueda.IndiceDifuso;
+import com.jefecame.dreams.eventos.EventoBusqueda;
+import com.jefecame.dreams.eventos.Grabacion;
 import com.jefecame.dreams.model.Cliente;
 import com.jefecame.dreams.repository.ClienteRepository;
+import com.jefecame.dreams.repository.ClienteRepositoryEnMemoria;
+import com.jefecame.dreams.repository.FiltroBloomContador;
+import com.jefecame.dreams.repository.Pagina;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Servicio para la gestión de clientes.
@@ -14,22 +25,35 @@ import java.util.List;
 public class ClienteService {
     
     private ClienteRepository clienteRepository;
-    private static int contadorId = 1;
+    private IndiceDifuso<Cliente> indiceNombres;
+    private static final AtomicInteger contadorId = new AtomicInteger(1);
+    private Executor ejecutor = EjecutorServicios.porDefecto();
     
     /**
      * Constructor que inicializa el servicio con un repositorio de clientes.
+     * Si el repositorio ya tiene clientes cargados, el contador de IDs se adelanta
+     * para no repetirlos, y sus nombres y emails se indexan en paralelo para la
+     * búsqueda aproximada; el índice se mantiene al día con cada guardado.
      * 
      * @param clienteRepository repositorio de clientes a utilizar
      */
     public ClienteService(ClienteRepository clienteRepository) {
         this.clienteRepository = clienteRepository;
+        List<Cliente> existentes = clienteRepository.obtenerTodos();
+        for (Cliente cliente : existentes) {
+            contadorId.accumulateAndGet(cliente.getId() + 1, Math::max);
+        }
+        this.indiceNombres = new IndiceDifuso<>(Cliente::getId,
+                cliente -> cliente.getNombre() + " " + cliente.getEmail());
+        indiceNombres.construir(existentes, ejecutor);
+        clienteRepository.agregarOyente(indiceNombres);
     }
     
     /**
      * Constructor por defecto que inicializa el repositorio.
      */
     public ClienteService() {
-        this.clienteRepository = new ClienteRepository();
+        this(new ClienteRepositoryEnMemoria());
     }
     
     /**
@@ -54,17 +78,14 @@ public class ClienteService {
             throw new IllegalArgumentException("El formato del email no es válido");
         }
         
-        // Verificar si ya existe un cliente con el mismo email
-        List<Cliente> clientesExistentes = clienteRepository.obtenerTodos();
-        boolean emailExiste = clientesExistentes.stream()
-                .anyMatch(cliente -> cliente.getEmail().equalsIgnoreCase(email.trim()));
-        
-        if (emailExiste) {
+        // Verificar si ya existe un cliente con el mismo email; el filtro del
+        // repositorio descarta sin recorrerlo los emails que seguro son nuevos
+        if (clienteRepository.existeEmail(email, 0)) {
             throw new IllegalArgumentException("Ya existe un cliente con este email");
         }
         
         // Crear y guardar el nuevo cliente
-        Cliente nuevoCliente = new Cliente(contadorId++, nombre.trim(), email.trim());
+        Cliente nuevoCliente = new Cliente(contadorId.getAndIncrement(), nombre.trim(), email.trim());
         clienteRepository.guardar(nuevoCliente);
         
         return nuevoCliente;
@@ -94,6 +115,43 @@ public class ClienteService {
         return clienteRepository.buscarPorId(id);
     }
     
+    /**
+     * Busca clientes cuyo nombre o email se parece al texto indicado, tolerando errores de escritura.
+     * 
+     * @param texto nombre, email o parte de ellos, posiblemente mal escrito
+     * @param limite número máximo de clientes a devolver
+     * @return clientes ordenados del más al menos parecido
+     * @throws IllegalArgumentException si el texto está vacío o el límite no es positivo
+     */
+    public List<Cliente> buscarClientesSimilares(String texto, int limite) {
+        if (texto == null || texto.trim().isEmpty()) {
+            throw new IllegalArgumentException("El texto de búsqueda no puede estar vacío");
+        }
+        
+        EventoBusqueda evento = Grabacion.activa() ? EventoBusqueda.iniciar() : null;
+        List<Cliente> encontrados = new ArrayList<>();
+        for (Coincidencia coincidencia : indiceNombres.buscar(texto, limite)) {
+            Cliente cliente = clienteRepository.buscarPorId(coincidencia.getId());
+            if (cliente != null) {
+                encontrados.add(cliente);
+            }
+        }
+        if (evento != null) {
+            evento.terminar(EventoBusqueda.CLIENTES_SIMILARES, texto, limite, encontrados.size());
+        }
+        return encontrados;
+    }
+    
+    /**
+     * Obtiene los filtros de Bloom de emails del repositorio, con sus métricas
+     * de falsos positivos.
+     * 
+     * @return filtros de emails, uno por fragmento
+     */
+    public List<FiltroBloomContador<Cliente>> obtenerFiltrosEmail() {
+        return clienteRepository.obtenerFiltrosEmail();
+    }
+    
     /**
      * Obtiene todos los clientes del sistema.
      * 
@@ -103,6 +161,18 @@ public class ClienteService {
         return clienteRepository.obtenerTodos();
     }
     
+    /**
+     * Obtiene una página de clientes ordenada por ID.
+     * 
+     * @param cursor cursor devuelto en la página anterior, o null para la primera página
+     * @param tamano número máximo de clientes por página
+     * @return la página de clientes solicitada
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    public Pagina<Cliente> obtenerClientesPaginados(String cursor, int tamano) {
+        return clienteRepository.obtenerPagina(cursor, tamano);
+    }
+    
     /**
      * Obtiene todos los clientes activos del sistema.
      * 
@@ -141,19 +211,16 @@ public class ClienteService {
         }
         
         // Verificar si el email ya está en uso por otro cliente
-        List<Cliente> clientesExistentes = clienteRepository.obtenerTodos();
-        boolean emailExiste = clientesExistentes.stream()
-                .anyMatch(c -> c.getId() != id && c.getEmail().equalsIgnoreCase(email.trim()));
-        
-        if (emailExiste) {
+        if (clienteRepository.existeEmail(email, id)) {
             throw new IllegalArgumentException("Ya existe otro cliente con este email");
         }
         
-        // Actualizar información
-        cliente.actualizarInformacion(nombre.trim(), email.trim(), cliente.isActivo());
-        clienteRepository.guardar(cliente);
-        
-        return true;
+        // Actualizar información conservando el estado vigente del cliente
+        return Reintentos.conReintentos(() -> {
+            Cliente vigente = clienteRepository.buscarPorId(id);
+            return vigente != null && clienteRepository.actualizar(id, vigente.getVersion(),
+                    c -> c.actualizarInformacion(nombre.trim(), email.trim(), c.isActivo())) != null;
+        });
     }
     
     /**
@@ -163,13 +230,11 @@ public class ClienteService {
      * @return true si se desactivó correctamente, false en caso contrario
      */
     public boolean desactivarCliente(int id) {
-        Cliente cliente = clienteRepository.buscarPorId(id);
-        if (cliente != null) {
-            cliente.setActivo(false);
-            clienteRepository.guardar(cliente);
-            return true;
-        }
-        return false;
+        return Reintentos.conReintentos(() -> {
+            Cliente cliente = clienteRepository.buscarPorId(id);
+            return cliente != null
+                    && clienteRepository.actualizar(id, cliente.getVersion(), c -> c.setActivo(false)) != null;
+        });
     }
     
     /**
@@ -179,13 +244,11 @@ public class ClienteService {
      * @return true si se reactivó correctamente, false en caso contrario
      */
     public boolean reactivarCliente(int id) {
-        Cliente cliente = clienteRepository.buscarPorId(id);
-        if (cliente != null) {
-            cliente.setActivo(true);
-            clienteRepository.guardar(cliente);
-            return true;
-        }
-        return false;
+        return Reintentos.conReintentos(() -> {
+            Cliente cliente = clienteRepository.buscarPorId(id);
+            return cliente != null
+                    && clienteRepository.actualizar(id, cliente.getVersion(), c -> c.setActivo(true)) != null;
+        });
     }
     
     /**
@@ -201,4 +264,59 @@ public class ClienteService {
         String regex = "^[A-Za-z0-9+_.-]+@(.+)$";
         return email.matches(regex) && email.contains("@") && email.contains(".");
     }
+    
+    /**
+     * Establece el ejecutor de las operaciones asíncronas del servicio.
+     * 
+     * @param ejecutor ejecutor a utilizar
+     * @throws IllegalArgumentException si el ejecutor es nulo
+     */
+    public void setEjecutor(Executor ejecutor) {
+        if (ejecutor == null) {
+            throw new IllegalArgumentException("El ejecutor no puede ser nulo");
+        }
+        this.ejecutor = ejecutor;
+    }
+    
+    /**
+     * Versión asíncrona de {@link #agregarCliente}.
+     * 
+     * @param nombre nombre del cliente
+     * @param email email del cliente
+     * @return futuro con el cliente creado
+     */
+    public CompletableFuture<Cliente> agregarClienteAsync(String nombre, String email) {
+        return CompletableFuture.supplyAsync(() -> agregarCliente(nombre, email), ejecutor);
+    }
+    
+    /**
+     * Versión asíncrona de {@link #buscarCliente}.
+     * 
+     * @param id identificador del cliente a buscar
+     * @return futuro con el cliente encontrado o null si no existe
+     */
+    public CompletableFuture<Cliente> buscarClienteAsync(int id) {
+        return CompletableFuture.supplyAsync(() -> buscarCliente(id), ejecutor);
+    }
+    
+    /**
+     * Versión asíncrona de {@link #obtenerClientesActivos}.
+     * 
+     * @return futuro con la lista de clientes activos
+     */
+    public CompletableFuture<List<Cliente>> obtenerClientesActivosAsync() {
+        return CompletableFuture.supplyAsync(() -> obtenerClientesActivos(), ejecutor);
+    }
+    
+    /**
+     * Versión asíncrona de {@link #actualizarCliente}.
+     * 
+     * @param id identificador del cliente a actualizar
+     * @param nombre nuevo nombre del cliente
+     * @param email nuevo email del cliente
+     * @return futuro con true si se actualizó correctamente
+     */
+    public CompletableFuture<Boolean> actualizarClienteAsync(int id, String nombre, String email) {
+        return CompletableFuture.supplyAsync(() -> actualizarCliente(id, nombre, email), ejecutor);
+    }
 }
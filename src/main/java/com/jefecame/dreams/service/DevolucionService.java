@@ -0,0 +1,335 @@
+package com.jefecame.dreams.service;
+
+import com.jefecame.dreams.model.DetalleDevolucion;
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.Devolucion;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.TipoDevolucion;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.DevolucionRepository;
+import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
+import com.jefecame.dreams.repository.VentaRepository;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio para la gestión de devoluciones y reembolsos sobre ventas completadas.
+ * 
+ * Una devolución no modifica la venta original: se registra ligada a ella y el
+ * importe de cada línea se prorratea por unidad. Las devoluciones parciales de
+ * una misma línea se calculan de forma que, al devolver todas sus unidades, el
+ * reembolso suma exactamente el importe cobrado.
+ * 
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class DevolucionService {
+    
+    private DevolucionRepository devolucionRepository;
+    private VentaRepository ventaRepository;
+    private ProductoRepository productoRepository;
+    
+    /**
+     * Constructor que inicializa el servicio con los repositorios necesarios.
+     * 
+     * @param devolucionRepository repositorio de devoluciones
+     * @param ventaRepository repositorio de ventas
+     * @param productoRepository repositorio de productos
+     */
+    public DevolucionService(DevolucionRepository devolucionRepository, VentaRepository ventaRepository,
+                             ProductoRepository productoRepository) {
+        this.devolucionRepository = devolucionRepository;
+        this.ventaRepository = ventaRepository;
+        this.productoRepository = productoRepository;
+    }
+    
+    /**
+     * Constructor por defecto que inicializa todos los repositorios.
+     */
+    public DevolucionService() {
+        this(new DevolucionRepository(), new VentaRepositoryEnMemoria(), new ProductoRepositoryEnMemoria());
+    }
+    
+    /**
+     * Registra la devolución de unidades de una línea; la mercancía vuelve al stock.
+     * 
+     * @param venta venta completada
+     * @param idDetalleVenta identificador de la línea a devolver
+     * @param cantidad unidades devueltas
+     * @param motivo motivo de la devolución
+     * @return la devolución registrada
+     * @throws IllegalArgumentException si la venta, la línea o la cantidad son inválidas
+     */
+    public Devolucion devolverProducto(Venta venta, int idDetalleVenta, int cantidad, String motivo) {
+        return registrarDevolucion(venta, Map.of(idDetalleVenta, cantidad), TipoDevolucion.DEVOLUCION, motivo);
+    }
+    
+    /**
+     * Registra el reembolso de unidades de una línea sin regresar la mercancía al stock,
+     * por ejemplo cuando el producto llegó dañado.
+     * 
+     * @param venta venta completada
+     * @param idDetalleVenta identificador de la línea a reembolsar
+     * @param cantidad unidades reembolsadas
+     * @param motivo motivo del reembolso
+     * @return la devolución registrada
+     * @throws IllegalArgumentException si la venta, la línea o la cantidad son inválidas
+     */
+    public Devolucion reembolsarProducto(Venta venta, int idDetalleVenta, int cantidad, String motivo) {
+        return registrarDevolucion(venta, Map.of(idDetalleVenta, cantidad), TipoDevolucion.REEMBOLSO, motivo);
+    }
+    
+    /**
+     * Registra la devolución de todas las unidades que aún no se han devuelto de una venta.
+     * 
+     * @param venta venta completada
+     * @param motivo motivo de la devolución
+     * @return la devolución registrada
+     * @throws IllegalArgumentException si la venta es inválida o ya se devolvió por completo
+     */
+    public Devolucion devolverVenta(Venta venta, String motivo) {
+        Venta vigente = validarVenta(venta);
+        List<Devolucion> previas = devolucionRepository.obtenerPorVenta(vigente.getId());
+        
+        Map<Integer, Integer> pendientes = new LinkedHashMap<>();
+        for (DetalleVenta detalle : vigente.getProductosVenta()) {
+            int restantes = detalle.getCantidad() - unidadesDevueltas(previas, detalle.getId());
+            if (restantes > 0) {
+                pendientes.put(detalle.getId(), restantes);
+            }
+        }
+        if (pendientes.isEmpty()) {
+            throw new IllegalArgumentException("La venta ya fue devuelta por completo");
+        }
+        
+        return registrarDevolucion(vigente, pendientes, TipoDevolucion.DEVOLUCION, motivo);
+    }
+    
+    /**
+     * Registra una devolución con varias líneas de una venta completada.
+     * 
+     * Las unidades disponibles se validan contra las devoluciones previas de la
+     * venta de forma atómica, así que dos devoluciones concurrentes no pueden
+     * devolver más unidades de las vendidas. En una {@link TipoDevolucion#DEVOLUCION}
+     * las unidades regresan al stock de la ubicación que hizo la venta.
+     * 
+     * @param venta venta completada
+     * @param cantidades unidades a devolver por identificador de detalle de venta
+     * @param tipo tipo de devolución
+     * @param motivo motivo de la devolución
+     * @return la devolución registrada
+     * @throws IllegalArgumentException si la venta, alguna línea o alguna cantidad son inválidas
+     */
+    public Devolucion registrarDevolucion(Venta venta, Map<Integer, Integer> cantidades, TipoDevolucion tipo,
+                                          String motivo) {
+        Venta vigente = validarVenta(venta);
+        if (cantidades == null || cantidades.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos una línea a devolver");
+        }
+        if (tipo == null) {
+            throw new IllegalArgumentException("El tipo de devolución no puede ser nulo");
+        }
+        
+        List<DetalleVenta> lineas = vigente.getProductosVenta();
+        Devolucion devolucion = devolucionRepository.registrar(vigente.getId(), previas -> {
+            List<DetalleDevolucion> detalles = new ArrayList<>(cantidades.size());
+            for (Map.Entry<Integer, Integer> entrada : cantidades.entrySet()) {
+                DetalleVenta linea = buscarLinea(lineas, entrada.getKey());
+                int cantidad = entrada.getValue();
+                if (cantidad <= 0) {
+                    throw new IllegalArgumentException("La cantidad a devolver debe ser mayor a 0");
+                }
+                
+                int devueltas = unidadesDevueltas(previas, linea.getId());
+                if (devueltas + cantidad > linea.getCantidad()) {
+                    throw new IllegalArgumentException("Solo quedan " + (linea.getCantidad() - devueltas)
+                            + " unidades por devolver del detalle " + linea.getId());
+                }
+                
+                detalles.add(new DetalleDevolucion(linea.getId(), linea.getIdProducto(), cantidad,
+                        prorratear(linea.getSubtotalCentavos(), devueltas, cantidad, linea.getCantidad()),
+                        prorratear(linea.getImpuestoCentavos(), devueltas, cantidad, linea.getCantidad())));
+            }
+            return new Devolucion(vigente.getId(), vigente.getIdCliente(), tipo,
+                    motivo != null ? motivo.trim() : null, detalles);
+        });
+        
+        if (tipo == TipoDevolucion.DEVOLUCION) {
+            for (DetalleDevolucion detalle : devolucion.getDetalles()) {
+                Producto producto = productoRepository.buscarPorId(detalle.getIdProducto());
+                if (producto != null) {
+                    producto.actualizarStock(vigente.getUbicacion(), detalle.getCantidad());
+                }
+            }
+        }
+        
+        return devolucion;
+    }
+    
+    /**
+     * Busca una devolución por su identificador.
+     * 
+     * @param id identificador de la devolución
+     * @return la devolución encontrada o null si no existe
+     */
+    public Devolucion buscarDevolucion(int id) {
+        return devolucionRepository.buscarPorId(id);
+    }
+    
+    /**
+     * Obtiene las devoluciones de una venta.
+     * 
+     * @param idVenta identificador de la venta original
+     * @return lista de devoluciones en el orden en que se registraron
+     */
+    public List<Devolucion> obtenerDevolucionesPorVenta(int idVenta) {
+        return devolucionRepository.obtenerPorVenta(idVenta);
+    }
+    
+    /**
+     * Obtiene todas las devoluciones del sistema.
+     * 
+     * @return lista de devoluciones ordenada por ID
+     */
+    public List<Devolucion> obtenerTodasLasDevoluciones() {
+        return devolucionRepository.obtenerTodas();
+    }
+    
+    /**
+     * Obtiene las unidades de una línea que aún se pueden devolver.
+     * 
+     * @param venta venta original
+     * @param idDetalleVenta identificador de la línea
+     * @return unidades vendidas menos las ya devueltas
+     * @throws IllegalArgumentException si la línea no pertenece a la venta
+     */
+    public int obtenerUnidadesPorDevolver(Venta venta, int idDetalleVenta) {
+        if (venta == null) {
+            throw new IllegalArgumentException("La venta no puede ser nula");
+        }
+        DetalleVenta linea = buscarLinea(venta.getProductosVenta(), idDetalleVenta);
+        return linea.getCantidad() - unidadesDevueltas(devolucionRepository.obtenerPorVenta(venta.getId()), idDetalleVenta);
+    }
+    
+    /**
+     * Obtiene el importe reembolsado (antes de impuestos) de todas las devoluciones.
+     * 
+     * @return importe total reembolsado
+     */
+    public BigDecimal obtenerTotalReembolsado() {
+        return BigDecimal.valueOf(devolucionRepository.totalReembolsadoCentavos(), 2);
+    }
+    
+    /**
+     * Obtiene el ingreso neto (antes de impuestos): lo vendido en ventas completadas menos lo reembolsado.
+     * 
+     * @return ingreso neto
+     */
+    public BigDecimal obtenerIngresoNeto() {
+        long vendido = ventaRepository.getTablaHechos().totalVendidoCentavos();
+        return BigDecimal.valueOf(vendido - devolucionRepository.totalReembolsadoCentavos(), 2);
+    }
+    
+    /**
+     * Obtiene el total neto de una venta: lo cobrado, impuestos incluidos, menos lo reembolsado.
+     * 
+     * @param venta venta original
+     * @return total neto de la venta
+     * @throws IllegalArgumentException si la venta es nula
+     */
+    public BigDecimal obtenerTotalNetoVenta(Venta venta) {
+        if (venta == null) {
+            throw new IllegalArgumentException("La venta no puede ser nula");
+        }
+        return BigDecimal.valueOf(venta.getTotalCentavos()
+                - devolucionRepository.reembolsadoPorVentaCentavos(venta.getId()), 2);
+    }
+    
+    /**
+     * Obtiene el importe neto comprado (antes de impuestos) por un cliente.
+     * 
+     * @param clienteId identificador del cliente
+     * @return importe comprado menos lo reembolsado al cliente
+     */
+    public BigDecimal obtenerTotalNetoPorCliente(int clienteId) {
+        long comprado = ventaRepository.getTablaHechos().totalPorClienteCentavos(clienteId);
+        return BigDecimal.valueOf(comprado - devolucionRepository.reembolsadoPorClienteCentavos(clienteId), 2);
+    }
+    
+    /**
+     * Obtiene las unidades netas vendidas de un producto: vendidas menos devueltas.
+     * 
+     * @param idProducto identificador del producto
+     * @return unidades netas vendidas
+     */
+    public long obtenerUnidadesNetasVendidas(int idProducto) {
+        return ventaRepository.getTablaHechos().unidadesVendidas(idProducto)
+                - devolucionRepository.unidadesDevueltas(idProducto);
+    }
+    
+    /**
+     * Valida que la venta exista y esté completada, y obtiene su versión almacenada.
+     * 
+     * @param venta venta a validar
+     * @return la venta almacenada en el repositorio
+     * @throws IllegalArgumentException si la venta es nula, no existe o no está completada
+     */
+    private Venta validarVenta(Venta venta) {
+        if (venta == null) {
+            throw new IllegalArgumentException("La venta no puede ser nula");
+        }
+        
+        Venta vigente = ventaRepository.buscarPorId(venta.getId(), venta.getIdCliente());
+        if (vigente == null) {
+            throw new IllegalArgumentException("La venta no existe en el sistema");
+        }
+        
+        if (vigente.getEstado() != EstadoVenta.COMPLETADA) {
+            throw new IllegalArgumentException("Solo se pueden devolver productos de ventas COMPLETADAS");
+        }
+        
+        return vigente;
+    }
+    
+    private static DetalleVenta buscarLinea(List<DetalleVenta> lineas, int idDetalleVenta) {
+        for (DetalleVenta linea : lineas) {
+            if (linea.getId() == idDetalleVenta) {
+                return linea;
+            }
+        }
+        throw new IllegalArgumentException("La venta no tiene un detalle con ID: " + idDetalleVenta);
+    }
+    
+    private static int unidadesDevueltas(List<Devolucion> devoluciones, int idDetalleVenta) {
+        int unidades = 0;
+        for (Devolucion devolucion : devoluciones) {
+            unidades += devolucion.unidadesDevueltas(idDetalleVenta);
+        }
+        return unidades;
+    }
+    
+    /**
+     * Calcula la parte de un importe que corresponde a las unidades devueltas.
+     * Se prorratea el acumulado antes y después de la devolución, de modo que
+     * la suma de devoluciones parciales de una línea nunca excede su importe.
+     * 
+     * @param importeCentavos importe de la línea en centavos
+     * @param devueltas unidades devueltas previamente
+     * @param cantidad unidades de esta devolución
+     * @param vendidas unidades vendidas en la línea
+     * @return importe en centavos de esta devolución
+     */
+    private static long prorratear(long importeCentavos, int devueltas, int cantidad, int vendidas) {
+        return parte(importeCentavos, devueltas + cantidad, vendidas) - parte(importeCentavos, devueltas, vendidas);
+    }
+    
+    private static long parte(long importeCentavos, int unidades, int vendidas) {
+        return (importeCentavos * unidades * 2 + vendidas) / (2L * vendidas);
+    }
+}
@@ -0,0 +1,30 @@
+package com.jefecame.dreams.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ejecutor por defecto de las operaciones asíncronas de los servicios.
+ *
+ * Crea un hilo virtual por tarea, de modo que una operación que espera
+ * E/S no retiene un hilo de plataforma.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public final class EjecutorServicios {
+
+    private static final ExecutorService POR_DEFECTO = Executors.newVirtualThreadPerTaskExecutor();
+
+    private EjecutorServicios() {
+    }
+
+    /**
+     * Obtiene el ejecutor compartido por defecto.
+     *
+     * @return ejecutor de un hilo virtual por tarea
+     */
+    public static ExecutorService porDefecto() {
+        return POR_DEFECTO;
+    }
+}
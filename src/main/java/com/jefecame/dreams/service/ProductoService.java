@@ -1,9 +1,21 @@
 package com.jefecame.dreams.service;
 
+import com.jefecame.dreams.busqueda.Coincidencia;
+import com.jefecame.dreams.busqueda.IndiceDifuso;
+import com.jefecame.dreams.eventos.EventoBusqueda;
+import com.jefecame.dreams.eventos.Grabacion;
+import com.jefecame.dreams.inventario.RedUbicaciones;
 import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.repository.ConflictoVersionException;
+import com.jefecame.dreams.repository.FiltroBloomContador;
 import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
+import com.jefecame.dreams.repository.Pagina;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Servicio para la gestión de productos.
@@ -15,28 +27,36 @@ import java.util.List;
 public class ProductoService {
     
     private ProductoRepository productoRepository;
+    private IndiceDifuso<Producto> indiceNombres;
+    private Executor ejecutor = EjecutorServicios.porDefecto();
     
     /**
      * Constructor que inicializa el servicio con un repositorio de productos.
+     * Los nombres de los productos ya cargados se indexan en paralelo para la
+     * búsqueda aproximada; el índice se mantiene al día con cada guardado.
      * 
      * @param productoRepository repositorio de productos a utilizar
      */
     public ProductoService(ProductoRepository productoRepository) {
         this.productoRepository = productoRepository;
+        List<Producto> existentes = productoRepository.obtenerTodos();
+        this.indiceNombres = new IndiceDifuso<>(Producto::getId, Producto::getNombre);
+        indiceNombres.construir(existentes, ejecutor);
+        productoRepository.agregarOyente(indiceNombres);
     }
     
     /**
      * Constructor por defecto que inicializa el repositorio.
      */
     public ProductoService() {
-        this.productoRepository = new ProductoRepository();
+        this(new ProductoRepositoryEnMemoria());
     }
     
     /**
      * Agrega un nuevo producto al sistema.
      * 
      * @param producto producto a agregar
-     * @throws IllegalArgumentException si el producto es inválido
+     * @throws IllegalArgumentException si el producto es inválido o ya está registrado
      */
     public void agregarProducto(Producto producto) {
         // Validaciones
@@ -56,17 +76,18 @@ public class ProductoService {
             throw new IllegalArgumentException("El stock del producto no puede ser negativo");
         }
         
-        // Verificar si ya existe un producto con el mismo nombre
-        List<Producto> productosExistentes = productoRepository.obtenerTodos();
-        boolean nombreExiste = productosExistentes.stream()
-                .anyMatch(p -> p.getNombre().equalsIgnoreCase(producto.getNombre().trim()) && p.getId() != producto.getId());
-        
-        if (nombreExiste) {
+        // Verificar si ya existe un producto con el mismo nombre; el filtro del
+        // repositorio descarta sin recorrerlo los nombres que seguro son nuevos
+        if (productoRepository.existeNombre(producto.getNombre(), producto.getId())) {
             throw new IllegalArgumentException("Ya existe un producto con este nombre");
         }
         
-        // Guardar el producto
-        productoRepository.guardar(producto);
+        // Guardar el producto; uno ya registrado se modifica con los métodos de actualización
+        try {
+            productoRepository.guardar(producto);
+        } catch (ConflictoVersionException e) {
+            throw new IllegalArgumentException("El producto ya está registrado en el sistema", e);
+        }
     }
     
     /**
@@ -94,7 +115,7 @@ public class ProductoService {
     }
     
     /**
-     * Actualiza el stock de un producto.
+     * Actualiza el stock de un producto en la ubicación principal.
      * 
      * @param idProducto identificador del producto
      * @param cantidad cantidad a agregar (positiva) o quitar (negativa)
@@ -102,23 +123,60 @@ public class ProductoService {
      * @throws IllegalArgumentException si la cantidad resultante sería negativa
      */
     public boolean actualizarStock(int idProducto, int cantidad) {
+        return actualizarStock(idProducto, RedUbicaciones.porDefecto().getPrincipal().getIndice(), cantidad);
+    }
+    
+    /**
+     * Actualiza el stock de un producto en una ubicación.
+     * 
+     * El cambio se aplica directamente sobre el contador de la ubicación, sin
+     * pasar por la versión del producto, de modo que no compite con las ventas
+     * de otras ubicaciones.
+     * 
+     * @param idProducto identificador del producto
+     * @param ubicacion índice de la ubicación
+     * @param cantidad cantidad a agregar (positiva) o quitar (negativa)
+     * @return true si se actualizó correctamente, false si el producto no existe o la cantidad es cero
+     * @throws IllegalArgumentException si la ubicación no existe o la cantidad resultante sería negativa
+     */
+    public boolean actualizarStock(int idProducto, int ubicacion, int cantidad) {
+        RedUbicaciones.porDefecto().obtener(ubicacion);
         Producto producto = productoRepository.buscarPorId(idProducto);
-        if (producto == null) {
+        if (producto == null || cantidad == 0) {
             return false;
         }
         
-        int nuevoStock = producto.getStock() + cantidad;
-        if (nuevoStock < 0) {
+        if (cantidad > 0) {
+            producto.devolverStock(ubicacion, cantidad);
+        } else if (!producto.getInventario().reservar(ubicacion, -cantidad)) {
             throw new IllegalArgumentException("El stock resultante no puede ser negativo. Stock actual: " + 
-                                             producto.getStock() + ", cantidad solicitada: " + cantidad);
+                                             producto.getStock(ubicacion) + ", cantidad solicitada: " + cantidad);
         }
-        
-        producto.actualizarStock(cantidad);
-        productoRepository.guardar(producto);
-        
         return true;
     }
     
+    /**
+     * Mueve stock de un producto entre dos ubicaciones, por ejemplo de un centro de distribución a una tienda.
+     * 
+     * @param idProducto identificador del producto
+     * @param origen índice de la ubicación que entrega
+     * @param destino índice de la ubicación que recibe
+     * @param cantidad cantidad a mover
+     * @return true si se movió, false si el producto no existe o el origen no tiene suficiente stock
+     * @throws IllegalArgumentException si alguna ubicación no existe o la cantidad no es positiva
+     */
+    public boolean transferirStock(int idProducto, int origen, int destino, int cantidad) {
+        RedUbicaciones red = RedUbicaciones.porDefecto();
+        red.obtener(origen);
+        red.obtener(destino);
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a 0");
+        }
+        
+        Producto producto = productoRepository.buscarPorId(idProducto);
+        return producto != null && producto.getInventario().transferir(origen, destino, cantidad);
+    }
+    
     /**
      * Obtiene todos los productos del sistema.
      * 
@@ -128,6 +186,18 @@ public class ProductoService {
         return productoRepository.obtenerTodos();
     }
     
+    /**
+     * Obtiene una página de productos ordenada por ID.
+     * 
+     * @param cursor cursor devuelto en la página anterior, o null para la primera página
+     * @param tamano número máximo de productos por página
+     * @return la página de productos solicitada
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    public Pagina<Producto> obtenerProductosPaginados(String cursor, int tamano) {
+        return productoRepository.obtenerPagina(cursor, tamano);
+    }
+    
     /**
      * Obtiene todos los productos activos del sistema.
      * 
@@ -157,7 +227,49 @@ public class ProductoService {
             throw new IllegalArgumentException("El nombre de búsqueda no puede estar vacío");
         }
         
-        return productoRepository.buscarPorNombre(nombre);
+        EventoBusqueda evento = Grabacion.activa() ? EventoBusqueda.iniciar() : null;
+        List<Producto> encontrados = productoRepository.buscarPorNombre(nombre);
+        if (evento != null) {
+            evento.terminar(EventoBusqueda.PRODUCTOS_POR_NOMBRE, nombre, 0, encontrados.size());
+        }
+        return encontrados;
+    }
+    
+    /**
+     * Busca productos cuyo nombre se parece al texto indicado, tolerando errores de escritura.
+     * 
+     * @param texto nombre o parte del nombre, posiblemente mal escrito
+     * @param limite número máximo de productos a devolver
+     * @return productos ordenados del más al menos parecido
+     * @throws IllegalArgumentException si el texto está vacío o el límite no es positivo
+     */
+    public List<Producto> buscarProductosSimilares(String texto, int limite) {
+        if (texto == null || texto.trim().isEmpty()) {
+            throw new IllegalArgumentException("El texto de búsqueda no puede estar vacío");
+        }
+        
+        EventoBusqueda evento = Grabacion.activa() ? EventoBusqueda.iniciar() : null;
+        List<Producto> encontrados = new ArrayList<>();
+        for (Coincidencia coincidencia : indiceNombres.buscar(texto, limite)) {
+            Producto producto = productoRepository.buscarPorId(coincidencia.getId());
+            if (producto != null) {
+                encontrados.add(producto);
+            }
+        }
+        if (evento != null) {
+            evento.terminar(EventoBusqueda.PRODUCTOS_SIMILARES, texto, limite, encontrados.size());
+        }
+        return encontrados;
+    }
+    
+    /**
+     * Obtiene los filtros de Bloom de nombres del repositorio, con sus
+     * métricas de falsos positivos.
+     * 
+     * @return filtros de nombres, uno por fragmento
+     */
+    public List<FiltroBloomContador<Producto>> obtenerFiltrosNombre() {
+        return productoRepository.obtenerFiltrosNombre();
     }
     
     /**
@@ -185,20 +297,18 @@ public class ProductoService {
         }
         
         // Verificar si el nombre ya está en uso por otro producto
-        List<Producto> productosExistentes = productoRepository.obtenerTodos();
-        boolean nombreExiste = productosExistentes.stream()
-                .anyMatch(p -> p.getId() != id && p.getNombre().equalsIgnoreCase(nombre.trim()));
-        
-        if (nombreExiste) {
+        if (productoRepository.existeNombre(nombre, id)) {
             throw new IllegalArgumentException("Ya existe otro producto con este nombre");
         }
         
-        // Actualizar información
-        producto.setNombre(nombre.trim());
-        producto.setPrecio(precio);
-        productoRepository.guardar(producto);
-        
-        return true;
+        // Actualizar información sin perder cambios concurrentes de otros escritores
+        return Reintentos.conReintentos(() -> {
+            Producto vigente = productoRepository.buscarPorId(id);
+            return vigente != null && productoRepository.actualizar(id, vigente.getVersion(), p -> {
+                p.setNombre(nombre.trim());
+                p.setPrecio(precio);
+            }) != null;
+        });
     }
     
     /**
@@ -208,13 +318,11 @@ public class ProductoService {
      * @return true si se desactivó correctamente, false en caso contrario
      */
     public boolean desactivarProducto(int id) {
-        Producto producto = productoRepository.buscarPorId(id);
-        if (producto != null) {
-            producto.setActivo(false);
-            productoRepository.guardar(producto);
-            return true;
-        }
-        return false;
+        return Reintentos.conReintentos(() -> {
+            Producto producto = productoRepository.buscarPorId(id);
+            return producto != null
+                    && productoRepository.actualizar(id, producto.getVersion(), p -> p.setActivo(false)) != null;
+        });
     }
     
     /**
@@ -224,13 +332,28 @@ public class ProductoService {
      * @return true si se reactivó correctamente, false en caso contrario
      */
     public boolean reactivarProducto(int id) {
-        Producto producto = productoRepository.buscarPorId(id);
-        if (producto != null) {
-            producto.setActivo(true);
-            productoRepository.guardar(producto);
-            return true;
+        return Reintentos.conReintentos(() -> {
+            Producto producto = productoRepository.buscarPorId(id);
+            return producto != null
+                    && productoRepository.actualizar(id, producto.getVersion(), p -> p.setActivo(true)) != null;
+        });
+    }
+    
+    /**
+     * Valida la disponibilidad de un producto en una ubicación.
+     * 
+     * @param idProducto identificador del producto
+     * @param ubicacion índice de la ubicación
+     * @param cantidadRequerida cantidad requerida
+     * @return true si la ubicación tiene suficiente stock y el producto está activo, false en caso contrario
+     */
+    public boolean validarDisponibilidad(int idProducto, int ubicacion, int cantidadRequerida) {
+        Producto producto = productoRepository.buscarPorId(idProducto);
+        if (producto == null) {
+            return false;
         }
-        return false;
+        
+        return producto.validarDisponibilidad(ubicacion, cantidadRequerida);
     }
     
     /**
@@ -238,7 +361,7 @@ public class ProductoService {
      * 
      * @param idProducto identificador del producto
      * @param cantidadRequerida cantidad requerida
-     * @return true si hay suficiente stock y el producto está activo, false en caso contrario
+     * @return true si hay suficiente stock en toda la red y el producto está activo, false en caso contrario
      */
     public boolean validarDisponibilidad(int idProducto, int cantidadRequerida) {
         Producto producto = productoRepository.buscarPorId(idProducto);
@@ -248,4 +371,69 @@ public class ProductoService {
         
         return producto.validarDisponibilidad(cantidadRequerida);
     }
+    
+    /**
+     * Establece el ejecutor de las operaciones asíncronas del servicio.
+     * 
+     * @param ejecutor ejecutor a utilizar
+     * @throws IllegalArgumentException si el ejecutor es nulo
+     */
+    public void setEjecutor(Executor ejecutor) {
+        if (ejecutor == null) {
+            throw new IllegalArgumentException("El ejecutor no puede ser nulo");
+        }
+        this.ejecutor = ejecutor;
+    }
+    
+    /**
+     * Versión asíncrona de {@link #agregarProducto}.
+     * 
+     * @param producto producto a agregar
+     * @return futuro que se completa al guardar el producto
+     */
+    public CompletableFuture<Void> agregarProductoAsync(Producto producto) {
+        return CompletableFuture.runAsync(() -> agregarProducto(producto), ejecutor);
+    }
+    
+    /**
+     * Versión asíncrona de {@link #buscarProducto}.
+     * 
+     * @param id identificador del producto a buscar
+     * @return futuro con el producto encontrado o null si no existe
+     */
+    public CompletableFuture<Producto> buscarProductoAsync(int id) {
+        return CompletableFuture.supplyAsync(() -> buscarProducto(id), ejecutor);
+    }
+    
+    /**
+     * Versión asíncrona de {@link #actualizarStock}.
+     * 
+     * @param idProducto identificador del producto
+     * @param cantidad cantidad a agregar (positiva) o quitar (negativa)
+     * @return futuro con true si se actualizó correctamente
+     */
+    public CompletableFuture<Boolean> actualizarStockAsync(int idProducto, int cantidad) {
+        return CompletableFuture.supplyAsync(() -> actualizarStock(idProducto, cantidad), ejecutor);
+    }
+    
+    /**
+     * Versión asíncrona de {@link #validarDisponibilidad}.
+     * 
+     * @param idProducto identificador del producto
+     * @param cantidadRequerida cantidad requerida
+     * @return futuro con true si hay suficiente stock y el producto está activo
+     */
+    public CompletableFuture<Boolean> validarDisponibilidadAsync(int idProducto, int cantidadRequerida) {
+        return CompletableFuture.supplyAsync(() -> validarDisponibilidad(idProducto, cantidadRequerida), ejecutor);
+    }
+    
+    /**
+     * Versión asíncrona de {@link #buscarProductosPorNombre}.
+     * 
+     * @param nombre nombre o parte del nombre a buscar
+     * @return futuro con la lista de productos que coinciden
+     */
+    public CompletableFuture<List<Producto>> buscarProductosPorNombreAsync(String nombre) {
+        return CompletableFuture.supplyAsync(() -> buscarProductosPorNombre(nombre), ejecutor);
+    }
 }
@@ -0,0 +1,51 @@
+package com.jefecame.dreams.service;
+
+import com.jefecame.dreams.repository.ConflictoVersionException;
+import java.util.function.Supplier;
+
+/**
+ * Utilidad para reintentar operaciones que fallan por conflictos de versión.
+ *
+ * Cada intento debe volver a leer la entidad, de modo que el siguiente
+ * guardado se haga con la versión vigente.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public final class Reintentos {
+
+    /** Número máximo de intentos antes de propagar el conflicto */
+    public static final int MAXIMO_INTENTOS = 16;
+
+    private Reintentos() {
+    }
+
+    /**
+     * Ejecuta una operación reintentándola mientras falle por conflicto de versión.
+     *
+     * @param <T> tipo del resultado
+     * @param operacion operación a ejecutar
+     * @return el resultado de la operación
+     * @throws ConflictoVersionException si se agotan los intentos
+     */
+    public static <T> T conReintentos(Supplier<T> operacion) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return operacion.get();
+            } catch (ConflictoVersionException e) {
+                if (intento >= MAXIMO_INTENTOS) {
+                    throw e;
+                }
+                esperar(intento);
+            }
+        }
+    }
+
+    private static void esperar(int intento) {
+        if (intento < 4) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+}
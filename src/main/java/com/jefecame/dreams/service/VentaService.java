@@ -3,15 +3,34 @@ package com.jefecame.dreams.service;
 import com.jefecame.dreams.model.Venta;
 import com.jefecame.dreams.model.Cliente;
 import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.DetalleVenta;
 import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.RegionFiscal;
+import com.jefecame.dreams.eventos.EventoVenta;
+import com.jefecame.dreams.eventos.Grabacion;
+import com.jefecame.dreams.inventario.RedUbicaciones;
+import com.jefecame.dreams.promocion.MotorPromociones;
 import com.jefecame.dreams.repository.VentaRepository;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import com.jefecame.dreams.repository.Pagina;
 import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
 import com.jefecame.dreams.repository.ClienteRepository;
+import com.jefecame.dreams.repository.ClienteRepositoryEnMemoria;
+import com.jefecame.dreams.repository.LibroVentas;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.function.Predicate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Servicio para la gestión de ventas.
- * Contiene la lógica de negocio relacionada con las ventas.
+ * Contiene la lógica de negocio relacionada con las ventas. El inicio, las
+ * líneas agregadas, la finalización y la cancelación de cada venta emiten un
+ * {@link EventoVenta} de JDK Flight Recorder.
  * 
  * @author jefecame
  * @version 1.0.0
@@ -21,6 +40,10 @@ public class VentaService {
     private VentaRepository ventaRepository;
     private ProductoRepository productoRepository;
     private ClienteRepository clienteRepository;
+    private Executor ejecutor = EjecutorServicios.porDefecto();
+    private MotorPromociones motorPromociones = new MotorPromociones();
+    private RegionFiscal regionFiscal = RegionFiscal.GENERAL;
+    private int ubicacion = RedUbicaciones.porDefecto().getPrincipal().getIndice();
     
     /**
      * Constructor que inicializa el servicio con los repositorios necesarios.
@@ -39,9 +62,7 @@ public class VentaService {
      * Constructor por defecto que inicializa todos los repositorios.
      */
     public VentaService() {
-        this.ventaRepository = new VentaRepository();
-        this.productoRepository = new ProductoRepository();
-        this.clienteRepository = new ClienteRepository();
+        this(new VentaRepositoryEnMemoria(), new ProductoRepositoryEnMemoria(), new ClienteRepositoryEnMemoria());
     }
     
     /**
@@ -52,6 +73,35 @@ public class VentaService {
      * @throws IllegalArgumentException si el cliente es inválido
      */
     public Venta iniciarNuevaVenta(Cliente cliente) {
+        return iniciarNuevaVenta(cliente, ubicacion);
+    }
+    
+    /**
+     * Inicia una nueva venta para un cliente en una ubicación específica.
+     * 
+     * @param cliente cliente que realiza la compra
+     * @param ubicacion índice de la ubicación que vende
+     * @return la venta creada
+     * @throws IllegalArgumentException si el cliente o la ubicación son inválidos
+     */
+    public Venta iniciarNuevaVenta(Cliente cliente, int ubicacion) {
+        EventoVenta evento = Grabacion.activa() ? EventoVenta.iniciar() : null;
+        Venta nuevaVenta = null;
+        RuntimeException fallo = null;
+        try {
+            nuevaVenta = crearVenta(cliente, ubicacion);
+            return nuevaVenta;
+        } catch (RuntimeException e) {
+            fallo = e;
+            throw e;
+        } finally {
+            if (evento != null) {
+                evento.terminar(EventoVenta.INICIAR, nuevaVenta, nuevaVenta != null, fallo);
+            }
+        }
+    }
+    
+    private Venta crearVenta(Cliente cliente, int ubicacion) {
         // Validaciones
         if (cliente == null) {
             throw new IllegalArgumentException("El cliente no puede ser nulo");
@@ -67,8 +117,10 @@ public class VentaService {
             throw new IllegalArgumentException("No se puede crear una venta para un cliente inactivo");
         }
         
+        RedUbicaciones.porDefecto().obtener(ubicacion);
+        
         // Crear la nueva venta usando el cliente validado del repositorio
-        Venta nuevaVenta = new Venta(clienteExistente);
+        Venta nuevaVenta = new Venta(clienteExistente, regionFiscal, ubicacion);
         ventaRepository.guardar(nuevaVenta);
         
         return nuevaVenta;
@@ -84,6 +136,23 @@ public class VentaService {
      * @throws IllegalArgumentException si los parámetros son inválidos
      */
     public boolean agregarProductoAVenta(Venta venta, Producto producto, int cantidad) {
+        EventoVenta evento = Grabacion.activa() ? EventoVenta.iniciar() : null;
+        boolean agregado = false;
+        RuntimeException fallo = null;
+        try {
+            agregado = agregarLinea(venta, producto, cantidad);
+            return agregado;
+        } catch (RuntimeException e) {
+            fallo = e;
+            throw e;
+        } finally {
+            if (evento != null) {
+                evento.terminar(EventoVenta.AGREGAR_LINEA, venta, agregado, fallo);
+            }
+        }
+    }
+    
+    private boolean agregarLinea(Venta venta, Producto producto, int cantidad) {
         // Validaciones
         if (venta == null) {
             throw new IllegalArgumentException("La venta no puede ser nula");
@@ -105,20 +174,14 @@ public class VentaService {
             throw new IllegalArgumentException("No se puede agregar un producto inactivo a la venta");
         }
         
-        if (!producto.validarDisponibilidad(cantidad)) {
-            throw new IllegalArgumentException("Stock insuficiente. Stock disponible: " + producto.getStock());
-        }
-        
-        // Agregar el producto a la venta
-        boolean agregado = venta.agregarProducto(producto, cantidad);
-        
-        if (agregado) {
-            // Guardar los cambios en los repositorios
-            ventaRepository.guardar(venta);
-            productoRepository.guardar(producto); // Actualizar el stock del producto
+        if (!producto.validarDisponibilidad(venta.getUbicacion(), cantidad)) {
+            throw new IllegalArgumentException("Stock insuficiente en "
+                    + RedUbicaciones.porDefecto().obtener(venta.getUbicacion()).getClave()
+                    + ". Stock disponible: " + producto.getStock(venta.getUbicacion()));
         }
         
-        return agregado;
+        // Agregar el producto a la venta descontando el stock de su ubicación de forma atómica
+        return Reintentos.conReintentos(() -> aplicarCambio(venta, v -> agregarConStock(v, producto, cantidad)));
     }
     
     /**
@@ -129,6 +192,23 @@ public class VentaService {
      * @throws IllegalArgumentException si la venta es inválida
      */
     public boolean finalizarVenta(Venta venta) {
+        EventoVenta evento = Grabacion.activa() ? EventoVenta.iniciar() : null;
+        boolean finalizada = false;
+        RuntimeException fallo = null;
+        try {
+            finalizada = finalizar(venta);
+            return finalizada;
+        } catch (RuntimeException e) {
+            fallo = e;
+            throw e;
+        } finally {
+            if (evento != null) {
+                evento.terminar(EventoVenta.FINALIZAR, venta, finalizada, fallo);
+            }
+        }
+    }
+    
+    private boolean finalizar(Venta venta) {
         if (venta == null) {
             throw new IllegalArgumentException("La venta no puede ser nula");
         }
@@ -137,15 +217,16 @@ public class VentaService {
             throw new IllegalArgumentException("Solo se pueden finalizar ventas en estado PROCESANDO");
         }
         
-        if (venta.getProductosVenta().isEmpty()) {
+        if (venta.contarLineas() == 0) {
             throw new IllegalArgumentException("No se puede finalizar una venta sin productos");
         }
         
         // Finalizar la venta
-        boolean finalizada = venta.finalizarVenta();
+        boolean finalizada = Reintentos.conReintentos(() -> aplicarCambio(venta, Venta::finalizarVenta));
         
         if (finalizada) {
-            ventaRepository.guardar(venta);
+            ventaRepository.registrarVentaFinalizada(venta);
+            ventaRepository.archivarDetalles(venta, productoRepository::buscarPorId);
         }
         
         return finalizada;
@@ -159,6 +240,55 @@ public class VentaService {
      * @throws IllegalArgumentException si la venta es inválida
      */
     public boolean cancelarVenta(Venta venta) {
+        EventoVenta evento = Grabacion.activa() ? EventoVenta.iniciar() : null;
+        boolean cancelada = false;
+        RuntimeException fallo = null;
+        try {
+            cancelada = cancelar(venta);
+            return cancelada;
+        } catch (RuntimeException e) {
+            fallo = e;
+            throw e;
+        } finally {
+            if (evento != null) {
+                evento.terminar(EventoVenta.CANCELAR, venta, cancelada, fallo);
+            }
+        }
+    }
+    
+    /**
+     * Cancela una venta solo si no ha cambiado desde la versión observada, sin
+     * reintentar: si otro hilo la modificó después, la cancelación falla en lugar
+     * de aplicarse sobre la venta modificada. El stock vuelve a su ubicación en
+     * el mismo cambio versionado.
+     * 
+     * @param id identificador de la venta
+     * @param versionObservada versión con la que se decidió cancelar
+     * @return true si se canceló, false si no existe o ya no estaba en proceso
+     * @throws ConflictoVersionException si la venta cambió después de la versión observada
+     */
+    public boolean cancelarVentaSinCambios(int id, long versionObservada) {
+        EventoVenta evento = Grabacion.activa() ? EventoVenta.iniciar() : null;
+        boolean[] cancelada = new boolean[1];
+        Venta venta = null;
+        RuntimeException fallo = null;
+        try {
+            venta = ventaRepository.actualizar(id, versionObservada, v -> cancelada[0] = v.cancelarVenta());
+            if (cancelada[0]) {
+                ventaRepository.archivarDetalles(venta, productoRepository::buscarPorId);
+            }
+            return cancelada[0];
+        } catch (RuntimeException e) {
+            fallo = e;
+            throw e;
+        } finally {
+            if (evento != null) {
+                evento.terminar(EventoVenta.CANCELAR, venta, cancelada[0], fallo);
+            }
+        }
+    }
+    
+    private boolean cancelar(Venta venta) {
         if (venta == null) {
             throw new IllegalArgumentException("La venta no puede ser nula");
         }
@@ -167,18 +297,11 @@ public class VentaService {
             throw new IllegalArgumentException("Solo se pueden cancelar ventas en estado PROCESANDO");
         }
         
-        // Cancelar la venta (esto devuelve automáticamente el stock)
-        boolean cancelada = venta.cancelarVenta();
+        // Cancelar la venta; el stock vuelve a su ubicación dentro del mismo cambio versionado
+        boolean cancelada = Reintentos.conReintentos(() -> aplicarCambio(venta, Venta::cancelarVenta));
         
         if (cancelada) {
-            ventaRepository.guardar(venta);
-            
-            // Guardar los productos actualizados (con stock devuelto)
-            venta.getProductosVenta().forEach(detalle -> {
-                if (detalle.getProducto() != null) {
-                    productoRepository.guardar(detalle.getProducto());
-                }
-            });
+            ventaRepository.archivarDetalles(venta, productoRepository::buscarPorId);
         }
         
         return cancelada;
@@ -193,6 +316,18 @@ public class VentaService {
         return ventaRepository.obtenerTodas();
     }
     
+    /**
+     * Obtiene una página de ventas ordenada por ID.
+     * 
+     * @param cursor cursor devuelto en la página anterior, o null para la primera página
+     * @param tamano número máximo de ventas por página
+     * @return la página de ventas solicitada
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    public Pagina<Venta> obtenerVentasPaginadas(String cursor, int tamano) {
+        return ventaRepository.obtenerPagina(cursor, tamano);
+    }
+    
     /**
      * Obtiene todas las ventas por estado.
      * 
@@ -225,10 +360,12 @@ public class VentaService {
     }
     
     /**
-     * Busca una venta por su identificador.
+     * Busca una venta por su identificador. Si no está en memoria y el
+     * repositorio tiene un {@link LibroVentas}, se busca en el libro histórico.
      * 
      * @param id identificador de la venta
      * @return la venta encontrada o null si no existe
+     * @throws java.io.UncheckedIOException si falla la lectura del libro
      */
     public Venta buscarVenta(int id) {
         return ventaRepository.buscarPorId(id);
@@ -268,20 +405,37 @@ public class VentaService {
             throw new IllegalArgumentException("Solo se pueden remover productos de ventas en estado PROCESANDO");
         }
         
-        boolean removido = venta.removerProducto(idDetalleVenta);
+        // El stock de la línea vuelve a la ubicación de la venta dentro del mismo cambio versionado
+        return Reintentos.conReintentos(() -> aplicarCambio(venta, v -> v.removerProducto(idDetalleVenta)));
+    }
+    
+    /**
+     * Cambia la cantidad de una línea de una venta. La línea se remueve y se
+     * vuelve a agregar con la nueva cantidad, de modo que el stock, el
+     * descuento promocional y el impuesto se calculan de nuevo como en un
+     * alta; la línea recibe un nuevo ID. Si no hay stock para la nueva
+     * cantidad, la línea se vuelve a agregar con la cantidad anterior.
+     * 
+     * @param venta venta a modificar
+     * @param idDetalleVenta identificador del detalle de venta a cambiar
+     * @param cantidad nueva cantidad del producto
+     * @return true si se cambió la cantidad, false si la línea no existe o no hay stock
+     * @throws IllegalArgumentException si los parámetros son inválidos
+     */
+    public boolean cambiarCantidadEnVenta(Venta venta, int idDetalleVenta, int cantidad) {
+        if (venta == null) {
+            throw new IllegalArgumentException("La venta no puede ser nula");
+        }
+        
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a 0");
+        }
         
-        if (removido) {
-            ventaRepository.guardar(venta);
-            
-            // Actualizar los productos en el repositorio (stock devuelto)
-            venta.getProductosVenta().forEach(detalle -> {
-                if (detalle.getProducto() != null) {
-                    productoRepository.guardar(detalle.getProducto());
-                }
-            });
+        if (venta.getEstado() != EstadoVenta.PROCESANDO) {
+            throw new IllegalArgumentException("Solo se pueden modificar productos de ventas en estado PROCESANDO");
         }
         
-        return removido;
+        return Reintentos.conReintentos(() -> aplicarCambio(venta, v -> reemplazarLinea(v, idDetalleVenta, cantidad)));
     }
     
     /**
@@ -327,4 +481,265 @@ public class VentaService {
         Cliente cliente = clienteRepository.buscarPorId(clienteId);
         return cliente != null && cliente.isActivo();
     }
+    
+    /**
+     * Obtiene el importe vendido (antes de impuestos) de todas las ventas completadas.
+     * 
+     * @return importe total vendido
+     */
+    public BigDecimal obtenerTotalVendido() {
+        return BigDecimal.valueOf(ventaRepository.getTablaHechos().totalVendidoCentavos(), 2);
+    }
+    
+    /**
+     * Obtiene las unidades vendidas de un producto en ventas completadas.
+     * 
+     * @param idProducto identificador del producto
+     * @return unidades vendidas
+     */
+    public long obtenerUnidadesVendidas(int idProducto) {
+        return ventaRepository.getTablaHechos().unidadesVendidas(idProducto);
+    }
+    
+    /**
+     * Obtiene el importe comprado (antes de impuestos) por un cliente en ventas completadas.
+     * 
+     * @param clienteId identificador del cliente
+     * @return importe total comprado por el cliente
+     */
+    public BigDecimal obtenerTotalPorCliente(int clienteId) {
+        return BigDecimal.valueOf(ventaRepository.getTablaHechos().totalPorClienteCentavos(clienteId), 2);
+    }
+    
+    /**
+     * Obtiene el importe vendido (antes de impuestos) en un rango de fechas.
+     * 
+     * @param fechaInicio fecha de inicio del rango
+     * @param fechaFin fecha de fin del rango
+     * @return importe vendido en el rango
+     * @throws IllegalArgumentException si alguna fecha es nula
+     */
+    public BigDecimal obtenerTotalVendidoPorFecha(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        if (fechaInicio == null || fechaFin == null) {
+            throw new IllegalArgumentException("Las fechas del rango no pueden ser nulas");
+        }
+        
+        ZoneId zona = ZoneId.systemDefault();
+        long centavos = ventaRepository.getTablaHechos().totalEnRangoCentavos(
+                fechaInicio.atZone(zona).toEpochSecond(),
+                fechaFin.atZone(zona).toEpochSecond());
+        return BigDecimal.valueOf(centavos, 2);
+    }
+    
+    /**
+     * Establece el ejecutor de las operaciones asíncronas del servicio.
+     * 
+     * @param ejecutor ejecutor a utilizar
+     * @throws IllegalArgumentException si el ejecutor es nulo
+     */
+    public void setEjecutor(Executor ejecutor) {
+        if (ejecutor == null) {
+            throw new IllegalArgumentException("El ejecutor no puede ser nulo");
+        }
+        this.ejecutor = ejecutor;
+    }
+    
+    /**
+     * Obtiene el motor de promociones que calcula los descuentos de cada línea.
+     * 
+     * @return el motor de promociones
+     */
+    public MotorPromociones getMotorPromociones() {
+        return motorPromociones;
+    }
+    
+    /**
+     * Establece el motor de promociones que calcula los descuentos de cada línea.
+     * 
+     * @param motorPromociones motor de promociones a utilizar
+     * @throws IllegalArgumentException si el motor es nulo
+     */
+    public void setMotorPromociones(MotorPromociones motorPromociones) {
+        if (motorPromociones == null) {
+            throw new IllegalArgumentException("El motor de promociones no puede ser nulo");
+        }
+        this.motorPromociones = motorPromociones;
+    }
+    
+    /**
+     * Obtiene la región fiscal con la que se crean las nuevas ventas.
+     * 
+     * @return la región fiscal de la tienda
+     */
+    public RegionFiscal getRegionFiscal() {
+        return regionFiscal;
+    }
+    
+    /**
+     * Establece la región fiscal con la que se crean las nuevas ventas.
+     * 
+     * @param regionFiscal región fiscal de la tienda
+     * @throws IllegalArgumentException si la región es nula
+     */
+    public void setRegionFiscal(RegionFiscal regionFiscal) {
+        if (regionFiscal == null) {
+            throw new IllegalArgumentException("La región fiscal no puede ser nula");
+        }
+        this.regionFiscal = regionFiscal;
+    }
+    
+    /**
+     * Obtiene la ubicación en la que se crean las nuevas ventas.
+     * 
+     * @return el índice de la ubicación de la tienda
+     */
+    public int getUbicacion() {
+        return ubicacion;
+    }
+    
+    /**
+     * Establece la ubicación en la que se crean las nuevas ventas.
+     * 
+     * @param ubicacion índice de la ubicación de la tienda
+     * @throws IllegalArgumentException si la ubicación no pertenece a la red
+     */
+    public void setUbicacion(int ubicacion) {
+        RedUbicaciones.porDefecto().obtener(ubicacion);
+        this.ubicacion = ubicacion;
+    }
+    
+    /**
+     * Aplica un cambio a una venta comparando su versión con la almacenada.
+     * Si la venta aún no está en el repositorio, el cambio se aplica y se guarda directamente.
+     * 
+     * @param venta venta a modificar
+     * @param cambio cambio a aplicar, que indica si tuvo efecto
+     * @return true si el cambio tuvo efecto, false en caso contrario
+     * @throws com.jefecame.dreams.repository.ConflictoVersionException si otro escritor modificó la venta
+     */
+    private boolean aplicarCambio(Venta venta, Predicate<Venta> cambio) {
+        // El cliente de la venta lleva al fragmento que la contiene sin recorrer los demás
+        Venta vigente = ventaRepository.buscarPorId(venta.getId(), venta.getIdCliente());
+        if (vigente == null) {
+            boolean aplicado = cambio.test(venta);
+            if (aplicado) {
+                ventaRepository.guardar(venta);
+            }
+            return aplicado;
+        }
+        
+        boolean[] aplicado = new boolean[1];
+        ventaRepository.actualizar(venta, vigente.getVersion(), v -> aplicado[0] = cambio.test(v));
+        return aplicado[0];
+    }
+    
+    /**
+     * Reemplaza una línea de la venta por otra del mismo producto con la
+     * cantidad indicada. Se ejecuta dentro del cambio versionado de la venta.
+     * 
+     * @param venta venta a modificar
+     * @param idDetalleVenta identificador del detalle de venta a reemplazar
+     * @param cantidad nueva cantidad del producto
+     * @return true si la línea se reemplazó, false en caso contrario
+     */
+    private boolean reemplazarLinea(Venta venta, int idDetalleVenta, int cantidad) {
+        DetalleVenta linea = null;
+        for (DetalleVenta detalle : venta.getLineas()) {
+            if (detalle.getId() == idDetalleVenta) {
+                linea = detalle;
+            }
+        }
+        if (linea == null || linea.getProducto() == null || !venta.removerProducto(idDetalleVenta)) {
+            return false;
+        }
+        
+        if (agregarConStock(venta, linea.getProducto(), cantidad)) {
+            return true;
+        }
+        // El stock de la línea removida ya volvió a la ubicación, así que la cantidad anterior alcanza
+        agregarConStock(venta, linea.getProducto(), linea.getCantidad());
+        return false;
+    }
+    
+    /**
+     * Agrega un producto a la venta descontando su stock en la ubicación de la venta.
+     * 
+     * El descuento es un CAS sobre el contador de esa ubicación, así que no pasa
+     * por la versión del producto: ventas de distintas tiendas no compiten entre
+     * sí, y las de una misma tienda solo compiten por su contador.
+     * 
+     * @param venta venta a la cual agregar el producto
+     * @param producto producto a agregar
+     * @param cantidad cantidad del producto
+     * @return true si se agregó correctamente, false en caso contrario
+     */
+    private boolean agregarConStock(Venta venta, Producto producto, int cantidad) {
+        Producto vigente = productoRepository.buscarPorId(producto.getId());
+        Producto vendido = vigente != null ? vigente : producto;
+        return venta.agregarProducto(vendido, cantidad, motorPromociones.calcularDescuento(vendido, cantidad));
+    }
+    
+    /**
+     * Versión asíncrona de {@link #iniciarNuevaVentaPorClienteId}.
+     * 
+     * @param clienteId identificador del cliente
+     * @return futuro con la venta creada
+     */
+    public CompletableFuture<Venta> iniciarNuevaVentaPorClienteIdAsync(int clienteId) {
+        return CompletableFuture.supplyAsync(() -> iniciarNuevaVentaPorClienteId(clienteId), ejecutor);
+    }
+    
+    /**
+     * Versión asíncrona de {@link #agregarProductoAVenta}.
+     * 
+     * Las operaciones sobre una misma venta deben encadenarse, no lanzarse en paralelo.
+     * 
+     * @param venta venta a la cual agregar el producto
+     * @param producto producto a agregar
+     * @param cantidad cantidad del producto
+     * @return futuro con true si se agregó correctamente
+     */
+    public CompletableFuture<Boolean> agregarProductoAVentaAsync(Venta venta, Producto producto, int cantidad) {
+        return CompletableFuture.supplyAsync(() -> agregarProductoAVenta(venta, producto, cantidad), ejecutor);
+    }
+    
+    /**
+     * Versión asíncrona de {@link #finalizarVenta}.
+     * 
+     * @param venta venta a finalizar
+     * @return futuro con true si se finalizó correctamente
+     */
+    public CompletableFuture<Boolean> finalizarVentaAsync(Venta venta) {
+        return CompletableFuture.supplyAsync(() -> finalizarVenta(venta), ejecutor);
+    }
+    
+    /**
+     * Versión asíncrona de {@link #cancelarVenta}.
+     * 
+     * @param venta venta a cancelar
+     * @return futuro con true si se canceló correctamente
+     */
+    public CompletableFuture<Boolean> cancelarVentaAsync(Venta venta) {
+        return CompletableFuture.supplyAsync(() -> cancelarVenta(venta), ejecutor);
+    }
+    
+    /**
+     * Versión asíncrona de {@link #buscarVenta}.
+     * 
+     * @param id identificador de la venta
+     * @return futuro con la venta encontrada o null si no existe
+     */
+    public CompletableFuture<Venta> buscarVentaAsync(int id) {
+        return CompletableFuture.supplyAsync(() -> buscarVenta(id), ejecutor);
+    }
+    
+    /**
+     * Versión asíncrona de {@link #validarClienteActivo}.
+     * 
+     * @param clienteId identificador del cliente a validar
+     * @return futuro con true si el cliente es válido y activo
+     */
+    public CompletableFuture<Boolean> validarClienteActivoAsync(int clienteId) {
+        return CompletableFuture.supplyAsync(() -> validarClienteActivo(clienteId), ejecutor);
+    }
 }
@@ -0,0 +1,81 @@
+package com.jefecame.dreams.view;
+
+/**
+ * Diseño precompilado de las columnas de un listado de consola.
+ *
+ * Sigue la convención de printf: un ancho negativo alinea la columna a la
+ * izquierda y uno positivo la alinea a la derecha. El diseño se crea una
+ * sola vez y se reutiliza en cada fila del listado.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class FormatoColumnas {
+
+    private final int[] anchos;
+    private final boolean[] alineadaDerecha;
+    private final int anchoTotal;
+
+    /**
+     * Constructor para crear un diseño de columnas.
+     *
+     * @param anchos ancho de cada columna (negativo para alinear a la izquierda)
+     * @throws IllegalArgumentException si no se indican columnas o alguna tiene ancho 0
+     */
+    public FormatoColumnas(int... anchos) {
+        if (anchos == null || anchos.length == 0) {
+            throw new IllegalArgumentException("El formato debe tener al menos una columna");
+        }
+
+        this.anchos = new int[anchos.length];
+        this.alineadaDerecha = new boolean[anchos.length];
+        int total = anchos.length - 1; // separadores entre columnas
+        for (int i = 0; i < anchos.length; i++) {
+            if (anchos[i] == 0) {
+                throw new IllegalArgumentException("El ancho de una columna no puede ser 0");
+            }
+            this.anchos[i] = Math.abs(anchos[i]);
+            this.alineadaDerecha[i] = anchos[i] > 0;
+            total += this.anchos[i];
+        }
+        this.anchoTotal = total;
+    }
+
+    /**
+     * Obtiene el número de columnas del diseño.
+     *
+     * @return número de columnas
+     */
+    public int getColumnas() {
+        return anchos.length;
+    }
+
+    /**
+     * Obtiene el ancho de una columna.
+     *
+     * @param columna índice de la columna
+     * @return ancho de la columna en caracteres
+     */
+    public int getAncho(int columna) {
+        return anchos[columna];
+    }
+
+    /**
+     * Indica si una columna se alinea a la derecha.
+     *
+     * @param columna índice de la columna
+     * @return true si la columna se alinea a la derecha
+     */
+    public boolean isAlineadaDerecha(int columna) {
+        return alineadaDerecha[columna];
+    }
+
+    /**
+     * Obtiene el ancho total de una fila, incluyendo separadores.
+     *
+     * @return ancho total en caracteres
+     */
+    public int getAnchoTotal() {
+        return anchoTotal;
+    }
+}
@@ -0,0 +1,275 @@
+package com.jefecame.dreams.view;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.time.LocalDateTime;
+
+/**
+ * Renderizador de listados de consola con búfer.
+ *
+ * Las filas se formatean en un StringBuilder reutilizable según un
+ * {@link FormatoColumnas} y se escriben al canal de salida en bloques grandes,
+ * evitando el bloqueo y el análisis de formato de cada llamada a printf.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class RenderizadorConsola {
+
+    private static final int TAMANO_BLOQUE = 64 * 1024;
+
+    private final int tamanoBloque;
+    private final StringBuilder texto;
+    private final ByteBuffer bytes;
+    private final CharsetEncoder codificador;
+    private final WritableByteChannel canal;
+    private FormatoColumnas formato;
+    private int columna;
+    private int inicioCelda;
+
+    /**
+     * Constructor que escribe en la salida estándar del proceso.
+     */
+    public RenderizadorConsola() {
+        this(Channels.newChannel(new FileOutputStream(FileDescriptor.out)));
+    }
+
+    /**
+     * Constructor que escribe en el canal indicado.
+     *
+     * @param canal canal de salida
+     */
+    public RenderizadorConsola(WritableByteChannel canal) {
+        this(canal, TAMANO_BLOQUE);
+    }
+
+    private RenderizadorConsola(WritableByteChannel canal, int tamanoBloque) {
+        this.tamanoBloque = tamanoBloque;
+        this.texto = new StringBuilder(tamanoBloque);
+        this.bytes = canal != null ? ByteBuffer.allocateDirect(tamanoBloque) : null;
+        this.codificador = System.out.charset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.canal = canal;
+    }
+
+    /**
+     * Crea un renderizador que solo formatea en memoria, sin canal de salida.
+     * El texto se obtiene con {@link #extraerTexto()}; sirve para preparar
+     * filas por adelantado y mostrarlas después con {@link #linea}.
+     *
+     * @return el renderizador en memoria
+     */
+    public static RenderizadorConsola enMemoria() {
+        return new RenderizadorConsola(null, 256);
+    }
+
+    /**
+     * Agrega una línea de texto libre.
+     *
+     * @param linea texto de la línea
+     * @return este renderizador
+     */
+    public RenderizadorConsola linea(CharSequence linea) {
+        texto.append(linea).append(System.lineSeparator());
+        vaciarSiLleno();
+        return this;
+    }
+
+    /**
+     * Agrega una línea formada por un carácter repetido.
+     *
+     * @param caracter carácter a repetir
+     * @param veces número de repeticiones
+     * @return este renderizador
+     */
+    public RenderizadorConsola separador(char caracter, int veces) {
+        for (int i = 0; i < veces; i++) {
+            texto.append(caracter);
+        }
+        texto.append(System.lineSeparator());
+        vaciarSiLleno();
+        return this;
+    }
+
+    /**
+     * Inicia una fila con el diseño de columnas indicado.
+     *
+     * @param formato diseño de columnas de la fila
+     * @return este renderizador
+     */
+    public RenderizadorConsola fila(FormatoColumnas formato) {
+        this.formato = formato;
+        this.columna = 0;
+        this.inicioCelda = texto.length();
+        return this;
+    }
+
+    /**
+     * Agrega una celda de texto a la fila actual.
+     *
+     * @param valor texto de la celda
+     * @return este renderizador
+     */
+    public RenderizadorConsola celda(CharSequence valor) {
+        texto.append(valor);
+        return cerrarCelda();
+    }
+
+    /**
+     * Agrega una celda numérica a la fila actual.
+     *
+     * @param valor número de la celda
+     * @return este renderizador
+     */
+    public RenderizadorConsola celda(long valor) {
+        texto.append(valor);
+        return cerrarCelda();
+    }
+
+    /**
+     * Agrega una celda con un importe con signo de pesos y dos decimales.
+     *
+     * @param valor importe de la celda
+     * @return este renderizador
+     */
+    public RenderizadorConsola celdaMoneda(BigDecimal valor) {
+        texto.append('$').append(valor.setScale(2, RoundingMode.HALF_UP).toPlainString());
+        return cerrarCelda();
+    }
+
+    /**
+     * Agrega una celda con una fecha en formato yyyy-MM-ddTHH:mm.
+     *
+     * @param fecha fecha de la celda
+     * @return este renderizador
+     */
+    public RenderizadorConsola celdaFecha(LocalDateTime fecha) {
+        texto.append(fecha.getYear()).append('-');
+        dosDigitos(fecha.getMonthValue()).append('-');
+        dosDigitos(fecha.getDayOfMonth()).append('T');
+        dosDigitos(fecha.getHour()).append(':');
+        dosDigitos(fecha.getMinute());
+        return cerrarCelda();
+    }
+
+    /**
+     * Devuelve el texto pendiente sin escribirlo y vacía el búfer.
+     * El salto de línea con el que termina la última fila no se incluye.
+     *
+     * @return el texto formateado
+     */
+    public String extraerTexto() {
+        int fin = texto.length();
+        String separador = System.lineSeparator();
+        if (fin >= separador.length() && texto.lastIndexOf(separador) == fin - separador.length()) {
+            fin -= separador.length();
+        }
+        String resultado = texto.substring(0, fin);
+        texto.setLength(0);
+        inicioCelda = 0;
+        return resultado;
+    }
+
+    /**
+     * Escribe en el canal todo el texto pendiente.
+     *
+     * @throws IllegalStateException si el renderizador es solo en memoria
+     */
+    public void vaciar() {
+        if (texto.length() == 0) {
+            return;
+        }
+        if (canal == null) {
+            throw new IllegalStateException("El renderizador en memoria no tiene canal de salida");
+        }
+
+        // Lo que se haya impreso con System.out debe aparecer antes
+        System.out.flush();
+
+        CharBuffer pendiente = CharBuffer.wrap(texto);
+        codificador.reset();
+        try {
+            while (true) {
+                CoderResult resultado = codificador.encode(pendiente, bytes, true);
+                if (resultado.isOverflow()) {
+                    escribirBytes();
+                    continue;
+                }
+                if (resultado.isError()) {
+                    resultado.throwException();
+                }
+                break;
+            }
+            while (codificador.flush(bytes).isOverflow()) {
+                escribirBytes();
+            }
+            escribirBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al escribir en la consola", e);
+        } finally {
+            bytes.clear();
+            texto.setLength(0);
+            inicioCelda = 0;
+        }
+    }
+
+    private RenderizadorConsola cerrarCelda() {
+        int ancho = formato.getAncho(columna);
+        int escritos = texto.length() - inicioCelda;
+
+        if (escritos < ancho) {
+            if (formato.isAlineadaDerecha(columna)) {
+                for (int i = escritos; i < ancho; i++) {
+                    texto.insert(inicioCelda, ' ');
+                }
+            } else {
+                for (int i = escritos; i < ancho; i++) {
+                    texto.append(' ');
+                }
+            }
+        }
+
+        columna++;
+        if (columna < formato.getColumnas()) {
+            texto.append(' ');
+            inicioCelda = texto.length();
+        } else {
+            texto.append(System.lineSeparator());
+            vaciarSiLleno();
+        }
+        return this;
+    }
+
+    private StringBuilder dosDigitos(int valor) {
+        if (valor < 10) {
+            texto.append('0');
+        }
+        return texto.append(valor);
+    }
+
+    private void vaciarSiLleno() {
+        if (canal != null && texto.length() >= tamanoBloque / 2) {
+            vaciar();
+        }
+    }
+
+    private void escribirBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            canal.write(bytes);
+        }
+        bytes.clear();
+    }
+}
@@ -2,6 +2,7 @@ package com.jefecame.dreams.view;
 
 /* Modelos */
 import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.EstadoVenta;
 import com.jefecame.dreams.model.Venta;
 import com.jefecame.dreams.model.Producto;
 
@@ -9,15 +10,58 @@ import com.jefecame.dreams.model.Producto;
 import com.jefecame.dreams.model.ProductoElectronica;
 import com.jefecame.dreams.model.ProductoRopa;
 import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.Devolucion;
+import com.jefecame.dreams.model.TipoDevolucion;
+import com.jefecame.dreams.model.RegionFiscal;
+import com.jefecame.dreams.model.Ubicacion;
+import com.jefecame.dreams.inventario.RedUbicaciones;
+import com.jefecame.dreams.arranque.ArranqueTienda;
+import com.jefecame.dreams.arranque.InstantaneaTienda;
 //import com.jefecame.dreams.model.EstadoVenta;
 
 /* Utilidades */
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.function.BiFunction;
+
+/* Repositorios */
+import com.jefecame.dreams.repository.ClienteRepository;
+import com.jefecame.dreams.repository.ClienteRepositoryConCache;
+import com.jefecame.dreams.repository.ClienteRepositoryFragmentado;
+import com.jefecame.dreams.repository.DevolucionRepository;
+import com.jefecame.dreams.repository.IndiceActividadVentas;
+import com.jefecame.dreams.repository.LibroVentas;
+import com.jefecame.dreams.repository.Pagina;
+import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.ProductoRepositoryConCache;
+import com.jefecame.dreams.repository.ProductoRepositoryFragmentado;
+import com.jefecame.dreams.repository.VentaRepository;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import com.jefecame.dreams.repository.VentaRepositoryFragmentado;
+
+/* Replicación */
+import com.jefecame.dreams.replicacion.ServidorReplicacion;
+
+/* Recibos */
+import com.jefecame.dreams.recibo.ArchivoRecibos;
+import com.jefecame.dreams.recibo.ImpresoraRecibos;
 
 /* Servicios (Lógica de negocios) */
+import com.jefecame.dreams.service.BarredorVentas;
 import com.jefecame.dreams.service.ClienteService;
+import com.jefecame.dreams.service.DevolucionService;
+import com.jefecame.dreams.service.EjecutorServicios;
 import com.jefecame.dreams.service.ProductoService;
 import com.jefecame.dreams.service.VentaService;
 
@@ -30,29 +74,197 @@ import com.jefecame.dreams.service.VentaService;
  */
 public class Tienda {
     
+    private static final int TAMANO_PAGINA = 20;
+    private static final int CAPACIDAD_CACHE = 10_000;
+    private static final int RESULTADOS_BUSQUEDA = 10;
+    /** Número de fragmentos de los repositorios; se configura con -Ddreams.fragmentos=N */
+    private static final int FRAGMENTOS = Integer.getInteger("dreams.fragmentos", 1);
+    /** Puerto del servidor de replicación; se activa con -Ddreams.replicacion.puerto=N */
+    private static final Integer PUERTO_REPLICACION = Integer.getInteger("dreams.replicacion.puerto");
+    /** Región fiscal de la tienda; se configura con -Ddreams.region=GENERAL|FRONTERIZA */
+    private static final RegionFiscal REGION_FISCAL = RegionFiscal.valueOf(
+            System.getProperty("dreams.region", RegionFiscal.GENERAL.name()).toUpperCase());
+    /** Ubicación que atiende esta tienda; se configura con -Ddreams.ubicacion=T01|...|CD1 */
+    private static final Ubicacion UBICACION = resolverUbicacion(System.getProperty("dreams.ubicacion"));
+    /** Instantánea a cargar al iniciar y a escribir al salir; se configura con -Ddreams.instantanea=ruta */
+    private static final String INSTANTANEA = System.getProperty("dreams.instantanea");
+    /** Ventas sintéticas del calentamiento del JIT; se configura con -Ddreams.calentamiento=N */
+    private static final int VENTAS_CALENTAMIENTO = Integer.getInteger("dreams.calentamiento", 0);
+    /** Ventas recientes que se conservan listas para mostrar; se configura con -Ddreams.vistas.recientes=N */
+    private static final int VENTAS_RECIENTES = Integer.getInteger("dreams.vistas.recientes", 1000);
+    /** Minutos sin cambios para cancelar una venta abierta; -Ddreams.barrido.minutos=N, 0 lo desactiva */
+    private static final int MINUTOS_BARRIDO = Integer.getInteger("dreams.barrido.minutos", 30);
+    /** Segundos entre barridos de ventas abandonadas; se configura con -Ddreams.barrido.intervalo=N */
+    private static final int INTERVALO_BARRIDO = Integer.getInteger("dreams.barrido.intervalo", 60);
+    /** Directorio donde se archivan los recibos; se activa con -Ddreams.recibos=ruta */
+    private static final String DIRECTORIO_RECIBOS = System.getProperty("dreams.recibos");
+    /** Tamaño en MB de cada segmento del archivo de recibos; se configura con -Ddreams.recibos.segmento=N */
+    private static final int MB_SEGMENTO_RECIBOS = Integer.getInteger("dreams.recibos.segmento", 16);
+    /** Directorio del libro histórico de ventas; se activa con -Ddreams.libro=ruta */
+    private static final String DIRECTORIO_LIBRO = System.getProperty("dreams.libro");
+    /** Días de ventas que se conservan en memoria con el libro activo; se configura con -Ddreams.libro.dias=N */
+    private static final int DIAS_EN_MEMORIA = Integer.getInteger("dreams.libro.dias", 30);
+    private static final FormatoColumnas FORMATO_CLIENTES = new FormatoColumnas(-5, -20, -25, -10, -7);
+    private static final FormatoColumnas FORMATO_VENTAS = new FormatoColumnas(-5, -20, -15, -15, -12);
+    private static final FormatoColumnas FORMATO_TOTALES = new FormatoColumnas(-12, 8, 16);
+    private static final FormatoColumnas FORMATO_DETALLES = new FormatoColumnas(-25, -5, -15);
+    
     private String nombre;
+    private ClienteRepository clienteRepository;
+    private ProductoRepository productoRepository;
+    private VentaRepository ventaRepository;
+    private DevolucionRepository devolucionRepository;
     private ClienteService clienteService;
     private ProductoService productoService;
     private VentaService ventaService;
+    private DevolucionService devolucionService;
+    private VistaVentas vistaVentas;
+    private IndiceActividadVentas indiceActividad;
+    private BarredorVentas barredor;
     private Scanner scanner;
+    private RenderizadorConsola consola;
+    private ImpresoraRecibos recibos;
     
     /**
      * Constructor por defecto que inicializa todos los servicios.
      * Crea repositorios compartidos para asegurar consistencia de datos.
      */
     public Tienda() {
+        this(crearRepositorioClientes(), crearRepositorioProductos(), crearRepositorioVentas());
+    }
+    
+    /**
+     * Constructor que inicializa los servicios sobre los repositorios indicados.
+     * Si se configuró una instantánea, sus datos se cargan antes de crear los servicios.
+     * 
+     * @param clienteRepository repositorio de clientes
+     * @param productoRepository repositorio de productos
+     * @param ventaRepository repositorio de ventas
+     */
+    public Tienda(ClienteRepository clienteRepository, ProductoRepository productoRepository,
+                  VentaRepository ventaRepository) {
         this.nombre = "Dreams";
+        this.clienteRepository = clienteRepository;
+        this.productoRepository = productoRepository;
+        this.ventaRepository = ventaRepository;
+        this.devolucionRepository = new DevolucionRepository();
         
-        // Crear repositorios compartidos
-        var clienteRepository = new com.jefecame.dreams.repository.ClienteRepository();
-        var productoRepository = new com.jefecame.dreams.repository.ProductoRepository();
-        var ventaRepository = new com.jefecame.dreams.repository.VentaRepository();
+        // La vista se registra antes del arranque para recibir también las ventas de la instantánea
+        this.vistaVentas = new VistaVentas(VENTAS_RECIENTES, FORMATO_VENTAS);
+        ventaRepository.agregarOyente(vistaVentas);
+        ventaRepository.agregarOyenteParticiones(vistaVentas);
+        this.indiceActividad = new IndiceActividadVentas();
+        ventaRepository.agregarOyente(indiceActividad);
+        ventaRepository.agregarOyenteParticiones(indiceActividad);
+        
+        if (INSTANTANEA != null || VENTAS_CALENTAMIENTO > 0) {
+            arrancar();
+        }
+        if (DIRECTORIO_LIBRO != null) {
+            abrirLibro();
+        }
         
         // Inicializar servicios con repositorios compartidos
         this.clienteService = new ClienteService(clienteRepository);
         this.productoService = new ProductoService(productoRepository);
         this.ventaService = new VentaService(ventaRepository, productoRepository, clienteRepository);
+        this.ventaService.setRegionFiscal(REGION_FISCAL);
+        this.ventaService.setUbicacion(UBICACION.getIndice());
+        this.devolucionService = new DevolucionService(devolucionRepository, ventaRepository, productoRepository);
         this.scanner = new Scanner(System.in);
+        this.consola = new RenderizadorConsola();
+        this.recibos = new ImpresoraRecibos(FORMATO_DETALLES, DIRECTORIO_RECIBOS == null ? null
+                : new ArchivoRecibos(Path.of(DIRECTORIO_RECIBOS), MB_SEGMENTO_RECIBOS * 1024L * 1024L,
+                        Clock.systemDefaultZone()));
+        
+        if (MINUTOS_BARRIDO > 0) {
+            this.barredor = new BarredorVentas(ventaService, ventaRepository, indiceActividad,
+                    Duration.ofMinutes(MINUTOS_BARRIDO), Duration.ofSeconds(INTERVALO_BARRIDO),
+                    BarredorVentas.TAMANO_LOTE_POR_DEFECTO);
+            barredor.iniciar();
+        }
+        
+        if (PUERTO_REPLICACION != null) {
+            iniciarReplicacion(clienteRepository, productoRepository, ventaRepository);
+        }
+    }
+    
+    private void arrancar() {
+        ArranqueTienda arranque = new ArranqueTienda(clienteRepository, productoRepository, ventaRepository,
+                devolucionRepository, ForkJoinPool.commonPool());
+        if (INSTANTANEA != null && Files.exists(Path.of(INSTANTANEA))) {
+            try {
+                arranque.cargar(Path.of(INSTANTANEA));
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("No se pudo cargar la instantánea: " + e.getMessage());
+            }
+        }
+        arranque.calentar(VENTAS_CALENTAMIENTO);
+        arranque.reportar();
+    }
+    
+    private void abrirLibro() {
+        try {
+            ventaRepository.setLibro(new LibroVentas(Path.of(DIRECTORIO_LIBRO)), clienteRepository::buscarPorId,
+                    productoRepository::buscarPorId);
+            int descargadas = ventaRepository.descargarEnLibroAnterioresA(LocalDate.now().minusDays(DIAS_EN_MEMORIA));
+            System.out.printf("Libro de ventas en %s: %d días descargados de memoria%n", DIRECTORIO_LIBRO,
+                    descargadas);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("No se pudo abrir el libro de ventas: " + e.getMessage());
+        }
+    }
+    
+    private void guardarInstantanea() {
+        try {
+            long bytes = InstantaneaTienda.escribir(Path.of(INSTANTANEA), clienteRepository, productoRepository,
+                    ventaRepository, devolucionRepository);
+            System.out.printf("Datos guardados en %s (%d bytes)%n", INSTANTANEA, bytes);
+        } catch (IOException e) {
+            System.out.println("No se pudo guardar la instantánea: " + e.getMessage());
+        }
+    }
+    
+    private static void iniciarReplicacion(ClienteRepository clientes, ProductoRepository productos,
+                                           VentaRepository ventas) {
+        try {
+            new ServidorReplicacion(PUERTO_REPLICACION, clientes, productos, ventas).iniciar();
+        } catch (IOException e) {
+            System.out.println("No se pudo iniciar la replicación: " + e.getMessage());
+        }
+    }
+    
+    private static ClienteRepository crearRepositorioClientes() {
+        if (FRAGMENTOS <= 1) {
+            return new ClienteRepositoryConCache(CAPACIDAD_CACHE);
+        }
+        List<ClienteRepository> fragmentos = new ArrayList<>();
+        for (int i = 0; i < FRAGMENTOS; i++) {
+            fragmentos.add(new ClienteRepositoryConCache(CAPACIDAD_CACHE / FRAGMENTOS + 2));
+        }
+        return new ClienteRepositoryFragmentado(fragmentos, EjecutorServicios.porDefecto());
+    }
+    
+    private static ProductoRepository crearRepositorioProductos() {
+        if (FRAGMENTOS <= 1) {
+            return new ProductoRepositoryConCache(CAPACIDAD_CACHE);
+        }
+        List<ProductoRepository> fragmentos = new ArrayList<>();
+        for (int i = 0; i < FRAGMENTOS; i++) {
+            fragmentos.add(new ProductoRepositoryConCache(CAPACIDAD_CACHE / FRAGMENTOS + 2));
+        }
+        return new ProductoRepositoryFragmentado(fragmentos, EjecutorServicios.porDefecto());
+    }
+    
+    private static VentaRepository crearRepositorioVentas() {
+        if (FRAGMENTOS <= 1) {
+            return new VentaRepositoryEnMemoria();
+        }
+        List<VentaRepositoryEnMemoria> fragmentos = new ArrayList<>();
+        for (int i = 0; i < FRAGMENTOS; i++) {
+            fragmentos.add(new VentaRepositoryEnMemoria());
+        }
+        return new VentaRepositoryFragmentado(fragmentos, EjecutorServicios.porDefecto());
     }
     
     /**
@@ -78,6 +290,7 @@ public class Tienda {
             System.out.println("2. Gestionar Productos");
             System.out.println("3. Realizar Venta");
             System.out.println("4. Ver Ventas");
+            System.out.println("5. Registrar Devolución");
             System.out.println("0. Salir");
             System.out.println("=".repeat(50));
             System.out.print("Seleccione una opción: ");
@@ -98,8 +311,18 @@ public class Tienda {
                     case 4:
                         mostrarVentas();
                         break;
+                    case 5:
+                        registrarDevolucion();
+                        break;
                     case 0:
                         continuar = false;
+                        if (barredor != null) {
+                            barredor.detener();
+                        }
+                        if (INSTANTANEA != null) {
+                            guardarInstantanea();
+                        }
+                        cerrarRecibos();
                         System.out.println("\n¡Gracias por usar Dreams Sistema de Tienda!");
                         break;
                     default:
@@ -306,6 +529,7 @@ public class Tienda {
                 if (respuesta.startsWith("s")) {
                     if (ventaService.finalizarVenta(venta)) {
                         System.out.println("¡Venta finalizada exitosamente!");
+                        archivarRecibo(venta);
                         System.out.printf("Total: $%.2f%n", venta.getTotal());
                     } else {
                         System.out.println("Error al finalizar la venta.");
@@ -326,6 +550,52 @@ public class Tienda {
         }
     }
     
+    /**
+     * Registra la devolución o el reembolso de una línea de una venta completada.
+     */
+    public void registrarDevolucion() {
+        try {
+            System.out.print("Ingrese el ID de la venta: ");
+            int idVenta = Integer.parseInt(scanner.nextLine());
+            
+            Venta venta = ventaService.buscarVenta(idVenta);
+            if (venta == null) {
+                System.out.println("Venta no encontrada.");
+                return;
+            }
+            
+            System.out.println("\nLíneas de la venta:");
+            for (DetalleVenta detalle : venta.getProductosVenta()) {
+                System.out.printf("%d - %s x%d (por devolver: %d)%n", detalle.getId(),
+                        detalle.getProducto() != null ? detalle.getProducto().getNombre() : "N/A",
+                        detalle.getCantidad(), devolucionService.obtenerUnidadesPorDevolver(venta, detalle.getId()));
+            }
+            
+            System.out.print("\nIngrese el ID de la línea a devolver: ");
+            int idDetalle = Integer.parseInt(scanner.nextLine());
+            
+            System.out.print("Ingrese la cantidad: ");
+            int cantidad = Integer.parseInt(scanner.nextLine());
+            
+            System.out.print("¿La mercancía regresa al stock? (s/n): ");
+            TipoDevolucion tipo = scanner.nextLine().toLowerCase().startsWith("s")
+                    ? TipoDevolucion.DEVOLUCION : TipoDevolucion.REEMBOLSO;
+            
+            System.out.print("Motivo: ");
+            String motivo = scanner.nextLine();
+            
+            Devolucion devolucion = devolucionService.registrarDevolucion(venta, Map.of(idDetalle, cantidad), tipo, motivo);
+            System.out.println("Devolución registrada. ID: " + devolucion.getId());
+            System.out.printf("Reembolso: $%.2f%n", devolucion.getReembolso());
+            System.out.printf("Total neto de la venta: $%.2f%n", devolucionService.obtenerTotalNetoVenta(venta));
+            
+        } catch (NumberFormatException e) {
+            System.out.println("Por favor, ingrese un número válido.");
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+    
     // Métodos auxiliares para las operaciones de clientes
     
     private void agregarCliente() {
@@ -345,30 +615,63 @@ public class Tienda {
     }
     
     private void listarClientes() {
-        List<Cliente> clientes = clienteService.obtenerTodosLosClientes();
-        if (clientes.isEmpty()) {
+        Pagina<Cliente> pagina = clienteService.obtenerClientesPaginados(null, TAMANO_PAGINA);
+        if (pagina.getElementos().isEmpty()) {
             System.out.println("No hay clientes registrados.");
             return;
         }
         
-        System.out.println("\nLista de clientes:");
-        System.out.println("-".repeat(60));
-        System.out.printf("%-5s %-20s %-25s %-10s%n", "ID", "Nombre", "Email", "Estado");
-        System.out.println("-".repeat(60));
+        consola.linea("").linea("Lista de clientes:").separador('-', 68);
+        consola.fila(FORMATO_CLIENTES).celda("ID").celda("Nombre").celda("Email").celda("Estado").celda("Ventas");
+        consola.separador('-', 68);
         
-        for (Cliente cliente : clientes) {
-            System.out.printf("%-5d %-20s %-25s %-10s%n", 
-                cliente.getId(), 
-                cliente.getNombre(), 
-                cliente.getEmail(),
-                cliente.isActivo() ? "Activo" : "Inactivo");
+        while (true) {
+            for (Cliente cliente : pagina.getElementos()) {
+                consola.fila(FORMATO_CLIENTES)
+                    .celda(cliente.getId())
+                    .celda(cliente.getNombre())
+                    .celda(cliente.getEmail())
+                    .celda(cliente.isActivo() ? "Activo" : "Inactivo")
+                    .celda(vistaVentas.contarVentasCliente(cliente.getId()));
+            }
+            consola.vaciar();
+            
+            if (!pagina.hayMas() || !continuarPaginando()) {
+                break;
+            }
+            pagina = clienteService.obtenerClientesPaginados(pagina.getSiguienteCursor(), TAMANO_PAGINA);
         }
     }
     
     private void buscarCliente() {
+        System.out.print("Ingrese el ID, nombre o email del cliente: ");
+        String consulta = scanner.nextLine().trim();
+        if (consulta.isEmpty()) {
+            System.out.println("Por favor, ingrese un ID o un texto a buscar.");
+            return;
+        }
+        
+        if (!esNumero(consulta)) {
+            List<Cliente> similares = clienteService.buscarClientesSimilares(consulta, RESULTADOS_BUSQUEDA);
+            if (similares.isEmpty()) {
+                System.out.println("No se encontraron clientes parecidos.");
+                return;
+            }
+            consola.linea("").linea("Clientes parecidos a \"" + consulta + "\":").separador('-', 68);
+            for (Cliente cliente : similares) {
+                consola.fila(FORMATO_CLIENTES)
+                    .celda(cliente.getId())
+                    .celda(cliente.getNombre())
+                    .celda(cliente.getEmail())
+                    .celda(cliente.isActivo() ? "Activo" : "Inactivo")
+                    .celda(vistaVentas.contarVentasCliente(cliente.getId()));
+            }
+            consola.vaciar();
+            return;
+        }
+        
         try {
-            System.out.print("Ingrese el ID del cliente: ");
-            int id = Integer.parseInt(scanner.nextLine());
+            int id = Integer.parseInt(consulta);
             
             Cliente cliente = clienteService.buscarCliente(id);
             if (cliente != null) {
@@ -457,7 +760,8 @@ public class Tienda {
             System.out.print("Ingrese el modelo: ");
             String modelo = scanner.nextLine();
             
-            ProductoElectronica producto = new ProductoElectronica(nombre, precio, stock, marca, modelo);
+            ProductoElectronica producto = new ProductoElectronica(nombre, precio, 0, marca, modelo);
+            producto.getInventario().establecer(UBICACION.getIndice(), stock);
             productoService.agregarProducto(producto);
             System.out.println("Producto electrónico agregado exitosamente. ID: " + producto.getId());
             
@@ -485,7 +789,8 @@ public class Tienda {
             System.out.print("Ingrese el color: ");
             String color = scanner.nextLine();
             
-            ProductoRopa producto = new ProductoRopa(nombre, precio, stock, talla, color);
+            ProductoRopa producto = new ProductoRopa(nombre, precio, 0, talla, color);
+            producto.getInventario().establecer(UBICACION.getIndice(), stock);
             productoService.agregarProducto(producto);
             System.out.println("Producto de ropa agregado exitosamente. ID: " + producto.getId());
             
@@ -497,25 +802,53 @@ public class Tienda {
     }
     
     private void listarProductos() {
-        List<Producto> productos = productoService.obtenerTodosLosProductos();
-        if (productos.isEmpty()) {
+        Pagina<Producto> pagina = productoService.obtenerProductosPaginados(null, TAMANO_PAGINA);
+        if (pagina.getElementos().isEmpty()) {
             System.out.println("No hay productos registrados.");
             return;
         }
         
-        System.out.println("\nLista de productos:");
-        System.out.println("-".repeat(80));
-        for (Producto producto : productos) {
-            System.out.println(producto.mostrarDetalles());
-            System.out.println("Estado: " + (producto.isActivo() ? "Activo" : "Inactivo"));
-            System.out.println("-".repeat(80));
+        consola.linea("").linea("Lista de productos:").separador('-', 80);
+        
+        while (true) {
+            for (Producto producto : pagina.getElementos()) {
+                consola.linea(producto.mostrarDetalles())
+                    .linea(producto.isActivo() ? "Estado: Activo" : "Estado: Inactivo")
+                    .separador('-', 80);
+            }
+            consola.vaciar();
+            
+            if (!pagina.hayMas() || !continuarPaginando()) {
+                break;
+            }
+            pagina = productoService.obtenerProductosPaginados(pagina.getSiguienteCursor(), TAMANO_PAGINA);
         }
     }
     
     private void buscarProducto() {
+        System.out.print("Ingrese el ID o el nombre del producto: ");
+        String consulta = scanner.nextLine().trim();
+        if (consulta.isEmpty()) {
+            System.out.println("Por favor, ingrese un ID o un texto a buscar.");
+            return;
+        }
+        
+        if (!esNumero(consulta)) {
+            List<Producto> similares = productoService.buscarProductosSimilares(consulta, RESULTADOS_BUSQUEDA);
+            if (similares.isEmpty()) {
+                System.out.println("No se encontraron productos parecidos.");
+                return;
+            }
+            consola.linea("").linea("Productos parecidos a \"" + consulta + "\":").separador('-', 80);
+            for (Producto producto : similares) {
+                consola.linea(producto.mostrarDetalles());
+            }
+            consola.vaciar();
+            return;
+        }
+        
         try {
-            System.out.print("Ingrese el ID del producto: ");
-            int id = Integer.parseInt(scanner.nextLine());
+            int id = Integer.parseInt(consulta);
             
             Producto producto = productoService.buscarProducto(id);
             if (producto != null) {
@@ -530,6 +863,15 @@ public class Tienda {
         }
     }
     
+    private static boolean esNumero(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (!Character.isDigit(texto.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     private void actualizarStock() {
         try {
             System.out.print("Ingrese el ID del producto: ");
@@ -538,11 +880,12 @@ public class Tienda {
             System.out.print("Ingrese la cantidad a agregar (negativa para restar): ");
             int cantidad = Integer.parseInt(scanner.nextLine());
             
-            if (productoService.actualizarStock(id, cantidad)) {
+            if (productoService.actualizarStock(id, UBICACION.getIndice(), cantidad)) {
                 System.out.println("Stock actualizado exitosamente.");
                 Producto producto = productoService.buscarProducto(id);
                 if (producto != null) {
-                    System.out.println("Stock actual: " + producto.getStock());
+                    System.out.println("Stock en " + UBICACION.getClave() + ": " + producto.getStock(UBICACION.getIndice())
+                            + " (total en la red: " + producto.getStock() + ")");
                 }
             } else {
                 System.out.println("Producto no encontrado.");
@@ -570,47 +913,100 @@ public class Tienda {
     }
     
     private void mostrarVentas() {
-        List<Venta> ventas = ventaService.obtenerTodasLasVentas();
-        if (ventas.isEmpty()) {
+        if (vistaVentas.contarVentas() == 0) {
             System.out.println("No hay ventas registradas.");
             return;
         }
         
-        System.out.println("\nLista de ventas:");
-        System.out.println("-".repeat(80));
-        System.out.printf("%-5s %-20s %-15s %-15s %-12s%n", "ID", "Cliente", "Fecha", "Total", "Estado");
-        System.out.println("-".repeat(80));
+        consola.linea("").linea("Resumen de ventas:");
+        for (EstadoVenta estado : EstadoVenta.values()) {
+            consola.fila(FORMATO_TOTALES)
+                .celda(estado.name())
+                .celda(vistaVentas.contarPorEstado(estado))
+                .celdaMoneda(BigDecimal.valueOf(vistaVentas.totalPorEstadoCentavos(estado), 2));
+        }
         
-        for (Venta venta : ventas) {
-            System.out.printf("%-5d %-20s %-15s $%-14.2f %-12s%n", 
-                venta.getId(),
-                venta.getCliente() != null ? venta.getCliente().getNombre() : "N/A",
-                venta.getFechaCreacion().toString().substring(0, 16),
-                venta.getTotal(),
-                venta.getEstado());
+        consola.linea("").linea("Ventas recientes:");
+        if (listarFilas(vistaVentas::paginaRecientes) && vistaVentas.contarVentas() > vistaVentas.getCapacidadRecientes()) {
+            System.out.printf("Se muestran las %d ventas más recientes; las anteriores se consultan por ID.%n",
+                    vistaVentas.getCapacidadRecientes());
+        }
+        
+        if (vistaVentas.contarPorEstado(EstadoVenta.PROCESANDO) > 0) {
+            consola.linea("").linea("Ventas en proceso:");
+            listarFilas(vistaVentas::paginaEnProceso);
         }
     }
     
-    private void mostrarResumenVenta(Venta venta) {
-        System.out.println("\n" + "=".repeat(50));
-        System.out.println("           RESUMEN DE VENTA");
-        System.out.println("=".repeat(50));
-        System.out.printf("ID Venta: %d%n", venta.getId());
-        System.out.printf("Cliente: %s%n", venta.getCliente().getNombre());
-        System.out.printf("Fecha: %s%n", venta.getFechaCreacion());
-        System.out.println("-".repeat(50));
+    /**
+     * Muestra por páginas las filas ya formateadas de una vista de ventas.
+     * 
+     * @param paginas función que obtiene una página a partir de un cursor y un tamaño
+     * @return true si se mostraron todas las filas, false si el usuario terminó antes
+     */
+    private boolean listarFilas(BiFunction<String, Integer, Pagina<String>> paginas) {
+        consola.separador('-', 80);
+        consola.fila(FORMATO_VENTAS).celda("ID").celda("Cliente").celda("Fecha").celda("Total").celda("Estado");
+        consola.separador('-', 80);
         
-        for (DetalleVenta detalle : venta.getProductosVenta()) {
-            System.out.printf("%-25s x%d  $%.2f%n", 
-                detalle.getProducto().getNombre(),
-                detalle.getCantidad(),
-                detalle.getSubtotal());
+        Pagina<String> pagina = paginas.apply(null, TAMANO_PAGINA);
+        while (true) {
+            for (String fila : pagina.getElementos()) {
+                consola.linea(fila);
+            }
+            consola.vaciar();
+            
+            if (!pagina.hayMas()) {
+                return true;
+            }
+            if (!continuarPaginando()) {
+                return false;
+            }
+            pagina = paginas.apply(pagina.getSiguienteCursor(), TAMANO_PAGINA);
         }
-        
-        System.out.println("-".repeat(50));
-        System.out.printf("Subtotal: $%.2f%n", venta.getSubtotal());
-        System.out.printf("IVA (16%%): $%.2f%n", venta.getImpuestos());
-        System.out.printf("TOTAL: $%.2f%n", venta.getTotal());
-        System.out.println("=".repeat(50));
+    }
+    
+    /**
+     * Pregunta al usuario si desea ver la siguiente página de un listado.
+     * 
+     * @return true si el usuario quiere continuar, false en caso contrario
+     */
+    private boolean continuarPaginando() {
+        System.out.print("-- Enter para ver más, 'q' para terminar: ");
+        String respuesta = scanner.nextLine().trim().toLowerCase();
+        return !respuesta.startsWith("q");
+    }
+    
+    private void mostrarResumenVenta(Venta venta) {
+        consola.vaciar();
+        recibos.mostrar(venta);
+    }
+    
+    private void archivarRecibo(Venta venta) {
+        try {
+            recibos.archivar(venta);
+        } catch (UncheckedIOException e) {
+            System.out.println("No se pudo archivar el recibo: " + e.getCause().getMessage());
+        }
+    }
+    
+    private void cerrarRecibos() {
+        try {
+            recibos.close();
+        } catch (IOException e) {
+            System.out.println("No se pudo cerrar el archivo de recibos: " + e.getMessage());
+        }
+    }
+    
+    private static Ubicacion resolverUbicacion(String clave) {
+        RedUbicaciones red = RedUbicaciones.porDefecto();
+        if (clave == null) {
+            return red.getPrincipal();
+        }
+        Ubicacion ubicacion = red.buscarPorClave(clave);
+        if (ubicacion == null) {
+            throw new IllegalArgumentException("Ubicación desconocida: " + clave);
+        }
+        return ubicacion;
     }
 }
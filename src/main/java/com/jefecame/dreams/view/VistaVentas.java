@@ -0,0 +1,305 @@
+package com.jefecame.dreams.view;
+
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.OyenteParticiones;
+import com.jefecame.dreams.repository.OyenteRepositorio;
+import com.jefecame.dreams.repository.Pagina;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Vistas materializadas de los listados de ventas.
+ *
+ * Se registra como oyente del repositorio de ventas y mantiene al día, con
+ * cada cambio confirmado, las filas ya formateadas de las últimas ventas y de
+ * las ventas en proceso, los totales por estado y el número de ventas de cada
+ * cliente. Abrir un listado cuesta lo que la página mostrada, sin importar el
+ * tamaño del historial.
+ *
+ * Las filas toman el nombre del cliente al guardarse la venta. Cada resumen
+ * guarda la versión de la venta que lo produjo y los avisos que no traen una
+ * versión mayor se descartan. Una venta eliminada deja un resumen vacío que
+ * impide que un aviso tardío la vuelva a contar.
+ *
+ * También escucha las particiones que el repositorio elimina o descarga: sus
+ * ventas salen de los listados y de los totales, que así cubren las mismas
+ * ventas que el repositorio tiene en memoria. De esos días solo se recuerda
+ * la fecha, con la que se descartan los avisos tardíos de sus ventas.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+public class VistaVentas implements OyenteRepositorio<Venta>, OyenteParticiones {
+
+    private static final EstadoVenta[] ESTADOS = EstadoVenta.values();
+    private static final ThreadLocal<RenderizadorConsola> FORMATEADOR =
+            ThreadLocal.withInitial(RenderizadorConsola::enMemoria);
+
+    private final int capacidadRecientes;
+    private final FormatoColumnas formato;
+    private final ConcurrentHashMap<Integer, ResumenVenta> resumenes;
+    private final ConcurrentSkipListMap<Integer, String> recientes;
+    private final AtomicInteger tamanoRecientes;
+    private final ConcurrentSkipListMap<Integer, String> enProceso;
+    private final LongAdder[] ventasPorEstado;
+    private final LongAdder[] centavosPorEstado;
+    private final ConcurrentHashMap<Integer, LongAdder> ventasPorCliente;
+    private final ConcurrentHashMap<Integer, LongAdder> completadasPorCliente;
+    private final Set<LocalDate> diasRetirados;
+
+    /**
+     * Constructor para crear las vistas vacías.
+     *
+     * @param capacidadRecientes número de ventas recientes que se conservan formateadas
+     * @param formato diseño de columnas de las filas: ID, cliente, fecha, total y estado
+     * @throws IllegalArgumentException si la capacidad no es positiva o el formato no tiene cinco columnas
+     */
+    public VistaVentas(int capacidadRecientes, FormatoColumnas formato) {
+        if (capacidadRecientes <= 0) {
+            throw new IllegalArgumentException("La capacidad de ventas recientes debe ser mayor a 0");
+        }
+        if (formato == null || formato.getColumnas() != 5) {
+            throw new IllegalArgumentException("El formato de las ventas debe tener cinco columnas");
+        }
+
+        this.capacidadRecientes = capacidadRecientes;
+        this.formato = formato;
+        this.resumenes = new ConcurrentHashMap<>();
+        this.recientes = new ConcurrentSkipListMap<>();
+        this.tamanoRecientes = new AtomicInteger();
+        this.enProceso = new ConcurrentSkipListMap<>();
+        this.ventasPorEstado = new LongAdder[ESTADOS.length];
+        this.centavosPorEstado = new LongAdder[ESTADOS.length];
+        for (int i = 0; i < ESTADOS.length; i++) {
+            ventasPorEstado[i] = new LongAdder();
+            centavosPorEstado[i] = new LongAdder();
+        }
+        this.ventasPorCliente = new ConcurrentHashMap<>();
+        this.completadasPorCliente = new ConcurrentHashMap<>();
+        this.diasRetirados = ConcurrentHashMap.newKeySet();
+    }
+
+    @Override
+    public void alGuardar(Venta venta) {
+        long version = venta.getVersion();
+        resumenes.compute(venta.getId(), (id, anterior) -> {
+            if (anterior != null && (anterior == ResumenVenta.ELIMINADA || anterior.version >= version)) {
+                return anterior;
+            }
+            if (diasRetirados.contains(venta.getFechaCreacion().toLocalDate())) {
+                return null;
+            }
+            ResumenVenta nuevo = new ResumenVenta(version, venta.getIdCliente(), venta.getEstado(),
+                    venta.getTotalCentavos());
+            if (anterior != null) {
+                restar(anterior);
+            } else {
+                contador(ventasPorCliente, nuevo.idCliente).increment();
+            }
+            sumar(nuevo);
+
+            String fila = formatear(venta);
+            if (nuevo.estado == EstadoVenta.PROCESANDO) {
+                enProceso.put(id, fila);
+            } else {
+                enProceso.remove(id);
+            }
+            actualizarRecientes(id, fila);
+            return nuevo;
+        });
+    }
+
+    @Override
+    public void alEliminar(Venta venta) {
+        resumenes.compute(venta.getId(), (id, anterior) -> {
+            quitar(id, anterior);
+            return ResumenVenta.ELIMINADA;
+        });
+    }
+
+    @Override
+    public void alRetirarParticion(LocalDate dia, Collection<Venta> ventas) {
+        // El día se anota antes de quitar las ventas, así que un aviso tardío
+        // que entra al compute después de su venta ya lo ve
+        diasRetirados.add(dia);
+        for (Venta venta : ventas) {
+            resumenes.computeIfPresent(venta.getId(), (id, anterior) -> {
+                quitar(id, anterior);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Obtiene una página de las ventas recientes, de la más nueva a la más antigua.
+     *
+     * @param cursor cursor recibido en la página anterior, o null para la primera
+     * @param tamano número máximo de filas de la página
+     * @return la página de filas formateadas
+     * @throws IllegalArgumentException si el tamaño o el cursor son inválidos
+     */
+    public Pagina<String> paginaRecientes(String cursor, int tamano) {
+        return Pagina.desdeMapa(recientes.descendingMap(), cursor, tamano);
+    }
+
+    /**
+     * Obtiene una página de las ventas en proceso, de la más antigua a la más nueva.
+     *
+     * @param cursor cursor recibido en la página anterior, o null para la primera
+     * @param tamano número máximo de filas de la página
+     * @return la página de filas formateadas
+     * @throws IllegalArgumentException si el tamaño o el cursor son inválidos
+     */
+    public Pagina<String> paginaEnProceso(String cursor, int tamano) {
+        return Pagina.desdeMapa(enProceso, cursor, tamano);
+    }
+
+    /**
+     * Obtiene el número de ventas en un estado.
+     *
+     * @param estado estado a consultar
+     * @return número de ventas en ese estado
+     */
+    public long contarPorEstado(EstadoVenta estado) {
+        return ventasPorEstado[estado.ordinal()].sum();
+    }
+
+    /**
+     * Obtiene la suma de los totales de las ventas en un estado.
+     *
+     * @param estado estado a consultar
+     * @return suma de los totales en centavos
+     */
+    public long totalPorEstadoCentavos(EstadoVenta estado) {
+        return centavosPorEstado[estado.ordinal()].sum();
+    }
+
+    /**
+     * Obtiene el número de ventas registradas.
+     *
+     * @return número de ventas en cualquier estado
+     */
+    public long contarVentas() {
+        long total = 0;
+        for (LongAdder contador : ventasPorEstado) {
+            total += contador.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene el número de ventas de un cliente.
+     *
+     * @param idCliente identificador del cliente
+     * @return número de ventas del cliente en cualquier estado
+     */
+    public long contarVentasCliente(int idCliente) {
+        LongAdder contador = ventasPorCliente.get(idCliente);
+        return contador != null ? contador.sum() : 0;
+    }
+
+    /**
+     * Obtiene el número de ventas completadas de un cliente.
+     *
+     * @param idCliente identificador del cliente
+     * @return número de ventas COMPLETADA del cliente
+     */
+    public long contarCompletadasCliente(int idCliente) {
+        LongAdder contador = completadasPorCliente.get(idCliente);
+        return contador != null ? contador.sum() : 0;
+    }
+
+    /**
+     * Obtiene el número de ventas recientes que se conservan formateadas.
+     *
+     * @return capacidad de la vista de ventas recientes
+     */
+    public int getCapacidadRecientes() {
+        return capacidadRecientes;
+    }
+
+    private void sumar(ResumenVenta resumen) {
+        ventasPorEstado[resumen.estado.ordinal()].increment();
+        centavosPorEstado[resumen.estado.ordinal()].add(resumen.totalCentavos);
+        if (resumen.estado == EstadoVenta.COMPLETADA) {
+            contador(completadasPorCliente, resumen.idCliente).increment();
+        }
+    }
+
+    private void restar(ResumenVenta resumen) {
+        ventasPorEstado[resumen.estado.ordinal()].decrement();
+        centavosPorEstado[resumen.estado.ordinal()].add(-resumen.totalCentavos);
+        if (resumen.estado == EstadoVenta.COMPLETADA) {
+            contador(completadasPorCliente, resumen.idCliente).decrement();
+        }
+    }
+
+    private void quitar(int id, ResumenVenta anterior) {
+        if (anterior == null || anterior == ResumenVenta.ELIMINADA) {
+            return;
+        }
+        restar(anterior);
+        contador(ventasPorCliente, anterior.idCliente).decrement();
+        enProceso.remove(id);
+        if (recientes.remove(id) != null) {
+            tamanoRecientes.decrementAndGet();
+        }
+    }
+
+    private static LongAdder contador(Map<Integer, LongAdder> contadores, int idCliente) {
+        return contadores.computeIfAbsent(idCliente, id -> new LongAdder());
+    }
+
+    private void actualizarRecientes(int id, String fila) {
+        Map.Entry<Integer, String> primera = recientes.firstEntry();
+        if (primera != null && id < primera.getKey() && tamanoRecientes.get() >= capacidadRecientes) {
+            // La venta ya salió de la ventana de recientes
+            return;
+        }
+        if (recientes.put(id, fila) == null && tamanoRecientes.incrementAndGet() > capacidadRecientes) {
+            if (recientes.pollFirstEntry() != null) {
+                tamanoRecientes.decrementAndGet();
+            }
+        }
+    }
+
+    private String formatear(Venta venta) {
+        RenderizadorConsola formateador = FORMATEADOR.get();
+        formateador.fila(formato)
+            .celda(venta.getId())
+            .celda(venta.getCliente() != null ? venta.getCliente().getNombre() : "N/A")
+            .celdaFecha(venta.getFechaCreacion())
+            .celdaMoneda(venta.getTotal())
+            .celda(venta.getEstado().name());
+        return formateador.extraerTexto();
+    }
+
+    /**
+     * Lo que aporta una venta a los totales, para poder restarlo al cambiar,
+     * y la versión de la venta que lo produjo.
+     */
+    private static final class ResumenVenta {
+
+        /** Marca de una venta eliminada; no aporta a los totales */
+        private static final ResumenVenta ELIMINADA = new ResumenVenta(Long.MAX_VALUE, 0, null, 0);
+
+        private final long version;
+        private final int idCliente;
+        private final EstadoVenta estado;
+        private final long totalCentavos;
+
+        ResumenVenta(long version, int idCliente, EstadoVenta estado, long totalCentavos) {
+            this.version = version;
+            this.idCliente = idCliente;
+            this.estado = estado;
+            this.totalCentavos = totalCentavos;
+        }
+    }
+}
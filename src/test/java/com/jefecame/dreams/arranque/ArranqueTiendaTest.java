@@ -0,0 +1,64 @@
+package com.jefecame.dreams.arranque;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.ClienteRepositoryEnMemoria;
+import com.jefecame.dreams.repository.DevolucionRepository;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import com.jefecame.dreams.service.ClienteService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del calentamiento del arranque.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class ArranqueTiendaTest {
+
+    @Test
+    void calentarNoConsumeIdentificadores() {
+        ClienteService clienteService = new ClienteService(new ClienteRepositoryEnMemoria());
+        ArranqueTienda arranque = new ArranqueTienda(new ClienteRepositoryEnMemoria(),
+                new ProductoRepositoryEnMemoria(), new VentaRepositoryEnMemoria(), new DevolucionRepository(),
+                ForkJoinPool.commonPool());
+        Cliente clienteAntes = clienteService.agregarCliente("Antes", "antes@correo.mx");
+        Producto productoAntes = new ProductoRopa("Camisa", new BigDecimal("100.00"), 1, "M", "Rojo");
+        Venta ventaAntes = new Venta(clienteAntes);
+        DetalleVenta detalleAntes = new DetalleVenta(productoAntes, ventaAntes.getId(), 1);
+
+        arranque.calentar(300);
+
+        Cliente clienteDespues = clienteService.agregarCliente("Después", "despues@correo.mx");
+        Producto productoDespues = new ProductoRopa("Pantalón", new BigDecimal("100.00"), 1, "32", "Negro");
+        Venta ventaDespues = new Venta(clienteDespues);
+        DetalleVenta detalleDespues = new DetalleVenta(productoDespues, ventaDespues.getId(), 1);
+        assertThat(clienteDespues.getId()).isEqualTo(clienteAntes.getId() + 1);
+        assertThat(productoDespues.getId()).isEqualTo(productoAntes.getId() + 1);
+        assertThat(ventaDespues.getId()).isEqualTo(ventaAntes.getId() + 1);
+        assertThat(detalleDespues.getId()).isEqualTo(detalleAntes.getId() + 1);
+    }
+
+    @Test
+    void lasLineasDeUnaVentaSinteticaTomanIdsReservados() {
+        Producto producto = new ProductoRopa(-1, "Prenda", new BigDecimal("10.00"), 10, "M", "Azul");
+        Venta sintetica = new Venta(-1, new Cliente(1, "Ana", "ana@correo.mx"), LocalDateTime.now(),
+                EstadoVenta.PROCESANDO, List.of());
+        Venta real = new Venta(new Cliente(2, "Luis", "luis@correo.mx"));
+
+        assertThat(sintetica.agregarProducto(producto, 1)).isTrue();
+        assertThat(sintetica.obtenerLinea(0).getId()).isNegative();
+        assertThat(new Venta(real.getCliente()).getId()).isEqualTo(real.getId() + 1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.jefecame.dreams.arranque;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.Devolucion;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.ClienteRepository;
+import com.jefecame.dreams.repository.ClienteRepositoryEnMemoria;
+import com.jefecame.dreams.repository.DevolucionRepository;
+import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
+import com.jefecame.dreams.repository.VentaRepository;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import com.jefecame.dreams.service.DevolucionService;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Pruebas de ida y vuelta de la instantánea de la tienda.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class InstantaneaTiendaTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void lasDevolucionesSobrevivenAlReinicio() throws Exception {
+        ClienteRepository clientes = new ClienteRepositoryEnMemoria();
+        ProductoRepository productos = new ProductoRepositoryEnMemoria();
+        VentaRepository ventas = new VentaRepositoryEnMemoria();
+        DevolucionRepository devoluciones = new DevolucionRepository();
+        Cliente cliente = new Cliente(1, "Ana", "ana@correo.mx");
+        clientes.guardar(cliente);
+        Producto camisa = new ProductoRopa("Camisa", new BigDecimal("250.00"), 50, "M", "Rojo");
+        productos.guardar(camisa);
+        Venta venta = new Venta(cliente);
+        venta.agregarProducto(camisa, 3);
+        venta.finalizarVenta();
+        ventas.guardar(venta);
+        DetalleVenta linea = venta.getLineas().get(0);
+        Devolucion devolucion = new DevolucionService(devoluciones, ventas, productos)
+                .devolverProducto(venta, linea.getId(), 2, "Talla equivocada");
+
+        Path archivo = directorio.resolve("tienda.bin");
+        InstantaneaTienda.escribir(archivo, clientes, productos, ventas, devoluciones);
+
+        ClienteRepository clientesCargados = new ClienteRepositoryEnMemoria();
+        ProductoRepository productosCargados = new ProductoRepositoryEnMemoria();
+        VentaRepository ventasCargadas = new VentaRepositoryEnMemoria();
+        DevolucionRepository devolucionesCargadas = new DevolucionRepository();
+        new ArranqueTienda(clientesCargados, productosCargados, ventasCargadas, devolucionesCargadas,
+                ForkJoinPool.commonPool()).cargar(archivo);
+
+        Devolucion cargada = devolucionesCargadas.buscarPorId(devolucion.getId());
+        assertThat(cargada.getIdVenta()).isEqualTo(venta.getId());
+        assertThat(cargada.getFecha()).isEqualTo(devolucion.getFecha());
+        assertThat(cargada.getMotivo()).isEqualTo("Talla equivocada");
+        assertThat(cargada.getReembolsoCentavos()).isEqualTo(devolucion.getReembolsoCentavos());
+        assertThat(devolucionesCargadas.totalReembolsadoCentavos()).isEqualTo(devoluciones.totalReembolsadoCentavos());
+
+        DevolucionService servicio = new DevolucionService(devolucionesCargadas, ventasCargadas, productosCargados);
+        Venta ventaCargada = ventasCargadas.buscarPorId(venta.getId());
+        assertThat(servicio.obtenerUnidadesPorDevolver(ventaCargada, linea.getId())).isEqualTo(1);
+        assertThatThrownBy(() -> servicio.devolverProducto(ventaCargada, linea.getId(), 2, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(servicio.devolverProducto(ventaCargada, linea.getId(), 1, null).getId())
+                .isGreaterThan(devolucion.getId());
+    }
+}
@@ -0,0 +1,50 @@
+package com.jefecame.dreams.busqueda;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del mantenimiento de las listas de trigramas del índice difuso.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class IndiceDifusoTest {
+
+    @Test
+    void quitarYAgregarEnDesordenConservaLasListas() {
+        IndiceDifuso<Integer> indice = new IndiceDifuso<>(id -> id, id -> id % 2 == 0 ? "Camisa" : "Pantalón");
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= 500; id++) {
+            ids.add(id);
+        }
+        Collections.shuffle(ids, new Random(7));
+        ids.forEach(indice::alGuardar);
+        // Se eliminan las camisas múltiplo de 4 en desorden y se vuelve a guardar una
+        for (int id : ids) {
+            if (id % 4 == 0) {
+                indice.alEliminar(id);
+            }
+        }
+        indice.alGuardar(200);
+        indice.alGuardar(200);
+
+        List<Integer> encontrados = new ArrayList<>();
+        for (Coincidencia coincidencia : indice.buscar("camisa", 1_000)) {
+            encontrados.add(coincidencia.getId());
+        }
+        List<Integer> esperados = new ArrayList<>();
+        for (int id = 2; id <= 500; id += 2) {
+            if (id % 4 != 0 || id == 200) {
+                esperados.add(id);
+            }
+        }
+        assertThat(encontrados).containsExactlyElementsOf(esperados);
+        assertThat(indice.buscar("pantalon", 1_000)).hasSize(250);
+    }
+}
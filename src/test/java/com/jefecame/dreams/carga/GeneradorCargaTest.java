@@ -0,0 +1,70 @@
+package com.jefecame.dreams.carga;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jefecame.dreams.repository.ClienteRepository;
+import com.jefecame.dreams.repository.ClienteRepositoryEnMemoria;
+import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import com.jefecame.dreams.service.ClienteService;
+import com.jefecame.dreams.service.ProductoService;
+import com.jefecame.dreams.service.VentaService;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de los presupuestos de asignación con una pasada corta del generador de carga.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class GeneradorCargaTest {
+
+    @Test
+    void lasOperacionesDeVentaCumplenSusPresupuestos() throws InterruptedException {
+        GeneradorCarga generador = ejecutarPasada();
+        PerfilAsignaciones perfil = generador.getPerfilAsignaciones();
+
+        assertThat(perfil).isNotNull();
+        assertThat(perfil.getBytes(OperacionCarga.AGREGAR_LINEA).getCuenta()).isPositive();
+        assertThat(perfil.getBytes(OperacionCarga.FINALIZAR_VENTA).getCuenta()).isPositive();
+        perfil.exigirPresupuestos(configuracion().getPresupuestos());
+    }
+
+    @Test
+    void exigirPresupuestosFallaSiUnaOperacionLosExcede() throws InterruptedException {
+        PerfilAsignaciones perfil = ejecutarPasada().getPerfilAsignaciones();
+
+        assertThatThrownBy(() -> perfil.exigirPresupuestos(Map.of(OperacionCarga.AGREGAR_LINEA, 1L)))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("AGREGAR_LINEA");
+    }
+
+    private static GeneradorCarga ejecutarPasada() throws InterruptedException {
+        ClienteRepository clientes = new ClienteRepositoryEnMemoria();
+        ProductoRepository productos = new ProductoRepositoryEnMemoria();
+        GeneradorCarga generador = new GeneradorCarga(configuracion(),
+                new ClienteService(clientes), new ProductoService(productos),
+                new VentaService(new VentaRepositoryEnMemoria(), productos, clientes));
+        generador.preparar();
+        generador.ejecutar();
+        return generador;
+    }
+
+    private static ConfiguracionCarga configuracion() {
+        Properties propiedades = new Properties();
+        propiedades.setProperty("hilos", "2");
+        propiedades.setProperty("duracion.segundos", "0");
+        propiedades.setProperty("sesiones", "500");
+        propiedades.setProperty("clientes.iniciales", "20");
+        propiedades.setProperty("productos.iniciales", "20");
+        propiedades.setProperty("presupuesto.iniciar_venta", "8192");
+        propiedades.setProperty("presupuesto.agregar_linea", "8192");
+        propiedades.setProperty("presupuesto.finalizar_venta", "32768");
+        return new ConfiguracionCarga(propiedades, List.of());
+    }
+}
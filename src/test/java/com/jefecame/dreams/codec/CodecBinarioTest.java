@@ -0,0 +1,51 @@
+package com.jefecame.dreams.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jefecame.dreams.impuesto.MotorImpuestos;
+import com.jefecame.dreams.model.CategoriaProducto;
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.RegionFiscal;
+import com.jefecame.dreams.model.Venta;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de ida y vuelta de las ventas por el codec binario.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class CodecBinarioTest {
+
+    @Test
+    void decodificarConservaLosImpuestosConLosQueSeVendio() {
+        Cliente cliente = new Cliente(1, "Ana", "ana@correo.mx");
+        Producto camisa = new ProductoRopa("Camisa", new BigDecimal("250.00"), 50, "M", "Rojo");
+        Venta venta = new Venta(cliente);
+        venta.agregarProducto(camisa, 2);
+        venta.finalizarVenta();
+
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        new CodecBinario().codificarVenta(venta, buffer);
+        buffer.flip();
+
+        MotorImpuestos motor = MotorImpuestos.porDefecto();
+        motor.establecerTasa(RegionFiscal.GENERAL, CategoriaProducto.ROPA, new BigDecimal("0.10"));
+        Venta decodificada;
+        try {
+            decodificada = new CodecBinario().decodificarVenta(buffer, id -> cliente, id -> camisa);
+        } finally {
+            motor.establecerTasa(RegionFiscal.GENERAL, CategoriaProducto.ROPA, new BigDecimal("0.16"));
+        }
+
+        DetalleVenta linea = decodificada.getLineas().get(0);
+        assertThat(linea.getTasaImpuesto()).isEqualTo(1600);
+        assertThat(linea.getImpuestoCentavos()).isEqualTo(8_000);
+        assertThat(decodificada.getTotalCentavos()).isEqualTo(venta.getTotalCentavos()).isEqualTo(58_000);
+    }
+}
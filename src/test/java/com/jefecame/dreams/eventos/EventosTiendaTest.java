@@ -0,0 +1,82 @@
+package com.jefecame.dreams.eventos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.ClienteRepositoryEnMemoria;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import com.jefecame.dreams.service.VentaService;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Pruebas de los eventos de Flight Recorder de la tienda y de la detección
+ * de grabaciones en curso.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class EventosTiendaTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void unaVentaGrabadaDejaUnEventoPorOperacion() throws IOException {
+        ClienteRepositoryEnMemoria clientes = new ClienteRepositoryEnMemoria();
+        ProductoRepositoryEnMemoria productos = new ProductoRepositoryEnMemoria();
+        Cliente cliente = new Cliente(1, "Ana", "ana@correo.mx");
+        clientes.guardar(cliente);
+        Producto camisa = new ProductoRopa("Camisa", new BigDecimal("100.00"), 5, "M", "Rojo");
+        productos.guardar(camisa);
+        VentaService servicio = new VentaService(new VentaRepositoryEnMemoria(), productos, clientes);
+
+        Path archivo = directorio.resolve("tienda.jfr");
+        try (Recording grabacion = new Recording()) {
+            grabacion.enable("com.jefecame.dreams.Venta");
+            grabacion.enable("com.jefecame.dreams.Repositorio").withThreshold(Duration.ZERO);
+            grabacion.start();
+            assertThat(Grabacion.activa()).isTrue();
+
+            Venta venta = servicio.iniciarNuevaVenta(cliente);
+            servicio.agregarProductoAVenta(venta, camisa, 2);
+            assertThatThrownBy(() -> servicio.agregarProductoAVenta(venta, camisa, 50))
+                    .isInstanceOf(IllegalArgumentException.class);
+            servicio.finalizarVenta(venta);
+            assertThatThrownBy(() -> servicio.finalizarVenta(venta)).isInstanceOf(IllegalArgumentException.class);
+
+            grabacion.stop();
+            grabacion.dump(archivo);
+        }
+        assertThat(Grabacion.activa()).isFalse();
+
+        List<RecordedEvent> eventos = RecordingFile.readAllEvents(archivo);
+        List<String> ventas = eventos.stream()
+                .filter(evento -> evento.getEventType().getName().equals("com.jefecame.dreams.Venta"))
+                .map(evento -> evento.getString("operacion") + ":" + evento.getString("resultado"))
+                .toList();
+        assertThat(ventas).containsExactly(
+                EventoVenta.INICIAR + ":" + EventoVenta.EXITO,
+                EventoVenta.AGREGAR_LINEA + ":" + EventoVenta.EXITO,
+                EventoVenta.AGREGAR_LINEA + ":" + EventoVenta.INVALIDA,
+                EventoVenta.FINALIZAR + ":" + EventoVenta.EXITO,
+                EventoVenta.FINALIZAR + ":" + EventoVenta.INVALIDA);
+        assertThat(eventos)
+                .filteredOn(evento -> evento.getEventType().getName().equals("com.jefecame.dreams.Repositorio"))
+                .extracting(evento -> evento.getString("repositorio"))
+                .contains(EventoRepositorio.VENTAS);
+    }
+}
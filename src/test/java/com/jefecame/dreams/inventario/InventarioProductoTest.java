@@ -0,0 +1,101 @@
+package com.jefecame.dreams.inventario;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de los avisos de cambios de existencias, de su aplicación en otra copia
+ * y de la mudanza de los contadores al arreglo con relleno.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class InventarioProductoTest {
+
+    @Test
+    void cadaCambioSeAvisaConSuNumeroDeCambio() {
+        InventarioProducto inventario = new InventarioProducto(2);
+        List<int[]> avisos = new ArrayList<>();
+        inventario.asignarOyente(7, (id, ubicacion, existencias, cambio) ->
+                avisos.add(new int[] {id, ubicacion, existencias, cambio}));
+
+        inventario.establecer(0, 10);
+        inventario.reservar(0, 4);
+        assertThat(inventario.reservar(0, 100)).isFalse();
+        inventario.transferir(0, 1, 2);
+
+        assertThat(avisos).containsExactly(
+                new int[] {7, 0, 10, 1},
+                new int[] {7, 0, 6, 2},
+                new int[] {7, 0, 4, 3},
+                new int[] {7, 1, 2, 1});
+        assertThat(inventario.total()).isEqualTo(6);
+    }
+
+    @Test
+    void laCopiaConservaElAvisoMasRecienteSinImportarElOrden() {
+        InventarioProducto copia = new InventarioProducto(1);
+
+        assertThat(copia.aplicarReplica(0, 4, 3)).isTrue();
+        assertThat(copia.aplicarReplica(0, 6, 2)).isFalse();
+        assertThat(copia.aplicarReplica(0, 4, 3)).isFalse();
+
+        assertThat(copia.disponible(0)).isEqualTo(4);
+        assertThat(copia.total()).isEqualTo(4);
+    }
+
+    @Test
+    void elInventarioEmpiezaCompactoSalvoConUmbralCero() {
+        assertThat(new InventarioProducto(3).isRelleno()).isFalse();
+        InventarioProducto relleno = new InventarioProducto(3, 0);
+        relleno.establecer(2, 5);
+
+        assertThat(relleno.isRelleno()).isTrue();
+        assertThat(relleno.disponible(2)).isEqualTo(5);
+        assertThat(InventarioProducto.cambio(relleno.estado(2))).isEqualTo(1);
+    }
+
+    @Test
+    void laMudanzaConcurrenteNoPierdeCambios() throws InterruptedException {
+        InventarioProducto inventario = new InventarioProducto(4, 1);
+        for (int i = 0; i < 4; i++) {
+            inventario.establecer(i, 1_000_000);
+        }
+        int hilos = 8;
+        int operaciones = 20_000;
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Thread> trabajadores = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            int ubicacion = h % 4;
+            Thread hilo = new Thread(() -> {
+                try {
+                    salida.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < operaciones; i++) {
+                    inventario.reservar(ubicacion, 2);
+                    inventario.devolver(ubicacion, 1);
+                }
+            });
+            hilo.start();
+            trabajadores.add(hilo);
+        }
+        salida.countDown();
+        for (Thread hilo : trabajadores) {
+            hilo.join();
+        }
+
+        // Cada hilo descontó una unidad neta por vuelta, antes o después de la mudanza
+        for (int i = 0; i < 4; i++) {
+            assertThat(inventario.disponible(i)).isEqualTo(1_000_000 - 2 * operaciones);
+            assertThat(InventarioProducto.cambio(inventario.estado(i))).isEqualTo(1 + 4 * operaciones);
+        }
+        assertThat(inventario.total()).isEqualTo(4L * (1_000_000 - 2 * operaciones));
+    }
+}
@@ -0,0 +1,73 @@
+package com.jefecame.dreams.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jefecame.dreams.codec.CodecBinario;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de la publicación de líneas, importes y estado de una venta.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class VentaTest {
+
+    @Test
+    void lasLineasLeidasNoCambianConLosCambiosPosteriores() {
+        Venta venta = new Venta(new Cliente(1, "Ana", "ana@correo.mx"));
+        Producto producto = new ProductoRopa("Camisa", new BigDecimal("10.00"), 100, "M", "Azul");
+        venta.agregarProducto(producto, 1);
+
+        List<DetalleVenta> antes = venta.getLineas();
+        venta.agregarProducto(producto, 2);
+        venta.removerProducto(antes.get(0).getId());
+
+        assertThat(antes).hasSize(1);
+        assertThat(venta.getLineas()).hasSize(1).first().extracting(DetalleVenta::getCantidad).isEqualTo(2);
+        assertThat(venta.getSubtotalCentavos()).isEqualTo(20_00L);
+    }
+
+    @Test
+    void losLectoresNoFallanMientrasSeAgreganLineas() throws InterruptedException {
+        Venta venta = new Venta(new Cliente(1, "Ana", "ana@correo.mx"));
+        Producto producto = new ProductoRopa("Camisa", new BigDecimal("10.00"), 100_000, "M", "Azul");
+        AtomicBoolean terminado = new AtomicBoolean();
+        AtomicReference<Throwable> fallo = new AtomicReference<>();
+
+        Thread lector = new Thread(() -> {
+            CodecBinario codec = new CodecBinario();
+            ByteBuffer destino = ByteBuffer.allocate(1 << 20);
+            try {
+                while (!terminado.get()) {
+                    List<DetalleVenta> lineas = venta.getLineas();
+                    long subtotal = 0;
+                    for (DetalleVenta linea : lineas) {
+                        subtotal += linea.getSubtotalCentavos();
+                    }
+                    assertThat(subtotal).isLessThanOrEqualTo(venta.getSubtotalCentavos());
+                    venta.getProductosVenta();
+                    destino.clear();
+                    codec.reiniciarDiccionario();
+                    codec.codificarVenta(venta, destino);
+                }
+            } catch (Throwable e) {
+                fallo.set(e);
+            }
+        });
+        lector.start();
+        for (int i = 0; i < 2_000; i++) {
+            venta.agregarProducto(producto, 1);
+        }
+        terminado.set(true);
+        lector.join();
+
+        assertThat(fallo.get()).isNull();
+        assertThat(venta.contarLineas()).isEqualTo(2_000);
+    }
+}
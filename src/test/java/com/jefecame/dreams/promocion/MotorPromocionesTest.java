@@ -0,0 +1,74 @@
+package com.jefecame.dreams.promocion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jefecame.dreams.model.CategoriaProducto;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoRopa;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de la elección de promoción según la cantidad de la línea.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class MotorPromocionesTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    private MotorPromociones motor;
+    private Producto camisa;
+
+    @BeforeEach
+    void preparar() {
+        ZoneId zona = ZoneId.systemDefault();
+        motor = new MotorPromociones(Clock.fixed(AHORA.atZone(zona).toInstant(), zona));
+        camisa = new ProductoRopa("Camisa", new BigDecimal("100.00"), 50, "M", "Rojo");
+    }
+
+    @Test
+    void eligeEntreProductoYCategoriaSegunLaCantidad() {
+        PromocionNxM tresPorDos = new PromocionNxM("3x2 camisa", 3, 2, AHORA.minusDays(1), AHORA.plusDays(1),
+                Set.of(camisa.getId()));
+        PromocionPorcentaje diezRopa = new PromocionPorcentaje("10% ropa", new BigDecimal("10"),
+                AHORA.minusDays(1), AHORA.plusDays(1), CategoriaProducto.ROPA);
+        motor.agregarPromociones(List.of(tresPorDos, diezRopa));
+
+        // Con una o dos unidades el 3x2 no regala nada; gana el 10 % de la categoría
+        assertThat(motor.calcularDescuento(camisa, 1)).isEqualByComparingTo("10.00");
+        assertThat(motor.calcularDescuento(camisa, 2)).isEqualByComparingTo("20.00");
+        assertThat(motor.buscarPromocionAplicable(camisa, 2)).isEqualTo(diezRopa.getId());
+        // Con tres unidades una es gratis, que supera al 10 %
+        assertThat(motor.calcularDescuento(camisa, 3)).isEqualByComparingTo("100.00");
+        assertThat(motor.buscarPromocionAplicable(camisa, 3)).isEqualTo(tresPorDos.getId());
+    }
+
+    @Test
+    void conservaVariasNxmDelMismoProducto() {
+        PromocionNxM tresPorDos = new PromocionNxM("3x2", 3, 2, AHORA.minusDays(1), AHORA.plusDays(1),
+                Set.of(camisa.getId()));
+        PromocionNxM cuatroPorDos = new PromocionNxM("4x2", 4, 2, AHORA.minusDays(1), AHORA.plusDays(1),
+                Set.of(camisa.getId()));
+        motor.agregarPromociones(List.of(cuatroPorDos, tresPorDos));
+
+        assertThat(motor.calcularDescuento(camisa, 3)).isEqualByComparingTo("100.00");
+        assertThat(motor.calcularDescuento(camisa, 4)).isEqualByComparingTo("200.00");
+    }
+
+    @Test
+    void sinDescuentoNoHayPromocionAplicable() {
+        motor.agregarPromocion(new PromocionNxM("3x2", 3, 2, AHORA.minusDays(1), AHORA.plusDays(1),
+                Set.of(camisa.getId())));
+
+        assertThat(motor.calcularDescuento(camisa, 2)).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(motor.buscarPromocionAplicable(camisa, 2)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,109 @@
+package com.jefecame.dreams.recibo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Pruebas de la rotación y el recorte de los segmentos del archivo de recibos.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class ArchivoRecibosTest {
+
+    @TempDir
+    Path directorio;
+
+    private final RelojAjustable reloj = new RelojAjustable(LocalDateTime.of(2026, 3, 7, 23, 0).toInstant(ZoneOffset.UTC));
+
+    @Test
+    void rotaCuandoElReciboNoCabeYRecortaAlCerrar() throws IOException {
+        try (ArchivoRecibos archivo = new ArchivoRecibos(directorio, 64, reloj)) {
+            archivo.escribir(recibo("primero-", 40));
+            archivo.escribir(recibo("segundo-", 40));
+            archivo.escribir(recibo("tercero-", 10));
+
+            assertThat(archivo.getRotaciones()).isEqualTo(2);
+            assertThat(archivo.getRecibos()).isEqualTo(3);
+            assertThat(archivo.getBytes()).isEqualTo(90);
+            assertThatThrownBy(() -> archivo.escribir(ByteBuffer.allocate(65)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        assertThat(leer("recibos-2026-03-07-001.txt")).isEqualTo(texto("primero-", 40));
+        assertThat(leer("recibos-2026-03-07-002.txt")).isEqualTo(texto("segundo-", 40) + texto("tercero-", 10));
+    }
+
+    @Test
+    void cambiarDeDiaAbreUnSegmentoNuevoYNoPisaLosAnteriores() throws IOException {
+        Files.writeString(directorio.resolve("recibos-2026-03-08-004.txt"), "de otra ejecución");
+        ArchivoRecibos archivo = new ArchivoRecibos(directorio, 1024, reloj);
+        archivo.escribir(recibo("noche-", 20));
+
+        reloj.adelantar(Duration.ofHours(2));
+        archivo.escribir(recibo("manana-", 20));
+        archivo.close();
+
+        assertThat(leer("recibos-2026-03-07-001.txt")).isEqualTo(texto("noche-", 20));
+        assertThat(leer("recibos-2026-03-08-005.txt")).isEqualTo(texto("manana-", 20));
+        assertThat(leer("recibos-2026-03-08-004.txt")).isEqualTo("de otra ejecución");
+        assertThatThrownBy(() -> archivo.escribir(recibo("tarde-", 10))).isInstanceOf(IllegalStateException.class);
+    }
+
+    private String leer(String nombre) throws IOException {
+        return Files.readString(directorio.resolve(nombre));
+    }
+
+    private static ByteBuffer recibo(String prefijo, int tamano) {
+        return ByteBuffer.wrap(texto(prefijo, tamano).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String texto(String prefijo, int tamano) {
+        return (prefijo + ".".repeat(tamano)).substring(0, tamano);
+    }
+
+    /**
+     * Reloj en UTC que solo avanza cuando la prueba lo indica.
+     */
+    private static final class RelojAjustable extends Clock {
+
+        private Instant ahora;
+
+        private RelojAjustable(Instant ahora) {
+            this.ahora = ahora;
+        }
+
+        void adelantar(Duration tiempo) {
+            ahora = ahora.plus(tiempo);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora;
+        }
+    }
+}
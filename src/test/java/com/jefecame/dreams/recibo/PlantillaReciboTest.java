@@ -0,0 +1,84 @@
+package com.jefecame.dreams.recibo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jefecame.dreams.impuesto.MotorImpuestos;
+import com.jefecame.dreams.inventario.RedUbicaciones;
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.view.FormatoColumnas;
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del recibo renderizado desde la plantilla precompilada.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class PlantillaReciboTest {
+
+    private static final FormatoColumnas FORMATO = new FormatoColumnas(-25, 6, 14);
+
+    private final Venta venta = crearVenta();
+
+    @Test
+    void elReciboEnUtf8LlevaLosDatosDeLaVenta() {
+        String recibo = renderizar(StandardCharsets.UTF_8);
+
+        assertThat(recibo).contains("ID Venta: 4321\n", "Cliente: José Ñúñez\n", "Fecha: 2026-03-07 09:05:30\n");
+        assertThat(recibo).contains(String.format("%-25s %6s %14s", "Camisa de algodón", "x3", "$599.70"));
+        assertThat(recibo).containsPattern("Subtotal: +\\$1145\\.70");
+        assertThat(recibo).startsWith("\n" + "=".repeat(PlantillaRecibo.ANCHO)).endsWith("=".repeat(PlantillaRecibo.ANCHO) + "\n");
+    }
+
+    @Test
+    void otroJuegoDeCaracteresProduceElMismoTexto() {
+        assertThat(renderizar(StandardCharsets.ISO_8859_1)).isEqualTo(renderizar(StandardCharsets.UTF_8));
+        // Lo que el juego no puede representar se reemplaza sin romper el recibo
+        assertThat(renderizar(StandardCharsets.US_ASCII)).contains("Cliente: Jos? ???ez");
+    }
+
+    @Test
+    void unBuferSinEspacioSuficienteSeRechaza() {
+        PlantillaRecibo plantilla = plantilla(StandardCharsets.UTF_8);
+        ByteBuffer pequeno = ByteBuffer.allocate(32);
+
+        assertThatThrownBy(() -> plantilla.renderizar(venta, pequeno))
+                .isInstanceOf(BufferOverflowException.class);
+        assertThatThrownBy(() -> new PlantillaRecibo(StandardCharsets.UTF_8, new FormatoColumnas(-10, 5)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private String renderizar(Charset juego) {
+        PlantillaRecibo plantilla = plantilla(juego);
+        ByteBuffer destino = ByteBuffer.allocateDirect(plantilla.calcularTamanoMaximo(venta));
+        plantilla.renderizar(venta, destino);
+        destino.flip();
+        byte[] bytes = new byte[destino.remaining()];
+        destino.get(bytes);
+        return new String(bytes, juego);
+    }
+
+    private static PlantillaRecibo plantilla(Charset juego) {
+        return new PlantillaRecibo(juego, FORMATO, RedUbicaciones.crear(2, 1), MotorImpuestos.porDefecto(), "\n");
+    }
+
+    private static Venta crearVenta() {
+        Cliente cliente = new Cliente(7, "José Ñúñez", "jose@correo.mx");
+        ProductoRopa camisa = new ProductoRopa("Camisa de algodón", new BigDecimal("199.90"), 10, "M", "Azul");
+        ProductoRopa calcetas = new ProductoRopa("Calcetas", new BigDecimal("45.50"), 10, "U", "Gris");
+        return new Venta(4321, cliente, LocalDateTime.of(2026, 3, 7, 9, 5, 30), EstadoVenta.COMPLETADA,
+                List.of(new DetalleVenta(camisa, 4321, 3), new DetalleVenta(calcetas, 4321, 12)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.jefecame.dreams.replicacion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.repository.ClienteRepositoryEnMemoria;
+import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de la réplica de lectura contra un servidor de replicación local.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class ReplicaLecturaTest {
+
+    private ProductoRepository productosPrimario;
+    private ProductoRepository productosReplica;
+    private ServidorReplicacion servidor;
+    private ReplicaLectura replica;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        productosPrimario = new ProductoRepositoryEnMemoria();
+        productosReplica = new ProductoRepositoryEnMemoria();
+        servidor = new ServidorReplicacion(0, new ClienteRepositoryEnMemoria(), productosPrimario,
+                new VentaRepositoryEnMemoria());
+        servidor.iniciar();
+    }
+
+    @AfterEach
+    void detener() {
+        if (replica != null) {
+            replica.desconectar();
+        }
+        servidor.detener();
+    }
+
+    @Test
+    void losCambiosDeStockLleganALaReplica() throws Exception {
+        Producto camisa = new ProductoRopa("Camisa", new BigDecimal("100.00"), 50, "M", "Rojo");
+        productosPrimario.guardar(camisa);
+        conectarReplica();
+        assertThat(productosReplica.buscarPorId(camisa.getId()).getStock()).isEqualTo(50);
+
+        int ubicacion = camisa.getInventario().contarUbicaciones() - 1;
+        assertThat(camisa.reservarStock(0, 3)).isTrue();
+        camisa.actualizarStock(0, 10);
+        camisa.getInventario().establecer(ubicacion, 7);
+
+        esperarAlDia();
+        Producto replicado = productosReplica.buscarPorId(camisa.getId());
+        assertThat(replicado.getInventario().disponible(0)).isEqualTo(57);
+        assertThat(replicado.getInventario().disponible(ubicacion)).isEqualTo(7);
+    }
+
+    @Test
+    void unCambioDelProductoNoRetrocedeElStockReplicado() throws Exception {
+        Producto camisa = new ProductoRopa("Camisa", new BigDecimal("100.00"), 50, "M", "Rojo");
+        productosPrimario.guardar(camisa);
+        conectarReplica();
+
+        camisa.reservarStock(0, 5);
+        productosPrimario.actualizar(camisa.getId(), camisa.getVersion(), p -> p.setNombre("Camisa lisa"));
+        camisa.reservarStock(0, 5);
+
+        esperarAlDia();
+        Producto replicado = productosReplica.buscarPorId(camisa.getId());
+        assertThat(replicado.getNombre()).isEqualTo("Camisa lisa");
+        assertThat(replicado.getInventario().disponible(0)).isEqualTo(40);
+    }
+
+    private void conectarReplica() throws Exception {
+        replica = new ReplicaLectura("localhost", servidor.getPuerto(), new ClienteRepositoryEnMemoria(),
+                productosReplica, new VentaRepositoryEnMemoria());
+        replica.conectar();
+        assertThat(replica.esperarInstantanea(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private void esperarAlDia() throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (replica.getUltimaSecuenciaAplicada() < servidor.getSecuenciaActual() && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertThat(replica.getUltimaSecuenciaAplicada()).isEqualTo(servidor.getSecuenciaActual());
+    }
+}
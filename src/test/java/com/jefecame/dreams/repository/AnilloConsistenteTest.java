@@ -0,0 +1,67 @@
+package com.jefecame.dreams.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del reparto de claves del anillo de hash consistente.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class AnilloConsistenteTest {
+
+    private static final int CLAVES = 100_000;
+
+    @Test
+    void rechazaParametrosInvalidos() {
+        assertThatThrownBy(() -> new AnilloConsistente(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AnilloConsistente((1 << 16) + 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AnilloConsistente(4, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void repartePorIgualLasClavesConsecutivas() {
+        AnilloConsistente anillo = new AnilloConsistente(8);
+        int[] porFragmento = new int[8];
+        for (int clave = 1; clave <= CLAVES; clave++) {
+            porFragmento[anillo.fragmentoPara(clave)]++;
+        }
+
+        int esperado = CLAVES / 8;
+        for (int cuenta : porFragmento) {
+            assertThat(cuenta).isBetween(esperado * 80 / 100, esperado * 120 / 100);
+        }
+    }
+
+    @Test
+    void agregarUnFragmentoSoloMueveSuParte() {
+        AnilloConsistente cuatro = new AnilloConsistente(4);
+        AnilloConsistente cinco = new AnilloConsistente(5);
+        int movidas = 0;
+        for (int clave = 1; clave <= CLAVES; clave++) {
+            int antes = cuatro.fragmentoPara(clave);
+            int despues = cinco.fragmentoPara(clave);
+            if (antes != despues) {
+                movidas++;
+                // Las claves que se mueven solo van al fragmento nuevo
+                assertThat(despues).isEqualTo(4);
+            }
+        }
+
+        assertThat(movidas).isBetween(CLAVES / 5 * 70 / 100, CLAVES / 5 * 130 / 100);
+    }
+
+    @Test
+    void elRepartoEsEstableYConUnFragmentoTodoVaAlCero() {
+        AnilloConsistente anillo = new AnilloConsistente(6);
+        AnilloConsistente mismo = new AnilloConsistente(6);
+        AnilloConsistente unico = new AnilloConsistente(1);
+        for (int clave = -1_000; clave <= 1_000; clave++) {
+            assertThat(anillo.fragmentoPara(clave)).isEqualTo(mismo.fragmentoPara(clave)).isBetween(0, 5);
+            assertThat(unico.fragmentoPara(clave)).isZero();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.jefecame.dreams.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de la admisión, el desalojo, la invalidación y las estadísticas de
+ * la caché de lecturas.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class CacheLecturasTest {
+
+    private final AtomicInteger cargas = new AtomicInteger();
+    private final IntFunction<String> cargador = id -> {
+        cargas.incrementAndGet();
+        return "valor-" + id;
+    };
+
+    @Test
+    void rechazaCapacidadesMenoresADos() {
+        assertThatThrownBy(() -> new CacheLecturas<String>(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void lasEstadisticasCuentanAciertosYFallos() {
+        CacheLecturas<String> cache = new CacheLecturas<>(10);
+
+        assertThat(cache.obtener(1, cargador)).isEqualTo("valor-1");
+        assertThat(cache.obtener(1, cargador)).isEqualTo("valor-1");
+        assertThat(cache.obtener(1, cargador)).isEqualTo("valor-1");
+        assertThat(cache.obtener(2, id -> null)).isNull();
+
+        assertThat(cargas.get()).isEqualTo(1);
+        assertThat(cache.getAciertos()).isEqualTo(2);
+        assertThat(cache.getFallos()).isEqualTo(2);
+        assertThat(cache.getTasaAciertos()).isEqualTo(0.5);
+        assertThat(cache.tamano()).isEqualTo(1);
+    }
+
+    @Test
+    void nuncaExcedeSuCapacidad() {
+        CacheLecturas<String> cache = new CacheLecturas<>(50);
+        for (int id = 0; id < 1_000; id++) {
+            cache.obtener(id, cargador);
+        }
+
+        assertThat(cache.tamano()).isLessThanOrEqualTo(50);
+        assertThat(cache.getDesalojos()).isGreaterThanOrEqualTo(1_000 - 50);
+    }
+
+    @Test
+    void unRecorridoNoDesplazaALosValoresFrecuentes() {
+        CacheLecturas<String> cache = new CacheLecturas<>(100);
+        for (int vuelta = 0; vuelta < 10; vuelta++) {
+            for (int id = 0; id < 90; id++) {
+                cache.obtener(id, cargador);
+            }
+        }
+        for (int id = 10_000; id < 10_200; id++) {
+            cache.obtener(id, cargador);
+        }
+
+        cargas.set(0);
+        for (int id = 0; id < 90; id++) {
+            cache.obtener(id, cargador);
+        }
+        assertThat(cargas.get()).isLessThan(9);
+    }
+
+    @Test
+    void invalidarObligaARecargarSoloEseId() {
+        CacheLecturas<String> cache = new CacheLecturas<>(10);
+        cache.obtener(1, cargador);
+        cache.obtener(2, cargador);
+
+        cache.invalidar(1);
+        cargas.set(0);
+        cache.obtener(1, cargador);
+        cache.obtener(2, cargador);
+
+        assertThat(cargas.get()).isEqualTo(1);
+    }
+
+    @Test
+    void unaCargaQueCompiteConUnaInvalidacionNoSePublica() {
+        CacheLecturas<String> cache = new CacheLecturas<>(10);
+        cache.obtener(2, cargador);
+
+        // El valor cambia mientras se carga: la invalidación llega antes de publicar el valor viejo
+        assertThat(cache.obtener(1, id -> {
+            cache.invalidar(1);
+            return "obsoleto";
+        })).isEqualTo("obsoleto");
+
+        assertThat(cache.obtener(1, cargador)).isEqualTo("valor-1");
+        cargas.set(0);
+        cache.obtener(2, cargador);
+        assertThat(cargas.get()).isZero();
+    }
+
+    @Test
+    void limpiarVaciaLaCache() {
+        CacheLecturas<String> cache = new CacheLecturas<>(10);
+        cache.obtener(1, cargador);
+        cache.limpiar();
+
+        assertThat(cache.tamano()).isZero();
+        cargas.set(0);
+        cache.obtener(1, cargador);
+        assertThat(cargas.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,122 @@
+package com.jefecame.dreams.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jefecame.dreams.model.Cliente;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de las bajas, el crecimiento y las métricas de falsos positivos del
+ * filtro de Bloom con contadores, y de su mantenimiento en el repositorio.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class FiltroBloomContadorTest {
+
+    @Test
+    void rechazaParametrosInvalidos() {
+        assertThatThrownBy(() -> new FiltroBloomContador<String>(null, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FiltroBloomContador<String>(FiltroBloomContador::huella, -1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FiltroBloomContador<String>(FiltroBloomContador::huella, 10, 1.0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void lasBajasRestanSinProducirFalsosNegativos() {
+        FiltroBloomContador<String> filtro = new FiltroBloomContador<>(FiltroBloomContador::huella, 1_000);
+        List<String> claves = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            String clave = "cliente" + i + "@correo.mx";
+            filtro.aplicar(null, clave, () -> { });
+            claves.add(clave);
+        }
+        for (int i = 0; i < claves.size(); i += 2) {
+            filtro.aplicar(claves.get(i), null, () -> { });
+        }
+
+        assertThat(filtro.contarClaves()).isEqualTo(500);
+        for (int i = 1; i < claves.size(); i += 2) {
+            assertThat(filtro.puedeContener(FiltroBloomContador.huella(claves.get(i)))).isTrue();
+        }
+        int positivosEliminados = 0;
+        for (int i = 0; i < claves.size(); i += 2) {
+            if (filtro.puedeContener(FiltroBloomContador.huella(claves.get(i)))) {
+                positivosEliminados++;
+            }
+        }
+        // Solo las claves que comparten todos sus contadores con otras siguen dando positivo
+        assertThat(positivosEliminados).isLessThan(25);
+    }
+
+    @Test
+    void laHuellaIgnoraMayusculasYEspaciosDeLosExtremos() {
+        assertThat(FiltroBloomContador.huella("  Ana@Correo.MX ")).isEqualTo(FiltroBloomContador.huella("ana@correo.mx"));
+        assertThat(FiltroBloomContador.huella("ana@correo.mx")).isNotEqualTo(FiltroBloomContador.huella("ana@correo.com"));
+    }
+
+    @Test
+    void crecerConservaTodasLasClaves() {
+        FiltroBloomContador<String> filtro = new FiltroBloomContador<>(FiltroBloomContador::huella, 0);
+        List<String> claves = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            String clave = "producto-" + i;
+            filtro.aplicar(null, clave, () -> claves.add(clave));
+            filtro.crecerSiHaceFalta(() -> claves);
+        }
+
+        assertThat(filtro.getReconstrucciones()).isEqualTo(3);
+        assertThat(filtro.getCapacidad()).isEqualTo(8 * FiltroBloomContador.CAPACIDAD_MINIMA);
+        assertThat(filtro.contarClaves()).isEqualTo(5_000);
+        for (String clave : claves) {
+            assertThat(filtro.puedeContener(FiltroBloomContador.huella(clave))).isTrue();
+        }
+        assertThat(filtro.getNegativas()).isZero();
+    }
+
+    @Test
+    void lasMetricasSiguenLaTasaObjetivo() {
+        FiltroBloomContador<String> filtro = new FiltroBloomContador<>(FiltroBloomContador::huella, 2_000, 0.01);
+        for (int i = 0; i < 2_000; i++) {
+            filtro.aplicar(null, "presente-" + i, () -> { });
+        }
+        for (int i = 0; i < 20_000; i++) {
+            if (filtro.puedeContener(FiltroBloomContador.huella("ausente-" + i))) {
+                filtro.registrarConfirmacion(false);
+            }
+        }
+        filtro.puedeContener(FiltroBloomContador.huella("presente-7"));
+        filtro.registrarConfirmacion(true);
+
+        assertThat(filtro.getConsultas()).isEqualTo(20_001);
+        assertThat(filtro.getConfirmadas()).isEqualTo(1);
+        assertThat(filtro.getNegativas() + filtro.getFalsosPositivos()).isEqualTo(20_000);
+        assertThat(filtro.getTasaFalsosPositivosEstimada()).isBetween(0.005, 0.015);
+        assertThat(filtro.getTasaFalsosPositivosObservada()).isBetween(0.002, 0.03);
+    }
+
+    @Test
+    void elRepositorioMantieneElFiltroConLosCambiosDeEmail() {
+        ClienteRepositoryEnMemoria repositorio = new ClienteRepositoryEnMemoria();
+        repositorio.guardar(new Cliente(1, "Ana", "ana@correo.mx"));
+        repositorio.guardar(new Cliente(2, "Luis", "luis@correo.mx"));
+
+        assertThat(repositorio.existeEmail(" ANA@correo.mx", 0)).isTrue();
+        assertThat(repositorio.existeEmail("ana@correo.mx", 1)).isFalse();
+
+        Cliente ana = repositorio.buscarPorId(1);
+        repositorio.actualizar(1, ana.getVersion(), c -> c.actualizarInformacion("Ana", "ana@otro.mx", c.isActivo()));
+        repositorio.eliminar(2);
+
+        assertThat(repositorio.existeEmail("ana@otro.mx", 0)).isTrue();
+        assertThat(repositorio.existeEmail("ana@correo.mx", 0)).isFalse();
+        assertThat(repositorio.existeEmail("luis@correo.mx", 0)).isFalse();
+        FiltroBloomContador<Cliente> filtro = repositorio.obtenerFiltrosEmail().get(0);
+        assertThat(filtro.contarClaves()).isEqualTo(1);
+        assertThat(filtro.getNegativas()).isGreaterThanOrEqualTo(2);
+    }
+}
@@ -0,0 +1,166 @@
+package com.jefecame.dreams.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.Devolucion;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.service.DevolucionService;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Pruebas de la recuperación del libro de ventas y de la búsqueda por ID en él.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class LibroVentasTest {
+
+    private static final LocalDate DIA = LocalDate.of(2026, 3, 1);
+
+    @TempDir
+    Path directorio;
+
+    private Cliente cliente;
+    private Producto camisa;
+    private List<Venta> ventas;
+
+    @BeforeEach
+    void preparar() {
+        cliente = new Cliente(1, "Ana", "ana@correo.mx");
+        camisa = new ProductoRopa("Camisa", new BigDecimal("250.00"), 100_000, "M", "Rojo");
+        ventas = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ventas.add(completada());
+        }
+    }
+
+    @Test
+    void recortaUnRegistroCortadoAlReabrir() throws IOException {
+        new LibroVentas(directorio).escribirDia(DIA, ventas);
+        Path datos = directorio.resolve("libro-" + DIA + ".dat");
+        truncar(datos, Files.size(datos) - 3);
+
+        LibroVentas libro = new LibroVentas(directorio);
+
+        Venta ultima = ventas.get(ventas.size() - 1);
+        assertThat(buscar(libro, ultima.getId())).isNull();
+        assertThat(buscar(libro, ventas.get(0).getId()).getTotalCentavos()).isEqualTo(ventas.get(0).getTotalCentavos());
+        assertThat(buscar(libro, ventas.get(ventas.size() - 2).getId())).isNotNull();
+        // El registro perdido puede volver a escribirse después de la recuperación
+        assertThat(libro.escribirDia(DIA, List.of(ultima))).isEqualTo(1);
+        assertThat(buscar(new LibroVentas(directorio), ultima.getId())).isNotNull();
+    }
+
+    @Test
+    void descartaLaColaConCrcInvalido() throws IOException {
+        new LibroVentas(directorio).escribirDia(DIA, ventas);
+        Path datos = directorio.resolve("libro-" + DIA + ".dat");
+        long tamano = Files.size(datos);
+        try (RandomAccessFile archivo = new RandomAccessFile(datos.toFile(), "rw")) {
+            archivo.seek(tamano - 1);
+            int ultimo = archivo.read();
+            archivo.seek(tamano - 1);
+            archivo.write(ultimo ^ 0xFF);
+        }
+
+        LibroVentas libro = new LibroVentas(directorio);
+
+        assertThat(Files.size(datos)).isLessThan(tamano);
+        assertThat(buscar(libro, ventas.get(ventas.size() - 1).getId())).isNull();
+        assertThat(buscar(libro, ventas.get(ventas.size() - 2).getId())).isNotNull();
+    }
+
+    @Test
+    void descartaLasEntradasDelIndiceMasAllaDeLosDatos() throws IOException {
+        LibroVentas original = new LibroVentas(directorio);
+        original.escribirDia(DIA, ventas);
+        int entradas = original.contarEntradasIndice();
+        assertThat(entradas).isGreaterThan(2);
+        Path datos = directorio.resolve("libro-" + DIA + ".dat");
+        truncar(datos, Files.size(datos) / 2);
+
+        LibroVentas libro = new LibroVentas(directorio);
+
+        assertThat(libro.contarEntradasIndice()).isLessThan(entradas);
+        assertThat(buscar(libro, ventas.get(0).getId())).isNotNull();
+        assertThat(buscar(libro, ventas.get(ventas.size() - 1).getId())).isNull();
+        int encontradas = 0;
+        for (Venta venta : ventas) {
+            if (buscar(libro, venta.getId()) != null) {
+                encontradas++;
+            }
+        }
+        assertThat(encontradas).isBetween(ventas.size() / 3, ventas.size() - 1);
+    }
+
+    @Test
+    void reconstruyeUnIndicePerdido() throws IOException {
+        LibroVentas original = new LibroVentas(directorio);
+        original.escribirDia(DIA, ventas);
+        int entradas = original.contarEntradasIndice();
+        Files.delete(directorio.resolve("libro-" + DIA + ".idx"));
+
+        LibroVentas libro = new LibroVentas(directorio);
+
+        assertThat(libro.contarEntradasIndice()).isEqualTo(entradas);
+        for (Venta venta : ventas) {
+            assertThat(buscar(libro, venta.getId())).isNotNull();
+        }
+    }
+
+    @Test
+    void buscarPorIdRecurreAlLibroYUnaVentaDescargadaSePuedeDevolver() throws IOException {
+        VentaRepository repositorio = new VentaRepositoryEnMemoria();
+        ProductoRepository productos = new ProductoRepositoryEnMemoria();
+        productos.guardar(camisa);
+        repositorio.setLibro(new LibroVentas(directorio), id -> cliente, productos::buscarPorId);
+        Venta venta = completada();
+        repositorio.guardar(venta);
+        LocalDate dia = venta.getFechaCreacion().toLocalDate();
+        repositorio.sellarParticion(dia);
+        assertThat(repositorio.descargarEnLibro(dia)).isTrue();
+
+        Venta leida = repositorio.buscarPorId(venta.getId());
+        assertThat(leida).isNotNull().isNotSameAs(venta);
+        assertThat(leida.getTotalCentavos()).isEqualTo(venta.getTotalCentavos());
+        // Las ventas del libro no vuelven a memoria por un cambio
+        assertThat(repositorio.actualizar(venta.getId(), leida.getVersion(), v -> { })).isNull();
+        assertThat(repositorio.contarVentas()).isZero();
+
+        DevolucionService devoluciones = new DevolucionService(new DevolucionRepository(), repositorio, productos);
+        int existencias = camisa.getStock();
+        Devolucion devolucion = devoluciones.devolverProducto(venta, venta.getLineas().get(0).getId(), 1, "Talla");
+        assertThat(devolucion.getIdVenta()).isEqualTo(venta.getId());
+        assertThat(camisa.getStock()).isEqualTo(existencias + 1);
+    }
+
+    private Venta completada() {
+        Venta venta = new Venta(cliente);
+        venta.agregarProducto(camisa, 2);
+        venta.finalizarVenta();
+        return venta;
+    }
+
+    private Venta buscar(LibroVentas libro, int id) throws IOException {
+        return libro.buscar(id, clave -> cliente, clave -> camisa);
+    }
+
+    private static void truncar(Path archivo, long tamano) throws IOException {
+        try (RandomAccessFile acceso = new RandomAccessFile(archivo.toFile(), "rw")) {
+            acceso.setLength(tamano);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.jefecame.dreams.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jefecame.dreams.model.Cliente;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de la paginación por clave y de sus cursores.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class PaginaTest {
+
+    @Test
+    void lasInsercionesEntrePaginasNoRepitenNiDesplazanFilas() {
+        ConcurrentSkipListMap<Integer, String> mapa = new ConcurrentSkipListMap<>();
+        for (int id = 10; id <= 100; id += 10) {
+            mapa.put(id, "e" + id);
+        }
+
+        Pagina<String> primera = Pagina.desdeMapa(mapa, null, 4);
+        assertThat(primera.getElementos()).containsExactly("e10", "e20", "e30", "e40");
+        assertThat(primera.hayMas()).isTrue();
+
+        // Una inserción antes del cursor y otra después
+        mapa.put(15, "e15");
+        mapa.put(45, "e45");
+        Pagina<String> segunda = Pagina.desdeMapa(mapa, primera.getSiguienteCursor(), 4);
+        assertThat(segunda.getElementos()).containsExactly("e45", "e50", "e60", "e70");
+
+        Pagina<String> tercera = Pagina.desdeMapa(mapa, segunda.getSiguienteCursor(), 4);
+        assertThat(tercera.getElementos()).containsExactly("e80", "e90", "e100");
+        assertThat(tercera.hayMas()).isFalse();
+        assertThat(tercera.getSiguienteCursor()).isNull();
+    }
+
+    @Test
+    void unaPaginaExactaNoDejaCursorHaciaUnaPaginaVacia() {
+        ConcurrentSkipListMap<Integer, String> mapa = new ConcurrentSkipListMap<>();
+        mapa.put(1, "uno");
+        mapa.put(2, "dos");
+
+        Pagina<String> pagina = Pagina.desdeMapa(mapa, null, 2);
+
+        assertThat(pagina.getElementos()).containsExactly("uno", "dos");
+        assertThat(pagina.hayMas()).isFalse();
+        assertThat(Pagina.desdeMapa(new ConcurrentSkipListMap<Integer, String>(), null, 5).getElementos()).isEmpty();
+    }
+
+    @Test
+    void elCursorEsOpacoYSeValida() {
+        String cursor = Pagina.codificarCursor(1234);
+
+        assertThat(cursor).doesNotContain("1234");
+        assertThat(Pagina.decodificarCursor(cursor)).isEqualTo(1234);
+        assertThatThrownBy(() -> Pagina.decodificarCursor("no es base64!"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Pagina.decodificarCursor(Pagina.codificarCursor(5).substring(2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Pagina.desdeMapa(new ConcurrentSkipListMap<Integer, String>(), null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void elRepositorioRecorreTodosLosClientesUnaSolaVez() {
+        ClienteRepositoryEnMemoria repositorio = new ClienteRepositoryEnMemoria();
+        for (int i = 1; i <= 23; i++) {
+            repositorio.guardar(new Cliente(i, "Cliente " + i, "cliente" + i + "@correo.mx"));
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            Pagina<Cliente> pagina = repositorio.obtenerPagina(cursor, 5);
+            pagina.getElementos().forEach(cliente -> ids.add(cliente.getId()));
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+
+        assertThat(ids).hasSize(23).isSorted().doesNotHaveDuplicates();
+    }
+}
@@ -0,0 +1,136 @@
+package com.jefecame.dreams.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.Venta;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del sellado y la compactación de las particiones diarias de ventas.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class ParticionVentasTest {
+
+    private static final OyenteRepositorio<Venta> SIN_OYENTE = new OyenteRepositorio<>() {
+        @Override
+        public void alGuardar(Venta entidad) {
+        }
+
+        @Override
+        public void alEliminar(Venta entidad) {
+        }
+    };
+
+    private ParticionVentas particion;
+    private Cliente cliente;
+
+    @BeforeEach
+    void preparar() {
+        particion = new ParticionVentas(LocalDate.now());
+        cliente = new Cliente(1, "Ana", "ana@correo.mx");
+    }
+
+    @Test
+    void sellarRechazaVentasEnProceso() {
+        particion.guardar(new Venta(cliente), 0L, SIN_OYENTE);
+
+        assertThatThrownBy(particion::sellar).isInstanceOf(IllegalStateException.class);
+        assertThat(particion.isSellada()).isFalse();
+    }
+
+    @Test
+    void unaParticionSelladaRechazaEscrituras() {
+        Venta venta = cancelada();
+        particion.guardar(venta, 0L, SIN_OYENTE);
+        particion.sellar();
+
+        assertThatThrownBy(() -> particion.guardar(cancelada(), 0L, SIN_OYENTE))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> particion.actualizar(venta.getId(), venta.getVersion(), v -> { }, SIN_OYENTE))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> particion.eliminar(venta.getId(), SIN_OYENTE))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void compactarConservaLasVentasOrdenadasPorId() {
+        List<Venta> guardadas = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Venta venta = cancelada();
+            particion.guardar(venta, 0L, SIN_OYENTE);
+            guardadas.add(venta);
+        }
+        particion.sellar();
+        particion.compactar();
+
+        assertThat(particion.isCompactada()).isTrue();
+        assertThat(particion.contarVentas()).isEqualTo(50);
+        for (Venta venta : guardadas) {
+            assertThat(particion.buscar(venta.getId())).isSameAs(venta);
+        }
+        assertThat(particion.primerasDespuesDe(guardadas.get(9).getId(), 5))
+                .containsExactlyElementsOf(guardadas.subList(10, 15));
+    }
+
+    @Test
+    void sellarYCompactarNoPierdenEscriturasConcurrentes() throws InterruptedException {
+        int hilos = 4;
+        int ventasPorHilo = 2_000;
+        ConcurrentLinkedQueue<Venta> aceptadas = new ConcurrentLinkedQueue<>();
+        CountDownLatch inicio = new CountDownLatch(1);
+        CountDownLatch enMarcha = new CountDownLatch(hilos);
+        List<Thread> escritores = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            Thread escritor = new Thread(() -> {
+                enMarcha.countDown();
+                try {
+                    inicio.await();
+                    for (int i = 0; i < ventasPorHilo; i++) {
+                        Venta venta = cancelada();
+                        try {
+                            particion.guardar(venta, 0L, SIN_OYENTE);
+                            aceptadas.add(venta);
+                        } catch (IllegalStateException sellada) {
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            escritor.start();
+            escritores.add(escritor);
+        }
+        enMarcha.await();
+        inicio.countDown();
+        while (particion.contarVentas() < 500) {
+            Thread.onSpinWait();
+        }
+        particion.sellar();
+        particion.compactar();
+        for (Thread escritor : escritores) {
+            escritor.join();
+        }
+
+        assertThat(particion.contarVentas()).isEqualTo(aceptadas.size());
+        for (Venta venta : aceptadas) {
+            assertThat(particion.buscar(venta.getId())).isSameAs(venta);
+        }
+    }
+
+    private Venta cancelada() {
+        Venta venta = new Venta(cliente);
+        venta.cancelarVenta();
+        return venta;
+    }
+}
@@ -0,0 +1,96 @@
+package com.jefecame.dreams.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.Venta;
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de las consultas y la publicación de filas de la tabla de hechos.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class TablaHechosVentasTest {
+
+    private final Cliente ana = new Cliente(1, "Ana", "ana@correo.mx");
+    private final Cliente luis = new Cliente(2, "Luis", "luis@correo.mx");
+    private final Producto camisa = new ProductoRopa("Camisa", new BigDecimal("10.00"), 1_000_000, "M", "Azul");
+    private final Producto pantalon = new ProductoRopa("Pantalón", new BigDecimal("25.50"), 1_000_000, "32", "Negro");
+
+    @Test
+    void lasConsultasAgreganPorProductoClienteYFecha() {
+        TablaHechosVentas tabla = new TablaHechosVentas();
+        Venta primera = venta(ana, 2, new BigDecimal("1.00"));
+        Venta segunda = venta(luis, 1, BigDecimal.ZERO);
+        tabla.registrarVenta(primera);
+        tabla.registrarVenta(segunda);
+        tabla.registrarVenta(null);
+
+        long fecha = primera.getFechaCreacion().atZone(ZoneId.systemDefault()).toEpochSecond();
+        assertThat(tabla.contarFilas()).isEqualTo(4);
+        assertThat(tabla.unidadesVendidas(camisa.getId())).isEqualTo(3);
+        assertThat(tabla.unidadesVendidas(pantalon.getId())).isEqualTo(2);
+        assertThat(tabla.totalPorClienteCentavos(ana.getId())).isEqualTo(2 * 10_00 + 25_50 - 1_00);
+        assertThat(tabla.totalPorClienteCentavos(luis.getId())).isEqualTo(10_00 + 25_50);
+        assertThat(tabla.totalVendidoCentavos()).isEqualTo(tabla.totalPorClienteCentavos(ana.getId())
+                + tabla.totalPorClienteCentavos(luis.getId()));
+        assertThat(tabla.totalEnRangoCentavos(fecha - 60, fecha + 60)).isEqualTo(tabla.totalVendidoCentavos());
+        assertThat(tabla.totalEnRangoCentavos(fecha + 60, fecha + 120)).isZero();
+    }
+
+    @Test
+    void crecerConservaLasFilasRegistradas() {
+        TablaHechosVentas tabla = new TablaHechosVentas();
+        for (int i = 0; i < 1_500; i++) {
+            tabla.registrarVenta(venta(ana, 1, BigDecimal.ZERO));
+        }
+
+        assertThat(tabla.contarFilas()).isEqualTo(3_000);
+        assertThat(tabla.unidadesVendidas(camisa.getId())).isEqualTo(1_500);
+        assertThat(tabla.totalPorClienteCentavos(ana.getId())).isEqualTo(1_500L * (10_00 + 25_50));
+    }
+
+    @Test
+    void losLectoresSinCandadoSoloVenFilasCompletas() throws InterruptedException {
+        TablaHechosVentas tabla = new TablaHechosVentas();
+        AtomicBoolean terminado = new AtomicBoolean();
+        AtomicReference<String> fallo = new AtomicReference<>();
+        Thread lector = new Thread(() -> {
+            long anterior = 0;
+            while (!terminado.get()) {
+                long unidades = tabla.unidadesVendidas(camisa.getId());
+                long importe = tabla.totalPorClienteCentavos(ana.getId());
+                // Cada venta agrega una unidad de cada producto; una fila a medias rompería la proporción
+                if (unidades < anterior || importe < unidades * 10_00) {
+                    fallo.compareAndSet(null, "unidades=" + unidades + " importe=" + importe);
+                }
+                anterior = unidades;
+            }
+        });
+        lector.start();
+
+        for (int i = 0; i < 20_000; i++) {
+            tabla.registrarVenta(venta(ana, 1, BigDecimal.ZERO));
+        }
+        terminado.set(true);
+        lector.join();
+
+        assertThat(fallo.get()).isNull();
+        assertThat(tabla.unidadesVendidas(camisa.getId())).isEqualTo(20_000);
+    }
+
+    private Venta venta(Cliente cliente, int camisas, BigDecimal descuento) {
+        Venta venta = new Venta(cliente);
+        venta.agregarProducto(camisa, camisas, descuento);
+        venta.agregarProducto(pantalon, 1, BigDecimal.ZERO);
+        return venta;
+    }
+}
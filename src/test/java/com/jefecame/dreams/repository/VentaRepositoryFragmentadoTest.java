@@ -0,0 +1,164 @@
+package com.jefecame.dreams.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Venta;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del enrutamiento por cliente, las consultas dispersas y el
+ * mantenimiento de particiones del repositorio de ventas fragmentado.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class VentaRepositoryFragmentadoTest {
+
+    private static final int FRAGMENTOS = 4;
+    private static final LocalDateTime AYER = LocalDate.now().minusDays(1).atTime(12, 0);
+
+    private List<FragmentoContado> fragmentos;
+    private VentaRepositoryFragmentado repositorio;
+    private List<Cliente> clientes;
+
+    @BeforeEach
+    void preparar() {
+        fragmentos = new ArrayList<>();
+        for (int i = 0; i < FRAGMENTOS; i++) {
+            fragmentos.add(new FragmentoContado());
+        }
+        repositorio = new VentaRepositoryFragmentado(fragmentos, ForkJoinPool.commonPool());
+        clientes = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            clientes.add(new Cliente(i, "Cliente " + i, "cliente" + i + "@correo.mx"));
+        }
+    }
+
+    @Test
+    void lasVentasVivenEnElFragmentoDeSuCliente() {
+        List<Venta> ventas = guardarVentas(60);
+
+        for (Venta venta : ventas) {
+            VentaRepositoryEnMemoria dueno = repositorio.fragmentoDeCliente(venta.getIdCliente());
+            assertThat(dueno.buscarEnMemoria(venta.getId())).isSameAs(venta);
+            for (VentaRepositoryEnMemoria otro : fragmentos) {
+                if (otro != dueno) {
+                    assertThat(otro.buscarEnMemoria(venta.getId())).isNull();
+                }
+            }
+        }
+        Cliente cliente = clientes.get(3);
+        assertThat(repositorio.obtenerVentasPorCliente(cliente))
+                .allMatch(venta -> venta.getIdCliente() == cliente.getId())
+                .hasSize(3);
+    }
+
+    @Test
+    void quienTieneLaVentaSoloConsultaElFragmentoDelCliente() {
+        guardarVentas(20);
+        Venta venta = new Venta(1_000_000, clientes.get(7), AYER, EstadoVenta.PROCESANDO, List.of());
+        repositorio.guardar(venta);
+        VentaRepositoryEnMemoria dueno = repositorio.fragmentoDeCliente(venta.getIdCliente());
+        fragmentos.forEach(fragmento -> fragmento.busquedas.set(0));
+
+        assertThat(repositorio.buscarPorId(venta.getId(), venta.getIdCliente())).isSameAs(venta);
+        Venta actualizada = repositorio.actualizar(venta, venta.getVersion(), Venta::cancelarVenta);
+
+        assertThat(actualizada).isSameAs(venta);
+        assertThat(venta.getEstado()).isEqualTo(EstadoVenta.CANCELADA);
+        for (FragmentoContado fragmento : fragmentos) {
+            if (fragmento != dueno) {
+                assertThat(fragmento.busquedas.get()).isZero();
+            }
+        }
+    }
+
+    @Test
+    void lasConsultasDispersasUnenLosFragmentosEnOrdenDeId() {
+        List<Venta> ventas = guardarVentas(57);
+        List<Integer> ids = ventas.stream().map(Venta::getId).sorted().toList();
+
+        assertThat(repositorio.contarVentas()).isEqualTo(57);
+        assertThat(repositorio.obtenerTodas()).extracting(Venta::getId).containsExactlyElementsOf(ids);
+        assertThat(repositorio.obtenerVentasPorFecha(AYER.minusHours(1), AYER.plusHours(1)))
+                .extracting(Venta::getId).containsExactlyElementsOf(ids);
+        assertThat(repositorio.obtenerVentasPorEstado(EstadoVenta.COMPLETADA)).hasSize(57);
+
+        // Recorrer todas las páginas devuelve cada venta una sola vez y en orden
+        List<Integer> paginadas = new ArrayList<>();
+        String cursor = null;
+        do {
+            Pagina<Venta> pagina = repositorio.obtenerPagina(cursor, 10);
+            assertThat(pagina.getElementos()).hasSizeLessThanOrEqualTo(10);
+            pagina.getElementos().forEach(venta -> paginadas.add(venta.getId()));
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+        assertThat(paginadas).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    void elMantenimientoInformaLosFragmentosFallidosYSePuedeRepetir() {
+        List<Venta> ventas = guardarVentas(40);
+        Venta abierta = new Venta(1_000_000, clientes.get(0), AYER, EstadoVenta.PROCESANDO, List.of());
+        repositorio.guardar(abierta);
+        int fallido = fragmentos.indexOf(repositorio.fragmentoDeCliente(abierta.getIdCliente()));
+        LocalDate dia = AYER.toLocalDate();
+
+        assertThatThrownBy(() -> repositorio.sellarParticion(dia))
+                .isInstanceOfSatisfying(MantenimientoIncompletoException.class, e -> {
+                    assertThat(e.getFallidos()).containsExactly(fallido);
+                    assertThat(e.getCompletados()).hasSize(FRAGMENTOS - 1).doesNotContain(fallido);
+                });
+        for (int i = 0; i < FRAGMENTOS; i++) {
+            assertThat(fragmentos.get(i).obtenerParticion(dia).isSellada()).isEqualTo(i != fallido);
+        }
+
+        repositorio.actualizar(abierta, abierta.getVersion(), Venta::cancelarVenta);
+        assertThat(repositorio.sellarParticion(dia)).isTrue();
+        assertThat(repositorio.compactarParticion(dia)).isTrue();
+        assertThat(repositorio.eliminarParticion(dia)).isTrue();
+        assertThat(repositorio.contarVentas()).isZero();
+        assertThat(ventas).isNotEmpty();
+    }
+
+    private List<Venta> guardarVentas(int cantidad) {
+        List<Venta> ventas = new ArrayList<>(cantidad);
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < cantidad; i++) {
+            int id = 10_000 + i * 7;
+            Venta venta = new Venta(id, clientes.get(i % clientes.size()), AYER.plusSeconds(i),
+                    EstadoVenta.COMPLETADA, List.of());
+            repositorio.guardar(venta);
+            ventas.add(venta);
+            ids.add(id);
+        }
+        assertThat(ids).hasSize(cantidad);
+        return ventas;
+    }
+
+    /**
+     * Fragmento que cuenta las búsquedas por ID que recibe.
+     */
+    private static final class FragmentoContado extends VentaRepositoryEnMemoria {
+
+        private final AtomicInteger busquedas = new AtomicInteger();
+
+        @Override
+        protected Venta buscarEnMemoria(int id) {
+            busquedas.incrementAndGet();
+            return super.buscarEnMemoria(id);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.jefecame.dreams.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.service.VentaService;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del control de versiones del repositorio de ventas.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class VentaRepositoryTest {
+
+    private VentaRepository repositorio;
+    private Cliente cliente;
+
+    @BeforeEach
+    void preparar() {
+        repositorio = new VentaRepositoryEnMemoria();
+        cliente = new Cliente(1, "Ana", "ana@correo.mx");
+    }
+
+    @Test
+    void guardarDaDeAltaConLaPrimeraVersion() {
+        Venta venta = new Venta(cliente);
+
+        repositorio.guardar(venta);
+
+        assertThat(repositorio.buscarPorId(venta.getId())).isSameAs(venta);
+        assertThat(venta.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void guardarRechazaUnaVentaYaRegistrada() {
+        Venta venta = new Venta(cliente);
+        repositorio.guardar(venta);
+
+        assertThatThrownBy(() -> repositorio.guardar(venta))
+                .isInstanceOf(ConflictoVersionException.class);
+        assertThat(venta.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void guardarConVersionEsperadaDetectaUnCambioIntermedio() {
+        Venta venta = new Venta(cliente);
+        repositorio.guardar(venta);
+        long leida = venta.getVersion();
+        repositorio.actualizar(venta.getId(), leida, v -> { });
+
+        assertThatThrownBy(() -> repositorio.guardar(venta, leida))
+                .isInstanceOf(ConflictoVersionException.class)
+                .satisfies(e -> {
+                    ConflictoVersionException conflicto = (ConflictoVersionException) e;
+                    assertThat(conflicto.getVersionEsperada()).isEqualTo(leida);
+                    assertThat(conflicto.getVersionActual()).isEqualTo(leida + 1);
+                });
+    }
+
+    @Test
+    void actualizarConVersionObsoletaNoAplicaElCambio() {
+        Venta venta = new Venta(cliente);
+        repositorio.guardar(venta);
+        long leida = venta.getVersion();
+        repositorio.actualizar(venta.getId(), leida, v -> { });
+
+        assertThatThrownBy(() -> repositorio.actualizar(venta.getId(), leida, Venta::cancelarVenta))
+                .isInstanceOf(ConflictoVersionException.class);
+        assertThat(venta.getEstado()).isEqualTo(EstadoVenta.PROCESANDO);
+        assertThat(venta.getVersion()).isEqualTo(leida + 1);
+    }
+
+    @Test
+    void actualizarUnaVentaInexistenteDevuelveNull() {
+        assertThat(repositorio.actualizar(Integer.MAX_VALUE, 1, v -> { })).isNull();
+    }
+
+    @Test
+    void lineasAgregadasEnParaleloNoSePierden() throws InterruptedException {
+        ProductoRepository productos = new ProductoRepositoryEnMemoria();
+        ClienteRepository clientes = new ClienteRepositoryEnMemoria();
+        clientes.guardar(cliente);
+        Producto producto = new ProductoRopa("Camisa", new BigDecimal("100.00"), 10_000, "M", "Azul");
+        productos.guardar(producto);
+        VentaService servicio = new VentaService(repositorio, productos, clientes);
+        Venta venta = servicio.iniciarNuevaVenta(cliente);
+
+        int hilos = 4;
+        int lineasPorHilo = 200;
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Thread> escritores = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            Thread escritor = new Thread(() -> {
+                try {
+                    inicio.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < lineasPorHilo; j++) {
+                    servicio.agregarProductoAVenta(venta, producto, 1);
+                }
+            });
+            escritor.start();
+            escritores.add(escritor);
+        }
+        inicio.countDown();
+        for (Thread escritor : escritores) {
+            escritor.join();
+        }
+
+        int lineas = hilos * lineasPorHilo;
+        assertThat(venta.contarLineas()).isEqualTo(lineas);
+        assertThat(venta.getVersion()).isEqualTo(1 + lineas);
+        assertThat(venta.getSubtotalCentavos()).isEqualTo(lineas * 100_00L);
+        assertThat(producto.getStock()).isEqualTo(10_000 - lineas);
+    }
+
+    @Test
+    void losDetallesArchivadosConservanLaTasaDeImpuesto() {
+        Producto producto = new ProductoRopa("Camisa", new BigDecimal("250.00"), 10, "M", "Rojo");
+        Venta venta = new Venta(cliente);
+        venta.agregarProducto(producto, 2);
+        venta.finalizarVenta();
+        repositorio.guardar(venta);
+
+        assertThat(repositorio.archivarDetalles(venta, id -> producto)).isTrue();
+
+        DetalleVenta archivado = venta.getLineas().get(0);
+        assertThat(archivado.getTasaImpuesto()).isEqualTo(1600);
+        assertThat(archivado.getImpuestoCentavos()).isEqualTo(8_000);
+    }
+
+    @Test
+    void unaVentaYaArchivadaNoSeVuelveACopiar() {
+        Producto producto = new ProductoRopa("Camisa", new BigDecimal("250.00"), 10, "M", "Rojo");
+        Venta venta = new Venta(cliente);
+        venta.agregarProducto(producto, 2);
+        venta.finalizarVenta();
+        repositorio.guardar(venta);
+
+        assertThat(repositorio.archivarDetalles(venta, id -> producto)).isTrue();
+        List<DetalleVenta> archivadas = venta.getLineas();
+
+        assertThat(repositorio.archivarDetalles(venta, id -> producto)).isFalse();
+        assertThat(venta.getLineas()).isSameAs(archivadas);
+    }
+
+    @Test
+    void losBloquesArchivadosSeLiberanConSuParticion() {
+        Producto producto = new ProductoRopa("Camisa", new BigDecimal("250.00"), 10, "M", "Rojo");
+        Venta venta = new Venta(cliente);
+        venta.agregarProducto(producto, 1);
+        venta.finalizarVenta();
+        repositorio.guardar(venta);
+        repositorio.archivarDetalles(venta, id -> producto);
+        assertThat(repositorio.bytesDetallesArchivados()).isPositive();
+
+        LocalDate dia = venta.getFechaCreacion().toLocalDate();
+        repositorio.sellarParticion(dia);
+        repositorio.eliminarParticion(dia);
+
+        assertThat(repositorio.bytesDetallesArchivados()).isZero();
+    }
+
+    @Test
+    void unOyentePuedeEscribirEnElRepositorioDesdeSuAviso() {
+        List<Long> avisadas = new ArrayList<>();
+        repositorio.agregarOyente(new OyenteRepositorio<>() {
+            @Override
+            public void alGuardar(Venta guardada) {
+                avisadas.add(guardada.getVersion());
+                // El aviso llega fuera del bloqueo de la venta, así que puede volver a escribirla
+                if (guardada.getVersion() == 1) {
+                    repositorio.actualizar(guardada.getId(), 1, v -> v.setCliente(cliente));
+                }
+            }
+
+            @Override
+            public void alEliminar(Venta eliminada) {
+            }
+        });
+
+        Venta venta = new Venta(cliente);
+        repositorio.guardar(venta);
+
+        assertThat(avisadas).containsExactly(1L, 2L);
+        assertThat(repositorio.buscarPorId(venta.getId()).getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void soloSeEliminaUnaParticionSelladaYSeAvisaConSusVentas() {
+        Venta venta = new Venta(cliente);
+        repositorio.guardar(venta);
+        LocalDate dia = venta.getFechaCreacion().toLocalDate();
+        List<Integer> retiradas = new ArrayList<>();
+        repositorio.agregarOyenteParticiones((retirado, ventas) -> ventas.forEach(v -> retiradas.add(v.getId())));
+
+        assertThatThrownBy(() -> repositorio.eliminarParticion(dia)).isInstanceOf(IllegalStateException.class);
+        assertThat(repositorio.buscarPorId(venta.getId())).isSameAs(venta);
+
+        venta.cancelarVenta();
+        repositorio.sellarParticion(dia);
+        assertThat(repositorio.eliminarParticion(dia)).isTrue();
+
+        assertThat(retiradas).containsExactly(venta.getId());
+        assertThat(repositorio.buscarPorId(venta.getId())).isNull();
+    }
+}
@@ -0,0 +1,155 @@
+package com.jefecame.dreams.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.ClienteRepository;
+import com.jefecame.dreams.repository.ClienteRepositoryEnMemoria;
+import com.jefecame.dreams.repository.IndiceActividadVentas;
+import com.jefecame.dreams.repository.ProductoRepository;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
+import com.jefecame.dreams.repository.VentaRepository;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de la cancelación de ventas inactivas por el barredor.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class BarredorVentasTest {
+
+    private static final Duration EDAD_MAXIMA = Duration.ofMinutes(30);
+
+    private RelojManual reloj;
+    private IndiceActividadVentas indice;
+    private ClienteRepository clientes;
+    private ProductoRepository productos;
+    private Cliente cliente;
+    private Producto camisa;
+
+    @BeforeEach
+    void preparar() {
+        reloj = new RelojManual();
+        indice = new IndiceActividadVentas(reloj);
+        clientes = new ClienteRepositoryEnMemoria();
+        productos = new ProductoRepositoryEnMemoria();
+        cliente = new Cliente(1, "Ana", "ana@correo.mx");
+        clientes.guardar(cliente);
+        camisa = new ProductoRopa("Camisa", new BigDecimal("100.00"), 10, "M", "Rojo");
+        productos.guardar(camisa);
+    }
+
+    @Test
+    void cancelaLasVentasInactivasYDevuelveElStock() {
+        VentaRepository ventas = new VentaRepositoryEnMemoria();
+        ventas.agregarOyente(indice);
+        VentaService servicio = new VentaService(ventas, productos, clientes);
+        Venta venta = servicio.iniciarNuevaVenta(cliente);
+        servicio.agregarProductoAVenta(venta, camisa, 4);
+
+        reloj.avanzar(EDAD_MAXIMA.plusMinutes(1));
+        int canceladas = barredor(servicio, ventas).barrer();
+
+        assertThat(canceladas).isEqualTo(1);
+        assertThat(ventas.buscarPorId(venta.getId()).getEstado()).isEqualTo(EstadoVenta.CANCELADA);
+        assertThat(camisa.getStock()).isEqualTo(10);
+        assertThat(indice.contarVentas()).isZero();
+    }
+
+    @Test
+    void noCancelaUnaVentaQueSeModificaDuranteElBarrido() {
+        VentaService[] servicio = new VentaService[1];
+        Venta[] activa = new Venta[1];
+        boolean[] modificada = new boolean[1];
+        // El cliente agrega una línea justo después de que el barredor leyó la versión inactiva
+        VentaRepository ventas = new VentaRepositoryEnMemoria() {
+            @Override
+            public Venta buscarPorId(int id) {
+                if (activa[0] != null && id == activa[0].getId() && !modificada[0]
+                        && Thread.currentThread().getName().equals("barrido")) {
+                    modificada[0] = true;
+                    servicio[0].agregarProductoAVenta(activa[0], camisa, 1);
+                }
+                return super.buscarPorId(id);
+            }
+        };
+        ventas.agregarOyente(indice);
+        servicio[0] = new VentaService(ventas, productos, clientes);
+        Venta venta = servicio[0].iniciarNuevaVenta(cliente);
+        servicio[0].agregarProductoAVenta(venta, camisa, 4);
+        reloj.avanzar(EDAD_MAXIMA.plusMinutes(1));
+        activa[0] = venta;
+
+        int[] canceladas = new int[1];
+        Thread barrido = Thread.ofPlatform().name("barrido")
+                .unstarted(() -> canceladas[0] = barredor(servicio[0], ventas).barrer());
+        barrido.start();
+        assertThat(joinSinInterrupcion(barrido)).isTrue();
+
+        assertThat(modificada[0]).isTrue();
+        assertThat(canceladas[0]).isZero();
+        assertThat(ventas.buscarPorId(venta.getId()).getEstado()).isEqualTo(EstadoVenta.PROCESANDO);
+        assertThat(ventas.buscarPorId(venta.getId()).getLineas()).hasSize(2);
+        assertThat(camisa.getStock()).isEqualTo(5);
+    }
+
+    private BarredorVentas barredor(VentaService servicio, VentaRepository ventas) {
+        return new BarredorVentas(servicio, ventas, indice, EDAD_MAXIMA, Duration.ofMinutes(1),
+                BarredorVentas.TAMANO_LOTE_POR_DEFECTO);
+    }
+
+    private static boolean joinSinInterrupcion(Thread hilo) {
+        try {
+            hilo.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !hilo.isAlive();
+    }
+
+    /**
+     * Reloj que solo avanza cuando la prueba lo indica.
+     */
+    private static final class RelojManual extends Clock {
+
+        private final AtomicLong millis = new AtomicLong(Instant.parse("2026-03-01T12:00:00Z").toEpochMilli());
+
+        void avanzar(Duration duracion) {
+            millis.addAndGet(duracion.toMillis());
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis.get());
+        }
+
+        @Override
+        public long millis() {
+            return millis.get();
+        }
+    }
+}
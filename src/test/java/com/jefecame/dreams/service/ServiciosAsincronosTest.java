@@ -0,0 +1,95 @@
+package com.jefecame.dreams.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.ClienteRepositoryEnMemoria;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de las variantes asíncronas de los servicios.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class ServiciosAsincronosTest {
+
+    private ClienteService clientes;
+    private ProductoService productos;
+    private VentaService ventas;
+    private AtomicInteger tareas;
+
+    @BeforeEach
+    void preparar() {
+        ClienteRepositoryEnMemoria repositorioClientes = new ClienteRepositoryEnMemoria();
+        ProductoRepositoryEnMemoria repositorioProductos = new ProductoRepositoryEnMemoria();
+        clientes = new ClienteService(repositorioClientes);
+        productos = new ProductoService(repositorioProductos);
+        ventas = new VentaService(new VentaRepositoryEnMemoria(), repositorioProductos, repositorioClientes);
+
+        // Cuenta las tareas recibidas y las corre en el ejecutor por defecto
+        tareas = new AtomicInteger();
+        Executor contado = tarea -> {
+            tareas.incrementAndGet();
+            EjecutorServicios.porDefecto().execute(tarea);
+        };
+        clientes.setEjecutor(contado);
+        productos.setEjecutor(contado);
+        ventas.setEjecutor(contado);
+    }
+
+    @Test
+    void lasAltasConcurrentesRecibenIdsDistintos() {
+        List<CompletableFuture<Cliente>> futuros = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futuros.add(clientes.agregarClienteAsync("Cliente " + i, "cliente" + i + "@correo.mx"));
+        }
+        CompletableFuture.allOf(futuros.toArray(CompletableFuture[]::new)).join();
+
+        assertThat(futuros).extracting(futuro -> futuro.join().getId()).doesNotHaveDuplicates();
+        assertThat(clientes.obtenerClientesActivosAsync().join()).hasSize(200);
+        assertThat(tareas.get()).isEqualTo(201);
+    }
+
+    @Test
+    void unaVentaSePuedeEncadenarSinBloquear() {
+        Cliente cliente = clientes.agregarCliente("Ana", "ana@correo.mx");
+        Producto camisa = new ProductoRopa("Camisa", new BigDecimal("100.00"), 10, "M", "Rojo");
+        productos.agregarProductoAsync(camisa).join();
+
+        Venta venta = ventas.iniciarNuevaVentaPorClienteIdAsync(cliente.getId())
+                .thenCompose(nueva -> ventas.agregarProductoAVentaAsync(nueva, camisa, 3)
+                        .thenCompose(agregado -> ventas.finalizarVentaAsync(nueva))
+                        .thenApply(finalizada -> nueva))
+                .join();
+
+        assertThat(ventas.buscarVentaAsync(venta.getId()).join().getEstado()).isEqualTo(EstadoVenta.COMPLETADA);
+        assertThat(productos.validarDisponibilidadAsync(camisa.getId(), 7).join()).isTrue();
+        assertThat(productos.validarDisponibilidadAsync(camisa.getId(), 8).join()).isFalse();
+    }
+
+    @Test
+    void losErroresDeValidacionLleganEnElFuturo() {
+        CompletableFuture<Cliente> futuro = clientes.agregarClienteAsync("", "vacio@correo.mx");
+
+        assertThatThrownBy(futuro::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> clientes.setEjecutor(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
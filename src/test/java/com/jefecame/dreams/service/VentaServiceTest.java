@@ -0,0 +1,84 @@
+package com.jefecame.dreams.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.DetalleVenta;
+import com.jefecame.dreams.model.Producto;
+import com.jefecame.dreams.model.ProductoRopa;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.promocion.MotorPromociones;
+import com.jefecame.dreams.promocion.PromocionNxM;
+import com.jefecame.dreams.repository.ClienteRepositoryEnMemoria;
+import com.jefecame.dreams.repository.ProductoRepositoryEnMemoria;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del cambio de cantidad de una línea de venta.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class VentaServiceTest {
+
+    private VentaService servicio;
+    private Producto camisa;
+    private Venta venta;
+
+    @BeforeEach
+    void preparar() {
+        ClienteRepositoryEnMemoria clientes = new ClienteRepositoryEnMemoria();
+        ProductoRepositoryEnMemoria productos = new ProductoRepositoryEnMemoria();
+        Cliente cliente = new Cliente(1, "Ana", "ana@correo.mx");
+        clientes.guardar(cliente);
+        camisa = new ProductoRopa("Camisa", new BigDecimal("100.00"), 10, "M", "Rojo");
+        productos.guardar(camisa);
+
+        servicio = new VentaService(new VentaRepositoryEnMemoria(), productos, clientes);
+        MotorPromociones motor = new MotorPromociones();
+        LocalDateTime ahora = LocalDateTime.now();
+        motor.agregarPromocion(new PromocionNxM("3x2 camisa", 3, 2, ahora.minusDays(1), ahora.plusDays(1),
+                Set.of(camisa.getId())));
+        servicio.setMotorPromociones(motor);
+        venta = servicio.iniciarNuevaVenta(cliente);
+    }
+
+    @Test
+    void cambiarCantidadRecalculaElDescuentoYElStock() {
+        servicio.agregarProductoAVenta(venta, camisa, 2);
+        DetalleVenta linea = venta.obtenerLinea(0);
+        assertThat(linea.getDescuento()).isEqualByComparingTo(BigDecimal.ZERO);
+
+        assertThat(servicio.cambiarCantidadEnVenta(venta, linea.getId(), 3)).isTrue();
+
+        Venta vigente = servicio.buscarVenta(venta.getId());
+        assertThat(vigente.contarLineas()).isEqualTo(1);
+        DetalleVenta nueva = vigente.obtenerLinea(0);
+        assertThat(nueva.getId()).isNotEqualTo(linea.getId());
+        assertThat(nueva.getCantidad()).isEqualTo(3);
+        // Con tres unidades el 3x2 regala una camisa
+        assertThat(nueva.getDescuento()).isEqualByComparingTo("100.00");
+        assertThat(vigente.getSubtotal()).isEqualByComparingTo("200.00");
+        assertThat(camisa.getStock()).isEqualTo(7);
+    }
+
+    @Test
+    void sinStockLaLineaConservaLaCantidadAnterior() {
+        servicio.agregarProductoAVenta(venta, camisa, 3);
+        DetalleVenta linea = venta.obtenerLinea(0);
+
+        assertThat(servicio.cambiarCantidadEnVenta(venta, linea.getId(), 20)).isFalse();
+
+        Venta vigente = servicio.buscarVenta(venta.getId());
+        assertThat(vigente.contarLineas()).isEqualTo(1);
+        assertThat(vigente.obtenerLinea(0).getCantidad()).isEqualTo(3);
+        assertThat(vigente.getSubtotal()).isEqualByComparingTo("200.00");
+        assertThat(camisa.getStock()).isEqualTo(7);
+        assertThat(servicio.cambiarCantidadEnVenta(venta, -1, 1)).isFalse();
+    }
+}
@@ -0,0 +1,77 @@
+package com.jefecame.dreams.view;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del formato de columnas y de la escritura por bloques del
+ * renderizador de consola.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class RenderizadorConsolaTest {
+
+    private static final String FIN = System.lineSeparator();
+
+    @Test
+    void lasCeldasSeAlineanComoEnPrintf() {
+        FormatoColumnas formato = new FormatoColumnas(5, -8, 10, 16);
+        RenderizadorConsola renderizador = RenderizadorConsola.enMemoria();
+
+        renderizador.fila(formato)
+                .celda(42)
+                .celda("Ana")
+                .celdaMoneda(new BigDecimal("1234.5"))
+                .celdaFecha(LocalDateTime.of(2026, 3, 7, 9, 5));
+
+        String esperado = String.format("%5d %-8s %10s %16s", 42, "Ana", "$1234.50", "2026-03-07T09:05");
+        assertThat(renderizador.extraerTexto()).isEqualTo(esperado);
+        assertThat(formato.getAnchoTotal()).isEqualTo(esperado.length());
+    }
+
+    @Test
+    void unValorMasAnchoQueLaColumnaNoSeRecorta() {
+        RenderizadorConsola renderizador = RenderizadorConsola.enMemoria();
+
+        renderizador.fila(new FormatoColumnas(-3, 2)).celda("Camisa").celda(12345);
+
+        assertThat(renderizador.extraerTexto()).isEqualTo("Camisa 12345");
+    }
+
+    @Test
+    void elCanalRecibeTodasLasFilasEnOrden() {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        RenderizadorConsola renderizador = new RenderizadorConsola(Channels.newChannel(salida));
+        FormatoColumnas formato = new FormatoColumnas(6, -10);
+        StringBuilder esperado = new StringBuilder();
+
+        renderizador.linea("Listado").separador('=', 17);
+        esperado.append("Listado").append(FIN).append("=".repeat(17)).append(FIN);
+        // Suficientes filas para vaciar el búfer varias veces a mitad del listado
+        for (int i = 0; i < 10_000; i++) {
+            renderizador.fila(formato).celda(i).celda("fila" + i);
+            esperado.append(String.format("%6d %-10s", i, "fila" + i)).append(FIN);
+        }
+        renderizador.vaciar();
+
+        assertThat(salida.toString(System.out.charset())).isEqualTo(esperado.toString());
+    }
+
+    @Test
+    void validaElFormatoYElRenderizadorEnMemoriaNoSeVacia() {
+        assertThatThrownBy(() -> new FormatoColumnas()).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FormatoColumnas(4, 0)).isInstanceOf(IllegalArgumentException.class);
+
+        RenderizadorConsola renderizador = RenderizadorConsola.enMemoria();
+        renderizador.vaciar();
+        renderizador.linea("pendiente");
+        assertThatThrownBy(renderizador::vaciar).isInstanceOf(IllegalStateException.class);
+    }
+}
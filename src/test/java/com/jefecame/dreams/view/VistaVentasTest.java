@@ -0,0 +1,117 @@
+package com.jefecame.dreams.view;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jefecame.dreams.model.Cliente;
+import com.jefecame.dreams.model.EstadoVenta;
+import com.jefecame.dreams.model.Venta;
+import com.jefecame.dreams.repository.Pagina;
+import com.jefecame.dreams.repository.VentaRepositoryEnMemoria;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del mantenimiento incremental de las vistas de ventas y de su
+ * comportamiento frente a avisos desordenados.
+ *
+ * @author jefecame
+ * @version 1.0.0
+ */
+class VistaVentasTest {
+
+    private final Cliente cliente = new Cliente(1, "Ana", "ana@correo.mx");
+    private final VistaVentas vista = new VistaVentas(10, new FormatoColumnas(-5, -20, -15, -15, -12));
+
+    @Test
+    void lasVistasSiguenLosCambiosConfirmadosDelRepositorio() {
+        VentaRepositoryEnMemoria repositorio = new VentaRepositoryEnMemoria();
+        repositorio.agregarOyente(vista);
+        Venta abierta = new Venta(1, cliente, LocalDateTime.of(2024, 5, 1, 10, 0), EstadoVenta.PROCESANDO, List.of());
+        Venta cerrada = new Venta(2, cliente, LocalDateTime.of(2024, 5, 1, 11, 0), EstadoVenta.COMPLETADA, List.of());
+        repositorio.guardar(abierta);
+        repositorio.guardar(cerrada);
+
+        assertThat(vista.contarPorEstado(EstadoVenta.PROCESANDO)).isEqualTo(1);
+        assertThat(vista.paginaEnProceso(null, 10).getElementos()).singleElement().asString().startsWith("1 ");
+        assertThat(vista.contarVentasCliente(cliente.getId())).isEqualTo(2);
+        assertThat(vista.contarCompletadasCliente(cliente.getId())).isEqualTo(1);
+
+        repositorio.actualizar(abierta, abierta.getVersion(), Venta::cancelarVenta);
+
+        assertThat(vista.contarPorEstado(EstadoVenta.PROCESANDO)).isZero();
+        assertThat(vista.contarPorEstado(EstadoVenta.CANCELADA)).isEqualTo(1);
+        assertThat(vista.paginaEnProceso(null, 10).getElementos()).isEmpty();
+        assertThat(vista.contarVentasCliente(cliente.getId())).isEqualTo(2);
+        assertThat(vista.contarVentas()).isEqualTo(2);
+    }
+
+    @Test
+    void lasRecientesConservanLasMasNuevasPrimero() {
+        for (int id = 1; id <= 25; id++) {
+            vista.alGuardar(venta(id, EstadoVenta.COMPLETADA, 1));
+        }
+
+        List<String> primera = vista.paginaRecientes(null, 4).getElementos();
+        assertThat(primera).hasSize(4);
+        assertThat(primera.get(0)).startsWith("25 ");
+        assertThat(primera.get(3)).startsWith("22 ");
+
+        int filas = 0;
+        String cursor = null;
+        do {
+            Pagina<String> pagina = vista.paginaRecientes(cursor, 4);
+            filas += pagina.getElementos().size();
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+        // Solo caben las diez más nuevas, pero los totales cuentan todas
+        assertThat(filas).isEqualTo(vista.getCapacidadRecientes());
+        assertThat(vista.contarPorEstado(EstadoVenta.COMPLETADA)).isEqualTo(25);
+    }
+
+    @Test
+    void unAvisoConUnaVersionAnteriorSeDescarta() {
+        vista.alGuardar(venta(1, EstadoVenta.PROCESANDO, 1));
+        vista.alGuardar(venta(1, EstadoVenta.COMPLETADA, 3));
+        vista.alGuardar(venta(1, EstadoVenta.PROCESANDO, 2));
+
+        assertThat(vista.contarPorEstado(EstadoVenta.COMPLETADA)).isEqualTo(1);
+        assertThat(vista.contarPorEstado(EstadoVenta.PROCESANDO)).isZero();
+        assertThat(vista.contarCompletadasCliente(cliente.getId())).isEqualTo(1);
+        assertThat(vista.contarVentasCliente(cliente.getId())).isEqualTo(1);
+        assertThat(vista.paginaEnProceso(null, 10).getElementos()).isEmpty();
+    }
+
+    @Test
+    void unAvisoQueLlegaDespuesDeLaEliminacionNoVuelveAContarLaVenta() {
+        vista.alGuardar(venta(1, EstadoVenta.PROCESANDO, 1));
+        vista.alEliminar(venta(1, EstadoVenta.PROCESANDO, 2));
+        vista.alGuardar(venta(1, EstadoVenta.PROCESANDO, 2));
+
+        assertThat(vista.contarVentas()).isZero();
+        assertThat(vista.contarVentasCliente(cliente.getId())).isZero();
+        assertThat(vista.paginaRecientes(null, 10).getElementos()).isEmpty();
+    }
+
+    @Test
+    void unaParticionRetiradaSaleDeLosTotalesYDescartaLosAvisosTardios() {
+        Venta primera = venta(1, EstadoVenta.COMPLETADA, 1);
+        Venta segunda = venta(2, EstadoVenta.COMPLETADA, 1);
+        vista.alGuardar(primera);
+        vista.alGuardar(segunda);
+
+        vista.alRetirarParticion(primera.getFechaCreacion().toLocalDate(), List.of(primera, segunda));
+        vista.alGuardar(venta(2, EstadoVenta.COMPLETADA, 2));
+
+        assertThat(vista.contarVentas()).isZero();
+        assertThat(vista.totalPorEstadoCentavos(EstadoVenta.COMPLETADA)).isZero();
+        assertThat(vista.contarCompletadasCliente(cliente.getId())).isZero();
+        assertThat(vista.paginaRecientes(null, 10).getElementos()).isEmpty();
+    }
+
+    private Venta venta(int id, EstadoVenta estado, long version) {
+        Venta venta = new Venta(id, cliente, LocalDateTime.of(2024, 5, 1, 10, 0), estado, List.of());
+        venta.setVersion(version);
+        return venta;
+    }
+}